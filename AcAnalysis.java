@@ -0,0 +1,172 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// AC 소신호 주파수 스윕 (보드 선도).
+// MNA 행렬을 Y(jω) = G + jω·B로 나눠 두고(G: 저항/전압원/GMIN, B: 커패시터 C와 인덕터 분기 -L),
+// 로그 간격 주파수 점마다 복소 LU로 푼다. 희소 패턴과 AMD 열 순서는 한 번만 구하고,
+// 작업 스레드마다 복소 LU 하나를 두어 피벗 순서와 도달 집합을 재사용해 재분해한다.
+// 주파수 점은 묶음 단위로 여러 코어에 나눠 풀고, 결과는 주파수 순서대로 WaveformSink에 흘려보낸다
+// (첫 열 = 주파수[Hz], 프로브마다 크기[dB]와 위상[deg] 두 열). 동시에 들고 있는 묶음 수가 정해져 있어
+// 점 개수와 무관하게 메모리 사용량이 일정하다.
+class AcAnalysis {
+    static class Stats {
+        int points;
+        int factorizations;     // 피벗/도달 집합을 새로 구한 분해
+        int refactorizations;   // 심볼릭 단계를 재사용한 분해
+        double startFrequency, stopFrequency;
+    }
+
+    final MnaSystem system;
+    private final double[] g;
+    private final double[] b;
+    private final int[] columnOrder;
+    int inputSource = -1;       // 1V AC로 구동할 전압원 (나머지 전압원은 AC 단락, 전류원은 개방)
+    int batchSize = 64;
+
+    private final List<String> probeNames = new ArrayList<>();
+    private final List<int[]> probeUnknowns = new ArrayList<>();
+
+    AcAnalysis(Netlist netlist) {
+        this.system = new MnaSystem(netlist);
+        system.stampMatrix(0.0);
+        this.g = system.matrix.values.clone();
+        system.stampMatrix(1.0);
+        this.b = system.matrix.values.clone();
+        for (int p = 0; p < b.length; p++) b[p] -= g[p];
+        this.columnOrder = AmdOrdering.order(system.size, system.matrix.colPtr, system.matrix.rowIdx);
+        for (int e = 0; e < netlist.elementCount; e++) {
+            if (netlist.type[e] == ComponentType.VOLTAGE_SOURCE) { inputSource = e; break; }
+        }
+    }
+
+    // 노드 전압 (접지 기준)
+    public void addNodeProbe(String name, int node) {
+        addProbe(name, node - 1, -1);
+    }
+
+    // 소자 양단 전압 (A - B)
+    public void addVoltageProbe(String name, int element) {
+        Netlist nl = system.netlist;
+        addProbe(name, nl.nodeA[element] - 1, nl.nodeB[element] - 1);
+    }
+
+    // 분기 전류 (전압원, 인덕터)
+    public void addBranchProbe(String name, int element) {
+        int br = system.branchOf[element];
+        if (br < 0) throw new IllegalArgumentException("분기 전류가 없는 소자: " + element);
+        addProbe(name, br, -1);
+    }
+
+    private void addProbe(String name, int plus, int minus) {
+        probeNames.add(name);
+        probeUnknowns.add(new int[] { plus, minus });
+    }
+
+    public Stats run(double fStart, double fStop, int points, WaveformSink sink) {
+        return run(fStart, fStop, points, sink, ForkJoinPool.commonPool());
+    }
+
+    public Stats run(double fStart, double fStop, int points, WaveformSink sink, ForkJoinPool pool) {
+        if (inputSource < 0) throw new IllegalStateException("AC 해석에는 전압원이 필요합니다");
+        if (!(fStart > 0) || !(fStop > fStart) || points < 2) {
+            throw new IllegalArgumentException("주파수 범위가 잘못되었습니다: " + fStart + " ~ " + fStop);
+        }
+        int probes = probeNames.size();
+        String[] names = new String[2 * probes];
+        for (int p = 0; p < probes; p++) {
+            names[2 * p] = probeNames.get(p) + " dB";
+            names[2 * p + 1] = probeNames.get(p) + " deg";
+        }
+        int[][] unknowns = probeUnknowns.toArray(new int[0][]);
+        Stats stats = new Stats();
+        stats.points = points;
+        stats.startFrequency = fStart;
+        stats.stopFrequency = fStop;
+        AtomicInteger full = new AtomicInteger(), reuse = new AtomicInteger();
+        ThreadLocal<ComplexSparseLU> luOf = new ThreadLocal<>();
+        sink.begin(names);
+
+        int batches = (points + batchSize - 1) / batchSize;
+        int window = Math.max(2, 2 * pool.getParallelism());
+        ArrayDeque<ForkJoinTask<Batch>> inflight = new ArrayDeque<>();
+        int next = 0;
+        for (int emit = 0; emit < batches; emit++) {
+            while (next < batches && next < emit + window) {
+                int from = next * batchSize, to = Math.min(points, from + batchSize);
+                inflight.add(pool.submit(() -> solveBatch(from, to, fStart, fStop, points, unknowns, luOf, full, reuse)));
+                next++;
+            }
+            Batch done = inflight.poll().join();
+            sink.accept(done.frequency, done.columns, done.frequency.length);
+        }
+        sink.end();
+        stats.factorizations = full.get();
+        stats.refactorizations = reuse.get();
+        return stats;
+    }
+
+    private static class Batch {
+        double[] frequency;
+        double[][] columns;
+    }
+
+    private Batch solveBatch(int from, int to, double fStart, double fStop, int points, int[][] unknowns,
+                             ThreadLocal<ComplexSparseLU> luOf, AtomicInteger full, AtomicInteger reuse) {
+        int n = system.size, count = to - from;
+        Batch out = new Batch();
+        out.frequency = new double[count];
+        out.columns = new double[2 * unknowns.length][count];
+        double[] im = new double[b.length];
+        double[] rhsRe = new double[n], rhsIm = new double[n];
+        double[] xr = new double[n], xm = new double[n];
+        rhsRe[system.branchOf[inputSource]] = 1.0;
+        ComplexSparseLU lu = luOf.get();
+        for (int k = 0; k < count; k++) {
+            double f = fStart * Math.pow(fStop / fStart, (double) (from + k) / (points - 1));
+            double omega = 2 * Math.PI * f;
+            for (int p = 0; p < im.length; p++) im[p] = omega * b[p];
+            if (lu == null) {
+                lu = ComplexSparseLU.factor(system.matrix, g, im, columnOrder);
+                luOf.set(lu);
+                full.incrementAndGet();
+            } else {
+                lu.refactor(g, im);
+                reuse.incrementAndGet();
+            }
+            lu.solve(rhsRe, rhsIm, xr, xm);
+            out.frequency[k] = f;
+            for (int p = 0; p < unknowns.length; p++) {
+                int plus = unknowns[p][0], minus = unknowns[p][1];
+                double re = (plus >= 0 ? xr[plus] : 0) - (minus >= 0 ? xr[minus] : 0);
+                double ii = (plus >= 0 ? xm[plus] : 0) - (minus >= 0 ? xm[minus] : 0);
+                out.columns[2 * p][k] = 10 * Math.log10(re * re + ii * ii);
+                out.columns[2 * p + 1][k] = Math.toDegrees(Math.atan2(ii, re));
+            }
+        }
+        return out;
+    }
+
+    // 최대 이득보다 3dB 낮아지는 첫 주파수 (최대점 이후). 없으면 NaN
+    static double cornerFrequency(WaveformStore response, int probe) {
+        int db = 2 * probe;
+        long peak = 0;
+        for (long i = 1; i < response.sampleCount; i++) {
+            if (response.value(db, i) > response.value(db, peak)) peak = i;
+        }
+        double limit = response.value(db, peak) - 3.0103;
+        for (long i = peak + 1; i < response.sampleCount; i++) {
+            double v = response.value(db, i);
+            if (v <= limit) {
+                // 로그 주파수 축에서 선형 보간
+                double v0 = response.value(db, i - 1);
+                double f0 = Math.log(response.time(i - 1)), f1 = Math.log(response.time(i));
+                return Math.exp(f0 + (f1 - f0) * (v0 - limit) / (v0 - v));
+            }
+        }
+        return Double.NaN;
+    }
+}
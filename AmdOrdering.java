@@ -0,0 +1,385 @@
+import java.util.Arrays;
+
+// 근사 최소 차수(AMD) 순서화. A+A^T 패턴에 대해 fill-in을 줄이는 대칭 순열을 구한다.
+// 몫 그래프(quotient graph), 원소 흡수, 슈퍼노드 검출을 사용하는 CSparse cs_amd 방식.
+final class AmdOrdering {
+    private AmdOrdering() {}
+
+    private static int flip(int i) { return -i - 2; }
+
+    // colPtr/rowIdx: n x n 행렬 패턴. 반환값 perm[k] = k번째로 소거할 열
+    public static int[] order(int n, int[] colPtr, int[] rowIdx) {
+        if (n == 0) return new int[0];
+        if (n <= 2) {
+            int[] p = new int[n];
+            for (int i = 0; i < n; i++) p[i] = i;
+            return p;
+        }
+        // --- C = A + A^T (대각 제외) 구성
+        int[] deg = new int[n];
+        for (int j = 0; j < n; j++) {
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                int i = rowIdx[p];
+                if (i == j) continue;
+                deg[i]++;
+                deg[j]++;
+            }
+        }
+        int[] Cp = new int[n + 1];
+        for (int j = 0; j < n; j++) Cp[j + 1] = Cp[j] + deg[j];
+        int[] fillPos = Arrays.copyOf(Cp, n);
+        int[] raw = new int[Cp[n]];
+        for (int j = 0; j < n; j++) {
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                int i = rowIdx[p];
+                if (i == j) continue;
+                raw[fillPos[j]++] = i;
+                raw[fillPos[i]++] = j;
+            }
+        }
+        // 중복 제거
+        int[] seen = new int[n];
+        Arrays.fill(seen, -1);
+        int cnz = 0;
+        int start = 0;
+        for (int j = 0; j < n; j++) {
+            int end = Cp[j + 1];
+            Cp[j] = cnz;
+            for (int p = start; p < end; p++) {
+                int i = raw[p];
+                if (seen[i] == j) continue;
+                seen[i] = j;
+                raw[cnz++] = i;
+            }
+            start = end;
+        }
+        Cp[n] = cnz;
+
+        int dense = (int) Math.max(16, 10 * Math.sqrt(n));
+        dense = Math.min(n - 2, dense);
+        int nzmax = cnz + cnz / 5 + 2 * n;
+        int[] Ci = Arrays.copyOf(raw, Math.max(nzmax, 1));
+
+        int[] P = new int[n + 1];
+        int[] len = new int[n + 1];
+        int[] nv = new int[n + 1];
+        int[] next = new int[n + 1];
+        int[] head = new int[n + 1];
+        int[] elen = new int[n + 1];
+        int[] degree = new int[n + 1];
+        int[] w = new int[n + 1];
+        int[] hhead = new int[n + 1];
+        int[] last = P;
+
+        // --- 몫 그래프 초기화
+        for (int k = 0; k < n; k++) len[k] = Cp[k + 1] - Cp[k];
+        len[n] = 0;
+        for (int i = 0; i <= n; i++) {
+            head[i] = -1;
+            last[i] = -1;
+            next[i] = -1;
+            hhead[i] = -1;
+            nv[i] = 1;
+            w[i] = 1;
+            elen[i] = 0;
+            degree[i] = len[i];
+        }
+        int mark = wclear(0, 0, w, n);
+        elen[n] = -2;
+        Cp[n] = -1;
+        w[n] = 0;
+        int nel = 0;
+        // --- 차수 리스트 초기화
+        for (int i = 0; i < n; i++) {
+            int d = degree[i];
+            if (d == 0) {
+                elen[i] = -2;
+                nel++;
+                Cp[i] = -1;
+                w[i] = 0;
+            } else if (d > dense) {
+                nv[i] = 0;
+                elen[i] = -1;
+                nel++;
+                Cp[i] = flip(n);
+                nv[n]++;
+            } else {
+                if (head[d] != -1) last[head[d]] = i;
+                next[i] = head[d];
+                head[d] = i;
+            }
+        }
+        int mindeg = 0;
+        int lemax = 0;
+        while (nel < n) {
+            // --- 최소 근사 차수 노드 선택
+            int k = -1;
+            for (; mindeg < n && (k = head[mindeg]) == -1; mindeg++) { }
+            if (next[k] != -1) last[next[k]] = -1;
+            head[mindeg] = next[k];
+            int elenk = elen[k];
+            int nvk = nv[k];
+            nel += nvk;
+
+            // --- 가비지 컬렉션
+            if (elenk > 0 && cnz + mindeg >= nzmax) {
+                for (int j = 0; j < n; j++) {
+                    int p = Cp[j];
+                    if (p >= 0) {
+                        Cp[j] = Ci[p];
+                        Ci[p] = flip(j);
+                    }
+                }
+                int q = 0;
+                for (int p = 0; p < cnz; ) {
+                    int j = flip(Ci[p++]);
+                    if (j >= 0) {
+                        Ci[q] = Cp[j];
+                        Cp[j] = q++;
+                        for (int k3 = 0; k3 < len[j] - 1; k3++) Ci[q++] = Ci[p++];
+                    }
+                }
+                cnz = q;
+            }
+
+            // --- 새 원소 Lk 구성
+            int dk = 0;
+            nv[k] = -nvk;
+            int p = Cp[k];
+            int pk1 = (elenk == 0) ? p : cnz;
+            int pk2 = pk1;
+            for (int k1 = 1; k1 <= elenk + 1; k1++) {
+                int e, pj, ln;
+                if (k1 > elenk) {
+                    e = k;
+                    pj = p;
+                    ln = len[k] - elenk;
+                } else {
+                    e = Ci[p++];
+                    pj = Cp[e];
+                    ln = len[e];
+                }
+                for (int k2 = 1; k2 <= ln; k2++) {
+                    int i = Ci[pj++];
+                    int nvi = nv[i];
+                    if (nvi <= 0) continue;
+                    dk += nvi;
+                    nv[i] = -nvi;
+                    if (pk2 >= Ci.length) Ci = Arrays.copyOf(Ci, Ci.length * 2);
+                    Ci[pk2++] = i;
+                    if (next[i] != -1) last[next[i]] = last[i];
+                    if (last[i] != -1) {
+                        next[last[i]] = next[i];
+                    } else {
+                        head[degree[i]] = next[i];
+                    }
+                }
+                if (e != k) {
+                    Cp[e] = flip(k);
+                    w[e] = 0;
+                }
+            }
+            if (elenk != 0) cnz = pk2;
+            degree[k] = dk;
+            Cp[k] = pk1;
+            len[k] = pk2 - pk1;
+            elen[k] = -2;
+            if (cnz > nzmax) nzmax = Ci.length;
+
+            // --- 집합 차 |Le \ Lk| 계산
+            mark = wclear(mark, lemax, w, n);
+            for (int pk = pk1; pk < pk2; pk++) {
+                int i = Ci[pk];
+                int eln = elen[i];
+                if (eln <= 0) continue;
+                int nvi = -nv[i];
+                int wnvi = mark - nvi;
+                for (p = Cp[i]; p <= Cp[i] + eln - 1; p++) {
+                    int e = Ci[p];
+                    if (w[e] >= mark) {
+                        w[e] -= nvi;
+                    } else if (w[e] != 0) {
+                        w[e] = degree[e] + wnvi;
+                    }
+                }
+            }
+
+            // --- 차수 갱신
+            for (int pk = pk1; pk < pk2; pk++) {
+                int i = Ci[pk];
+                int p1 = Cp[i];
+                int p2 = p1 + elen[i] - 1;
+                int pn = p1;
+                long h = 0;
+                int d = 0;
+                for (p = p1; p <= p2; p++) {
+                    int e = Ci[p];
+                    if (w[e] != 0) {
+                        int dext = w[e] - mark;
+                        if (dext > 0) {
+                            d += dext;
+                            Ci[pn++] = e;
+                            h += e;
+                        } else {
+                            Cp[e] = flip(k);
+                            w[e] = 0;
+                        }
+                    }
+                }
+                elen[i] = pn - p1 + 1;
+                int p3 = pn;
+                int p4 = p1 + len[i];
+                for (p = p2 + 1; p < p4; p++) {
+                    int j = Ci[p];
+                    int nvj = nv[j];
+                    if (nvj <= 0) continue;
+                    d += nvj;
+                    Ci[pn++] = j;
+                    h += j;
+                }
+                if (d == 0) {
+                    // 대량 소거
+                    Cp[i] = flip(k);
+                    int nvi = -nv[i];
+                    dk -= nvi;
+                    nvk += nvi;
+                    nel += nvi;
+                    nv[i] = 0;
+                    elen[i] = -1;
+                } else {
+                    degree[i] = Math.min(degree[i], d);
+                    Ci[pn] = Ci[p3];
+                    Ci[p3] = Ci[p1];
+                    Ci[p1] = k;
+                    len[i] = pn - p1 + 1;
+                    int hh = (int) (h % n);
+                    next[i] = hhead[hh];
+                    hhead[hh] = i;
+                    last[i] = hh;
+                }
+            }
+            degree[k] = dk;
+            lemax = Math.max(lemax, dk);
+            mark = wclear(mark + lemax, lemax, w, n);
+
+            // --- 슈퍼노드 검출
+            for (int pk = pk1; pk < pk2; pk++) {
+                int i = Ci[pk];
+                if (nv[i] >= 0) continue;
+                int hh = last[i];
+                i = hhead[hh];
+                hhead[hh] = -1;
+                for (; i != -1 && next[i] != -1; i = next[i], mark++) {
+                    int ln = len[i];
+                    int eln = elen[i];
+                    for (p = Cp[i] + 1; p <= Cp[i] + ln - 1; p++) w[Ci[p]] = mark;
+                    int jlast = i;
+                    for (int j = next[i]; j != -1; ) {
+                        boolean ok = (len[j] == ln) && (elen[j] == eln);
+                        for (p = Cp[j] + 1; ok && p <= Cp[j] + ln - 1; p++) {
+                            if (w[Ci[p]] != mark) ok = false;
+                        }
+                        if (ok) {
+                            Cp[j] = flip(i);
+                            nv[i] += nv[j];
+                            nv[j] = 0;
+                            elen[j] = -1;
+                            j = next[j];
+                            next[jlast] = j;
+                        } else {
+                            jlast = j;
+                            j = next[j];
+                        }
+                    }
+                }
+            }
+
+            // --- 새 원소 마무리
+            p = pk1;
+            for (int pk = pk1; pk < pk2; pk++) {
+                int i = Ci[pk];
+                int nvi = -nv[i];
+                if (nvi <= 0) continue;
+                nv[i] = nvi;
+                int d = degree[i] + dk - nvi;
+                d = Math.min(d, n - nel - nvi);
+                if (head[d] != -1) last[head[d]] = i;
+                next[i] = head[d];
+                last[i] = -1;
+                head[d] = i;
+                mindeg = Math.min(mindeg, d);
+                degree[i] = d;
+                Ci[p++] = i;
+            }
+            nv[k] = nvk;
+            if ((len[k] = p - pk1) == 0) {
+                Cp[k] = -1;
+                w[k] = 0;
+            }
+            if (elenk != 0) cnz = p;
+        }
+
+        // --- 조립 트리 후위 순회
+        for (int i = 0; i < n; i++) Cp[i] = flip(Cp[i]);
+        for (int j = 0; j <= n; j++) head[j] = -1;
+        for (int j = n; j >= 0; j--) {
+            if (nv[j] > 0) continue;
+            next[j] = head[Cp[j]];
+            head[Cp[j]] = j;
+        }
+        for (int e = n; e >= 0; e--) {
+            if (nv[e] <= 0) continue;
+            if (Cp[e] != -1) {
+                next[e] = head[Cp[e]];
+                head[Cp[e]] = e;
+            }
+        }
+        int[] post = new int[n + 1];
+        int k = 0;
+        for (int i = 0; i <= n; i++) {
+            if (Cp[i] == -1) k = treeDfs(i, k, head, next, post, w);
+        }
+        int[] perm = new int[n];
+        int m = 0;
+        for (int i = 0; i <= n && m < n; i++) {
+            if (post[i] != n) perm[m++] = post[i];
+        }
+        // 순열이 아니면 이식한 알고리즘의 버그다. 자연 순서로 넘어가면 큰 회로에서 fill-in이 폭증하는데도 드러나지 않으므로 멈춘다
+        if (!isPermutation(perm)) throw new IllegalStateException("AMD 순서가 순열이 아닙니다 (n = " + n + ")");
+        return perm;
+    }
+
+    private static int wclear(int mark, int lemax, int[] w, int n) {
+        if (mark < 2 || (mark + lemax < 0)) {
+            for (int k = 0; k < n; k++) if (w[k] != 0) w[k] = 1;
+            mark = 2;
+        }
+        return mark;
+    }
+
+    private static int treeDfs(int j, int k, int[] head, int[] next, int[] post, int[] stack) {
+        int top = 0;
+        stack[0] = j;
+        while (top >= 0) {
+            int p = stack[top];
+            int i = head[p];
+            if (i == -1) {
+                top--;
+                post[k++] = p;
+            } else {
+                head[p] = next[i];
+                stack[++top] = i;
+            }
+        }
+        return k;
+    }
+
+    private static boolean isPermutation(int[] perm) {
+        boolean[] used = new boolean[perm.length];
+        for (int v : perm) {
+            if (v < 0 || v >= perm.length || used[v]) return false;
+            used[v] = true;
+        }
+        return true;
+    }
+}
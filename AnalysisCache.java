@@ -0,0 +1,578 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// 해석 결과 캐시. 같은 회로를 다시 해석하면(바뀐 것 없이 '회로 해석'을 또 누르거나 배치에 같은 설계가 여러 번 있을 때)
+// 저장해 둔 결과를 호출한 넷리스트의 노드/소자 번호로 옮겨 돌려준다.
+//
+// 키는 넷리스트 정규형(Canonical)의 128비트 해시다 (전원 값도 소자 값으로 들어간다). 격자 좌표와 소자 id는 보지 않으므로
+// 회로를 통째로 옮기거나 소자를 다른 순서로 그려도 같은 키가 되고, 부회로 인스턴스는 정의 id 대신 정의 내용의 해시(Subcircuit.digest)로 들어간다.
+// 결과는 정규 번호 순서로 보관한다. 메모리 계층은 어림 바이트 수로 제한한 LRU이고, 디스크 계층(선택)은 키 이름의 파일에
+// 남아 재시작 뒤에도 쓰인다 (파형은 .wave 파일을 옆에 복사). 적중/실패/축출 수는 stats()로 본다.
+// 항목은 파형 저장소 참조를 따로 잡고, 돌려주는 결과마다 참조를 하나씩 더 얹는다. 항목이 밀려나거나 지워지면 항목의 참조를
+// 놓으므로 아무 결과도 쓰지 않는 파형은 그때 정리되고, 호출자는 받은 결과를 다 쓰면 close()해야 한다.
+//   디스크 계층 켜기: -Dcircuit.cache.dir=디렉토리, CircuitBatch --cache 디렉토리. 메모리 한도: -Dcircuit.cache.mb=64
+final class AnalysisCache {
+    static final long DEFAULT_BYTES = Long.getLong("circuit.cache.mb", 64) << 20;
+    static final AnalysisCache SHARED = new AnalysisCache(DEFAULT_BYTES,
+        System.getProperty("circuit.cache.dir") == null ? null : Paths.get(System.getProperty("circuit.cache.dir")));
+
+    private static final int MAGIC = 0x43524553;   // "CRES"
+    private static final int VERSION = 2;
+
+    static final class Stats {
+        long hits, diskHits, misses, evictions, diskWrites, diskErrors;
+        int entries;
+        long bytes, limit;
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "적중 %d (디스크 %d), 실패 %d, 적중률 %.0f%%, 축출 %d, 항목 %d (%.1f / %.0f MB), 디스크 기록 %d (오류 %d)",
+                hits, diskHits, misses, 100 * hitRate(), evictions, entries, bytes / 1048576.0, limit / 1048576.0, diskWrites, diskErrors);
+        }
+    }
+
+    // 넷리스트의 정규형. 소자마다 (종류, 값, 첫 전압원/L/C 표시)와 핀 역할별 이웃 노드 색으로 WL 색을 안정될 때까지 다듬고,
+    // 색 순(같으면 원래 순서)으로 소자를 늘어놓은 뒤 노드는 그 순서에서 처음 나오는 순으로 번호를 다시 매긴다 (접지는 0).
+    // 해시는 이렇게 다시 적은 넷리스트 전체에 대한 것이라 해시가 같으면 번호만 다른 같은 회로이고, 결과를 번호만 바꿔 옮길 수 있다.
+    // 색이 같은 소자(대칭 위치에 있는 같은 값 소자)를 다른 순서로 그리면 다른 키가 될 수 있지만 이때는 적중을 놓칠 뿐이다.
+    // 첫 전압원(등가 저항), 첫 L/C(과도/AC 관측 대상)는 원래 순서에 따라 결과가 달라지므로 표시해서 키에 넣는다.
+    static final class Canonical {
+        static final int MAX_ROUNDS = 64;
+
+        final long h1, h2;
+        final int[] node;       // 원래 노드 -> 정규 노드
+        final int[] element;    // 원래 소자 -> 정규 위치
+
+        private Canonical(long h1, long h2, int[] node, int[] element) {
+            this.h1 = h1;
+            this.h2 = h2;
+            this.node = node;
+            this.element = element;
+        }
+
+        static Canonical of(Netlist nl) {
+            return of(nl, new int[0]);
+        }
+
+        // ports: 따로 표시할 노드 (부회로 정의의 단자, 순서도 키에 들어간다)
+        static Canonical of(Netlist nl, int[] ports) {
+            int n = nl.nodeCount, m = nl.elementCount;
+            long[] base = new long[m];
+            int[] mark = marks(nl);
+            for (int e = 0; e < m; e++) base[e] = mix(valueBits(nl, e) * 31 + nl.type[e].ordinal() * 7L + mark[e]);
+
+            long[] label = new long[n], next = new long[n], color = new long[m], sorted = new long[m];
+            for (int v = 0; v < n; v++) label[v] = mix(v == 0 ? 1 : 0);
+            for (int i = 0; i < ports.length; i++) label[ports[i]] = mix(label[ports[i]] + 2L * (i + 1));
+            // 색 가짓수가 더 늘지 않으면(안정) 멈춘다. 같은 값 소자가 길게 이어진 회로는 지름만큼 돌아야 하므로 상한을 둔다
+            int classes = 0;
+            for (int round = 0; ; round++) {
+                for (int e = 0; e < m; e++) {
+                    long h = base[e] + mix(label[nl.nodeA[e]] + 0x9E3779B97F4A7C15L) + mix(label[nl.nodeB[e]] + 0xC2B2AE3D27D4EB4FL);
+                    if (nl.nodeC[e] >= 0) h += mix(label[nl.nodeC[e]] + 0x165667B19E3779F9L);
+                    color[e] = mix(h);
+                }
+                System.arraycopy(color, 0, sorted, 0, m);
+                Arrays.sort(sorted);
+                int distinct = m == 0 ? 0 : 1;
+                for (int k = 1; k < m; k++) if (sorted[k] != sorted[k - 1]) distinct++;
+                if (distinct <= classes || distinct == m || round == MAX_ROUNDS) break;
+                classes = distinct;
+                for (int v = 0; v < n; v++) next[v] = label[v] * 31;
+                for (int e = 0; e < m; e++) {
+                    next[nl.nodeA[e]] += mix(color[e] ^ 1);
+                    next[nl.nodeB[e]] += mix(color[e] ^ 2);
+                    if (nl.nodeC[e] >= 0) next[nl.nodeC[e]] += mix(color[e] ^ 3);
+                }
+                for (int v = 0; v < n; v++) label[v] = mix(next[v]);
+            }
+
+            // 색의 상위 비트와 원래 번호를 한 long에 담아 기본형 정렬 한 번으로 (색, 번호) 순서를 얻는다
+            int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(1, m - 1)));
+            long low = (1L << bits) - 1;
+            long[] packed = new long[m];
+            for (int e = 0; e < m; e++) packed[e] = (color[e] & ~low) | e;
+            Arrays.sort(packed);
+
+            int[] node = new int[n], element = new int[m];
+            Arrays.fill(node, -1);
+            node[0] = 0;
+            int nextNode = 1;
+            long a = mix(0x243F6A8885A308D3L + n * 31L + m), b = mix(0x13198A2E03707344L + n * 31L + m);
+            for (int k = 0; k < m; k++) {
+                int e = (int) (packed[k] & low);
+                element[e] = k;
+                if (node[nl.nodeA[e]] < 0) node[nl.nodeA[e]] = nextNode++;
+                if (node[nl.nodeB[e]] < 0) node[nl.nodeB[e]] = nextNode++;
+                if (nl.nodeC[e] >= 0 && node[nl.nodeC[e]] < 0) node[nl.nodeC[e]] = nextNode++;
+                long t = nl.type[e].ordinal() * 8L + mark[e];
+                long[] d = nl.block[e] != null ? nl.block[e].digest() : null;
+                long v = d != null ? d[0] : Double.doubleToLongBits(nl.value[e] + 0.0);
+                long w = d != null ? d[1] : v;
+                long pins = ((long) node[nl.nodeA[e]] << 32 | node[nl.nodeB[e]]) * 31 + (nl.nodeC[e] < 0 ? -1 : node[nl.nodeC[e]]);
+                a = step(step(step(a, t), v), pins);
+                b = step(step(step(b, t ^ 0x5A5A), w), pins);
+            }
+            for (int v = 0; v < n; v++) if (node[v] < 0) node[v] = nextNode++;     // 소자가 닿지 않은 노드
+            for (int port : ports) {
+                a = step(a, node[port]);
+                b = step(b, node[port] ^ 0x5A5A);
+            }
+            return new Canonical(a, b, node, element);
+        }
+
+        // 1 = 첫 전압원, 2 = 첫 인덕터, 3 = 첫 커패시터
+        private static int[] marks(Netlist nl) {
+            int[] mark = new int[nl.elementCount];
+            boolean v = false, l = false, c = false;
+            for (int e = 0; e < nl.elementCount; e++) {
+                ComponentType t = nl.type[e];
+                if (t == ComponentType.VOLTAGE_SOURCE && !v) { v = true; mark[e] = 1; }
+                else if (t == ComponentType.INDUCTOR && !l) { l = true; mark[e] = 2; }
+                else if (t == ComponentType.CAPACITOR && !c) { c = true; mark[e] = 3; }
+            }
+            return mark;
+        }
+
+        private static long valueBits(Netlist nl, int e) {
+            if (nl.block[e] != null) return nl.block[e].digest()[0];
+            return Double.doubleToLongBits(nl.value[e] + 0.0);
+        }
+
+        private static long step(long h, long x) {
+            return mix(h * 0x100000001B3L + x);
+        }
+    }
+
+    private static final class Key {
+        final long h1, h2;
+
+        Key(long h1, long h2) {
+            this.h1 = h1;
+            this.h2 = h2;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).h1 == h1 && ((Key) o).h2 == h2;
+        }
+
+        @Override
+        public int hashCode() { return (int) (h1 ^ h1 >>> 32); }
+
+        String fileName() { return String.format("%016x%016x", h1, h2); }
+    }
+
+    // 정규 번호 순서로 보관한 결과. 통계와 파형 저장소는 읽기 전용이라 적중한 결과들이 그대로 나눠 쓴다
+    // (파형은 결과마다 참조를 하나씩 잡는다)
+    private static final class Entry {
+        double R, L, C, tau;
+        String circuitType;
+        boolean hasOpAmp;
+        double[] voltages;          // 정규 노드 순서 (동작점이 없으면 null)
+        double[] currents;          // 정규 소자 순서
+        NewtonSolver.Stats newtonStats;
+        NetworkReduction.Stats reductionStats;
+        TransientSimulator.Stats transientStats;
+        AcAnalysis.Stats acStats;
+        ReducedModel.Stats modelReduction;
+        WaveformStore waveform, acResponse;
+
+        long bytes() {
+            return 256 + 8L * ((voltages == null ? 0 : voltages.length) + (currents == null ? 0 : currents.length));
+        }
+
+        void retain() {
+            if (waveform != null) waveform.retain();
+            if (acResponse != null) acResponse.retain();
+        }
+
+        void release() {
+            if (waveform != null) waveform.close();
+            if (acResponse != null) acResponse.close();
+        }
+    }
+
+    private final long limit;
+    private final Path dir;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Stats stats = new Stats();
+    private long bytes;
+
+    // dir이 null이면 메모리 계층만 쓴다
+    AnalysisCache(long limitBytes, Path dir) {
+        this.limit = limitBytes;
+        this.dir = dir;
+        stats.limit = limitBytes;
+    }
+
+    public CircuitAnalysisResult analyze(Netlist netlist) {
+        return analyze(netlist, CircuitAnalyzer.Monitor.NONE);
+    }
+
+    public CircuitAnalysisResult analyze(Netlist netlist, CircuitAnalyzer.Monitor monitor) {
+        return analyze(netlist, monitor, true);
+    }
+
+    // 캐시에 있으면 옮겨 돌려주고, 없으면 해석해서 넣는다. 취소/오류는 넣지 않는다. 돌려준 결과는 호출자가 close()한다.
+    // 파형 없는 결과(waveforms = false)는 따로 키를 만들어 파형을 기대하는 호출자에게 돌아가지 않게 한다
+    public CircuitAnalysisResult analyze(Netlist netlist, CircuitAnalyzer.Monitor monitor, boolean waveforms) {
+        long t0 = AnalysisMetrics.start();
+        Canonical c = Canonical.of(netlist);
+        long salt = waveforms ? 0 : 0x6E6F57617665L;     // "noWave"
+        Key key = new Key(c.h1 ^ salt, c.h2 ^ salt);
+        Entry hit = lookup(key);
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.CACHE, t0);
+        if (hit != null) return restore(hit, netlist, c);
+
+        CircuitAnalysisResult result = CircuitAnalyzer.analyze(netlist, monitor, waveforms);
+        if (result.operatingPoint == null || result.operatingPoint.netlist == netlist) {
+            t0 = AnalysisMetrics.start();
+            store(key, capture(result, c));
+            AnalysisMetrics.stop(AnalysisMetrics.Phase.CACHE, t0);
+        }
+        return result;
+    }
+
+    public synchronized Stats stats() {
+        Stats copy = new Stats();
+        copy.hits = stats.hits;
+        copy.diskHits = stats.diskHits;
+        copy.misses = stats.misses;
+        copy.evictions = stats.evictions;
+        copy.diskWrites = stats.diskWrites;
+        copy.diskErrors = stats.diskErrors;
+        copy.entries = entries.size();
+        copy.bytes = bytes;
+        copy.limit = limit;
+        return copy;
+    }
+
+    // 메모리 계층만 비운다 (디스크 파일은 남는다)
+    public synchronized void clear() {
+        for (Entry e : entries.values()) e.release();
+        entries.clear();
+        bytes = 0;
+    }
+
+    // 찾은 항목의 파형 참조를 잠금 안에서 잡아 돌려준다 (잠금 밖에서 밀려나도 돌려줄 결과의 파형은 살아 있다)
+    private Entry lookup(Key key) {
+        synchronized (this) {
+            Entry e = entries.get(key);
+            if (e != null) {
+                stats.hits++;
+                e.retain();
+                return e;
+            }
+        }
+        Entry e = dir == null ? null : load(key);
+        synchronized (this) {
+            if (e == null) {
+                stats.misses++;
+                return null;
+            }
+            stats.hits++;
+            stats.diskHits++;
+            admit(key, e);
+            e.retain();
+            return e;
+        }
+    }
+
+    // 디스크에 파형을 복사하는 동안 밀려나도 파일이 지워지지 않게 참조를 하나 더 잡는다
+    private void store(Key key, Entry e) {
+        synchronized (this) {
+            admit(key, e);
+            if (dir != null) e.retain();
+        }
+        if (dir == null) return;
+        try {
+            save(key, e);
+        } finally {
+            e.release();
+        }
+    }
+
+    // 넣고 나서 한도를 넘는 만큼 가장 오래 안 쓴 것부터 뺀다
+    private void admit(Key key, Entry e) {
+        Entry old = entries.put(key, e);
+        if (old != null) {
+            bytes -= old.bytes();
+            old.release();
+        }
+        bytes += e.bytes();
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (bytes > limit && entries.size() > 1 && it.hasNext()) {
+            Entry evicted = it.next().getValue();
+            it.remove();
+            bytes -= evicted.bytes();
+            evicted.release();
+            stats.evictions++;
+        }
+    }
+
+    private static Entry capture(CircuitAnalysisResult r, Canonical c) {
+        Entry e = new Entry();
+        e.R = r.R;
+        e.L = r.L;
+        e.C = r.C;
+        e.tau = r.tau;
+        e.circuitType = r.circuitType;
+        e.hasOpAmp = r.hasOpAmp;
+        e.newtonStats = r.newtonStats;
+        e.reductionStats = r.reductionStats;
+        e.transientStats = r.transientStats;
+        e.acStats = r.acStats;
+        e.modelReduction = r.modelReduction;
+        e.waveform = r.waveform == null ? null : r.waveform.retain();
+        e.acResponse = r.acResponse == null ? null : r.acResponse.retain();
+        CircuitAnalysisResult.OperatingPoint op = r.operatingPoint;
+        if (op != null) {
+            e.voltages = new double[op.nodeVoltages.length];
+            for (int v = 0; v < op.nodeVoltages.length; v++) e.voltages[c.node[v]] = op.nodeVoltages[v];
+            e.currents = new double[op.elementCurrents.length];
+            for (int k = 0; k < op.elementCurrents.length; k++) e.currents[c.element[k]] = op.elementCurrents[k];
+        }
+        return e;
+    }
+
+    // 떠다니는 노드는 정규형에 없는 좌표 정보(부회로 안쪽 노드 표시)를 보므로 호출한 넷리스트에서 다시 구한다.
+    // 파형 참조는 lookup이 잡아 둔 것을 결과에 넘긴다
+    private static CircuitAnalysisResult restore(Entry e, Netlist netlist, Canonical c) {
+        CircuitAnalysisResult r = new CircuitAnalysisResult(e.R, e.L, e.C, e.tau, e.circuitType);
+        r.hasOpAmp = e.hasOpAmp;
+        r.newtonStats = e.newtonStats;
+        r.reductionStats = e.reductionStats;
+        r.transientStats = e.transientStats;
+        r.acStats = e.acStats;
+        r.modelReduction = e.modelReduction;
+        r.waveform = e.waveform;
+        r.acResponse = e.acResponse;
+        r.floatingNodes = netlist.floatingNodes();
+        if (e.voltages != null) {
+            double[] v = new double[netlist.nodeCount];
+            for (int n = 0; n < v.length; n++) v[n] = e.voltages[c.node[n]];
+            double[] i = new double[netlist.elementCount];
+            for (int k = 0; k < i.length; k++) i[k] = e.currents[c.element[k]];
+            r.operatingPoint = new CircuitAnalysisResult.OperatingPoint(netlist, v, i);
+        }
+        return r;
+    }
+
+    // 디스크 계층: <키>.result (+ <키>.tran.wave, <키>.ac.wave). 임시 파일에 쓰고 옮겨서 반쯤 쓴 파일은 보이지 않게 한다.
+    // 파형을 먼저 복사하므로 .result가 보이면 파형도 있다
+    private void save(Key key, Entry e) {
+        String name = key.fileName();
+        try {
+            Files.createDirectories(dir);
+            if (e.waveform != null) Files.copy(e.waveform.path, dir.resolve(name + ".tran.wave"), StandardCopyOption.REPLACE_EXISTING);
+            if (e.acResponse != null) Files.copy(e.acResponse.path, dir.resolve(name + ".ac.wave"), StandardCopyOption.REPLACE_EXISTING);
+            Path tmp = Files.createTempFile(dir, name, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(key.h1);
+                out.writeLong(key.h2);
+                out.writeDouble(e.R);
+                out.writeDouble(e.L);
+                out.writeDouble(e.C);
+                out.writeDouble(e.tau);
+                out.writeUTF(e.circuitType == null ? "" : e.circuitType);
+                out.writeBoolean(e.hasOpAmp);
+                writeArray(out, e.voltages);
+                writeArray(out, e.currents);
+                out.writeBoolean(e.newtonStats != null);
+                if (e.newtonStats != null) {
+                    NewtonSolver.Stats s = e.newtonStats;
+                    out.writeInt(s.iterations);
+                    out.writeInt(s.factorizations);
+                    out.writeInt(s.refactorizations);
+                    out.writeInt(s.luReuses);
+                    out.writeInt(s.dampedSteps);
+                    out.writeInt(s.sourceSteps);
+                    out.writeDouble(s.residual);
+                    out.writeBoolean(s.converged);
+                    out.writeLong(s.nanos);
+                }
+                out.writeBoolean(e.reductionStats != null);
+                if (e.reductionStats != null) {
+                    NetworkReduction.Stats s = e.reductionStats;
+                    for (int v : new int[] { s.parallel, s.series, s.wyeDelta, s.dangling, s.blocks, s.cacheHits, s.fallbackNodes }) out.writeInt(v);
+                }
+                out.writeBoolean(e.transientStats != null);
+                if (e.transientStats != null) {
+                    TransientSimulator.Stats s = e.transientStats;
+                    out.writeInt(s.accepted);
+                    out.writeInt(s.rejected);
+                    out.writeInt(s.factorizations);
+                    out.writeDouble(s.minStep);
+                    out.writeDouble(s.maxStep);
+                    out.writeDouble(s.endTime);
+                }
+                out.writeBoolean(e.acStats != null);
+                if (e.acStats != null) {
+                    AcAnalysis.Stats s = e.acStats;
+                    out.writeInt(s.points);
+                    out.writeInt(s.factorizations);
+                    out.writeInt(s.refactorizations);
+                    out.writeDouble(s.startFrequency);
+                    out.writeDouble(s.stopFrequency);
+                }
+                out.writeBoolean(e.modelReduction != null);
+                if (e.modelReduction != null) {
+                    ReducedModel.Stats s = e.modelReduction;
+                    for (int v : new int[] { s.unknowns, s.order, s.inputs, s.solves, s.deflated }) out.writeInt(v);
+                    out.writeDouble(s.expansion);
+                    out.writeLong(s.nanos);
+                    out.writeDouble(s.dcError);
+                    out.writeDouble(s.acConvergence);
+                    out.writeDouble(s.acError);
+                }
+                out.writeBoolean(e.waveform != null);
+                out.writeBoolean(e.acResponse != null);
+            }
+            Files.move(tmp, dir.resolve(name + ".result"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (this) {
+                stats.diskWrites++;
+            }
+        } catch (IOException ex) {
+            synchronized (this) {
+                stats.diskErrors++;
+            }
+        }
+    }
+
+    // 없거나 읽을 수 없으면 null (깨진 파일은 지운다)
+    private Entry load(Key key) {
+        String name = key.fileName();
+        Path file = dir.resolve(name + ".result");
+        if (!Files.isRegularFile(file)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != key.h1 || in.readLong() != key.h2) {
+                throw new IOException(file + ": 다른 형식이거나 키가 맞지 않습니다");
+            }
+            Entry e = new Entry();
+            e.R = in.readDouble();
+            e.L = in.readDouble();
+            e.C = in.readDouble();
+            e.tau = in.readDouble();
+            String type = in.readUTF();
+            e.circuitType = type.isEmpty() ? null : type;
+            e.hasOpAmp = in.readBoolean();
+            e.voltages = readArray(in);
+            e.currents = readArray(in);
+            if (in.readBoolean()) {
+                NewtonSolver.Stats s = new NewtonSolver.Stats();
+                s.iterations = in.readInt();
+                s.factorizations = in.readInt();
+                s.refactorizations = in.readInt();
+                s.luReuses = in.readInt();
+                s.dampedSteps = in.readInt();
+                s.sourceSteps = in.readInt();
+                s.residual = in.readDouble();
+                s.converged = in.readBoolean();
+                s.nanos = in.readLong();
+                e.newtonStats = s;
+            }
+            if (in.readBoolean()) {
+                NetworkReduction.Stats s = new NetworkReduction.Stats();
+                s.parallel = in.readInt();
+                s.series = in.readInt();
+                s.wyeDelta = in.readInt();
+                s.dangling = in.readInt();
+                s.blocks = in.readInt();
+                s.cacheHits = in.readInt();
+                s.fallbackNodes = in.readInt();
+                e.reductionStats = s;
+            }
+            if (in.readBoolean()) {
+                TransientSimulator.Stats s = new TransientSimulator.Stats();
+                s.accepted = in.readInt();
+                s.rejected = in.readInt();
+                s.factorizations = in.readInt();
+                s.minStep = in.readDouble();
+                s.maxStep = in.readDouble();
+                s.endTime = in.readDouble();
+                e.transientStats = s;
+            }
+            if (in.readBoolean()) {
+                AcAnalysis.Stats s = new AcAnalysis.Stats();
+                s.points = in.readInt();
+                s.factorizations = in.readInt();
+                s.refactorizations = in.readInt();
+                s.startFrequency = in.readDouble();
+                s.stopFrequency = in.readDouble();
+                e.acStats = s;
+            }
+            if (in.readBoolean()) {
+                ReducedModel.Stats s = new ReducedModel.Stats();
+                s.unknowns = in.readInt();
+                s.order = in.readInt();
+                s.inputs = in.readInt();
+                s.solves = in.readInt();
+                s.deflated = in.readInt();
+                s.expansion = in.readDouble();
+                s.nanos = in.readLong();
+                s.dcError = in.readDouble();
+                s.acConvergence = in.readDouble();
+                s.acError = in.readDouble();
+                e.modelReduction = s;
+            }
+            boolean tran = in.readBoolean(), ac = in.readBoolean();
+            try {
+                if (tran) e.waveform = WaveformStore.open(dir.resolve(name + ".tran.wave"));
+                if (ac) e.acResponse = WaveformStore.open(dir.resolve(name + ".ac.wave"));
+            } catch (IOException | RuntimeException ex) {
+                e.release();
+                throw ex;
+            }
+            return e;
+        } catch (IOException | RuntimeException ex) {
+            synchronized (this) {
+                stats.diskErrors++;
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // 다음 저장이 덮어쓴다
+            }
+            return null;
+        }
+    }
+
+    private static void writeArray(DataOutputStream out, double[] a) throws IOException {
+        out.writeInt(a == null ? -1 : a.length);
+        if (a != null) for (double v : a) out.writeDouble(v);
+    }
+
+    private static double[] readArray(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        if (n < 0) return null;
+        double[] a = new double[n];
+        for (int i = 0; i < n; i++) a[i] = in.readDouble();
+        return a;
+    }
+
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
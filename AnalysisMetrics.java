@@ -0,0 +1,274 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 해석 단계별 계측. 꺼져 있으면 각 계측 지점은 volatile 읽기 한 번으로 끝난다.
+// 켜져 있으면 단계마다 잠금 없는 2의 거듭제곱 구간 히스토그램에 시간을 누적하고, 해석 스레드에서 진행 중인
+// 해석(Report)에는 단계 시간, 소자/노드 수, 첫 DC 분해의 nnz와 fill-in, 해석 스레드의 할당량을 기록한다.
+// JDK 11 이상에서 jfr/AnalysisJfr가 함께 빌드되어 있으면 같은 내용을 JFR 이벤트로도 낸다.
+//   켜기: -Dcircuit.metrics=true, 진단 창의 '계측 켜기', CircuitBatch --metrics 파일
+final class AnalysisMetrics {
+    enum Phase {
+        NETLIST("넷리스트 구성"),
+        PARALLEL("병렬 검출"),
+        ASSEMBLY("행렬 조립"),
+        ORDERING("AMD 순서화"),
+        FACTOR("LU 분해"),
+        REFACTOR("LU 재분해"),
+        SOLVE("풀이"),
+        REDUCTION("등가 저항 축약"),
+        SUBCIRCUIT("부회로 축약"),
+        TRANSIENT("과도 해석"),
+        AC("AC 해석"),
+        MODEL_REDUCTION("모델 축소"),
+        CACHE("결과 캐시"),
+        SENSITIVITY("민감도"),
+        WAVEFORM("파형 피라미드/그리기"),
+        FORMAT("결과 표시"),
+        ANALYSIS("해석 전체");
+
+        final String label;
+
+        Phase(String label) { this.label = label; }
+    }
+
+    // 값 v는 구간 64 - nlz(v)에 들어간다 (구간 b = [2^(b-1), 2^b)). 백분위수는 구간 상한으로 근사
+    static final class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(65);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long v) {
+            if (v < 0) v = 0;
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(v));
+            count.incrementAndGet();
+            sum.addAndGet(v);
+            long m;
+            while (v > (m = max.get()) && !max.compareAndSet(m, v)) { }
+        }
+
+        long count() { return count.get(); }
+        long sum() { return sum.get(); }
+        long max() { return max.get(); }
+        double mean() { long c = count.get(); return c == 0 ? 0 : (double) sum.get() / c; }
+
+        long percentile(double q) {
+            long total = count.get();
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(q * total), seen = 0;
+            for (int b = 0; b < 65; b++) {
+                seen += buckets.get(b);
+                if (seen >= rank) return b == 0 ? 0 : Math.min(max.get(), b >= 63 ? Long.MAX_VALUE : (1L << b) - 1);
+            }
+            return max.get();
+        }
+
+        void reset() {
+            for (int b = 0; b < 65; b++) buckets.set(b, 0);
+            count.set(0);
+            sum.set(0);
+            max.set(0);
+        }
+    }
+
+    // 해석 한 번 (CircuitAnalyzer.analyze). 해석 스레드에서만 채운다
+    static final class Report {
+        int elements, nodes, unknowns;
+        long nnz, luNnz;                // 첫 분해(DC 동작점)의 A와 L+U 비영 수
+        long allocatedBytes = -1;       // 해석 스레드 할당량 (-1: JVM이 지원하지 않음). AC 병렬 작업자 몫은 빠진다
+        long totalNanos;
+        final long[] phaseNanos = new long[Phase.values().length];
+        private long startNanos, startAllocated;
+
+        double fillIn() { return nnz > 0 ? (double) luNnz / nnz : 0; }
+    }
+
+    // JFR 등 외부 기록기
+    interface Sink {
+        void phase(Phase phase, long nanos);
+
+        void analysis(Report report);
+    }
+
+    private static volatile boolean enabled = Boolean.getBoolean("circuit.metrics");
+    private static final Histogram[] PHASES = new Histogram[Phase.values().length];
+    static final Histogram ELEMENTS = new Histogram();
+    static final Histogram NODES = new Histogram();
+    static final Histogram NNZ = new Histogram();
+    static final Histogram LU_NNZ = new Histogram();
+    static final Histogram ALLOCATED = new Histogram();
+    private static final ThreadLocal<Report> CURRENT = new ThreadLocal<>();
+    private static volatile Report last;
+    private static final Sink JFR = loadJfr();
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    static {
+        for (int i = 0; i < PHASES.length; i++) PHASES[i] = new Histogram();
+    }
+
+    private AnalysisMetrics() {}
+
+    private static Sink loadJfr() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (Sink) Class.forName("AnalysisJfr").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError unavailable) {
+            return null;
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+        com.sun.management.ThreadMXBean b = (com.sun.management.ThreadMXBean) bean;
+        return b.isThreadAllocatedMemorySupported() && b.isThreadAllocatedMemoryEnabled() ? b : null;
+    }
+
+    static boolean isEnabled() { return enabled; }
+
+    static void setEnabled(boolean on) { enabled = on; }
+
+    static boolean hasJfr() { return JFR != null; }
+
+    // 단계 시작. 꺼져 있으면 0
+    static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    static void stop(Phase phase, long start) {
+        if (start == 0L) return;
+        long nanos = System.nanoTime() - start;
+        PHASES[phase.ordinal()].record(nanos);
+        Report r = CURRENT.get();
+        if (r != null) r.phaseNanos[phase.ordinal()] += nanos;
+        if (JFR != null) JFR.phase(phase, nanos);
+    }
+
+    // 분해 직후 호출. 진행 중인 해석의 첫 분해만 보고서에 남긴다
+    static void factored(int n, long nnz, long luNnz) {
+        if (!enabled) return;
+        Report r = CURRENT.get();
+        if (r == null || r.nnz != 0) return;
+        r.unknowns = n;
+        r.nnz = nnz;
+        r.luNnz = luNnz;
+    }
+
+    static Report beginAnalysis(int elements, int nodes) {
+        if (!enabled) return null;
+        Report r = new Report();
+        r.elements = elements;
+        r.nodes = nodes;
+        r.startAllocated = THREADS != null ? THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+        r.startNanos = System.nanoTime();
+        CURRENT.set(r);
+        return r;
+    }
+
+    static void endAnalysis(Report r) {
+        if (r == null) return;
+        CURRENT.remove();
+        r.totalNanos = System.nanoTime() - r.startNanos;
+        if (r.startAllocated >= 0) r.allocatedBytes = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - r.startAllocated;
+        PHASES[Phase.ANALYSIS.ordinal()].record(r.totalNanos);
+        r.phaseNanos[Phase.ANALYSIS.ordinal()] = r.totalNanos;
+        ELEMENTS.record(r.elements);
+        NODES.record(r.nodes);
+        if (r.nnz > 0) {
+            NNZ.record(r.nnz);
+            LU_NNZ.record(r.luNnz);
+        }
+        if (r.allocatedBytes >= 0) ALLOCATED.record(r.allocatedBytes);
+        last = r;
+        if (JFR != null) JFR.analysis(r);
+    }
+
+    static Histogram phase(Phase p) { return PHASES[p.ordinal()]; }
+
+    static Report lastReport() { return last; }
+
+    static void reset() {
+        for (Histogram h : PHASES) h.reset();
+        for (Histogram h : new Histogram[] { ELEMENTS, NODES, NNZ, LU_NNZ, ALLOCATED }) h.reset();
+        last = null;
+    }
+
+    // 진단 창용 표
+    static String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("계측: %s, JFR 이벤트: %s%n%n", enabled ? "켜짐" : "꺼짐", JFR != null ? "사용 가능" : "없음 (JDK 11+ 빌드 필요)"));
+        sb.append(String.format("%-12s %8s %10s %10s %10s %10s %12s%n", "단계", "횟수", "평균", "p50", "p99", "최대", "합계"));
+        for (Phase p : Phase.values()) {
+            Histogram h = PHASES[p.ordinal()];
+            if (h.count() == 0) continue;
+            sb.append(String.format("%-12s %8d %10s %10s %10s %10s %12s%n", p.label, h.count(), time((long) h.mean()),
+                time(h.percentile(0.5)), time(h.percentile(0.99)), time(h.max()), time(h.sum())));
+        }
+        Report r = last;
+        if (r != null) {
+            sb.append(String.format("%n마지막 해석: 소자 %d, 노드 %d, 미지수 %d, nnz(A) %d, nnz(L+U) %d (fill-in %.2f배), 할당 %s, 전체 %s%n",
+                r.elements, r.nodes, r.unknowns, r.nnz, r.luNnz, r.fillIn(), bytes(r.allocatedBytes), time(r.totalNanos)));
+            for (Phase p : Phase.values()) {
+                if (p != Phase.ANALYSIS && r.phaseNanos[p.ordinal()] > 0) sb.append(String.format("  %-12s %s%n", p.label, time(r.phaseNanos[p.ordinal()])));
+            }
+        }
+        if (ELEMENTS.count() > 0) {
+            sb.append(String.format("%n해석 %d회: 소자 p50 %d / 최대 %d, nnz(A) p50 %d, 할당 p50 %s / 최대 %s%n", ELEMENTS.count(),
+                ELEMENTS.percentile(0.5), ELEMENTS.max(), NNZ.percentile(0.5), bytes(ALLOCATED.percentile(0.5)), bytes(ALLOCATED.max())));
+        }
+        sb.append("\n(분해/풀이는 과도·AC 해석 안의 것도 포함하므로 단계 합계는 겹칠 수 있다)\n");
+        return sb.toString();
+    }
+
+    private static String time(long nanos) {
+        if (nanos < 1_000_000) return String.format("%.1f us", nanos / 1e3);
+        if (nanos < 1_000_000_000L) return String.format("%.2f ms", nanos / 1e6);
+        return String.format("%.2f s", nanos / 1e9);
+    }
+
+    private static String bytes(long b) {
+        if (b < 0) return "-";
+        if (b < 1 << 20) return String.format("%.1f KB", b / 1024.0);
+        return String.format("%.1f MB", b / (1024.0 * 1024));
+    }
+
+    static String toJson() {
+        StringBuilder sb = new StringBuilder("{\n  \"phases\": {");
+        boolean first = true;
+        for (Phase p : Phase.values()) {
+            Histogram h = PHASES[p.ordinal()];
+            if (h.count() == 0) continue;
+            sb.append(first ? "\n" : ",\n").append("    \"").append(p.name().toLowerCase(Locale.ROOT)).append("\": ").append(json(h));
+            first = false;
+        }
+        sb.append("\n  },\n");
+        sb.append("  \"elements\": ").append(json(ELEMENTS)).append(",\n");
+        sb.append("  \"nodes\": ").append(json(NODES)).append(",\n");
+        sb.append("  \"nnz\": ").append(json(NNZ)).append(",\n");
+        sb.append("  \"luNnz\": ").append(json(LU_NNZ)).append(",\n");
+        sb.append("  \"allocatedBytes\": ").append(json(ALLOCATED));
+        Report r = last;
+        if (r != null) {
+            sb.append(String.format(Locale.ROOT, ",%n  \"last\": {\"elements\":%d,\"nodes\":%d,\"unknowns\":%d,\"nnz\":%d,\"luNnz\":%d,"
+                + "\"fillIn\":%.4f,\"allocatedBytes\":%d,\"nanos\":%d}", r.elements, r.nodes, r.unknowns, r.nnz, r.luNnz,
+                r.fillIn(), r.allocatedBytes, r.totalNanos));
+        }
+        return sb.append("\n}\n").toString();
+    }
+
+    private static String json(Histogram h) {
+        return String.format(Locale.ROOT, "{\"count\":%d,\"sum\":%d,\"mean\":%.1f,\"p50\":%d,\"p90\":%d,\"p99\":%d,\"max\":%d}",
+            h.count(), h.sum(), h.mean(), h.percentile(0.5), h.percentile(0.9), h.percentile(0.99), h.max());
+    }
+
+    static void dump(Path file) throws IOException {
+        Files.write(file, toJson().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,224 @@
+import javax.swing.SwingUtilities;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// EDT 밖에서 회로를 해석하는 서비스.
+// submit()은 EDT에서 떠 온 회로 버전(CircuitModel, 참조 하나)을 대기 자리 하나에 넣고, 넷리스트는 해석 스레드가 만든다. 아직 시작하지 않은 요청이 있으면
+// 새 요청이 그 자리를 덮어쓰므로(병합) 연속 편집 중에는 가장 최근 것만 해석되고, 실행 중인 해석은
+// 더 새 요청이 들어오면 취소된다(단계 경계와 과도/AC 결과 청크마다 확인). 해석 스레드는 하나이며
+// 진행 단계와 결과는 SwingUtilities.invokeLater로 리스너에 전달한다.
+// 같은 회로를 다시 해석하면 AnalysisCache.SHARED에 있는 결과를 돌려준다.
+// 전체 해석 대신 다른 작업(Task: 중첩, 민감도)도 같은 자리와 스레드로 돌린다. 넷리스트 구성은 역시 해석 스레드가 하고,
+// 병합/취소 규칙도 같다(작업끼리, 작업과 해석 사이 모두).
+class AnalysisService {
+    // 전체 해석 대신 돌릴 작업. run은 해석 스레드에서 불리며 monitor가 취소를 알리면 CancellationException을 던진다
+    interface Task {
+        Object run(Netlist netlist, CircuitAnalyzer.Monitor monitor);
+
+        // EDT에서 꼭 한 번 불린다: 완료, 오류, 취소(밀려서 시작도 못 한 경우 포함, run.cancelled)
+        void done(Run run);
+    }
+
+    // 해석 요청 하나. 시각은 System.nanoTime 기준
+    static final class Run {
+        final long id;
+        final CircuitModel model;
+        final Task task;                // null이면 전체 해석
+        Netlist netlist;                // 해석 스레드가 model에서 만든다
+        final long submittedAt;
+        int superseded;                 // 이 요청에 병합되어 시작도 못 하고 버려진 이전 요청 수
+        volatile boolean cancelled;
+        long startedAt, finishedAt;
+        CircuitAnalysisResult result;
+        Object output;                  // task의 결과
+        RuntimeException error;
+
+        Run(long id, CircuitModel model, Task task) {
+            this.id = id;
+            this.model = model;
+            this.task = task;
+            this.submittedAt = System.nanoTime();
+        }
+
+        // 제출부터 해석 시작까지 (병합 대기 포함)
+        public long queueNanos() { return startedAt - submittedAt; }
+
+        public long computeNanos() { return finishedAt - startedAt; }
+    }
+
+    // EDT에서 호출된다
+    interface Listener {
+        void progress(Run run, String phase);
+
+        // 전체 해석의 완료 또는 오류. 취소되었거나 그 사이 더 새 요청이 들어온 결과는 전달하지 않는다
+        void finished(Run run);
+    }
+
+    static class Stats {
+        long submitted, completed, failed;
+        long coalesced;                 // 대기 중 새 요청에 밀려 버려진 수
+        long cancelled;                 // 실행 도중 취소된 수
+        long stale;                     // 끝났지만 더 새 요청이 있어 표시하지 않은 수
+        long queueNanos, computeNanos;  // 완료된 해석의 누적 대기/계산 시간
+
+        @Override
+        public String toString() {
+            long done = Math.max(1, completed);
+            return String.format("요청 %d, 완료 %d, 오류 %d, 병합 %d, 취소 %d, 지난 결과 %d, 평균 대기 %.1f ms, 평균 계산 %.1f ms",
+                submitted, completed, failed, coalesced, cancelled, stale, queueNanos / 1e6 / done, computeNanos / 1e6 / done);
+        }
+    }
+
+    private final Listener listener;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "circuit-analysis");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Stats stats = new Stats();
+    private Run pending, running;
+    private boolean scheduled;
+    private long nextId;
+    private volatile long latestId;
+
+    AnalysisService(Listener listener) {
+        this.listener = listener;
+    }
+
+    public Run submit(CircuitModel snapshot) {
+        return submit(snapshot, null);
+    }
+
+    // task: 전체 해석 대신 돌릴 작업 (null이면 전체 해석)
+    public Run submit(CircuitModel snapshot, Task task) {
+        synchronized (this) {
+            Run run = new Run(++nextId, snapshot, task);
+            latestId = run.id;
+            stats.submitted++;
+            if (pending != null) {
+                run.superseded = pending.superseded + 1;
+                stats.coalesced++;
+                dropped(pending);
+            }
+            pending = run;
+            if (running != null) running.cancelled = true;
+            if (!scheduled) {
+                scheduled = true;
+                worker.execute(this::drain);
+            }
+            return run;
+        }
+    }
+
+    // 대기 중인 요청과 실행 중인 해석을 모두 취소
+    public synchronized void cancel() {
+        if (pending != null) {
+            stats.coalesced++;
+            dropped(pending);
+            pending = null;
+        }
+        if (running != null) running.cancelled = true;
+        latestId = nextId + 1;
+    }
+
+    public synchronized Stats stats() {
+        Stats copy = new Stats();
+        copy.submitted = stats.submitted;
+        copy.completed = stats.completed;
+        copy.failed = stats.failed;
+        copy.coalesced = stats.coalesced;
+        copy.cancelled = stats.cancelled;
+        copy.stale = stats.stale;
+        copy.queueNanos = stats.queueNanos;
+        copy.computeNanos = stats.computeNanos;
+        return copy;
+    }
+
+    public void shutdown() {
+        cancel();
+        worker.shutdown();
+    }
+
+    private void drain() {
+        while (true) {
+            Run run;
+            synchronized (this) {
+                run = pending;
+                pending = null;
+                running = run;
+                if (run == null) {
+                    scheduled = false;
+                    return;
+                }
+            }
+            execute(run);
+        }
+    }
+
+    private void execute(Run run) {
+        run.startedAt = System.nanoTime();
+        CircuitAnalyzer.Monitor monitor = new CircuitAnalyzer.Monitor() {
+            @Override
+            public void phase(String name) {
+                SwingUtilities.invokeLater(() -> {
+                    if (!run.cancelled) listener.progress(run, name);
+                });
+            }
+
+            @Override
+            public boolean isCancelled() { return run.cancelled; }
+        };
+        try {
+            run.netlist = Netlist.compile(run.model);
+            if (run.cancelled) throw new CancellationException();
+            if (run.task != null) run.output = run.task.run(run.netlist, monitor);
+            else run.result = AnalysisCache.SHARED.analyze(run.netlist, monitor);
+        } catch (CancellationException ex) {
+            run.cancelled = true;
+        } catch (RuntimeException ex) {
+            run.error = ex;
+        }
+        run.finishedAt = System.nanoTime();
+        boolean deliver;
+        synchronized (this) {
+            running = null;
+            if (run.cancelled) {
+                stats.cancelled++;
+                deliver = false;
+            } else {
+                if (run.error != null) stats.failed++;
+                else stats.completed++;
+                stats.queueNanos += run.queueNanos();
+                stats.computeNanos += run.computeNanos();
+                deliver = run.id == latestId;
+                if (!deliver) stats.stale++;
+            }
+        }
+        if (run.task != null) {
+            // 작업은 버튼 상태 등을 되돌리도록 언제나 알린다. 더 새 요청에 밀린 결과는 취소로 본다
+            SwingUtilities.invokeLater(() -> {
+                if (run.id != latestId) run.cancelled = true;
+                run.task.done(run);
+            });
+        } else if (deliver) {
+            SwingUtilities.invokeLater(() -> {
+                if (run.id == latestId) listener.finished(run);
+                else discard(run);
+            });
+        } else {
+            discard(run);
+        }
+    }
+
+    // 시작하지 못하고 밀려난 요청. 작업이면 취소로 알린다
+    private static void dropped(Run run) {
+        run.cancelled = true;
+        if (run.task != null) SwingUtilities.invokeLater(() -> run.task.done(run));
+    }
+
+    // 전달하지 않는 결과(취소/밀린 요청)의 파형 참조를 놓는다. 전달한 결과는 리스너가 맡는다
+    private static void discard(Run run) {
+        if (run.result != null) run.result.close();
+    }
+}
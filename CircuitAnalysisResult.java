@@ -1,23 +1,52 @@
-import java.awt.geom.Point2D;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-class CircuitAnalysisResult {
+// 과도/AC 파형 저장소는 결과가 참조 하나씩을 갖는다. 결과를 다 쓴 쪽(화면에서 다음 결과로 바뀔 때, 캐시에서 밀려날 때,
+// 취소되어 버려질 때)이 close()로 놓아야 맵핑과 임시 파일이 정리된다
+class CircuitAnalysisResult implements AutoCloseable {
     double R;
     double L;
     double C;
     double tau;
     String circuitType;
-    List<Double> responseData;
-    Map<Point2D, ParallelGroup> parallelGroups = new HashMap<>();
+    WaveformStore waveform;     // 과도 응답 (메모리 맵 파일), 프로브 0이 대표 응답
+    TransientSimulator.Stats transientStats;
+    WaveformStore acResponse;   // AC 스윕 (시간 열 = 주파수[Hz], 프로브 0 = 크기[dB], 1 = 위상[deg])
+    AcAnalysis.Stats acStats;
+    ReducedModel.Stats modelReduction;     // 큰 선형 망을 축약 모델로 풀었을 때만 (과도/AC 모두 축약 모델 결과)
+    NetworkReduction.Stats reductionStats;  // 등가 저항 계산에 쓴 축약 통계
+    IncrementalDc.Stats incrementalStats;   // 실시간 갱신 결과일 때만
+    NewtonSolver.Stats newtonStats;         // DC 동작점 뉴턴 반복 (반복 횟수, 잔차)
+    List<ParallelGroup> parallelGroups = new ArrayList<>();
     boolean hasOpAmp = false;
     double alpha;
     double omega0;
     String dampingType;
+    OperatingPoint operatingPoint;
+    int[] floatingNodes = new int[0];   // 단자가 하나 이하로 걸린 넷리스트 노드
     
     // 병렬 검출은 CircuitEditor.computeParallelGroups()로 일원화
+
+    // 희소 MNA 해석으로 구한 DC 동작점 (노드 0은 접지)
+    static class OperatingPoint {
+        final Netlist netlist;
+        final double[] nodeVoltages;
+        final double[] elementCurrents;
+
+        OperatingPoint(Netlist netlist, double[] nodeVoltages, double[] elementCurrents) {
+            this.netlist = netlist;
+            this.nodeVoltages = nodeVoltages;
+            this.elementCurrents = elementCurrents;
+        }
+
+        // 소자 id의 전류 (넷리스트에 없으면 0)
+        public double currentOf(int id) {
+            for (int e = 0; e < netlist.elementCount; e++) {
+                if (netlist.source[e] == id) return elementCurrents[e];
+            }
+            return 0.0;
+        }
+    }
     
     public CircuitAnalysisResult(double R, double L, double C, double tau, String type) {
         this.R = R;
@@ -25,7 +54,6 @@ class CircuitAnalysisResult {
         this.C = C;
         this.tau = tau;
         this.circuitType = type;
-        this.responseData = calculateResponse(tau);
         
         if ("RLC".equals(type) && L > 0 && C > 0) {
             this.alpha = R / (2 * L);
@@ -40,32 +68,13 @@ class CircuitAnalysisResult {
         }
     }
 
-    private ArrayList<Double> calculateResponse(double tau) {
-        ArrayList<Double> data = new ArrayList<>();
-        for(int i=0; i<=10; i++) {
-            double t = i * tau/10;
-            double val = (circuitType == null) ? 0
-                : (circuitType.equals("RL") ? (1 - Math.exp(-t/tau)) : (1 - Math.exp(-t/tau)));
-            data.add(val);
-        }
-        return data;
-    }
-    
-    public double calculateEquivalentResistance(List<CircuitElement> resistors) {
-        return 1.0 / resistors.stream()
-            .mapToDouble(e -> 1/e.gunny)
-            .sum();
-    }
-    
-    public double calculateEquivalentInductance(List<CircuitElement> inductors) {
-        return 1.0 / inductors.stream()
-            .mapToDouble(e -> 1/e.gunny)
-            .sum();
-    }
-    
-    public double calculateEquivalentCapacitance(List<CircuitElement> capacitors) {
-        return capacitors.stream()
-            .mapToDouble(e -> e.gunny)
-            .sum();
+    // 파형 저장소 참조를 놓는다. 여러 번 불러도 된다
+    @Override
+    public void close() {
+        WaveformStore w = waveform, a = acResponse;
+        waveform = null;
+        acResponse = null;
+        if (w != null) w.close();
+        if (a != null) a.close();
     }
 }
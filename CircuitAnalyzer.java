@@ -0,0 +1,249 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+// Swing에 의존하지 않는 회로 해석 진입점. 편집기와 배치(헤드리스) 실행이 함께 사용한다.
+final class CircuitAnalyzer {
+    private CircuitAnalyzer() {}
+
+    // 해석 단계 알림과 취소 확인. 취소되면 해석은 CancellationException으로 끝난다.
+    // 단계 경계와 과도/AC 결과 청크마다 확인한다.
+    interface Monitor {
+        Monitor NONE = new Monitor() {};
+
+        default void phase(String name) {}
+
+        default boolean isCancelled() { return false; }
+    }
+
+    public static CircuitAnalysisResult analyze(List<CircuitElement> elements) {
+        return analyze(Netlist.compile(elements));
+    }
+
+    // 이미 만들어진 넷리스트로 해석 (편집기는 유지 중인 넷 id로 넷리스트를 만든다).
+    // 넷리스트만 읽으므로 편집기에서 떠 온 사본이면 다른 스레드에서 돌려도 된다.
+    public static CircuitAnalysisResult analyze(Netlist netlist) {
+        return analyze(netlist, Monitor.NONE);
+    }
+
+    public static CircuitAnalysisResult analyze(Netlist netlist, Monitor monitor) {
+        return analyze(netlist, monitor, true);
+    }
+
+    // waveforms가 false면 DC 동작점/등가 저항/유형만 구하고 과도/AC 파형(과 그 축약 모델)은 만들지 않는다 (배치처럼 파형을 읽지 않는 쪽)
+    public static CircuitAnalysisResult analyze(Netlist netlist, Monitor monitor, boolean waveforms) {
+        // 희소 MNA로 DC 동작점 계산 (인덕터 단락, 커패시터 개방). 포화 OP-AMP는 뉴턴-랩슨으로,
+        // 선형 회로는 한 번의 분해/풀이로 끝난다
+        checkpoint(monitor, "DC 동작점");
+        // 계측이 켜져 있으면 이 해석의 단계 시간/할당량을 보고서 하나로 묶는다
+        AnalysisMetrics.Report report = AnalysisMetrics.beginAnalysis(netlist.elementCount, netlist.nodeCount);
+        try {
+            return run(netlist, monitor, waveforms);
+        } finally {
+            AnalysisMetrics.endAnalysis(report);
+        }
+    }
+
+    private static CircuitAnalysisResult run(Netlist netlist, Monitor monitor, boolean waveforms) {
+        NewtonSolver newton = new NewtonSolver(new MnaSystem(netlist));
+        CircuitAnalysisResult.OperatingPoint op = newton.solve();
+
+        // 첫 전압원이 보는 등가 저항 (나머지 전원은 0으로). 직/병렬·Y-Δ 축약으로 구하고,
+        // 직류 경로가 없으면 저항 합으로 대체
+        checkpoint(monitor, "등가 저항 축약");
+        long t0 = AnalysisMetrics.start();
+        double R = netlist.sum(ComponentType.RESISTOR);
+        NetworkReduction reduction = new NetworkReduction(netlist);
+        for (int e = 0; e < netlist.elementCount; e++) {
+            if (netlist.type[e] != ComponentType.VOLTAGE_SOURCE) continue;
+            double z = reduction.sourceImpedance(e, 0)[0];
+            if (z < 1e9) R = z;
+            break;
+        }
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.REDUCTION, t0);
+
+        CircuitAnalysisResult result = classify(netlist, R);
+        result.operatingPoint = op;
+        result.newtonStats = newton.stats;
+        result.floatingNodes = netlist.floatingNodes();
+        result.reductionStats = reduction.stats;
+        if (result.circuitType != null && waveforms) {
+            // 부회로 단자 모델은 DC 전용이므로 L/C가 든 정의는 여기서 펼친다
+            Netlist dynamic = netlist.flatten(Subcircuit::isDynamic);
+            // 큰 선형 망은 PRIMA 축약 모델 하나로 과도/AC 해석을 모두 푼다 (관측량은 같은 소자)
+            ReducedModel rom = null;
+            if (ReducedModel.applies(dynamic)) {
+                checkpoint(monitor, "모델 축소");
+                rom = ReducedModel.reduce(dynamic, ReducedModel.ORDER, 0.0, monitor);
+                int e = probedElement(result, dynamic);
+                if (e >= 0 && dynamic.type[e] == ComponentType.INDUCTOR) rom.addBranchProbe(probeName(dynamic, e), e);
+                else if (e >= 0) rom.addVoltageProbe(probeName(dynamic, e), e);
+                result.modelReduction = rom.stats;
+            }
+            // 과도 파형을 만든 뒤 AC에서 취소/실패하면 결과가 버려지므로 이미 만든 파형을 여기서 놓는다
+            try {
+                checkpoint(monitor, "과도 해석");
+                t0 = AnalysisMetrics.start();
+                simulateResponse(result, dynamic, rom, monitor);
+                AnalysisMetrics.stop(AnalysisMetrics.Phase.TRANSIENT, t0);
+                checkpoint(monitor, "AC 해석");
+                t0 = AnalysisMetrics.start();
+                sweepFrequency(result, dynamic, rom, monitor);
+                AnalysisMetrics.stop(AnalysisMetrics.Phase.AC, t0);
+            } catch (RuntimeException | Error ex) {
+                result.close();
+                throw ex;
+            }
+        }
+        return result;
+    }
+
+    private static void checkpoint(Monitor monitor, String phase) {
+        if (monitor.isCancelled()) throw new CancellationException();
+        monitor.phase(phase);
+    }
+
+    // 결과 청크가 올 때마다 취소를 확인하는 싱크. 취소되면 기록 중인 파일을 닫고 중단한다
+    private static WaveformSink cancellable(WaveformSink sink, Monitor monitor) {
+        if (monitor == Monitor.NONE) return sink;
+        return new WaveformSink() {
+            @Override
+            public void begin(String[] names) { sink.begin(names); }
+
+            @Override
+            public void accept(double[] time, double[][] columns, int count) {
+                if (monitor.isCancelled()) {
+                    sink.end();
+                    throw new CancellationException();
+                }
+                sink.accept(time, columns, count);
+            }
+
+            @Override
+            public void end() { sink.end(); }
+        };
+    }
+
+    // 점진적 DC 세션으로 값 변경/소자 이동을 반영한 가벼운 해석. 과도/AC 해석은 다시 하지 않고,
+    // 등가 저항은 (축약 대신) 첫 전압원의 V/I로 구해 변경 한 번이 밀리초 안에 끝나게 한다.
+    public static CircuitAnalysisResult analyzeLive(IncrementalDc dc) {
+        CircuitAnalysisResult.OperatingPoint op = dc.operatingPoint();
+        Netlist netlist = dc.netlist;
+        double R = netlist.sum(ComponentType.RESISTOR);
+        for (int e = 0; e < netlist.elementCount; e++) {
+            if (netlist.type[e] != ComponentType.VOLTAGE_SOURCE) continue;
+            double current = Math.abs(op.elementCurrents[e]);
+            if (current > 1e-9) R = netlist.value[e] / current;
+            break;
+        }
+        CircuitAnalysisResult result = classify(netlist, R);
+        result.operatingPoint = op;
+        result.incrementalStats = dc.stats;
+        return result;
+    }
+
+    // 소자 구성으로 회로 유형(RL/RC/RLC)과 시정수를 정한다
+    private static CircuitAnalysisResult classify(Netlist netlist, double R) {
+        boolean hasInductor = netlist.count(ComponentType.INDUCTOR) > 0;
+        boolean hasCapacitor = netlist.count(ComponentType.CAPACITOR) > 0;
+        CircuitAnalysisResult result;
+        if(hasInductor && !hasCapacitor) {
+            double L = netlist.sum(ComponentType.INDUCTOR);
+            double tau = (R > 0) ? L / R : 0.001;
+            result = new CircuitAnalysisResult(R, L, 0, tau, "RL");
+        } else if(hasCapacitor && !hasInductor) {
+            double C = netlist.sum(ComponentType.CAPACITOR);
+            double tau = R * C;
+            result = new CircuitAnalysisResult(R, 0, C, tau, "RC");
+        } else if (hasInductor && hasCapacitor) {
+            double L = netlist.sum(ComponentType.INDUCTOR);
+            double C = netlist.sum(ComponentType.CAPACITOR);
+            double tau = (L > 0 && R > 0) ? 1 / (R / (2 * L)) : 0.001;
+            result = new CircuitAnalysisResult(R, L, C, tau, "RLC");
+        } else {
+            result = new CircuitAnalysisResult(R, 0, 0, 0, null);
+        }
+        result.hasOpAmp = netlist.count(ComponentType.OP_AMP) > 0;
+        return result;
+    }
+
+    // 과도/AC 해석이 관측하는 소자: RL은 첫 인덕터(전류), 그 밖은 첫 커패시터(전압). 없으면 -1
+    private static int probedElement(CircuitAnalysisResult result, Netlist netlist) {
+        ComponentType probed = "RL".equals(result.circuitType) ? ComponentType.INDUCTOR : ComponentType.CAPACITOR;
+        for (int e = 0; e < netlist.elementCount; e++) if (netlist.type[e] == probed) return e;
+        return -1;
+    }
+
+    private static String probeName(Netlist netlist, int e) {
+        return netlist.type[e] == ComponentType.INDUCTOR ? "I(L" + e + ")" : "V(C" + e + ")";
+    }
+
+    // 특성 주파수 앞뒤 3디케이드 AC 스윕. 과도 해석과 같은 양을 관측한다.
+    private static void sweepFrequency(CircuitAnalysisResult result, Netlist netlist, ReducedModel rom, Monitor monitor) {
+        double center = result.omega0 > 0 ? result.omega0 / (2 * Math.PI) : 1 / (2 * Math.PI * result.tau);
+        if (!(center > 0) || Double.isInfinite(center) || netlist.count(ComponentType.VOLTAGE_SOURCE) == 0) return;
+        AcAnalysis ac = null;
+        if (rom == null) {
+            ac = new AcAnalysis(netlist);
+            int e = probedElement(result, netlist);
+            if (e >= 0 && netlist.type[e] == ComponentType.INDUCTOR) ac.addBranchProbe(probeName(netlist, e), e);
+            else if (e >= 0) ac.addVoltageProbe(probeName(netlist, e), e);
+        }
+        try {
+            Path file = Files.createTempFile("circuit-ac", ".wave");
+            WaveformStore.Writer writer = new WaveformStore.Writer(file);
+            try {
+                WaveformSink sink = cancellable(writer, monitor);
+                result.acStats = rom != null ? rom.acResponse(center / 1000, center * 1000, 301, sink)
+                    : ac.run(center / 1000, center * 1000, 301, sink);
+            } catch (RuntimeException ex) {
+                discard(writer, file);
+                throw ex;
+            }
+            result.acResponse = WaveformStore.openTemporary(file);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // 계단 응답 과도 해석. RC/RLC는 첫 커패시터 전압, RL은 첫 인덕터 전류를 기록한다.
+    private static void simulateResponse(CircuitAnalysisResult result, Netlist netlist, ReducedModel rom, Monitor monitor) {
+        double tEnd = 5 * result.tau;
+        if (result.omega0 > 0) tEnd = Math.max(tEnd, 6 * Math.PI / result.omega0);
+        if (!(tEnd > 0) || Double.isInfinite(tEnd)) return;
+        TransientSimulator sim = null;
+        if (rom == null) {
+            sim = new TransientSimulator(new MnaSystem(netlist));
+            int e = probedElement(result, netlist);
+            if (e >= 0 && netlist.type[e] == ComponentType.INDUCTOR) sim.addBranchProbe(probeName(netlist, e), e);
+            else if (e >= 0) sim.addVoltageProbe(probeName(netlist, e), e);
+        }
+        try {
+            Path file = Files.createTempFile("circuit-response", ".wave");
+            WaveformStore.Writer writer = new WaveformStore.Writer(file);
+            try {
+                WaveformSink sink = cancellable(writer, monitor);
+                result.transientStats = rom != null ? rom.transientResponse(tEnd, sink) : sim.run(tEnd, sink);
+            } catch (RuntimeException ex) {
+                discard(writer, file);
+                throw ex;
+            }
+            result.waveform = WaveformStore.openTemporary(file);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // 실패/취소된 기록의 임시 파일을 닫고 지운다 (원래 예외를 가리지 않도록 정리 중 오류는 버린다)
+    private static void discard(WaveformStore.Writer writer, Path file) {
+        try {
+            writer.close();
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // 임시 디렉토리 정리에 맡긴다
+        }
+    }
+}
@@ -0,0 +1,294 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+// 헤드리스 배치 해석 CLI. Swing 화면 없이 여러 회로 파일을 모든 코어에서 병렬로 해석하고
+// 결과를 JSON Lines 또는 CSV로 스트리밍한다. SPICE 넷리스트(.cir, .sp, .spice, .net)도 받는다.
+// 결과에는 파형이 들어가지 않으므로 과도/AC 해석은 하지 않는다 (DC 동작점, 등가 저항, 유형, 시정수만 구한다).
+// --metrics를 주면 단계별 계측(AnalysisMetrics)을 켜고 끝날 때 JSON으로 저장한다.
+// 같은 회로(좌표/소자 순서만 다른 것 포함)는 결과 캐시(AnalysisCache)로 한 번만 해석하고, --cache를 주면 그 디렉토리에
+// 결과를 남겨 다음 실행에서도 쓴다. --no-cache는 캐시 없이 모두 해석한다.
+// --sensitivity N을 주면 JSON에 대표 출력(τ, 대표 응답, 전원 전류, OP-AMP 출력)마다 영향이 큰 소자 N개의 수반 민감도를 붙인다.
+//   java CircuitBatch [--format json|csv] [--output 파일] [--threads N] [--metrics 파일] [--cache 디렉토리 | --no-cache] [--sensitivity N] <파일|디렉토리>...
+public class CircuitBatch {
+    private final String format;
+    private final int threads;
+    private final Writer out;
+    private final AnalysisCache cache;     // null이면 캐시 없이
+    private final int sensitivity;         // 출력별 민감도 상위 소자 수 (0이면 생략, JSON만)
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicReference<RuntimeException> writeError = new AtomicReference<>();   // 처음 난 결과 쓰기 오류
+
+    CircuitBatch(String format, int threads, Writer out) {
+        this(format, threads, out, AnalysisCache.SHARED);
+    }
+
+    CircuitBatch(String format, int threads, Writer out, AnalysisCache cache) {
+        this(format, threads, out, cache, 0);
+    }
+
+    CircuitBatch(String format, int threads, Writer out, AnalysisCache cache, int sensitivity) {
+        this.format = format;
+        this.threads = threads;
+        this.out = out;
+        this.cache = cache;
+        this.sensitivity = sensitivity;
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        String format = "json";
+        String output = null;
+        String metrics = null;
+        String cacheDir = null;
+        boolean noCache = false;
+        int sensitivity = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--format": format = value(args, i++).toLowerCase(Locale.ROOT); break;
+                case "--output": output = value(args, i++); break;
+                case "--threads": threads = Math.max(1, count(args, i++)); break;
+                case "--metrics": metrics = value(args, i++); break;
+                case "--cache": cacheDir = value(args, i++); break;
+                case "--no-cache": noCache = true; break;
+                case "--sensitivity": sensitivity = Math.max(0, count(args, i++)); break;
+                default: inputs.add(Paths.get(args[i])); break;
+            }
+        }
+        if (inputs.isEmpty()) usage("해석할 파일이나 디렉토리가 없습니다");
+        if (!(format.equals("json") || format.equals("csv"))) usage("알 수 없는 형식: " + format);
+        if (metrics != null) AnalysisMetrics.setEnabled(true);
+        List<Path> files = collect(inputs);
+        Writer writer = output == null
+            ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+            : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8);
+        try (Writer w = writer) {
+            AnalysisCache cache = noCache ? null
+                : cacheDir == null ? AnalysisCache.SHARED : new AnalysisCache(AnalysisCache.DEFAULT_BYTES, Paths.get(cacheDir));
+            new CircuitBatch(format, threads, w, cache, sensitivity).run(files);
+        }
+        if (metrics != null) AnalysisMetrics.dump(Paths.get(metrics));
+    }
+
+    static List<Path> collect(List<Path> inputs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path p : inputs) {
+            if (Files.isDirectory(p)) {
+                try (Stream<Path> s = Files.walk(p)) {
+                    s.filter(Files::isRegularFile)
+                        .filter(f -> f.getFileName().toString().endsWith(CircuitFile.EXTENSION) || SpiceFile.isSpice(f))
+                        .sorted()
+                        .forEach(files::add);
+                }
+            } else {
+                files.add(p);
+            }
+        }
+        return files;
+    }
+
+    // args[i] 옵션의 값 (없으면 사용법을 보이고 끝낸다)
+    private static String value(String[] args, int i) {
+        if (i + 1 >= args.length || args[i + 1].startsWith("--")) usage(args[i] + " 옵션에 값이 없습니다");
+        return args[i + 1];
+    }
+
+    private static int count(String[] args, int i) {
+        String v = value(args, i);
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException ex) {
+            usage(args[i] + " 옵션의 값이 정수가 아닙니다: " + v);
+            return 0;
+        }
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("사용법: java CircuitBatch [--format json|csv] [--output 파일] [--threads N] [--metrics 파일] [--cache 디렉토리 | --no-cache] [--sensitivity N] <파일|디렉토리>...");
+        System.exit(2);
+    }
+
+    void run(List<Path> files) throws IOException, InterruptedException {
+        if (format.equals("csv")) emit("file,type,R,L,C,tau,nodes,elements,opAmp,millis,error");
+        long t0 = System.nanoTime();
+        // 작업 훔치기 풀 + 동시 진행 작업 수 제한 (파일 목록이 커도 메모리 일정)
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Semaphore inFlight = new Semaphore(threads * 4);
+        for (Path file : files) {
+            inFlight.acquire();
+            pool.execute(() -> {
+                try {
+                    process(file);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        out.flush();
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        int total = succeeded.get() + failed.get();
+        System.err.printf(Locale.ROOT, "%d개 회로 해석 (성공 %d, 실패 %d), %.3f s, %.1f circuits/sec%n",
+            total, succeeded.get(), failed.get(), seconds, seconds > 0 ? total / seconds : 0.0);
+        if (writeError.get() != null) System.err.println("결과 쓰기 실패: " + writeError.get().getMessage());
+        if (cache != null) System.err.println("결과 캐시: " + cache.stats());
+    }
+
+    // 해석하고 결과 한 줄을 쓴다. 해석에 실패하면 오류 줄을, 줄을 쓰지 못하면(출력 오류) 그 회로를 실패로 센다
+    private void process(Path file) {
+        long start = System.nanoTime();
+        String line;
+        boolean ok;
+        try {
+            line = analyze(file, start);
+            ok = true;
+        } catch (Exception ex) {
+            line = format(file.toString(), null, 0, (System.nanoTime() - start) / 1e6, String.valueOf(ex.getMessage()));
+            ok = false;
+        }
+        try {
+            emit(line);
+            (ok ? succeeded : failed).incrementAndGet();
+        } catch (RuntimeException ex) {
+            failed.incrementAndGet();
+            writeError.compareAndSet(null, ex);
+        }
+    }
+
+    private String analyze(Path file, long start) throws Exception {
+        Netlist netlist;
+        int elements;
+        if (SpiceFile.isSpice(file)) {
+            // SPICE 넷리스트는 편집기 좌표 없이 바로 넷리스트로 읽는다
+            netlist = SpiceFile.read(file);
+            elements = netlist.elementCount;
+        } else {
+            // 파일의 부회로 정의는 넷리스트를 만들 때까지만 목록에 둔다 (넷리스트가 정의 객체를 직접 든다)
+            try (Subcircuit.Scope scope = new Subcircuit.Scope()) {
+                List<CircuitElement> list = CircuitFile.read(file, scope);
+                netlist = Netlist.compile(list);
+                elements = list.size();
+            }
+        }
+        // 배치는 파형을 읽지 않으므로 과도/AC 해석(과 임시 파형 파일)을 건너뛴다
+        try (CircuitAnalysisResult r = cache != null ? cache.analyze(netlist, CircuitAnalyzer.Monitor.NONE, false)
+                : CircuitAnalyzer.analyze(netlist, CircuitAnalyzer.Monitor.NONE, false)) {
+            Sensitivity s = sensitivity > 0 && format.equals("json")
+                ? Sensitivity.analyze(netlist, r, Sensitivity.defaultOutputs(netlist, r)) : null;
+            double millis = (System.nanoTime() - start) / 1e6;
+            String line = format(file.toString(), r, elements, millis, null);
+            return s == null ? line : line.substring(0, line.length() - 1) + ",\"sensitivity\":" + sensitivityJson(s) + '}';
+        }
+    }
+
+    private String format(String file, CircuitAnalysisResult r, int elements, double millis, String error) {
+        int nodes = (r != null && r.operatingPoint != null) ? r.operatingPoint.netlist.nodeCount : 0;
+        String type = r == null ? null : r.circuitType;
+        StringBuilder sb = new StringBuilder(160);
+        if (format.equals("csv")) {
+            sb.append(csv(file)).append(',').append(type == null ? "" : type);
+            for (double v : values(r)) sb.append(',').append(r == null ? "" : csvNumber(v));
+            sb.append(',').append(nodes).append(',').append(elements)
+              .append(',').append(r != null && r.hasOpAmp)
+              .append(',').append(String.format(Locale.ROOT, "%.3f", millis))
+              .append(',').append(error == null ? "" : csv(error));
+        } else {
+            sb.append("{\"file\":").append(json(file))
+              .append(",\"type\":").append(type == null ? "null" : json(type));
+            String[] names = { "R", "L", "C", "tau" };
+            double[] vals = values(r);
+            for (int i = 0; i < names.length; i++) {
+                sb.append(",\"").append(names[i]).append("\":").append(r == null ? "null" : number(vals[i]));
+            }
+            sb.append(",\"nodes\":").append(nodes)
+              .append(",\"elements\":").append(elements)
+              .append(",\"opAmp\":").append(r != null && r.hasOpAmp)
+              .append(",\"millis\":").append(String.format(Locale.ROOT, "%.3f", millis))
+              .append(",\"error\":").append(error == null ? "null" : json(error));
+            sb.append('}');
+        }
+        return sb.toString();
+    }
+
+    // {"출력 이름":{"value":y,"top":[{"element":e,"type":..,"value":p,"derivative":dy/dp,"normalized":(p/y)dy/dp},...]},...}
+    private String sensitivityJson(Sensitivity s) {
+        StringBuilder sb = new StringBuilder("{");
+        for (int o = 0; o < s.outputs.length; o++) {
+            if (o > 0) sb.append(',');
+            sb.append(json(s.outputs[o].name)).append(":{\"value\":").append(number(s.values[o])).append(",\"top\":[");
+            int[] order = s.available(o) ? s.ranked(o) : new int[0];
+            for (int k = 0; k < order.length && k < sensitivity; k++) {
+                int e = order[k];
+                if (k > 0) sb.append(',');
+                sb.append("{\"element\":").append(e)
+                  .append(",\"type\":").append(json(s.netlist.type[e].name()))
+                  .append(",\"value\":").append(number(s.netlist.value[e]))
+                  .append(",\"derivative\":").append(number(s.derivatives[o][e]))
+                  .append(",\"normalized\":").append(number(s.normalized(o, e)))
+                  .append('}');
+            }
+            sb.append("]}");
+        }
+        return sb.append('}').toString();
+    }
+
+    private static double[] values(CircuitAnalysisResult r) {
+        return r == null ? new double[4] : new double[] { r.R, r.L, r.C, r.tau };
+    }
+
+    // JSON 숫자 (NaN/무한대는 null)
+    private static String number(double v) {
+        return Double.isFinite(v) ? Double.toString(v) : "null";
+    }
+
+    // CSV 숫자 (NaN/무한대는 빈 칸)
+    private static String csvNumber(double v) {
+        return Double.isFinite(v) ? Double.toString(v) : "";
+    }
+
+    private static String json(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+
+    private static String csv(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    private void emit(String line) {
+        synchronized (out) {
+            try {
+                out.write(line);
+                out.write('\n');
+            } catch (IOException ex) {
+                throw new java.io.UncheckedIOException(ex);
+            }
+        }
+    }
+}
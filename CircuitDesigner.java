@@ -3,14 +3,20 @@ import java.awt.*;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.BiFunction;
 
 public class CircuitDesigner extends JFrame {
     private CircuitEditor editor;
     private JPanel controlPanel;
-    private JButton resistorBtn, inductorBtn, capacitorBtn, wireBtn,OP_AMPBtn, voltageSourceBtn, deleteBtn, solveBtn;
-    private JTextField voltageField;
+    private JButton resistorBtn, inductorBtn, capacitorBtn, wireBtn,OP_AMPBtn, voltageSourceBtn, currentSourceBtn, defineSubBtn, placeSubBtn, openBtn, saveBtn, spiceOpenBtn, spiceSaveBtn, deleteBtn, undoBtn, redoBtn, solveBtn, superpositionBtn, sensitivityBtn, diagnosticsBtn;
     private JTextArea resultArea;
+    private WaveformPanel transientPanel, acPanel;
+    private CircuitAnalysisResult shownResult;     // 파형 탭에 보이는 전체 해석 결과 (다음 결과로 바뀔 때 닫는다)
+    private JCheckBox autoAnalyzeBox;
+    private AnalysisService analysis;
+    private Timer autoAnalyzeTimer;
+    private String lastResultText = "";
 
     public CircuitDesigner() {
         setTitle("회로 설계 및 분석 마스터 - 부제: LIKE 유미나이, 세미나이");
@@ -29,9 +35,20 @@ public class CircuitDesigner extends JFrame {
         wireBtn = new JButton("전선 추가");
         OP_AMPBtn = new JButton("OPAMP 추가");
         voltageSourceBtn = new JButton("전압원 추가");
+        currentSourceBtn = new JButton("전류원 추가");
+        defineSubBtn = new JButton("부회로 정의");
+        placeSubBtn = new JButton("부회로 배치");
+        openBtn = new JButton("열기");
+        saveBtn = new JButton("저장");
+        spiceOpenBtn = new JButton("SPICE 불러오기");
+        spiceSaveBtn = new JButton("SPICE 저장");
         deleteBtn = new JButton("삭제");
+        undoBtn = new JButton("실행 취소");
+        redoBtn = new JButton("다시 실행");
         solveBtn = new JButton("회로 해석");
-        voltageField = new JTextField("12", 5);
+        superpositionBtn = new JButton("중첩 해석");
+        sensitivityBtn = new JButton("민감도");
+        diagnosticsBtn = new JButton("진단");
 
         resistorBtn.addActionListener(e -> editor.setTool(CircuitTool.RESISTOR));
         inductorBtn.addActionListener(e -> editor.setTool(CircuitTool.INDUCTOR));
@@ -39,29 +56,210 @@ public class CircuitDesigner extends JFrame {
         wireBtn.addActionListener(e -> editor.setTool(CircuitTool.WIRE));
         OP_AMPBtn.addActionListener(e -> editor.setTool(CircuitTool.OP_AMP));
         voltageSourceBtn.addActionListener(e -> editor.setTool(CircuitTool.VOLTAGE_SOURCE));
+        currentSourceBtn.addActionListener(e -> editor.setTool(CircuitTool.CURRENT_SOURCE));
+        defineSubBtn.addActionListener(e -> defineSubcircuit());
+        placeSubBtn.addActionListener(e -> placeSubcircuit());
+        openBtn.addActionListener(e -> openCircuit());
+        saveBtn.addActionListener(e -> saveCircuit());
+        spiceOpenBtn.addActionListener(e -> importSpice());
+        spiceSaveBtn.addActionListener(e -> exportSpice());
         deleteBtn.addActionListener(e -> editor.deleteSelected());
+        undoBtn.addActionListener(e -> editor.undo());
+        redoBtn.addActionListener(e -> editor.redo());
+        undoBtn.setEnabled(false);
+        redoBtn.setEnabled(false);
         solveBtn.addActionListener(e -> analyzeCircuit());
+        superpositionBtn.addActionListener(e -> analyzeSuperposition());
+        sensitivityBtn.addActionListener(e -> analyzeSensitivity());
+        diagnosticsBtn.addActionListener(e -> DiagnosticsPanel.show(this));
+        // 편집이 몰아치면 마지막 편집 후 잠시 쉬었을 때만 스냅샷을 뜬다 (나머지 병합은 서비스가 한다)
+        autoAnalyzeBox = new JCheckBox("편집 시 자동 해석", true);
+        autoAnalyzeTimer = new Timer(150, e -> analyzeCircuit());
+        autoAnalyzeTimer.setRepeats(false);
+        editor.addPropertyChangeListener("circuitChanged", e -> {
+            undoBtn.setEnabled(editor.getHistory().canUndo());
+            redoBtn.setEnabled(editor.getHistory().canRedo());
+            if (autoAnalyzeBox.isSelected()) autoAnalyzeTimer.restart();
+        });
+        analysis = new AnalysisService(new AnalysisService.Listener() {
+            @Override
+            public void progress(AnalysisService.Run run, String phase) {
+                resultArea.setText(String.format("[해석 #%d] %s 중...%n%s", run.id, phase, lastResultText));
+            }
+
+            @Override
+            public void finished(AnalysisService.Run run) {
+                if (run.error != null) {
+                    resultArea.setText("오류: " + run.error.getMessage());
+                    lastResultText = "";
+                } else {
+                    showResult(run.result);
+                }
+                resultArea.append(String.format("%n[해석 #%d] 대기 %.1f ms, 계산 %.1f ms%s%n", run.id,
+                    run.queueNanos() / 1e6, run.computeNanos() / 1e6,
+                    run.superseded > 0 ? String.format(" (앞선 요청 %d건 병합)", run.superseded) : ""));
+                resultArea.append("[해석 서비스] " + analysis.stats() + "\n");
+                resultArea.append("[결과 캐시] " + AnalysisCache.SHARED.stats() + "\n");
+            }
+        });
+        // 해석 후 값 변경/드래그는 점진적 해석 결과로 바로 갱신
+        editor.addPropertyChangeListener("liveResult", e -> {
+            if (e.getNewValue() != null) {
+                showResult((CircuitAnalysisResult) e.getNewValue());
+            } else {
+                resultArea.append("\n[실시간 갱신 중지] 소자가 추가/삭제되었거나 DC 해를 구할 수 없습니다. '회로 해석'을 다시 누르세요.\n");
+            }
+        });
 
         resultArea = new JTextArea(8, 40);
         resultArea.setEditable(false);
+        transientPanel = new WaveformPanel(false);
+        acPanel = new WaveformPanel(true);
 
-        controlPanel.add(new JLabel("전압(V):"));
-        controlPanel.add(voltageField);
         controlPanel.add(resistorBtn);
         controlPanel.add(inductorBtn);
         controlPanel.add(capacitorBtn);
         controlPanel.add(OP_AMPBtn);
         controlPanel.add(voltageSourceBtn);
+        controlPanel.add(currentSourceBtn);
         controlPanel.add(wireBtn);
+        controlPanel.add(defineSubBtn);
+        controlPanel.add(placeSubBtn);
+        controlPanel.add(openBtn);
+        controlPanel.add(saveBtn);
+        controlPanel.add(spiceOpenBtn);
+        controlPanel.add(spiceSaveBtn);
         controlPanel.add(deleteBtn);
+        controlPanel.add(undoBtn);
+        controlPanel.add(redoBtn);
         controlPanel.add(solveBtn);
+        controlPanel.add(superpositionBtn);
+        controlPanel.add(sensitivityBtn);
+        controlPanel.add(autoAnalyzeBox);
+        controlPanel.add(diagnosticsBtn);
 
         getContentPane().setLayout(new BorderLayout());
         getContentPane().add(controlPanel, BorderLayout.NORTH);
         getContentPane().add(new JScrollPane(editor), BorderLayout.CENTER);
-        getContentPane().add(new JScrollPane(resultArea), BorderLayout.SOUTH);
+        JTabbedPane outputTabs = new JTabbedPane();
+        outputTabs.addTab("결과", new JScrollPane(resultArea));
+        outputTabs.addTab("과도 응답", transientPanel);
+        outputTabs.addTab("AC 응답", acPanel);
+        getContentPane().add(outputTabs, BorderLayout.SOUTH);
     }
     
+    // 캔버스의 회로를 부회로 정의로 저장하고 캔버스를 비운다 (실행 취소로 되돌릴 수 있다).
+    // 열린 전선 끝 2~3개가 단자가 되며, 같은 이름이 있으면 그 정의를 바꿔 놓인 인스턴스가 모두 새 내용을 쓴다
+    private void defineSubcircuit() {
+        CircuitModel model = editor.getModel();
+        if (model.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "부회로로 정의할 회로를 먼저 그리세요.");
+            return;
+        }
+        String name = JOptionPane.showInputDialog(this, "부회로 이름:");
+        if (name == null || name.trim().isEmpty()) return;
+        name = name.trim();
+        try {
+            Subcircuit old = Subcircuit.named(name);
+            Subcircuit def;
+            if (old == null) {
+                def = Subcircuit.define(name, model);
+            } else if (JOptionPane.showConfirmDialog(this, "'" + name + "' 정의를 바꿀까요?", "부회로 정의",
+                    JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
+                def = Subcircuit.redefine(old, model);
+            } else {
+                return;
+            }
+            editor.replaceModel(CircuitModel.EMPTY);
+            editor.setSubcircuit(def);
+            resultArea.setText("부회로 정의: " + def + "\n");
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage());
+        }
+    }
+
+    private void placeSubcircuit() {
+        List<Subcircuit> defs = Subcircuit.all();
+        if (defs.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "정의된 부회로가 없습니다.");
+            return;
+        }
+        Subcircuit def = (Subcircuit) JOptionPane.showInputDialog(this, "배치할 부회로:", "부회로 배치",
+            JOptionPane.PLAIN_MESSAGE, null, defs.toArray(), defs.get(defs.size() - 1));
+        if (def != null) editor.setSubcircuit(def);
+    }
+
+    // 회로 파일(.circuit)을 읽어 캔버스를 바꾼다 (실행 취소로 되돌릴 수 있다). 파일의 부회로 정의는 정의 목록에 남는다
+    private void openCircuit() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        java.nio.file.Path path = chooser.getSelectedFile().toPath();
+        try {
+            CircuitModel model = CircuitFile.toModel(CircuitFile.read(path));
+            editor.replaceModel(model);
+            resultArea.setText("불러오기: " + path.getFileName() + " (소자 " + model.size() + "개)\n");
+        } catch (java.io.IOException ex) {
+            JOptionPane.showMessageDialog(this, "불러오기 실패: " + ex.getMessage());
+        }
+    }
+
+    // 캔버스 회로를 쓰인 부회로 정의와 함께 회로 파일로 저장 (확장자가 없으면 .circuit을 붙인다)
+    private void saveCircuit() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        java.nio.file.Path path = chooser.getSelectedFile().toPath();
+        if (!path.getFileName().toString().contains(".")) path = path.resolveSibling(path.getFileName() + CircuitFile.EXTENSION);
+        try {
+            CircuitFile.write(editor.getModel().elements(), path);
+            resultArea.setText("저장: " + path.getFileName() + "\n");
+        } catch (java.io.IOException ex) {
+            JOptionPane.showMessageDialog(this, "저장 실패: " + ex.getMessage());
+        }
+    }
+
+    // 큰 넷리스트도 화면이 멈추지 않도록 읽기와 자동 배치는 작업 스레드에서 하고, 끝나면 EDT에서 캔버스를 바꾼다
+    // (실행 취소로 이전 회로로 돌아갈 수 있다)
+    private void importSpice() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        java.nio.file.Path path = chooser.getSelectedFile().toPath();
+        spiceOpenBtn.setEnabled(false);
+        resultArea.setText("SPICE 읽는 중: " + path + "\n");
+        Thread worker = new Thread(() -> {
+            try {
+                long t0 = System.nanoTime();
+                Netlist netlist = SpiceFile.read(path);
+                CircuitModel model = SpiceFile.place(netlist);
+                double millis = (System.nanoTime() - t0) / 1e6;
+                SwingUtilities.invokeLater(() -> {
+                    editor.replaceModel(model);
+                    resultArea.setText(String.format("SPICE 불러오기: %s\n소자 %d개, 노드 %d개, %.0f ms\n",
+                        path.getFileName(), netlist.elementCount, netlist.nodeCount, millis));
+                    spiceOpenBtn.setEnabled(true);
+                });
+            } catch (java.io.IOException | RuntimeException ex) {
+                SwingUtilities.invokeLater(() -> {
+                    resultArea.setText("SPICE 불러오기 실패: " + ex.getMessage() + "\n");
+                    spiceOpenBtn.setEnabled(true);
+                });
+            }
+        }, "spice-import");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void exportSpice() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        java.nio.file.Path path = chooser.getSelectedFile().toPath();
+        try {
+            SpiceFile.Stats stats = SpiceFile.write(Netlist.compile(editor.getModel()), path);
+            resultArea.setText("SPICE 저장: " + path.getFileName() + " (" + stats + ")\n");
+        } catch (java.io.IOException ex) {
+            JOptionPane.showMessageDialog(this, "저장 실패: " + ex.getMessage());
+        }
+    }
+
     // 값 포맷팅 메서드 - 과학적 표기법을 일반 표기법으로 변환
     private String formatValue(double value) {
         if (value >= 1000) {
@@ -86,40 +284,141 @@ public class CircuitDesigner extends JFrame {
         }
     }
     
+    // 스냅샷만 EDT에서 뜨고 해석은 백그라운드에서. 결과는 AnalysisService.Listener로 돌아온다
     private void analyzeCircuit() {
-        try {
-            double voltage = Double.parseDouble(voltageField.getText());
-            CircuitAnalysisResult result = editor.analyzeCircuit(voltage);
-            StringBuilder sb = new StringBuilder();
-            sb.append("=== 회로 해석 결과 ===\n");
-            if (result.circuitType == null && !result.hasOpAmp) {
+        autoAnalyzeTimer.stop();
+        analysis.submit(editor.snapshot());
+    }
+
+    // 전원별 몫(중첩). 분해 한 번 + 블록 풀이 한 번이라 큰 회로도 DC 해석 한 번 정도 걸린다.
+    // 스냅샷만 EDT에서 뜨고 넷리스트 구성과 풀이는 해석 서비스가 한다 (다른 해석 요청이 들어오면 취소)
+    private void analyzeSuperposition() {
+        runTask(superpositionBtn, "중첩 해석", (netlist, monitor) -> {
+            long t0 = System.nanoTime();
+            Superposition sp = Superposition.solve(netlist);
+            double millis = (System.nanoTime() - t0) / 1e6;
+            if (monitor.isCancelled()) throw new CancellationException();
+            return formatSuperposition(sp, MnaSystem.solveDc(netlist), millis);
+        });
+    }
+
+    // 편집기 스냅샷으로 작업 하나를 해석 서비스에 맡기고, 끝날 때까지 버튼을 끈다. work는 결과창에 보일 글을 돌려준다
+    private void runTask(JButton button, String title, BiFunction<Netlist, CircuitAnalyzer.Monitor, String> work) {
+        autoAnalyzeTimer.stop();
+        button.setEnabled(false);
+        analysis.submit(editor.snapshot(), new AnalysisService.Task() {
+            @Override
+            public Object run(Netlist netlist, CircuitAnalyzer.Monitor monitor) {
+                return work.apply(netlist, monitor);
+            }
+
+            @Override
+            public void done(AnalysisService.Run run) {
+                if (run.error != null) resultArea.setText(title + " 실패: " + run.error.getMessage() + "\n");
+                else if (!run.cancelled) resultArea.setText((String) run.output);
+                button.setEnabled(true);
+            }
+        });
+    }
+
+    // 대표 출력(τ, 대표 응답, 전원 전류, OP-AMP 출력)별로 모든 소자 값에 대한 수반 민감도. 해석 결과는 캐시에서 가져오므로
+    // 방금 '회로 해석'을 했다면 DC 해와 전치 풀이 몇 번이면 끝난다. 넷리스트 구성과 풀이는 해석 서비스가 한다
+    private void analyzeSensitivity() {
+        runTask(sensitivityBtn, "민감도 해석", (netlist, monitor) -> {
+            try (CircuitAnalysisResult result = AnalysisCache.SHARED.analyze(netlist, monitor)) {
+                long t0 = System.nanoTime();
+                Sensitivity s = Sensitivity.analyze(netlist, result, Sensitivity.defaultOutputs(netlist, result));
+                return formatSensitivity(s, (System.nanoTime() - t0) / 1e6);
+            }
+        });
+    }
+
+    // 출력마다 |p·dy/dp| 순으로 앞 10개 소자
+    private String formatSensitivity(Sensitivity s, double millis) {
+        final int limit = 10;
+        Netlist nl = s.netlist;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("=== 민감도 (수반 해석): 출력 %d개, 소자 %d개, 전치 풀이 %d회, %.1f ms ===\n",
+            s.outputs.length, nl.elementCount, s.transposedSolves, millis));
+        if (s.outputs.length == 0) return sb.append("민감도를 볼 출력이 없습니다 (커패시터/인덕터/전압원/OP-AMP가 없음).\n").toString();
+        for (int o = 0; o < s.outputs.length; o++) {
+            sb.append(String.format("\n[%s = %.6g]\n", s.outputs[o].name, s.values[o]));
+            if (!s.available(o)) {
+                sb.append("등가 저항을 축약 결과와 맞출 수 없어 구하지 않았습니다 (OP-AMP가 등가 저항에 걸린 회로).\n");
+                continue;
+            }
+            int[] order = s.ranked(o);
+            if (order.length == 0) sb.append("값에 따라 바뀌지 않습니다.\n");
+            for (int k = 0; k < order.length && k < limit; k++) {
+                int e = order[k];
+                double norm = s.normalized(o, e);
+                sb.append(String.format("%d. %s #%d (%s): d/d값 = %.4g, 값 1%% 변화당 %s\n", k + 1, nl.type[e], e,
+                    formatValue(nl.value[e]), s.derivatives[o][e],
+                    Double.isNaN(norm) ? String.format("%.4g", nl.value[e] * s.derivatives[o][e] / 100) : String.format("%+.4f%%", norm)));
+            }
+            if (order.length > limit) sb.append(String.format("... 외 %d개 소자\n", order.length - limit));
+        }
+        return sb.toString();
+    }
+
+    // 노드마다 전원별 몫과 그 합, 전체 DC 해. 노드는 앞 50개, 전원은 앞 10개까지만 칸을 나눠 보인다
+    private String formatSuperposition(Superposition sp, CircuitAnalysisResult.OperatingPoint dc, double millis) {
+        final int nodeLimit = 50, sourceLimit = 10;
+        Netlist nl = sp.netlist;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("=== 중첩 해석: 전원 %d개, 노드 %d개, %.1f ms ===\n", sp.size(), nl.nodeCount - 1, millis));
+        if (sp.size() == 0) return sb.append("독립 전원이 없습니다.\n").toString();
+        if (sp.linearized) sb.append("(포화 OP-AMP는 선형 모델로 풀었으므로 합이 DC 해와 다를 수 있습니다)\n");
+        int shownSources = Math.min(sp.size(), sourceLimit);
+        for (int s = 0; s < shownSources; s++) sb.append(String.format("[%d] %s\n", s + 1, sp.label(s)));
+        if (sp.size() > shownSources) sb.append(String.format("... 외 %d개 전원 (합에는 포함)\n", sp.size() - shownSources));
+        double[] total = sp.totalVoltages();
+        for (int n = 1; n < nl.nodeCount && n <= nodeLimit; n++) {
+            if (nl.nodeKey[n] == Netlist.INTERNAL) continue;
+            Point2D p = nl.nodePosition(n);
+            sb.append(String.format("노드 (%.0f, %.0f): 합 %.4f V (DC %.4f V) =", p.getX(), p.getY(), total[n], dc.nodeVoltages[n]));
+            for (int s = 0; s < shownSources; s++) sb.append(String.format(" [%d] %.4f", s + 1, sp.voltages[s][n]));
+            sb.append('\n');
+        }
+        if (nl.nodeCount - 1 > nodeLimit) sb.append(String.format("... 외 %d개 노드\n", nl.nodeCount - 1 - nodeLimit));
+        return sb.toString();
+    }
+
+    private void showResult(CircuitAnalysisResult result) {
+        long t0 = AnalysisMetrics.start();
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== 회로 해석 결과 ===\n");
+        if (result.incrementalStats != null) {
+            IncrementalDc.Stats is = result.incrementalStats;
+            sb.append(String.format("[실시간 갱신] 변경 %d회, 마지막 %.2f ms (저랭크 보정 %d열, 재분해 %d회). 과도/AC는 '회로 해석'으로 다시 계산\n",
+                is.updates, is.lastNanos / 1e6, is.rank, is.refactorizations));
+        } else {
+            // 실시간 갱신은 DC만 다시 풀므로 파형 탭은 마지막 전체 해석 것을 그대로 둔다
+            transientPanel.setWaveform(result.waveform);
+            acPanel.setWaveform(result.acResponse);
+            if (shownResult != null && shownResult != result) shownResult.close();
+            shownResult = result;
+        }
+        if (result.circuitType == null && !result.hasOpAmp) {
             sb.append("해석 가능한 회로 유형이 아닙니다.\n(RL, RC, RLC, OP-AMP 회로 해석 가능)\n");
         } else {
             sb.append("회로 유형: ").append(result.circuitType).append("\n");
             sb.append(String.format("총 등가 저항: %.2f Ω\n", result.R));
-            
+            if (result.reductionStats != null && result.reductionStats.blocks > 0)
+                sb.append("  (축약: ").append(result.reductionStats).append(")\n");
+
             // 전압원 정보 표시
-            boolean hasVoltageSource = editor.getElementsSnapshot().stream()
-                .anyMatch(e -> e.type == ComponentType.VOLTAGE_SOURCE);
-            if (hasVoltageSource) {
-                double sourceVoltage = editor.getElementsSnapshot().stream()
-                    .filter(e -> e.type == ComponentType.VOLTAGE_SOURCE)
-                    .mapToDouble(e -> e.gunny)
-                    .findFirst()
-                    .orElse(voltage);
-                sb.append(String.format("전압원 전압: %.1f V\n", sourceVoltage));
-            } else {
-                sb.append(String.format("입력 전압: %.1f V\n", voltage));
-            }
+            CircuitElement source = editor.getModel().first(ComponentType.VOLTAGE_SOURCE);
+            if (source != null) sb.append(String.format("전압원 전압: %.1f V\n", source.gunny));
             if (result.circuitType != null && result.circuitType.contains("RL"))
                 sb.append(String.format("총 등가 인덕턴스: %s H\n", formatValue(result.L)));
             if (result.circuitType != null && result.circuitType.contains("RC"))
                 sb.append(String.format("총 등가 커패시턴스: %s F\n", formatValue(result.C)));
 
             if ("RLC".equals(result.circuitType)) {
-                 sb.append(String.format("감쇠 계수 α: %.4f\n", result.alpha));
-                 sb.append(String.format("공진 주파수 ω₀: %.4f rad/s\n", result.omega0));
-                 sb.append("응답 유형: ").append(result.dampingType).append("\n");
+                sb.append(String.format("감쇠 계수 α: %.4f\n", result.alpha));
+                sb.append(String.format("공진 주파수 ω₀: %.4f rad/s\n", result.omega0));
+                sb.append("응답 유형: ").append(result.dampingType).append("\n");
 
             } else if ("RL".equals(result.circuitType) || "RC".equals(result.circuitType)) {
                 sb.append(String.format("시정수 τ: %.6f s\n", result.tau));
@@ -129,33 +428,101 @@ public class CircuitDesigner extends JFrame {
                 if ("RC".equals(result.circuitType))
                     sb.append("  v_C(t) = V * (1 - e^(-t/τ))\n");
             }
-             if(result.hasOpAmp) {
-                sb.append("\n[OP-AMP 발견]\n");
-                sb.append("OP-AMP 해석은 현재 지원되지 않으나, 회로 내에 존재합니다.\n");
+            if(result.hasOpAmp) appendOpAmps(sb, result.operatingPoint);
+        }
+        if (result.newtonStats != null && result.newtonStats.iterations > 1)
+            sb.append("\n[DC 수렴] ").append(result.newtonStats).append("\n");
+        appendOperatingPoint(sb, result.operatingPoint);
+        if (result.floatingNodes.length > 0 && result.operatingPoint != null) {
+            sb.append(String.format("\n[경고] 한쪽만 연결된 노드 %d개:", result.floatingNodes.length));
+            for (int i = 0; i < result.floatingNodes.length && i < 10; i++) {
+                Point2D p = result.operatingPoint.netlist.nodePosition(result.floatingNodes[i]);
+                sb.append(String.format(" (%.0f, %.0f)", p.getX(), p.getY()));
             }
+            sb.append(result.floatingNodes.length > 10 ? " ...\n" : "\n");
+        }
+        if (result.transientStats != null) {
+            TransientSimulator.Stats ts = result.transientStats;
+            sb.append(String.format("\n[과도 해석] %s s 까지 %d 스텝 (거절 %d, LU 분해 %d회), 최종값 %s\n",
+                formatValue(ts.endTime), ts.accepted, ts.rejected, ts.factorizations,
+                formatValue(result.waveform.value(0, result.waveform.sampleCount - 1))));
+        }
+        if (result.modelReduction != null) {
+            ReducedModel.Stats ms = result.modelReduction;
+            sb.append(String.format("[모델 축소] MNA 미지수 %d → 상태 %d (입력 %d, 희소 풀이 %d회, %.0f ms), DC 오차 %.1e, AC 수렴 (q 대 q/2) %.1e\n",
+                ms.unknowns, ms.order, ms.inputs, ms.solves, ms.nanos / 1e6, ms.dcError, ms.acConvergence));
+        }
+        if (result.acResponse != null && result.acResponse.probeCount() > 0) {
+            double fc = AcAnalysis.cornerFrequency(result.acResponse, 0);
+            sb.append(String.format("[AC 해석] %s ~ %s Hz, %d점 (%s), 최대 이득 대비 -3dB: %s\n",
+                formatValue(result.acStats.startFrequency), formatValue(result.acStats.stopFrequency),
+                result.acStats.points, result.acResponse.names[0].replace(" dB", ""),
+                Double.isNaN(fc) ? "없음" : formatValue(fc) + " Hz"));
         }
         // 병렬 탐지 결과 표시
-        Map<Point2D, ParallelGroup> parallelGroups = editor.computeParallelGroups();
+        long tp = AnalysisMetrics.start();
+        List<ParallelGroup> parallelGroups = editor.computeParallelGroups();
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.PARALLEL, tp);
         if (!parallelGroups.isEmpty()) {
             sb.append("\n[병렬 연결 감지 결과]\n");
-            for (Map.Entry<Point2D, ParallelGroup> entry : parallelGroups.entrySet()) {
-                Point2D p = entry.getKey();
-                ParallelGroup group = entry.getValue();
+            for (ParallelGroup group : parallelGroups) {
+                Point2D p = group.at;
                 sb.append(String.format("● 노드 (%.0f, %.0f): ", p.getX(), p.getY()));
                 List<String> parts = new ArrayList<>();
-                if (!group.resistors.isEmpty()) parts.add("저항 " + group.resistors.size() + "개");
-                if (!group.capacitors.isEmpty()) parts.add("커패시터 " + group.capacitors.size() + "개");
-                if (!group.inductors.isEmpty()) parts.add("인덕터 " + group.inductors.size() + "개");
+                if (group.resistors > 0) parts.add(String.format("저항 %d개 (등가 %s Ω)",
+                    group.resistors, formatValue(group.equivalentResistance())));
+                if (group.capacitors > 0) parts.add(String.format("커패시터 %d개 (등가 %s F)",
+                    group.capacitors, formatValue(group.equivalentCapacitance())));
+                if (group.inductors > 0) parts.add(String.format("인덕터 %d개 (등가 %s H)",
+                    group.inductors, formatValue(group.equivalentInductance())));
                 sb.append(String.join(", ", parts)).append("\n");
             }
         }
-        resultArea.setText(sb.toString());
-        } catch (Exception ex) {
-            resultArea.setText("오류: " + ex.getMessage());
-            ex.printStackTrace();
-        }
+        lastResultText = sb.toString();
+        resultArea.setText(lastResultText);
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.FORMAT, t0);
     }
     
+    // OP-AMP별 입력/출력 전압. 출력이 포화 전압 근처면 표시
+    private void appendOpAmps(StringBuilder sb, CircuitAnalysisResult.OperatingPoint op) {
+        if (op == null) return;
+        Netlist nl = op.netlist;
+        sb.append("\n[OP-AMP]\n");
+        int shown = 0;
+        for (int e = 0; e < nl.elementCount && shown < 20; e++) {
+            if (nl.type[e] != ComponentType.OP_AMP) continue;
+            double gain = MnaSystem.opAmpGain(nl.value[e]);
+            double out = op.nodeVoltages[nl.nodeC[e]];
+            Point2D p = nl.nodePosition(nl.nodeC[e]);
+            sb.append(String.format("● 출력 (%.0f, %.0f): V+ = %.4f V, V- = %.4f V, 출력 = %.4f V, 출력 전류 = %s A (%s)%s\n",
+                p.getX(), p.getY(), op.nodeVoltages[nl.nodeA[e]], op.nodeVoltages[nl.nodeB[e]], out,
+                formatValue(Math.abs(op.elementCurrents[e])),
+                Double.isInfinite(gain) ? "이상적" : String.format("이득 %.0f, ±%.0f V 포화", gain, MnaSystem.OPAMP_RAIL),
+                !Double.isInfinite(gain) && Math.abs(out) > 0.99 * MnaSystem.OPAMP_RAIL ? " [포화]" : ""));
+            shown++;
+        }
+    }
+
+    // DC 동작점(노드 전압, 소자 전류) 표시. 큰 회로는 앞부분만 출력
+    private void appendOperatingPoint(StringBuilder sb, CircuitAnalysisResult.OperatingPoint op) {
+        if (op == null || op.netlist.nodeCount <= 1) return;
+        final int limit = 50;
+        Netlist nl = op.netlist;
+        sb.append("\n[DC 동작점]\n");
+        for (int n = 1; n < nl.nodeCount && n <= limit; n++) {
+            if (nl.nodeKey[n] == Netlist.INTERNAL) continue;    // 펼친 부회로 안쪽
+            Point2D p = nl.nodePosition(n);
+            sb.append(String.format("노드 (%.0f, %.0f): %.4f V\n", p.getX(), p.getY(), op.nodeVoltages[n]));
+        }
+        if (nl.nodeCount - 1 > limit) sb.append(String.format("... 외 %d개 노드\n", nl.nodeCount - 1 - limit));
+        int shown = 0;
+        for (int e = 0; e < nl.elementCount && shown < limit; e++) {
+            if (nl.type[e] == ComponentType.OP_AMP) continue;
+            sb.append(String.format("%s #%d 전류: %s A\n", nl.type[e], e, formatValue(Math.abs(op.elementCurrents[e]))));
+            shown++;
+        }
+    }
+
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> new CircuitDesigner().setVisible(true));
     }
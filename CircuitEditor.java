@@ -3,237 +3,342 @@ import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.*;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 
 class CircuitEditor extends JPanel implements MouseListener, MouseMotionListener {
-    private ArrayList<CircuitElement> elements = new ArrayList<>();
     private CircuitTool currentTool = CircuitTool.RESISTOR;
-    private CircuitElement selectedElement;
-    private CircuitElement tempWire;
+    private Subcircuit subcircuit;      // SUBCIRCUIT 도구로 놓을 정의
+    private int selectedId;             // 선택한 소자 id (0 = 없음)
+    private CircuitElement tempWire;    // 그리는 중인 전선 (아직 모델에 없음)
     private boolean  deleteMode = false;
-    private Map<String, CircuitNode> nodes = new HashMap<>();
+    private final NodeTable nodes = new NodeTable();
+    private final SpatialIndex index = new SpatialIndex();
+    private final EditorRenderer renderer = new EditorRenderer();
+    private Rectangle statsBox;
+    private LiveSession live;
+    private long revision;      // 소자 추가/삭제/값 변경/이동마다 증가 ("circuitChanged")
+    // 소자는 모델(열 배열)에만 있다. 편집마다 새 버전을 만들고, 해석과 실행 취소는 버전을 쓴다.
+    // 노드 표와 공간 인덱스는 소자 id로 모델을 가리킨다
+    private CircuitModel model = CircuitModel.EMPTY;
+    private final CircuitHistory history = new CircuitHistory();
+    private int nextId;
+    private CircuitModel dragStart;     // 드래그 직전 버전 (놓을 때 한 번만 기록)
+    private boolean liveArmed;          // 해석을 요청했고 아직 소자 추가/삭제가 없음: 첫 변경 때 실시간 세션을 연다
+
+    // 마지막 해석 이후 값 변경/소자 이동을 점진적으로 반영하는 세션.
+    // 단자 좌표 -> 넷리스트 노드 표는 해석 시점에 떠 두고, 분해는 첫 변경 때 한다.
+    private static final class LiveSession {
+        final Netlist netlist;
+        final int[] index;      // 소자 id -> 넷리스트 소자 번호 + 1 (0 = 없음)
+        final LongMap<int[]> pinNode = new LongMap<>();
+        IncrementalDc dc;
+
+        LiveSession(Netlist netlist, NodeTable nodes) {
+            this.netlist = netlist;
+            int bound = 0;
+            for (int e = 0; e < netlist.elementCount; e++) bound = Math.max(bound, netlist.source[e] + 1);
+            index = new int[bound];
+            for (int e = 0; e < netlist.elementCount; e++) index[netlist.source[e]] = e + 1;
+            LongMap<int[]> netToNode = new LongMap<>();
+            for (int n = 0; n < netlist.nodeCount; n++) {
+                if (nodes.get(netlist.nodeKey[n]) != null) netToNode.put(nodes.netOf(netlist.nodeKey[n]), new int[] { n });
+            }
+            // 단자가 걸린 격자 노드마다 같은 넷의 넷리스트 노드
+            nodes.forEach((key, node) -> {
+                int[] n = netToNode.get(nodes.netOfNode(node.id));
+                if (n != null) pinNode.put(key, n);
+            });
+        }
 
-    public Map<String, CircuitNode> getNodes() { return nodes; }
-    public java.util.List<CircuitElement> getElementsSnapshot() { return new ArrayList<>(elements); }
+        int elementOf(int id) {
+            return id < index.length ? index[id] - 1 : -1;
+        }
+
+        int nodeAt(long key) {
+            int[] node = pinNode.get(key);
+            return node == null ? -1 : node[0];
+        }
+    }
+
+    public NodeTable getNodes() { return nodes; }
+    // 선택한 소자의 사본 (없으면 null)
+    public CircuitElement getSelectedElement() { return model.get(selectedId); }
+    // 현재 버전의 고정 사본 목록 (편집과 무관)
+    public java.util.List<CircuitElement> getElementsSnapshot() { return model.elements(); }
+    // 현재 버전. 참조만 돌려주므로 O(1)이고 이후 편집에 바뀌지 않는다
+    public CircuitModel getModel() { return model; }
+    public CircuitHistory getHistory() { return history; }
 
     public CircuitEditor() {
         setBackground(Color.WHITE);
         setPreferredSize(new Dimension(1000, 600));
         addMouseListener(this);
         addMouseMotionListener(this);
+        // F3: 프레임 시간 표시 켜기/끄기
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "frameStats");
+        getActionMap().put("frameStats", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                setFrameStatsEnabled(!isFrameStatsEnabled());
+            }
+        });
+        // Ctrl+Z 실행 취소, Ctrl+Y / Ctrl+Shift+Z 다시 실행
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK), "undo");
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK), "redo");
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK), "redo");
+        getActionMap().put("undo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) { undo(); }
+        });
+        getActionMap().put("redo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) { redo(); }
+        });
     }
 
     public void setTool(CircuitTool tool) { currentTool = tool; }
 
+    // 부회로 배치 도구. 클릭마다 이 정의의 인스턴스를 놓는다
+    public void setSubcircuit(Subcircuit def) {
+        subcircuit = def;
+        currentTool = CircuitTool.SUBCIRCUIT;
+    }
+
+    // 회로 전체를 다른 버전으로 바꾼다 (부회로 정의 후 캔버스 비우기, 파일 가져오기). 실행 취소 한 번으로 돌아온다
+    public void replaceModel(CircuitModel target) {
+        if (target == model) return;
+        history.record(model);
+        nextId = Math.max(nextId, target.maxId());
+        restore(target);
+    }
+
     public void deleteSelected() {
-        if(selectedElement != null) {
-            CircuitElement removed = selectedElement;
-            elements.remove(selectedElement);
-            selectedElement = null;
-            cleanupElement(removed);
-            repaint();
+        if(selectedId != 0) {
+            removeElement(selectedId);
         } else {
             deleteMode = true;
         }
     }
 
-    public CircuitAnalysisResult analyzeCircuit(double voltage) {
-        boolean hasInductor = elements.stream().anyMatch(e -> e.type == ComponentType.INDUCTOR);
-        boolean hasCapacitor = elements.stream().anyMatch(e -> e.type == ComponentType.CAPACITOR);
-        boolean hasOpAmp = elements.stream().anyMatch(e -> e.type == ComponentType.OP_AMP);
-        boolean hasVoltageSource = elements.stream().anyMatch(e -> e.type == ComponentType.VOLTAGE_SOURCE);
-
-        // 전압원이 있으면 전압원의 전압값 사용, 없으면 입력된 전압값 사용
-        double actualVoltage = voltage;
-        if (hasVoltageSource) {
-            actualVoltage = elements.stream()
-                .filter(e -> e.type == ComponentType.VOLTAGE_SOURCE)
-                .mapToDouble(e -> e.gunny)
-                .findFirst()
-                .orElse(voltage);
-        }
+    // 돌려준 결과의 파형은 호출자가 close()로 놓는다
+    public CircuitAnalysisResult analyzeCircuit() {
+        // 편집 중 유지한 넷 id를 그대로 사용 (전선 병합을 다시 계산하지 않음)
+        Netlist netlist = Netlist.compile(model, nodes);
+        live = new LiveSession(netlist, nodes);
+        liveArmed = true;
+        return CircuitAnalyzer.analyze(netlist);
+    }
 
-        double R = elements.stream().filter(e -> e.type == ComponentType.RESISTOR).mapToDouble(e -> e.gunny).sum();
-
-        if(hasOpAmp) { analyzeOpAmps(); }
-
-        if(hasInductor && !hasCapacitor) {
-            double L = elements.stream().filter(e -> e.type == ComponentType.INDUCTOR).mapToDouble(e -> e.gunny).sum();
-            double tau = (R > 0) ? L / R : 0.001;
-            CircuitAnalysisResult result = new CircuitAnalysisResult(R, L, 0, tau, "RL");
-            result.hasOpAmp = hasOpAmp;
-            return result;
-        } else if(hasCapacitor && !hasInductor) {
-            double C = elements.stream().filter(e -> e.type == ComponentType.CAPACITOR).mapToDouble(e -> e.gunny).sum();
-            double tau = R * C;
-            CircuitAnalysisResult result = new CircuitAnalysisResult(R, 0, C, tau, "RC");
-            result.hasOpAmp = hasOpAmp;
-            return result;
-        } else if (hasInductor && hasCapacitor) {
-            double L = elements.stream().filter(e -> e.type == ComponentType.INDUCTOR).mapToDouble(e -> e.gunny).sum();
-            double C = elements.stream().filter(e -> e.type == ComponentType.CAPACITOR).mapToDouble(e -> e.gunny).sum();
-            double tau = (L > 0 && R > 0) ? 1 / (R / (2 * L)) : 0.001;
-            CircuitAnalysisResult result = new CircuitAnalysisResult(R, L, C, tau, "RLC");
-            result.hasOpAmp = hasOpAmp;
-            return result;
-        } else {
-            CircuitAnalysisResult result = new CircuitAnalysisResult(R, 0, 0, 0, null);
-            result.hasOpAmp = hasOpAmp;
-            return result;
-        }
+    // 백그라운드 해석용 스냅샷. 현재 버전 참조만 넘기고 넷리스트는 해석 스레드가 만든다.
+    // 실시간 세션은 이후 첫 값 변경/이동 때 연다 (이미 있으면 쌓아 둔 분해를 버리지 않도록 그대로 둔다)
+    public CircuitModel snapshot() {
+        liveArmed = true;
+        return model;
     }
 
-    private Map<Object, Double> nodeVoltages = new HashMap<>();
-    private double getNodeVoltage(Object node) { return nodeVoltages.getOrDefault(node, 0.0); }
-    private void setNodeVoltage(Object node, double voltage) { nodeVoltages.put(node, voltage); }
+    public long getRevision() { return revision; }
+
+    private void changed() {
+        long old = revision++;
+        firePropertyChange("circuitChanged", old, revision);
+    }
 
-    private void analyzeOpAmps() {
-        for(CircuitElement e : elements) {
-            if(e.type == ComponentType.OP_AMP) { analyzeOpAmp(e); }
+    // 값 변경/이동을 실시간 해석에 반영하고 "liveResult" 속성 변경으로 알린다.
+    // 저랭크 갱신으로 처리할 수 없으면(전선 이동, 연결 끊김 등) 현재 상태로 넷리스트를 다시 만들어
+    // 새로 분해하고, 그것도 안 되면 세션을 끝내고 null을 알린다.
+    private void liveUpdate(CircuitElement elem, boolean moved) {
+        if (live == null) {
+            if (!liveArmed) return;
+            live = new LiveSession(Netlist.compile(model, nodes), nodes);
+        }
+        // OP-AMP가 있으면(값을 주지 않은 기본 OP-AMP도 유한 이득) DC가 비선형이라 저랭크 갱신을 쓸 수 없다.
+        // 세션을 열지 않고 값 변경/이동은 일반 해석(자동 해석 또는 '회로 해석')에 맡긴다
+        if (live.dc == null && MnaSystem.isNonlinear(live.netlist)) {
+            live = null;
+            liveArmed = false;
+            return;
+        }
+        int e = live.elementOf(elem.id);
+        boolean ok = false;
+        try {
+            if (e >= 0) {
+                if (live.dc == null) live.dc = new IncrementalDc(live.netlist);
+                ok = moved
+                    ? nodes.pinCount(elem.id) == 2 && live.dc.reconnect(e,
+                        live.nodeAt(nodes.nodeKey(nodes.pinNode(elem.id, 0))), live.nodeAt(nodes.nodeKey(nodes.pinNode(elem.id, 1))))
+                    : live.dc.setValue(e, elem.gunny);
+            }
+            if (!ok) {
+                live = new LiveSession(Netlist.compile(model, nodes), nodes);
+                live.dc = new IncrementalDc(live.netlist);
+            }
+        } catch (IllegalStateException ex) {
+            endLiveSession();   // 특이 행렬
+            return;
         }
+        firePropertyChange("liveResult", null, CircuitAnalyzer.analyzeLive(live.dc));
     }
-    private void analyzeOpAmp(CircuitElement opAmp) {
-        double vPlus = getNodeVoltage(opAmp.nonInvertingInputNode);
-        double vMinus = getNodeVoltage(opAmp.invertingInputNode);
-        double gain = 1e5;
-        double vOut = gain * (vPlus - vMinus);
-        setNodeVoltage(opAmp.outputNode, vOut);
+
+    private void endLiveSession() {
+        if (live == null && !liveArmed) return;
+        live = null;
+        liveArmed = false;
+        firePropertyChange("liveResult", null, null);
     }
 
     @Override
     protected void paintComponent(Graphics g) {
+        long t0 = System.nanoTime();
         super.paintComponent(g);
         Graphics2D g2 = (Graphics2D) g;
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        renderer.paintGrid(g2, clip);
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2.setColor(new Color(220, 220, 220));
-        for(int x = 0; x < getWidth(); x += 20) g2.drawLine(x, 0, x, getHeight());
-        for(int y = 0; y < getHeight(); y += 20) g2.drawLine(0, y, getWidth(), y);
-
-        for(CircuitElement e : elements) {
-            g2.setColor(e == selectedElement ? Color.BLUE : Color.BLACK);
-            if(e.type == ComponentType.RESISTOR) {
-                drawResistor(g2, e.shape);
-                g2.drawString(formatValue(e.gunny) + "Ω", (int)e.shape.getCenterX()-20, (int)e.shape.getY()-5);
-            } else if(e.type == ComponentType.INDUCTOR) {
-                drawInductor(g2, e.shape);
-                g2.drawString(formatValue(e.gunny) + "H", (int)e.shape.getCenterX()-15, (int)e.shape.getY()-5);
-            } else if(e.type == ComponentType.CAPACITOR) {
-                drawCapacitor(g2, e.shape);
-                g2.drawString(formatValue(e.gunny) + "F", (int)e.shape.getCenterX()-15, (int)e.shape.getY()-5);
-            } else if(e.type == ComponentType.WIRE) {
-                g2.draw(new Line2D.Double(e.start, e.end));
-            } else if(e.type == ComponentType.OP_AMP) {
-                drawOpAmp(g2, e.shape);
-            } else if(e.type == ComponentType.VOLTAGE_SOURCE) {
-                drawVoltageSource(g2, e.shape, e.gunny);
-            } else if(e.type == ComponentType.CURRENT_SOURCE) {
-                drawCurrentSource(g2, e.shape, e.gunny);
-            }
+
+        // 클립(보이는 영역 또는 다시 그릴 영역)에 걸치는 소자만 추가 순서대로 그린다
+        Rectangle area = new Rectangle(clip);
+        area.grow(EditorRenderer.LABEL_MARGIN, EditorRenderer.LABEL_MARGIN);
+        for (int id : index.elementsIn(area)) {
+            renderer.paintElement(g2, model.get(id), id == selectedId);
         }
 
         if(tempWire != null && tempWire.start != null && tempWire.end != null) {
             g2.setColor(new Color(0, 0, 0, 100));
             g2.draw(new Line2D.Double(tempWire.start, tempWire.end));
         }
+        if (renderer.isFrameStatsEnabled()) {
+            renderer.recordFrame(System.nanoTime() - t0);
+            statsBox = renderer.paintFrameStats(g2, getVisibleRect());
+        }
     }
 
-    private void drawResistor(Graphics2D g2, Rectangle2D rect) {
-        Path2D path = new Path2D.Double();
-        path.moveTo(rect.getX(), rect.getCenterY());
-        path.lineTo(rect.getX()+15, rect.getCenterY());
-        path.lineTo(rect.getX()+20, rect.getY());
-        path.lineTo(rect.getX()+25, rect.getMaxY());
-        path.lineTo(rect.getX()+30, rect.getY());
-        path.lineTo(rect.getX()+35, rect.getMaxY());
-        path.lineTo(rect.getX()+40, rect.getY());
-        path.lineTo(rect.getX()+45, rect.getCenterY());
-        path.lineTo(rect.getMaxX(), rect.getCenterY());
-        g2.draw(path);
+    // 소자 주변만 다시 그리도록 요청 (RepaintManager가 한 프레임 안의 요청을 합친다)
+    private void repaintAround(CircuitElement e) {
+        Rectangle r = e == null ? null : EditorRenderer.dirtyBounds(e);
+        if (r == null) return;
+        repaint(r);
+        if (renderer.isFrameStatsEnabled() && statsBox != null) repaint(statsBox);
     }
 
-    private void drawInductor(Graphics2D g2, Rectangle2D rect) {
-        int y = (int) rect.getCenterY();
-        for(int i=0; i<5; i++) { g2.drawOval((int)rect.getX()+i*12, y-5, 10, 10); }
+    public void setFrameStatsEnabled(boolean on) {
+        renderer.setFrameStatsEnabled(on);
+        repaint();
     }
 
-    private void drawCapacitor(Graphics2D g2, Rectangle2D rect) {
-        int y = (int) rect.getY();
-        int x1 = (int)rect.getX()+20;
-        int x2 = (int)rect.getX()+40;
-        g2.drawLine(x1, y, x1, y+20);
-        g2.drawLine(x2, y, x2, y+20);
-        g2.drawLine((int)rect.getX(), y+10, x1, y+10);
-        g2.drawLine(x2, y+10, (int)rect.getMaxX(), y+10);
+    public boolean isFrameStatsEnabled() { return renderer.isFrameStatsEnabled(); }
+
+    // 소자 추가 (마우스 편집, 파일 불러오기 공용)
+    public void addElement(CircuitElement elem) {
+        CircuitModel before = model;
+        elem.id = ++nextId;
+        model = model.with(elem);
+        history.record(before);
+        endLiveSession();
+        index.insert(elem);
+        nodes.add(elem);
+        ensureCanvasCovers(elem);
+        repaintAround(elem);
+        changed();
     }
 
-    private void drawOpAmp(Graphics2D g2, Rectangle2D rect) {
-        Path2D path = new Path2D.Double();
-        path.moveTo(rect.getX(), rect.getY());
-        path.lineTo(rect.getMaxX(), rect.getCenterY());
-        path.lineTo(rect.getX(), rect.getMaxY());
-        path.closePath();
-        g2.setColor(Color.BLACK);
-        g2.draw(path);
-        g2.drawString("OP Amp", (int)rect.getCenterX() - 20, (int)rect.getCenterY());
+    // 소자 삭제 (삭제 버튼, 삭제 모드 클릭 공용)
+    public void removeElement(int id) {
+        CircuitElement elem = model.get(id);
+        if (elem == null) return;
+        repaintAround(elem);
+        CircuitModel before = model;
+        model = model.without(id);
+        history.record(before);
+        if (selectedId == id) selectedId = 0;
+        endLiveSession();
+        index.remove(id);
+        // id별 단자 배열로 이 소자가 걸린 노드만 갱신
+        nodes.remove(id);
+        changed();
     }
-    
-    private void drawVoltageSource(Graphics2D g2, Rectangle2D rect, double voltage) {
-        // 원 그리기
-        int centerX = (int)rect.getCenterX();
-        int centerY = (int)rect.getCenterY();
-        int radius = 15;
-        g2.drawOval(centerX - radius, centerY - radius, radius * 2, radius * 2);
-        
-        // +, - 기호 그리기
-        g2.drawString("+", centerX - 3, centerY - 5);
-        g2.drawString("-", centerX - 3, centerY + 8);
-        
-        // 전압값 표시
-        g2.drawString(String.format("%.1fV", voltage), (int)rect.getX() - 10, (int)rect.getY() - 5);
+
+    public boolean undo() { return restore(history.undo(model)); }
+
+    public boolean redo() { return restore(history.redo(model)); }
+
+    // 다른 버전으로 돌아간다. 두 버전의 차이(공유 가지는 건너뜀)만 노드 표와 공간 인덱스에 반영
+    private boolean restore(CircuitModel target) {
+        if (target == null) return false;
+        tempWire = null;
+        dragStart = null;
+        CircuitModel.diff(model, target, new CircuitModel.Diff() {
+            @Override
+            public void added(CircuitElement elem) {
+                index.insert(elem);
+                nodes.add(elem);
+                ensureCanvasCovers(elem);
+                repaintAround(elem);
+            }
+
+            @Override
+            public void removed(CircuitElement elem) {
+                repaintAround(elem);
+                if (selectedId == elem.id) selectedId = 0;
+                index.remove(elem.id);
+                nodes.remove(elem.id);
+            }
+
+            @Override
+            public void changed(CircuitElement before, CircuitElement after) {
+                repaintAround(before);
+                nodes.move(after);
+                index.update(after);
+                ensureCanvasCovers(after);
+                repaintAround(after);
+            }
+        });
+        model = target;
+        endLiveSession();
+        changed();
+        return true;
     }
 
-    private void drawCurrentSource(Graphics2D g2, Rectangle2D rect, double current) {
-        // 원 그리기
-        int centerX = (int)rect.getCenterX();
-        int centerY = (int)rect.getCenterY();
-        int radius = 15;
-        g2.drawOval(centerX - radius, centerY - radius, radius * 2, radius * 2);
-
-        //화살표 그리기
-        g2.drawLine(centerX, centerY, centerX, centerY + 10);
-        
-        // 전류값 표시
-        g2.drawString(String.format("%.1fA", current), (int)rect.getX() - 10, (int)rect.getY() - 5);
+    // 소자가 캔버스 밖에 놓이면 스크롤 영역을 넓힌다
+    private void ensureCanvasCovers(CircuitElement elem) {
+        Rectangle r = EditorRenderer.dirtyBounds(elem);
+        if (r == null) return;
+        Dimension size = getPreferredSize();
+        if (r.getMaxX() <= size.width && r.getMaxY() <= size.height) return;
+        setPreferredSize(new Dimension(Math.max(size.width, (int) r.getMaxX()), Math.max(size.height, (int) r.getMaxY())));
+        revalidate();
     }
 
     @Override
     public void mouseClicked(MouseEvent e) {
         Point2D pos = snapToGrid(e.getPoint());
+        Rectangle2D near = new Rectangle2D.Double(pos.getX() - 3, pos.getY() - 3, 6, 6);
         if (deleteMode) {
-            for (int i = elements.size() - 1; i >= 0; i--) {
-                CircuitElement elem = elements.get(i);
-                boolean hit = false;
-                if(elem.shape != null && elem.shape.intersects(pos.getX() - 3, pos.getY() - 3, 6, 6)) { hit = true; }
-                if(elem.type == ComponentType.WIRE && elem.isNearWire(e.getPoint())) { hit = true; }
-                if(hit) {
-                    CircuitElement removed = elements.remove(i);
-                    cleanupElement(removed);
-                    repaint();
-                    deleteMode = false;
-                    return;
-                }
+            // 가장 위(나중에 추가된) 소자부터 삭제
+            Point2D click = e.getPoint();
+            Rectangle2D area = near.createUnion(new Rectangle2D.Double(click.getX() - SpatialIndex.WIRE_MARGIN,
+                click.getY() - SpatialIndex.WIRE_MARGIN, 2 * SpatialIndex.WIRE_MARGIN, 2 * SpatialIndex.WIRE_MARGIN));
+            int hit = index.find(area, id -> {
+                CircuitElement elem = model.get(id);
+                return elem.intersects(near) || elem.isNearWire(click);
+            }, true);
+            if (hit != 0) {
+                removeElement(hit);
+                deleteMode = false;
+                return;
             }
             deleteMode = false;
         }
 
         if (e.getClickCount() == 2) {
-            for(CircuitElement elem : elements) {
-                if((elem.type == ComponentType.RESISTOR || elem.type == ComponentType.INDUCTOR || elem.type == ComponentType.CAPACITOR || elem.type == ComponentType.VOLTAGE_SOURCE)
-                    && elem.shape != null && elem.shape.intersects(pos.getX() - 3, pos.getY() - 3, 6, 6)) {
-                    editGunny(elem);
-                    return;
-                }
+            int id = index.find(near, c -> {
+                ComponentType t = model.type(c);
+                return (t == ComponentType.RESISTOR || t == ComponentType.INDUCTOR || t == ComponentType.CAPACITOR || t == ComponentType.VOLTAGE_SOURCE || t == ComponentType.CURRENT_SOURCE || t == ComponentType.OP_AMP)
+                    && model.get(c).intersects(near);
+            }, false);
+            if (id != 0) {
+                editGunny(model.get(id));
+                return;
             }
         } else {
             Point2D snapped = snapToGrid(e.getPoint());
@@ -242,19 +347,22 @@ class CircuitEditor extends JPanel implements MouseListener, MouseMotionListener
                 case RESISTOR: newElement = new CircuitElement(ComponentType.RESISTOR, snapped); break;
                 case INDUCTOR: newElement = new CircuitElement(ComponentType.INDUCTOR, snapped); break;
                 case CAPACITOR: newElement = new CircuitElement(ComponentType.CAPACITOR, snapped); break;
-                case OP_AMP:
-                    newElement = new CircuitElement(ComponentType.OP_AMP, snapped);
-                    newElement.shape = new Rectangle2D.Double(snapped.getX(), snapped.getY(), 60, 40);
-                    break;
+                case OP_AMP: newElement = new CircuitElement(ComponentType.OP_AMP, snapped); break;
                 case VOLTAGE_SOURCE:
                     newElement = new CircuitElement(ComponentType.VOLTAGE_SOURCE, snapped);
                     break;
+                case CURRENT_SOURCE:
+                    newElement = new CircuitElement(ComponentType.CURRENT_SOURCE, snapped);
+                    break;
+                case SUBCIRCUIT:
+                    if (subcircuit == null) break;
+                    newElement = new CircuitElement(ComponentType.SUBCIRCUIT, snapped);
+                    newElement.gunny = subcircuit.id;
+                    break;
                 default: break;
             }
             if (newElement != null) {
-                elements.add(newElement);
-                updateNodes(newElement);
-                repaint();
+                addElement(newElement);
             } else {
                 JOptionPane.showMessageDialog(this, "회로 요소를 추가할 수 없습니다.");
             }
@@ -267,10 +375,20 @@ class CircuitEditor extends JPanel implements MouseListener, MouseMotionListener
         if(elem.type == ComponentType.INDUCTOR) msg = "인덕턴스(H) 입력:";
         if(elem.type == ComponentType.CAPACITOR) msg = "커패시턴스(F) 입력:";
         if(elem.type == ComponentType.VOLTAGE_SOURCE) msg = "전압값(V) 입력:";
+        if(elem.type == ComponentType.CURRENT_SOURCE) msg = "전류값(A) 입력:";
+        if(elem.type == ComponentType.OP_AMP) msg = "개루프 이득 입력 (Infinity = 이상적 OP-AMP):";
         String input = JOptionPane.showInputDialog(this, msg, elem.gunny);
         try {
             double newValue = Double.parseDouble(input);
-            if(newValue > 0) { elem.gunny = newValue; repaint(); }
+            if(newValue > 0) {
+                CircuitModel before = model;
+                elem.gunny = newValue;
+                model = model.with(elem);
+                history.record(before);
+                repaintAround(elem);
+                liveUpdate(elem, false);
+                changed();
+            }
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "올바른 숫자를 입력하세요!");
         }
@@ -287,101 +405,89 @@ class CircuitEditor extends JPanel implements MouseListener, MouseMotionListener
             tempWire = new CircuitElement(ComponentType.WIRE, pos);
             tempWire.start = pos;
         } else {
-            selectedElement = null;
-            for(CircuitElement elem : elements) {
-                if(elem.shape != null && elem.shape.contains(pos)) { selectedElement = elem; break; }
+            int previous = selectedId;
+            selectedId = index.find(new Rectangle2D.Double(pos.getX(), pos.getY(), 0, 0),
+                id -> model.get(id).contains(pos), false);
+            dragStart = selectedId != 0 ? model : null;
+            if (previous != selectedId) {
+                repaintAround(model.get(previous));
+                repaintAround(model.get(selectedId));
             }
         }
-        repaint();
     }
 
     @Override
     public void mouseDragged(MouseEvent e) {
         if (deleteMode) { return; }
         if(currentTool == CircuitTool.WIRE && tempWire != null) {
+            if (tempWire.end != null) repaintAround(tempWire);
             tempWire.end = snapToGrid(e.getPoint());
-            repaint();
-        } else if(selectedElement != null) {
+            repaintAround(tempWire);
+        } else if(selectedId != 0) {
             Point2D newPos = snapToGrid(e.getPoint());
-            if(selectedElement.shape != null)
-                selectedElement.shape.setRect(newPos.getX(), newPos.getY(), selectedElement.shape.getWidth(), selectedElement.shape.getHeight());
-            repaint();
+            CircuitElement sel = model.get(selectedId);
+            if (sel != null && sel.hasShape() && !newPos.equals(sel.start)) {
+                // 도형과 함께 단자도 옮기고 노드/넷을 다시 등록. 옮기기 전/후 영역만 다시 그린다
+                repaintAround(sel);
+                sel.translate(newPos.getX() - sel.start.getX(), newPos.getY() - sel.start.getY());
+                model = model.with(sel);
+                nodes.move(sel);
+                index.update(sel);
+                ensureCanvasCovers(sel);
+                repaintAround(sel);
+                liveUpdate(sel, true);
+                changed();
+            }
         }
     }
 
     @Override
     public void mouseReleased(MouseEvent e) {
         if (deleteMode) { return; }
+        // 드래그 한 번은 실행 취소 한 번
+        if (dragStart != null && dragStart != model) history.record(dragStart);
+        dragStart = null;
         if(currentTool == CircuitTool.WIRE && tempWire != null) {
-            tempWire.end = snapToGrid(e.getPoint());
-            elements.add(tempWire);
-            updateNodes(tempWire);
+            CircuitElement wire = tempWire;
             tempWire = null;
-            repaint();
+            if (wire.end != null) repaintAround(wire);
+            wire.end = snapToGrid(e.getPoint());
+            addElement(wire);
         }
     }
 
-    private void updateNodes(CircuitElement element) {
-        addToNode(element.start, element);
-        addToNode(element.end, element);
-    }
-    private String keyFor(Point2D pos) {
-        int x = ((int)pos.getX() / 20) * 20;
-        int y = ((int)pos.getY() / 20) * 20;
-        return x + "," + y;
-    }
-    private void addToNode(Point2D pos, CircuitElement elem) {
-        if (pos == null) return;
-        String key = keyFor(pos);
-        CircuitNode node = nodes.computeIfAbsent(key, k -> {
-            CircuitNode newNode = new CircuitNode();
-            newNode.position = new Point2D.Double(((int)pos.getX() / 20) * 20, ((int)pos.getY() / 20) * 20);
-            return newNode;
-        });
-        node.connectedElements.add(elem);
-    }
-    private void cleanupElement(CircuitElement elem) {
-        // 노드에서 연결 제거
-        for (java.util.Iterator<Map.Entry<String, CircuitNode>> it = nodes.entrySet().iterator(); it.hasNext();) {
-            Map.Entry<String, CircuitNode> entry = it.next();
-            CircuitNode node = entry.getValue();
-            node.connectedElements.removeIf(c -> c == elem);
-            if (node.connectedElements.isEmpty()) {
-                it.remove();
-            }
-        }
-    }
-
-    public Map<Point2D, ParallelGroup> computeParallelGroups() {
-        // 양단 노드 쌍을 키로 병렬 그룹 구성
-        Map<String, ParallelGroup> pairKeyToGroup = new HashMap<>();
-        for (CircuitElement e : elements) {
-            if (e.start == null || e.end == null) continue;
-            if (!(e.type == ComponentType.RESISTOR || e.type == ComponentType.INDUCTOR || e.type == ComponentType.CAPACITOR)) continue;
-            String a = keyFor(e.start);
-            String b = keyFor(e.end);
-            String pair = (a.compareTo(b) <= 0) ? a + "|" + b : b + "|" + a;
-            ParallelGroup g = pairKeyToGroup.computeIfAbsent(pair, k -> new ParallelGroup());
-            switch (e.type) {
-                case RESISTOR: g.resistors.add(e); break;
-                case INDUCTOR: g.inductors.add(e); break;
-                case CAPACITOR: g.capacitors.add(e); break;
-                default: break;
+    public List<ParallelGroup> computeParallelGroups() {
+        // 양단 넷 쌍(작은 id, 큰 id)을 키로 병렬 그룹 구성. 전선으로 이어진 단자는 같은 넷이다.
+        // 모델 열을 그대로 훑으며 그룹마다 개수와 합(1/R, 1/L, C)만 쌓는다.
+        // 중점은 표시 위치일 뿐 키가 아니다 (서로 다른 넷 쌍의 중점이 겹쳐도 그룹은 따로)
+        LongMap<ParallelGroup> pairToGroup = new LongMap<>();
+        List<ParallelGroup> out = new ArrayList<>();
+        byte r = (byte) (ComponentType.RESISTOR.ordinal() + 1);
+        byte l = (byte) (ComponentType.INDUCTOR.ordinal() + 1);
+        byte c = (byte) (ComponentType.CAPACITOR.ordinal() + 1);
+        model.scan((base, type, value, geom) -> {
+            for (int k = 0; k < CircuitModel.WIDTH; k++) {
+                byte t = type[k];
+                if (t != r && t != l && t != c) continue;
+                int id = base | k;
+                if (nodes.pinCount(id) == 0) continue;
+                int a = nodes.netOfNode(nodes.pinNode(id, 0));
+                int b = nodes.netOfNode(nodes.pinNode(id, 1));
+                long pair = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+                ParallelGroup g = pairToGroup.get(pair);
+                if (g == null) {
+                    // 표시 위치는 그룹 첫 소자의 양단 중점
+                    int q = 4 * k;
+                    g = new ParallelGroup(Math.min(a, b), Math.max(a, b),
+                        new Point2D.Double((geom[q] + geom[q + 2]) / 2.0, (geom[q + 1] + geom[q + 3]) / 2.0));
+                    pairToGroup.put(pair, g);
+                    out.add(g);
+                }
+                if (t == r) g.addResistor(value[k]);
+                else if (t == l) g.addInductor(value[k]);
+                else g.addCapacitor(value[k]);
             }
-        }
-        // 키를 좌표(중점)로 변환
-        Map<Point2D, ParallelGroup> out = new HashMap<>();
-        for (Map.Entry<String, ParallelGroup> entry : pairKeyToGroup.entrySet()) {
-            String[] parts = entry.getKey().split("\\|");
-            String[] a = parts[0].split(",");
-            String[] b = parts[1].split(",");
-            double ax = Double.parseDouble(a[0]);
-            double ay = Double.parseDouble(a[1]);
-            double bx = Double.parseDouble(b[0]);
-            double by = Double.parseDouble(b[1]);
-            Point2D mid = new Point2D.Double((ax + bx)/2.0, (ay + by)/2.0);
-            out.put(mid, entry.getValue());
-        }
+        });
         return out;
     }
 
@@ -391,19 +497,6 @@ class CircuitEditor extends JPanel implements MouseListener, MouseMotionListener
         return new Point2D.Double(x, y);
     }
 
-    private String formatValue(double value) {
-        if (value >= 1000) { return String.format("%.0f", value); }
-        else if (value >= 1) { return String.format("%.2f", value); }
-        else if (value >= 0.01) { return String.format("%.4f", value); }
-        else if (value >= 0.0001) { return String.format("%.6f", value); }
-        else {
-            if (value >= 1e-6) { return String.format("%.2fμ", value * 1e6); }
-            else if (value >= 1e-9) { return String.format("%.2fn", value * 1e9); }
-            else if (value >= 1e-12) { return String.format("%.2fp", value * 1e12); }
-            else { return String.format("%.2e", value); }
-        }
-    }
-
     @Override public void mouseMoved(MouseEvent e) {}
     @Override public void mouseEntered(MouseEvent e) {}
     @Override public void mouseExited(MouseEvent e) {}
@@ -1,55 +1,118 @@
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 
+// 소자 하나의 값. 편집기와 해석기가 실제로 보관하는 것은 CircuitModel의 열(종류/값/좌표 배열)이고,
+// 이 객체는 도구로 새 소자를 만들거나 파일을 읽을 때, 모델에서 소자 하나를 꺼내 볼 때만 잠깐 쓰는 가벼운 사본이다.
+// 도형과 OP-AMP 단자는 시작점과 종류로 정해지므로 따로 들고 있지 않는다.
 class CircuitElement {
+    int id;             // 편집기가 추가할 때 매기는 번호 (0 = 아직 회로에 없음). CircuitModel의 키
     ComponentType type;
-    Rectangle2D shape;
     double gunny;
-    Point2D start, end;
-    Object nonInvertingInputNode;
-    Object invertingInputNode;
-    Object outputNode;
+    Point2D start, end; // OP-AMP: 도형 왼쪽 위와 출력 단자, 부회로: 도형 왼쪽 위와 단자 1
+
+    CircuitElement() {}
 
     public CircuitElement(ComponentType type, Point2D pos) {
         this.type = type;
+        this.start = pos;
         if(type == ComponentType.RESISTOR) {
-            this.shape = new Rectangle2D.Double(pos.getX(), pos.getY(), 60, 20);
             this.gunny = 1000;
-            this.start = pos;
             this.end = new Point2D.Double(pos.getX() + 60, pos.getY() + 10);
         } else if(type == ComponentType.INDUCTOR) {
-            this.shape = new Rectangle2D.Double(pos.getX(), pos.getY(), 60, 20);
             this.gunny = 0.1;
-            this.start = pos;
             this.end = new Point2D.Double(pos.getX() + 60, pos.getY() + 10);
         } else if(type == ComponentType.CAPACITOR) {
-            this.shape = new Rectangle2D.Double(pos.getX(), pos.getY(), 60, 20);
             this.gunny = 0.0001;
-            this.start = pos;
             this.end = new Point2D.Double(pos.getX() + 60, pos.getY() + 10);
         } else if(type == ComponentType.OP_AMP) {
-            this.shape = new Rectangle2D.Double(pos.getX(), pos.getY(), 60, 40);
-            this.nonInvertingInputNode = new Point2D.Double(pos.getX(), pos.getY() + 10);
-            this.invertingInputNode = new Point2D.Double(pos.getX(), pos.getY() + 30);
-            this.outputNode = new Point2D.Double(pos.getX() + 60, pos.getY() + 20);
-            this.start = pos;
+            this.gunny = MnaSystem.OPAMP_GAIN; // 개루프 이득 (Infinity = 이상적)
             this.end = new Point2D.Double(pos.getX() + 60, pos.getY() + 20);
         } else if(type == ComponentType.VOLTAGE_SOURCE) {
-            this.shape = new Rectangle2D.Double(pos.getX(), pos.getY(), 40, 40);
             this.gunny = 12.0; // 기본 전압값 12V
-            this.start = pos;
             this.end = new Point2D.Double(pos.getX() + 40, pos.getY() + 20);
         } else if(type == ComponentType.CURRENT_SOURCE) {
-            this.shape = new Rectangle2D.Double(pos.getX(), pos.getY(), 40, 40);
             this.gunny = 1.0; // 기본 전류값 1A
-            this.start = pos;
             this.end = new Point2D.Double(pos.getX() + 40, pos.getY() + 20);
+        } else if(type == ComponentType.SUBCIRCUIT) {
+            // 값은 부회로 정의 id (편집기가 배치할 때 정한다)
+            this.end = new Point2D.Double(pos.getX() + 80, pos.getY() + 20);
         } else {
-            this.start = pos;
             this.end = pos;
         }
     }
 
+    // 기호 도형 크기 (전선은 도형 없음)
+    static int width(ComponentType type) {
+        switch (type) {
+            case RESISTOR: case INDUCTOR: case CAPACITOR: case OP_AMP: return 60;
+            case VOLTAGE_SOURCE: case CURRENT_SOURCE: return 40;
+            case SUBCIRCUIT: return 80;
+            default: return 0;
+        }
+    }
+
+    static int height(ComponentType type) {
+        switch (type) {
+            case RESISTOR: case INDUCTOR: case CAPACITOR: return 20;
+            case OP_AMP: case VOLTAGE_SOURCE: case CURRENT_SOURCE: case SUBCIRCUIT: return 40;
+            default: return 0;
+        }
+    }
+
+    public boolean hasShape() { return width(type) > 0; }
+
+    // 기호 도형 (시작점이 왼쪽 위). 전선은 null
+    public Rectangle2D shape() {
+        if (!hasShape()) return null;
+        return new Rectangle2D.Double(start.getX(), start.getY(), width(type), height(type));
+    }
+
+    public boolean contains(Point2D p) {
+        if (!hasShape()) return false;
+        double x = p.getX() - start.getX(), y = p.getY() - start.getY();
+        return x >= 0 && y >= 0 && x < width(type) && y < height(type);
+    }
+
+    public boolean intersects(Rectangle2D r) {
+        return hasShape() && r.intersects(start.getX(), start.getY(), width(type), height(type));
+    }
+
+    // 단자 좌표. OP-AMP는 (+, -, 출력), 부회로는 (왼쪽, 오른쪽[, 아래]) 순서
+    public Point2D[] pins() {
+        if (start == null || end == null) return null;
+        double x = start.getX(), y = start.getY();
+        if (type == ComponentType.OP_AMP) {
+            return new Point2D[] { new Point2D.Double(x, y + 10), new Point2D.Double(x, y + 30), new Point2D.Double(x + 60, y + 20) };
+        }
+        if (type == ComponentType.SUBCIRCUIT) {
+            Point2D left = new Point2D.Double(x, y + 20), right = new Point2D.Double(x + 80, y + 20);
+            if (subcircuitPorts(gunny) < 3) return new Point2D[] { left, right };
+            return new Point2D[] { left, right, new Point2D.Double(x + 40, y + 40) };
+        }
+        return new Point2D[] { start, end };
+    }
+
+    // 값(정의 id)이 가리키는 부회로의 단자 수. 정의가 없으면 2
+    static int subcircuitPorts(double value) {
+        Subcircuit def = Subcircuit.get((int) value);
+        return def == null ? 2 : def.ports();
+    }
+
+    public void translate(double dx, double dy) {
+        start = new Point2D.Double(start.getX() + dx, start.getY() + dy);
+        end = new Point2D.Double(end.getX() + dx, end.getY() + dy);
+    }
+
+    public CircuitElement copy() {
+        CircuitElement c = new CircuitElement();
+        c.id = id;
+        c.type = type;
+        c.gunny = gunny;
+        c.start = start;
+        c.end = end;
+        return c;
+    }
+
     public boolean isNearWire(Point2D p) {
         if(type != ComponentType.WIRE || start == null || end == null) return false;
         final double threshold = 8.0;
@@ -75,5 +138,3 @@ class CircuitElement {
         return Math.sqrt(dx * dx + dy * dy);
     }
 }
-
-
@@ -0,0 +1,134 @@
+import java.awt.geom.Point2D;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// 회로 텍스트 파일 (.circuit) 읽기/쓰기.
+// 한 줄에 소자 하나: "<종류> x1 y1 x2 y2 [값]", OP_AMP는 "OP_AMP x y [개루프 이득]" (이득이 없으면 기본값, Infinity = 이상적). '#' 이후는 주석
+// 부회로 정의는 "SUBCKT <번호> <이름>" ~ "ENDS" 사이에 같은 형식으로 적고, 인스턴스는 "SUBCIRCUIT x1 y1 x2 y2 <번호>"다.
+// 번호는 파일 안에서만 쓰는 것으로, 읽을 때 정의 목록(Subcircuit)의 id로 바꾼다. 정의는 쓰이기 전에 나와야 한다
+final class CircuitFile {
+    static final String EXTENSION = ".circuit";
+
+    private CircuitFile() {}
+
+    public static List<CircuitElement> read(Path path) throws IOException {
+        return read(path, null);
+    }
+
+    // scope: 읽은 부회로 정의를 묶을 범위 (Subcircuit.load). null이면 정의가 계속 남는다
+    public static List<CircuitElement> read(Path path, Subcircuit.Scope scope) throws IOException {
+        List<CircuitElement> elements = new ArrayList<>();
+        Map<Integer, Integer> defs = new HashMap<>();     // 파일 번호 -> 정의 id
+        List<CircuitElement> body = null;                 // 읽는 중인 SUBCKT 본문
+        String[] header = null;
+        try (BufferedReader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                int hash = line.indexOf('#');
+                if (hash >= 0) line = line.substring(0, hash);
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                String[] f = line.split("\\s+");
+                try {
+                    String word = f[0].toUpperCase(Locale.ROOT);
+                    if (word.equals("SUBCKT")) {
+                        if (body != null) throw new IllegalArgumentException("SUBCKT 안에 SUBCKT");
+                        header = line.split("\\s+", 3);
+                        body = new ArrayList<>();
+                    } else if (word.equals("ENDS")) {
+                        if (body == null) throw new IllegalArgumentException("SUBCKT 없이 ENDS");
+                        defs.put(Integer.parseInt(header[1]), Subcircuit.load(header.length > 2 ? header[2] : header[1], toModel(body), scope).id);
+                        body = null;
+                    } else {
+                        (body != null ? body : elements).add(parse(f, defs));
+                    }
+                } catch (RuntimeException ex) {
+                    throw new IOException(path + ":" + lineNo + ": 잘못된 소자 정의 '" + line + "'", ex);
+                }
+            }
+        }
+        if (body != null) throw new IOException(path + ": ENDS가 없는 SUBCKT '" + header[1] + "'");
+        return elements;
+    }
+
+    private static CircuitElement parse(String[] f, Map<Integer, Integer> defs) {
+        ComponentType type = ComponentType.valueOf(f[0].toUpperCase(Locale.ROOT));
+        Point2D start = new Point2D.Double(Double.parseDouble(f[1]), Double.parseDouble(f[2]));
+        CircuitElement e = new CircuitElement(type, start);
+        if (type == ComponentType.OP_AMP) {
+            if (f.length > 3) e.gunny = Double.parseDouble(f[3]);
+            return e;
+        }
+        e.end = new Point2D.Double(Double.parseDouble(f[3]), Double.parseDouble(f[4]));
+        if (f.length > 5) e.gunny = Double.parseDouble(f[5]);
+        if (type == ComponentType.SUBCIRCUIT) {
+            Integer id = defs.get((int) e.gunny);
+            if (id == null) throw new IllegalArgumentException("정의되지 않은 부회로 " + (int) e.gunny);
+            e.gunny = id;
+        }
+        return e;
+    }
+
+    // 소자 목록을 회로 버전으로 (파일 순서대로 id 1, 2, ...)
+    static CircuitModel toModel(List<CircuitElement> body) {
+        CircuitModel model = CircuitModel.EMPTY;
+        for (int i = 0; i < body.size(); i++) {
+            body.get(i).id = i + 1;
+            model = model.with(body.get(i));
+        }
+        return model;
+    }
+
+    public static void write(List<CircuitElement> elements, Path path) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            // 쓰인 정의를 안쪽 것부터 (읽을 때 쓰이기 전에 나오도록)
+            Map<Integer, Subcircuit> used = new LinkedHashMap<>();
+            for (CircuitElement e : elements) collect(e, used);
+            for (Subcircuit def : used.values()) {
+                out.write("SUBCKT " + def.id + " " + def.name);
+                out.newLine();
+                writeElements(def.model.elements(), out);
+                out.write("ENDS");
+                out.newLine();
+            }
+            writeElements(elements, out);
+        }
+    }
+
+    private static void collect(CircuitElement e, Map<Integer, Subcircuit> used) {
+        if (e.type != ComponentType.SUBCIRCUIT) return;
+        Subcircuit def = Subcircuit.get((int) e.gunny);
+        if (def == null || used.containsKey(def.id)) return;
+        for (CircuitElement inner : def.model.elements()) collect(inner, used);
+        used.put(def.id, def);
+    }
+
+    private static void writeElements(List<CircuitElement> elements, BufferedWriter out) throws IOException {
+        for (CircuitElement e : elements) {
+            if (e.start == null) continue;
+            out.write(e.type.name());
+            out.write(String.format(Locale.ROOT, " %.0f %.0f", e.start.getX(), e.start.getY()));
+            if (e.type == ComponentType.OP_AMP) {
+                out.write(" " + e.gunny);
+            } else if (e.type == ComponentType.SUBCIRCUIT) {
+                out.write(String.format(Locale.ROOT, " %.0f %.0f %d", e.end.getX(), e.end.getY(), (int) e.gunny));
+            } else if (e.end != null) {
+                out.write(String.format(Locale.ROOT, " %.0f %.0f", e.end.getX(), e.end.getY()));
+                if (e.type != ComponentType.WIRE) out.write(" " + e.gunny);
+            }
+            out.newLine();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+import java.util.ArrayDeque;
+
+// 실행 취소/다시 실행. 편집 단위(소자 추가/삭제, 값 변경, 드래그 한 번)마다 그 직전 버전을 쌓는다.
+// 버전끼리 가지를 공유하므로 한 항목이 더 잡아 두는 메모리는 바뀐 경로뿐이고, 드래그 중간 버전은 쌓지 않는다.
+// 항목이 limit를 넘으면 가장 오래된 버전부터 버려(압축) 공유가 끊긴 가지는 GC가 거둔다.
+class CircuitHistory {
+    static final int DEFAULT_LIMIT = 256;
+
+    private final int limit;
+    private final ArrayDeque<CircuitModel> undo = new ArrayDeque<>();
+    private final ArrayDeque<CircuitModel> redo = new ArrayDeque<>();
+    private long dropped;
+
+    CircuitHistory() { this(DEFAULT_LIMIT); }
+
+    CircuitHistory(int limit) { this.limit = Math.max(1, limit); }
+
+    // 편집이 끝난 뒤 호출. before는 편집 직전 버전
+    public void record(CircuitModel before) {
+        undo.push(before);
+        redo.clear();
+        while (undo.size() > limit) {
+            undo.removeLast();
+            dropped++;
+        }
+    }
+
+    public boolean canUndo() { return !undo.isEmpty(); }
+
+    public boolean canRedo() { return !redo.isEmpty(); }
+
+    // 되돌아갈 버전 (없으면 null). current는 다시 실행 목록에 들어간다
+    public CircuitModel undo(CircuitModel current) {
+        if (undo.isEmpty()) return null;
+        redo.push(current);
+        return undo.pop();
+    }
+
+    public CircuitModel redo(CircuitModel current) {
+        if (redo.isEmpty()) return null;
+        undo.push(current);
+        return redo.pop();
+    }
+
+    public int undoDepth() { return undo.size(); }
+
+    public int redoDepth() { return redo.size(); }
+
+    // limit를 넘어 버린 버전 수
+    public long dropped() { return dropped; }
+
+    public void clear() {
+        undo.clear();
+        redo.clear();
+    }
+}
@@ -0,0 +1,351 @@
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// 회로의 한 버전 (불변). 소자를 id 순 32칸 덩어리(Chunk)의 열 배열로 보관하는 영속 트라이다.
+//   종류 byte[32] (ordinal + 1, 0 = 빈 칸), 값 double[32], 좌표 float[32 * 4] (x0, y0, x1, y1)
+// 소자 하나가 25바이트 남짓이고, 종류별 합계/개수는 덩어리 배열을 차례로 훑는 기본형 반복문이다.
+// 편집마다 바뀐 소자의 덩어리와 그 위 경로(log32 N 노드)만 복사하고 나머지는 이전 버전과 공유하므로 새 버전은 O(log N),
+// 스냅샷은 참조 하나다. 해석 스레드가 옛 버전을 읽는 동안 편집기가 계속 바꿔도 된다.
+// id는 편집기가 추가 순서대로 매기므로 id 순 순회가 곧 추가 순서다. 삭제된 칸은 비워 두고, 전부 빈 가지는 떼어 낸다.
+final class CircuitModel {
+    static final int BITS = 5;
+    static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final ComponentType[] TYPES = ComponentType.values();
+
+    static final CircuitModel EMPTY = new CircuitModel(new Object[WIDTH], BITS, 0, 0);
+
+    // 잎 덩어리. 한 번 트라이에 들어가면 고치지 않는다
+    static final class Chunk {
+        final byte[] type;
+        final double[] value;
+        final float[] geom;
+        int count;
+
+        Chunk() {
+            type = new byte[WIDTH];
+            value = new double[WIDTH];
+            geom = new float[WIDTH * 4];
+        }
+
+        Chunk(Chunk c) {
+            type = c.type.clone();
+            value = c.value.clone();
+            geom = c.geom.clone();
+            count = c.count;
+        }
+
+        CircuitElement get(int slot, int id) {
+            if (type[slot] == 0) return null;
+            CircuitElement e = new CircuitElement();
+            e.id = id;
+            e.type = TYPES[type[slot] - 1];
+            e.gunny = value[slot];
+            int g = slot * 4;
+            e.start = new Point2D.Double(geom[g], geom[g + 1]);
+            e.end = new Point2D.Double(geom[g + 2], geom[g + 3]);
+            return e;
+        }
+
+        void set(int slot, CircuitElement e) {
+            if (type[slot] == 0) count++;
+            type[slot] = (byte) (e.type.ordinal() + 1);
+            value[slot] = e.gunny;
+            int g = slot * 4;
+            geom[g] = (float) e.start.getX();
+            geom[g + 1] = (float) e.start.getY();
+            geom[g + 2] = (float) e.end.getX();
+            geom[g + 3] = (float) e.end.getY();
+        }
+
+        boolean sameAs(Chunk o, int slot) {
+            int g = slot * 4;
+            return type[slot] == o.type[slot] && Double.doubleToLongBits(value[slot]) == Double.doubleToLongBits(o.value[slot])
+                && geom[g] == o.geom[g] && geom[g + 1] == o.geom[g + 1] && geom[g + 2] == o.geom[g + 2] && geom[g + 3] == o.geom[g + 3];
+        }
+    }
+
+    // 잎 덩어리를 id 순으로 받는다. base는 칸 0의 id, 빈 칸은 type 0
+    interface ChunkVisitor {
+        void chunk(int base, byte[] type, double[] value, float[] geom);
+    }
+
+    // 두 버전의 차이를 받는다 (id 순)
+    interface Diff {
+        void added(CircuitElement e);
+
+        void removed(CircuitElement e);
+
+        void changed(CircuitElement before, CircuitElement after);
+    }
+
+    // id 1, 2, ... 순으로 채우는 일괄 구축 (파일 가져오기). 덩어리를 한 번씩만 채우고 트라이는 마지막에 아래에서부터 세운다.
+    // with()를 소자마다 부르면 덩어리 복사가 소자 수만큼 생기므로 큰 회로는 이쪽이 훨씬 빠르다
+    static final class Builder {
+        private final List<Chunk> chunks = new ArrayList<>();
+        private int last;
+
+        // e에 다음 id를 매겨 넣는다
+        public int add(CircuitElement e) {
+            e.id = ++last;
+            int c = last >>> BITS;
+            if (c == chunks.size()) chunks.add(new Chunk());
+            chunks.get(c).set(last & MASK, e);
+            return last;
+        }
+
+        public int size() { return last; }
+
+        public CircuitModel build() {
+            if (last == 0) return EMPTY;
+            List<Object> level = new ArrayList<>(chunks);
+            int shift = BITS;
+            while (true) {
+                List<Object> up = new ArrayList<>((level.size() + MASK) / WIDTH);
+                for (int i = 0; i < level.size(); i += WIDTH) {
+                    Object[] node = new Object[WIDTH];
+                    for (int k = 0; k < WIDTH && i + k < level.size(); k++) node[k] = level.get(i + k);
+                    up.add(node);
+                }
+                if (up.size() == 1) return new CircuitModel((Object[]) up.get(0), shift, last, last);
+                level = up;
+                shift += BITS;
+            }
+        }
+    }
+
+    final long version;             // 빈 회로에서부터의 편집 수
+    private final Object[] root;    // 내부 노드는 Object[WIDTH], 맨 아래 칸은 Chunk
+    private final int shift;        // 루트 칸을 고르는 비트 위치. 담을 수 있는 id < 2^(shift + BITS)
+    private final int size;
+
+    private CircuitModel(Object[] root, int shift, int size, long version) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+        this.version = version;
+    }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    private Chunk chunk(int id) {
+        if (id <= 0 || (long) id >>> (shift + BITS) != 0) return null;
+        Object[] node = root;
+        for (int s = shift; s > BITS; s -= BITS) {
+            node = (Object[]) node[(id >>> s) & MASK];
+            if (node == null) return null;
+        }
+        return (Chunk) node[(id >>> BITS) & MASK];
+    }
+
+    // id의 소자 사본 (없으면 null). 꺼낼 때마다 새 객체다
+    public CircuitElement get(int id) {
+        Chunk c = chunk(id);
+        return c == null ? null : c.get(id & MASK, id);
+    }
+
+    public boolean contains(int id) {
+        Chunk c = chunk(id);
+        return c != null && c.type[id & MASK] != 0;
+    }
+
+    public ComponentType type(int id) {
+        Chunk c = chunk(id);
+        return c == null || c.type[id & MASK] == 0 ? null : TYPES[c.type[id & MASK] - 1];
+    }
+
+    // e.id 자리에 e의 값을 넣거나 바꾼 새 버전
+    public CircuitModel with(CircuitElement e) {
+        int id = e.id;
+        if (id <= 0) throw new IllegalArgumentException("소자 id가 없습니다");
+        Object[] r = root;
+        int s = shift;
+        while ((long) id >>> (s + BITS) != 0) {
+            Object[] up = new Object[WIDTH];
+            up[0] = r;
+            r = up;
+            s += BITS;
+        }
+        boolean present = s == shift && contains(id);
+        return new CircuitModel(assoc(r, s, id, e), s, present ? size : size + 1, version + 1);
+    }
+
+    public CircuitModel without(int id) {
+        if (!contains(id)) return this;
+        Object[] r = (Object[]) dissoc(root, shift, id);
+        return new CircuitModel(r == null ? new Object[WIDTH] : r, shift, size - 1, version + 1);
+    }
+
+    private static Object[] assoc(Object[] node, int s, int id, CircuitElement e) {
+        Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+        int i = (id >>> s) & MASK;
+        if (s == BITS) {
+            Chunk c = copy[i] == null ? new Chunk() : new Chunk((Chunk) copy[i]);
+            c.set(id & MASK, e);
+            copy[i] = c;
+        } else {
+            copy[i] = assoc((Object[]) copy[i], s - BITS, id, e);
+        }
+        return copy;
+    }
+
+    // 비게 되면 null (부모에서 가지를 뗀다)
+    private static Object dissoc(Object node, int s, int id) {
+        if (s == 0) {
+            Chunk c = (Chunk) node;
+            if (c.count == 1) return null;
+            Chunk copy = new Chunk(c);
+            copy.type[id & MASK] = 0;
+            copy.value[id & MASK] = 0;
+            copy.count--;
+            return copy;
+        }
+        Object[] inner = (Object[]) node;
+        int i = (id >>> s) & MASK;
+        Object child = dissoc(inner[i], s - BITS, id);
+        if (child == null) {
+            int k = 0;
+            while (k < WIDTH && (k == i || inner[k] == null)) k++;
+            if (k == WIDTH) return null;
+        }
+        Object[] copy = inner.clone();
+        copy[i] = child;
+        return copy;
+    }
+
+    // 가장 큰 id (비었으면 0)
+    public int maxId() {
+        int[] max = new int[1];
+        scan((base, type, value, geom) -> {
+            for (int k = 0; k < WIDTH; k++) if (type[k] != 0) max[0] = base | k;
+        });
+        return max[0];
+    }
+
+    // 잎 덩어리를 id 순으로 방문 (열 배열을 그대로 넘기므로 고치면 안 된다)
+    public void scan(ChunkVisitor visitor) {
+        scan(root, shift, 0, visitor);
+    }
+
+    private static void scan(Object[] node, int s, int base, ChunkVisitor visitor) {
+        for (int i = 0; i < WIDTH; i++) {
+            Object child = node[i];
+            if (child == null) continue;
+            int b = base | (i << s);
+            if (s == BITS) {
+                Chunk c = (Chunk) child;
+                visitor.chunk(b, c.type, c.value, c.geom);
+            } else {
+                scan((Object[]) child, s - BITS, b, visitor);
+            }
+        }
+    }
+
+    // id(=추가) 순으로 소자 사본을 방문
+    public void forEach(Consumer<CircuitElement> visitor) {
+        scan((base, type, value, geom) -> {
+            for (int k = 0; k < WIDTH; k++) {
+                if (type[k] == 0) continue;
+                CircuitElement e = new CircuitElement();
+                e.id = base | k;
+                e.type = TYPES[type[k] - 1];
+                e.gunny = value[k];
+                e.start = new Point2D.Double(geom[4 * k], geom[4 * k + 1]);
+                e.end = new Point2D.Double(geom[4 * k + 2], geom[4 * k + 3]);
+                visitor.accept(e);
+            }
+        });
+    }
+
+    // 소자 사본 목록 (파일 저장 등)
+    public List<CircuitElement> elements() {
+        List<CircuitElement> out = new ArrayList<>(size);
+        forEach(out::add);
+        return out;
+    }
+
+    public int count(ComponentType t) {
+        byte code = (byte) (t.ordinal() + 1);
+        int[] n = new int[1];
+        scan((base, type, value, geom) -> {
+            for (int k = 0; k < WIDTH; k++) if (type[k] == code) n[0]++;
+        });
+        return n[0];
+    }
+
+    public double sum(ComponentType t) {
+        byte code = (byte) (t.ordinal() + 1);
+        double[] v = new double[1];
+        scan((base, type, value, geom) -> {
+            for (int k = 0; k < WIDTH; k++) if (type[k] == code) v[0] += value[k];
+        });
+        return v[0];
+    }
+
+    // 주어진 종류의 첫 소자 (없으면 null)
+    public CircuitElement first(ComponentType t) {
+        int id = first(root, shift, 0, (byte) (t.ordinal() + 1));
+        return id < 0 ? null : get(id);
+    }
+
+    private static int first(Object[] node, int s, int base, byte code) {
+        for (int i = 0; i < WIDTH; i++) {
+            Object child = node[i];
+            if (child == null) continue;
+            int b = base | (i << s);
+            if (s == BITS) {
+                byte[] type = ((Chunk) child).type;
+                for (int k = 0; k < WIDTH; k++) if (type[k] == code) return b | k;
+            } else {
+                int id = first((Object[]) child, s - BITS, b, code);
+                if (id >= 0) return id;
+            }
+        }
+        return -1;
+    }
+
+    // from -> to 차이. 두 버전이 공유하는 가지는 참조 비교로 건너뛰므로 O(바뀐 소자 수 · log N)
+    static void diff(CircuitModel from, CircuitModel to, Diff d) {
+        int s = Math.max(from.shift, to.shift);
+        diff(from.rootAt(s), to.rootAt(s), s, 0, d);
+    }
+
+    private Object[] rootAt(int s) {
+        Object[] r = root;
+        for (int h = shift; h < s; h += BITS) {
+            Object[] up = new Object[WIDTH];
+            up[0] = r;
+            r = up;
+        }
+        return r;
+    }
+
+    private static void diff(Object[] a, Object[] b, int s, int base, Diff d) {
+        if (a == b) return;
+        for (int i = 0; i < WIDTH; i++) {
+            Object ca = a == null ? null : a[i];
+            Object cb = b == null ? null : b[i];
+            if (ca == cb) continue;
+            int bi = base | (i << s);
+            if (s > BITS) {
+                diff((Object[]) ca, (Object[]) cb, s - BITS, bi, d);
+                continue;
+            }
+            Chunk x = (Chunk) ca, y = (Chunk) cb;
+            for (int k = 0; k < WIDTH; k++) {
+                boolean inX = x != null && x.type[k] != 0, inY = y != null && y.type[k] != 0;
+                if (inX && inY) {
+                    if (!x.sameAs(y, k)) d.changed(x.get(k, bi | k), y.get(k, bi | k));
+                } else if (inY) {
+                    d.added(y.get(k, bi | k));
+                } else if (inX) {
+                    d.removed(x.get(k, bi | k));
+                }
+            }
+        }
+    }
+}
@@ -1,10 +1,8 @@
 import java.awt.geom.Point2D;
-import java.util.ArrayList;
-import java.util.List;
 
 class CircuitNode {
     Point2D position;
-    List<CircuitElement> connectedElements = new ArrayList<>();
+    long key;       // 격자 키 (Netlist.gridKey)
+    int id;         // NodeTable 내부 노드 번호 (넷 연결성 계산용)
+    int degree;     // 걸린 단자 수
 }
-
-
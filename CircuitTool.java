@@ -1,5 +1,5 @@
 public enum CircuitTool {
-    RESISTOR, INDUCTOR, CAPACITOR, WIRE, OP_AMP, VOLTAGE_SOURCE, CURRENT_SOURCE
+    RESISTOR, INDUCTOR, CAPACITOR, WIRE, OP_AMP, VOLTAGE_SOURCE, CURRENT_SOURCE, SUBCIRCUIT
 }
 
 
@@ -0,0 +1,283 @@
+import java.util.Arrays;
+
+// 복소 희소 LU 분해 (AC 해석용). 알고리즘은 SparseLU와 같고 값만 실수부/허수부 배열로 나눠 둔다.
+// 패턴은 SparseMatrix의 colPtr/rowIdx를 그대로 쓰고 값은 re/im 배열로 받는다.
+// 첫 분해에서 열마다 구한 도달 집합(위상 순서)을 보관하므로, 같은 피벗 순서로 다시 분해할 때는
+// 심볼릭 단계(DFS)를 건너뛰고 수치 계산만 한다.
+class ComplexSparseLU {
+    // 이보다 작은 값은 0으로 본다. 긴 RC 사다리의 고주파처럼 응답이 지수적으로 줄어들면
+    // 비정규화 수(subnormal)가 생겨 연산이 수십 배 느려지는데, 1V 구동 기준으로 측정 의미가 없는 크기다.
+    static final double TINY = 1e-280;
+
+    final int n;
+    final int[] q;
+    int[] pinv;
+    int[] Lp, Li, Up, Ui;
+    double[] Lre, Lim, Ure, Uim;
+
+    private final SparseMatrix pattern;
+    private final double[] wr, wi;
+    private final int[] xi;
+    private final int[] pstack;
+    private final int[] nodeStack;
+    private final int[] marks;
+    private int markStamp;
+    private int[] reachPtr;     // 열 k의 도달 집합: reachIdx[reachPtr[k] .. reachPtr[k+1])
+    private int[] reachIdx;
+    private int[] Lperm;        // L 행 번호를 피벗 순번으로 바꾼 사본 (풀이용)
+
+    private ComplexSparseLU(SparseMatrix pattern, int[] q) {
+        this.n = pattern.n;
+        this.q = q;
+        this.pattern = pattern;
+        this.wr = new double[n];
+        this.wi = new double[n];
+        this.xi = new int[n];
+        this.pstack = new int[n];
+        this.nodeStack = new int[n];
+        this.marks = new int[n];
+    }
+
+    public static ComplexSparseLU factor(SparseMatrix pattern, double[] re, double[] im, int[] columnOrder) {
+        long t0 = AnalysisMetrics.start();
+        ComplexSparseLU lu = new ComplexSparseLU(pattern, columnOrder);
+        lu.numeric(re, im, false);
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.FACTOR, t0);
+        return lu;
+    }
+
+    // 같은 패턴의 새 값으로 재분해. 기존 피벗이 너무 작아지면 피벗과 도달 집합을 다시 구한다.
+    public void refactor(double[] re, double[] im) {
+        long t0 = AnalysisMetrics.start();
+        try {
+            numeric(re, im, true);
+        } catch (IllegalStateException ex) {
+            numeric(re, im, false);
+        }
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.REFACTOR, t0);
+    }
+
+    public int nnzL() { return Lp[n]; }
+    public int nnzU() { return Up[n]; }
+
+    private void numeric(double[] re, double[] im, boolean keepPivots) {
+        int[] colPtr = pattern.colPtr, rowIdx = pattern.rowIdx;
+        int[] oldPinv = keepPivots ? pinv : null;
+        int cap = Math.max(4 * pattern.nnz() + n, 16);
+        int[] li = keepPivots ? Li : new int[cap];
+        int[] ui = keepPivots ? Ui : new int[cap];
+        double[] lr = keepPivots ? Lre : new double[li.length], lm = keepPivots ? Lim : new double[li.length];
+        double[] ur = keepPivots ? Ure : new double[ui.length], um = keepPivots ? Uim : new double[ui.length];
+        int[] rp = keepPivots ? reachPtr : new int[n + 1];
+        int[] ri = keepPivots ? reachIdx : new int[cap];
+        int[] lp = new int[n + 1];
+        int[] up = new int[n + 1];
+        int[] rowOf = null;
+        if (keepPivots) {
+            rowOf = new int[n];
+            for (int i = 0; i < n; i++) rowOf[oldPinv[i]] = i;
+        }
+        int[] pv = new int[n];
+        Arrays.fill(pv, -1);
+        this.pinv = pv;
+        double tol2 = SparseLU.PIVOT_TOLERANCE * SparseLU.PIVOT_TOLERANCE;
+        int lnz = 0, unz = 0, rnz = 0;
+        for (int k = 0; k < n; k++) {
+            lp[k] = lnz;
+            up[k] = unz;
+            if (!keepPivots) {
+                if (lnz + n > li.length) {
+                    int size = Math.max(2 * li.length, lnz + n);
+                    li = Arrays.copyOf(li, size);
+                    lr = Arrays.copyOf(lr, size);
+                    lm = Arrays.copyOf(lm, size);
+                }
+                if (unz + n > ui.length) {
+                    int size = Math.max(2 * ui.length, unz + n);
+                    ui = Arrays.copyOf(ui, size);
+                    ur = Arrays.copyOf(ur, size);
+                    um = Arrays.copyOf(um, size);
+                }
+                if (rnz + n > ri.length) ri = Arrays.copyOf(ri, Math.max(2 * ri.length, rnz + n));
+            }
+            int col = q[k];
+            // 도달 집합: 처음에는 DFS로 구해 보관하고, 피벗을 재사용할 때는 보관한 것을 쓴다
+            int from, to;
+            int[] reach;
+            if (keepPivots) {
+                reach = ri;
+                from = rp[k];
+                to = rp[k + 1];
+            } else {
+                int top = reach(lp, li, colPtr, rowIdx, col);
+                rp[k] = rnz;
+                System.arraycopy(xi, top, ri, rnz, n - top);
+                rnz += n - top;
+                rp[k + 1] = rnz;
+                reach = ri;
+                from = rp[k];
+                to = rnz;
+            }
+            for (int p = from; p < to; p++) {
+                int i = reach[p];
+                wr[i] = 0;
+                wi[i] = 0;
+            }
+            for (int p = colPtr[col]; p < colPtr[col + 1]; p++) {
+                wr[rowIdx[p]] += re[p];
+                wi[rowIdx[p]] += im[p];
+            }
+            for (int p = from; p < to; p++) {
+                int j = reach[p];
+                int J = pv[j];
+                if (J < 0) continue;
+                double xr = wr[j], xm = wi[j];
+                if (Math.abs(xr) + Math.abs(xm) < TINY) continue;
+                for (int t = lp[J] + 1; t < lp[J + 1]; t++) {
+                    int r = li[t];
+                    wr[r] -= lr[t] * xr - lm[t] * xm;
+                    wi[r] -= lr[t] * xm + lm[t] * xr;
+                }
+            }
+            int ipiv = -1;
+            double a = -1;
+            for (int p = from; p < to; p++) {
+                int i = reach[p];
+                if (pv[i] < 0) {
+                    double t = wr[i] * wr[i] + wi[i] * wi[i];
+                    if (t > a) { a = t; ipiv = i; }
+                } else {
+                    ui[unz] = pv[i];
+                    ur[unz] = wr[i];
+                    um[unz++] = wi[i];
+                }
+            }
+            if (ipiv == -1 || a <= 0) {
+                throw new IllegalStateException("특이 행렬: 회로의 해가 유일하지 않습니다 (미지수 " + col + ")");
+            }
+            if (keepPivots) {
+                int fixed = rowOf[k];
+                double t = wr[fixed] * wr[fixed] + wi[fixed] * wi[fixed];
+                if (pv[fixed] >= 0 || t < a * tol2 * tol2) throw new IllegalStateException("피벗 재사용 불가");
+                ipiv = fixed;
+            } else if (pv[col] < 0 && wr[col] * wr[col] + wi[col] * wi[col] >= a * tol2) {
+                ipiv = col;
+            }
+            double pr = wr[ipiv], pm = wi[ipiv];
+            double d = pr * pr + pm * pm;
+            ui[unz] = k;
+            ur[unz] = pr;
+            um[unz++] = pm;
+            pv[ipiv] = k;
+            li[lnz] = ipiv;
+            lr[lnz] = 1;
+            lm[lnz++] = 0;
+            for (int p = from; p < to; p++) {
+                int i = reach[p];
+                if (pv[i] < 0) {
+                    // x / pivot
+                    li[lnz] = i;
+                    lr[lnz] = (wr[i] * pr + wi[i] * pm) / d;
+                    lm[lnz++] = (wi[i] * pr - wr[i] * pm) / d;
+                }
+            }
+        }
+        lp[n] = lnz;
+        up[n] = unz;
+        // Li는 원래 행 번호로 둔다 (재분해 때 그대로 다시 쓰기 위해). 풀이용 피벗 순번 사본은 따로 만든다.
+        Lp = lp; Li = li; Lre = lr; Lim = lm;
+        Up = up; Ui = ui; Ure = ur; Uim = um;
+        reachPtr = rp; reachIdx = ri;
+        rowsToPivotOrder();
+    }
+
+    private void rowsToPivotOrder() {
+        int nz = Lp[n];
+        if (Lperm == null || Lperm.length < nz) Lperm = new int[Li.length];
+        for (int p = 0; p < nz; p++) Lperm[p] = pinv[Li[p]];
+    }
+
+    private int reach(int[] lp, int[] li, int[] colPtr, int[] rowIdx, int col) {
+        if (++markStamp == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            markStamp = 1;
+        }
+        int top = n;
+        for (int p = colPtr[col]; p < colPtr[col + 1]; p++) {
+            int j = rowIdx[p];
+            if (marks[j] != markStamp) top = dfs(j, lp, li, top);
+        }
+        return top;
+    }
+
+    private int dfs(int j, int[] lp, int[] li, int top) {
+        int head = 0;
+        nodeStack[0] = j;
+        while (head >= 0) {
+            j = nodeStack[head];
+            int jnew = pinv[j];
+            if (marks[j] != markStamp) {
+                marks[j] = markStamp;
+                pstack[head] = (jnew < 0) ? 0 : lp[jnew] + 1;
+            }
+            boolean done = true;
+            int p2 = (jnew < 0) ? 0 : lp[jnew + 1];
+            for (int p = pstack[head]; p < p2; p++) {
+                int i = li[p];
+                if (marks[i] == markStamp) continue;
+                pstack[head] = p + 1;
+                nodeStack[++head] = i;
+                done = false;
+                break;
+            }
+            if (done) {
+                head--;
+                xi[--top] = j;
+            }
+        }
+        return top;
+    }
+
+    // Y x = b 풀이. b는 보존된다.
+    public void solve(double[] bRe, double[] bIm, double[] outRe, double[] outIm) {
+        long t0 = AnalysisMetrics.start();
+        double[] xr = new double[n], xm = new double[n];
+        for (int i = 0; i < n; i++) {
+            xr[pinv[i]] = bRe[i];
+            xm[pinv[i]] = bIm[i];
+        }
+        for (int j = 0; j < n; j++) {
+            double a = xr[j], b = xm[j];
+            if (Math.abs(a) + Math.abs(b) < TINY) {
+                xr[j] = 0;
+                xm[j] = 0;
+                continue;
+            }
+            for (int p = Lp[j] + 1; p < Lp[j + 1]; p++) {
+                int r = Lperm[p];
+                xr[r] -= Lre[p] * a - Lim[p] * b;
+                xm[r] -= Lre[p] * b + Lim[p] * a;
+            }
+        }
+        for (int j = n - 1; j >= 0; j--) {
+            int last = Up[j + 1] - 1;
+            double pr = Ure[last], pm = Uim[last], d = pr * pr + pm * pm;
+            double a = (xr[j] * pr + xm[j] * pm) / d;
+            double b = (xm[j] * pr - xr[j] * pm) / d;
+            if (Math.abs(a) + Math.abs(b) < TINY) a = b = 0;
+            xr[j] = a;
+            xm[j] = b;
+            if (a == 0 && b == 0) continue;
+            for (int p = Up[j]; p < last; p++) {
+                int r = Ui[p];
+                xr[r] -= Ure[p] * a - Uim[p] * b;
+                xm[r] -= Ure[p] * b + Uim[p] * a;
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            outRe[q[k]] = xr[k];
+            outIm[q[k]] = xm[k];
+        }
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.SOLVE, t0);
+    }
+}
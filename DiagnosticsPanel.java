@@ -0,0 +1,76 @@
+import javax.swing.*;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+
+// 진단 창: AnalysisMetrics 표를 1초마다 새로 그린다. 계측 켜기/끄기, 초기화, JSON 저장.
+// 창은 하나만 띄우고 다시 누르면 앞으로 가져온다 (닫으면 갱신 타이머도 멈춘다)
+class DiagnosticsPanel extends JPanel {
+    private static JDialog dialog;
+
+    private final JTextArea text = new JTextArea(24, 100);
+    private final Timer refresh = new Timer(1000, e -> refresh());
+
+    DiagnosticsPanel() {
+        super(new BorderLayout());
+        text.setEditable(false);
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        JCheckBox enabledBox = new JCheckBox("계측 켜기", AnalysisMetrics.isEnabled());
+        enabledBox.addActionListener(e -> {
+            AnalysisMetrics.setEnabled(enabledBox.isSelected());
+            refresh();
+        });
+        JButton resetBtn = new JButton("초기화");
+        resetBtn.addActionListener(e -> {
+            AnalysisMetrics.reset();
+            refresh();
+        });
+        JButton saveBtn = new JButton("파일로 저장");
+        saveBtn.addActionListener(e -> save());
+
+        JPanel buttons = new JPanel();
+        buttons.add(enabledBox);
+        buttons.add(resetBtn);
+        buttons.add(saveBtn);
+        add(buttons, BorderLayout.NORTH);
+        add(new JScrollPane(text), BorderLayout.CENTER);
+        refresh();
+    }
+
+    static void show(Frame owner) {
+        if (dialog == null) {
+            DiagnosticsPanel panel = new DiagnosticsPanel();
+            dialog = new JDialog(owner, "해석 진단", false);
+            dialog.setContentPane(panel);
+            dialog.pack();
+            dialog.setLocationRelativeTo(owner);
+            dialog.addComponentListener(new java.awt.event.ComponentAdapter() {
+                @Override
+                public void componentShown(java.awt.event.ComponentEvent e) { panel.refresh.start(); }
+
+                @Override
+                public void componentHidden(java.awt.event.ComponentEvent e) { panel.refresh.stop(); }
+            });
+        }
+        dialog.setVisible(true);
+        dialog.toFront();
+    }
+
+    private void refresh() {
+        int caret = text.getCaretPosition();
+        text.setText(AnalysisMetrics.summary() + "\n결과 캐시: " + AnalysisCache.SHARED.stats() + "\n");
+        text.setCaretPosition(Math.min(caret, text.getDocument().getLength()));
+    }
+
+    private void save() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("circuit-metrics.json"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        try {
+            AnalysisMetrics.dump(chooser.getSelectedFile().toPath());
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "저장 실패: " + ex.getMessage(), "오류", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+}
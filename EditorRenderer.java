@@ -0,0 +1,270 @@
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+// 편집기 그리기 캐시.
+//  - 격자: 격자선을 그린 타일 이미지를 TexturePaint로 깔아 클립 영역만 채운다.
+//  - 기호: 소자 종류/색마다 한 번 그려 둔 스프라이트를 drawImage로 찍는다 (장치 배율별로 따로 보관).
+//  - 값 라벨: (종류, 값)별 문자열을 캐시해 프레임마다 String.format을 하지 않는다.
+// 프레임 시간 계측을 켜면 최근 프레임의 평균/최대 그리기 시간을 화면 구석에 표시한다.
+class EditorRenderer {
+    static final int GRID = 20;
+    static final int LABEL_MARGIN = 30;     // 도형 밖으로 나가는 라벨(위쪽/왼쪽) 여유
+    private static final int TILE = GRID * 10;
+    private static final Color GRID_COLOR = new Color(220, 220, 220);
+    private static final Color SELECTED = Color.BLUE;
+    private static final int LABEL_CACHE_LIMIT = 4096;
+
+    private double spriteScale = -1;
+    private TexturePaint gridPaint;
+    private final Map<ComponentType, Image[]> sprites = new EnumMap<>(ComponentType.class);
+    private final Map<Long, String> labels = new HashMap<>();
+
+    private boolean frameStats = Boolean.getBoolean("circuit.frameTime");
+    private final long[] frameNanos = new long[60];
+    private int frameCount;
+
+    public boolean isFrameStatsEnabled() { return frameStats; }
+
+    public void setFrameStatsEnabled(boolean on) { frameStats = on; }
+
+    // 격자 배경. 타일은 장치 배율에 맞춰 만들어 HiDPI에서도 선이 흐려지지 않게 한다.
+    public void paintGrid(Graphics2D g2, Rectangle clip) {
+        ensureScale(g2);
+        Paint old = g2.getPaint();
+        g2.setPaint(gridPaint);
+        g2.fill(clip);
+        g2.setPaint(old);
+    }
+
+    public void paintElement(Graphics2D g2, CircuitElement e, boolean selected) {
+        ensureScale(g2);
+        Color color = selected ? SELECTED : Color.BLACK;
+        g2.setColor(color);
+        if (e.type == ComponentType.WIRE) {
+            g2.drawLine((int) e.start.getX(), (int) e.start.getY(), (int) e.end.getX(), (int) e.end.getY());
+            return;
+        }
+        Rectangle2D r = e.shape();
+        if (r == null) return;
+        Image sprite = sprite(e.type, r, selected);
+        g2.drawImage(sprite, (int) r.getX() - 1, (int) r.getY() - 1, (int) r.getWidth() + 2, (int) r.getHeight() + 2, null);
+        if (e.type == ComponentType.SUBCIRCUIT) {
+            paintSubcircuit(g2, e, r);
+            return;
+        }
+        String label = label(e.type, e.gunny);
+        if (label == null) return;
+        g2.setColor(color);
+        switch (e.type) {
+            case RESISTOR: g2.drawString(label, (int) r.getCenterX() - 20, (int) r.getY() - 5); break;
+            case INDUCTOR:
+            case CAPACITOR: g2.drawString(label, (int) r.getCenterX() - 15, (int) r.getY() - 5); break;
+            default: g2.drawString(label, (int) r.getX() - 10, (int) r.getY() - 5); break;
+        }
+    }
+
+    // 부회로는 정의마다 이름과 단자 수가 달라 스프라이트(상자와 좌우 단자) 위에 따로 그린다
+    private static void paintSubcircuit(Graphics2D g2, CircuitElement e, Rectangle2D r) {
+        Subcircuit def = Subcircuit.get((int) e.gunny);
+        String name = def == null ? "?" : def.name;
+        FontMetrics fm = g2.getFontMetrics();
+        g2.drawString(name, (int) (r.getCenterX() - fm.stringWidth(name) / 2.0), (int) r.getCenterY() + fm.getAscent() / 2 - 1);
+        if (def != null && def.ports() > 2) {
+            g2.drawLine((int) r.getCenterX(), (int) r.getMaxY() - 5, (int) r.getCenterX(), (int) r.getMaxY());
+        }
+    }
+
+    // 다시 그려야 할 영역: 선택 영역 + 라벨 여유
+    static Rectangle dirtyBounds(CircuitElement e) {
+        Rectangle2D b = SpatialIndex.boundsOf(e);
+        if (b == null) return null;
+        Rectangle r = b.getBounds();
+        r.grow(LABEL_MARGIN, LABEL_MARGIN);
+        return r;
+    }
+
+    public void recordFrame(long nanos) {
+        frameNanos[frameCount++ % frameNanos.length] = nanos;
+    }
+
+    // 보이는 영역 왼쪽 위에 표시. 반환값은 오버레이 영역 (다음 프레임에 함께 다시 그린다)
+    public Rectangle paintFrameStats(Graphics2D g2, Rectangle visible) {
+        Rectangle box = new Rectangle(visible.x + 4, visible.y + 4, 210, 18);
+        int n = Math.min(frameCount, frameNanos.length);
+        if (n == 0) return box;
+        long sum = 0, max = 0;
+        for (int i = 0; i < n; i++) {
+            sum += frameNanos[i];
+            max = Math.max(max, frameNanos[i]);
+        }
+        g2.setColor(new Color(255, 255, 255, 220));
+        g2.fill(box);
+        g2.setColor(Color.DARK_GRAY);
+        g2.drawString(String.format("frame %.2f ms (max %.2f, n=%d)", sum / 1e6 / n, max / 1e6, n), box.x + 4, box.y + 13);
+        return box;
+    }
+
+    private void ensureScale(Graphics2D g2) {
+        AffineTransform tx = g2.getTransform();
+        double scale = Math.max(1.0, Math.max(Math.abs(tx.getScaleX()), Math.abs(tx.getScaleY())));
+        if (scale == spriteScale) return;
+        spriteScale = scale;
+        sprites.clear();
+        int px = (int) Math.ceil(TILE * scale);
+        BufferedImage tile = new BufferedImage(px, px, BufferedImage.TYPE_INT_RGB);
+        Graphics2D tg = tile.createGraphics();
+        tg.setColor(Color.WHITE);
+        tg.fillRect(0, 0, px, px);
+        tg.scale(scale, scale);
+        tg.setColor(GRID_COLOR);
+        for (int v = 0; v < TILE; v += GRID) {
+            tg.drawLine(v, 0, v, TILE);
+            tg.drawLine(0, v, TILE, v);
+        }
+        tg.dispose();
+        gridPaint = new TexturePaint(tile, new Rectangle(0, 0, TILE, TILE));
+    }
+
+    private Image sprite(ComponentType type, Rectangle2D r, boolean selected) {
+        Image[] pair = sprites.computeIfAbsent(type, t -> new Image[2]);
+        int slot = selected ? 1 : 0;
+        if (pair[slot] == null) {
+            int w = (int) r.getWidth() + 2, h = (int) r.getHeight() + 2;
+            BufferedImage img = new BufferedImage((int) Math.ceil(w * spriteScale), (int) Math.ceil(h * spriteScale),
+                BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = img.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.scale(spriteScale, spriteScale);
+            g.setColor(selected ? SELECTED : Color.BLACK);
+            drawGlyph(g, type, new Rectangle2D.Double(1, 1, r.getWidth(), r.getHeight()));
+            g.dispose();
+            pair[slot] = img;
+        }
+        return pair[slot];
+    }
+
+    private String label(ComponentType type, double value) {
+        String unit;
+        switch (type) {
+            case RESISTOR: unit = "Ω"; break;
+            case INDUCTOR: unit = "H"; break;
+            case CAPACITOR: unit = "F"; break;
+            case VOLTAGE_SOURCE: unit = "V"; break;
+            case CURRENT_SOURCE: unit = "A"; break;
+            default: return null;
+        }
+        long key = Double.doubleToLongBits(value) * 31 + type.ordinal();
+        String s = labels.get(key);
+        if (s == null) {
+            if (labels.size() >= LABEL_CACHE_LIMIT) labels.clear();
+            boolean source = type == ComponentType.VOLTAGE_SOURCE || type == ComponentType.CURRENT_SOURCE;
+            s = (source ? String.format("%.1f", value) : formatValue(value)) + unit;
+            labels.put(key, s);
+        }
+        return s;
+    }
+
+    // 기호 모양 (도형 좌표 기준)
+    private static void drawGlyph(Graphics2D g2, ComponentType type, Rectangle2D rect) {
+        switch (type) {
+            case RESISTOR: drawResistor(g2, rect); break;
+            case INDUCTOR: drawInductor(g2, rect); break;
+            case CAPACITOR: drawCapacitor(g2, rect); break;
+            case OP_AMP: drawOpAmp(g2, rect); break;
+            case VOLTAGE_SOURCE: drawVoltageSource(g2, rect); break;
+            case CURRENT_SOURCE: drawCurrentSource(g2, rect); break;
+            case SUBCIRCUIT: drawSubcircuit(g2, rect); break;
+            default: break;
+        }
+    }
+
+    private static void drawResistor(Graphics2D g2, Rectangle2D rect) {
+        Path2D path = new Path2D.Double();
+        path.moveTo(rect.getX(), rect.getCenterY());
+        path.lineTo(rect.getX()+15, rect.getCenterY());
+        path.lineTo(rect.getX()+20, rect.getY());
+        path.lineTo(rect.getX()+25, rect.getMaxY());
+        path.lineTo(rect.getX()+30, rect.getY());
+        path.lineTo(rect.getX()+35, rect.getMaxY());
+        path.lineTo(rect.getX()+40, rect.getY());
+        path.lineTo(rect.getX()+45, rect.getCenterY());
+        path.lineTo(rect.getMaxX(), rect.getCenterY());
+        g2.draw(path);
+    }
+
+    private static void drawInductor(Graphics2D g2, Rectangle2D rect) {
+        int y = (int) rect.getCenterY();
+        for(int i=0; i<5; i++) { g2.drawOval((int)rect.getX()+i*12, y-5, 10, 10); }
+    }
+
+    private static void drawCapacitor(Graphics2D g2, Rectangle2D rect) {
+        int y = (int) rect.getY();
+        int x1 = (int)rect.getX()+20;
+        int x2 = (int)rect.getX()+40;
+        g2.drawLine(x1, y, x1, y+20);
+        g2.drawLine(x2, y, x2, y+20);
+        g2.drawLine((int)rect.getX(), y+10, x1, y+10);
+        g2.drawLine(x2, y+10, (int)rect.getMaxX(), y+10);
+    }
+
+    private static void drawOpAmp(Graphics2D g2, Rectangle2D rect) {
+        Path2D path = new Path2D.Double();
+        path.moveTo(rect.getX(), rect.getY());
+        path.lineTo(rect.getMaxX(), rect.getCenterY());
+        path.lineTo(rect.getX(), rect.getMaxY());
+        path.closePath();
+        g2.setColor(Color.BLACK);
+        g2.draw(path);
+        g2.drawString("OP Amp", (int)rect.getCenterX() - 20, (int)rect.getCenterY());
+    }
+
+    private static void drawVoltageSource(Graphics2D g2, Rectangle2D rect) {
+        // 원 그리기
+        int centerX = (int)rect.getCenterX();
+        int centerY = (int)rect.getCenterY();
+        int radius = 15;
+        g2.drawOval(centerX - radius, centerY - radius, radius * 2, radius * 2);
+
+        // +, - 기호 그리기
+        g2.drawString("+", centerX - 3, centerY - 5);
+        g2.drawString("-", centerX - 3, centerY + 8);
+    }
+
+    private static void drawCurrentSource(Graphics2D g2, Rectangle2D rect) {
+        // 원 그리기
+        int centerX = (int)rect.getCenterX();
+        int centerY = (int)rect.getCenterY();
+        int radius = 15;
+        g2.drawOval(centerX - radius, centerY - radius, radius * 2, radius * 2);
+
+        //화살표 그리기
+        g2.drawLine(centerX, centerY, centerX, centerY + 10);
+    }
+
+    private static void drawSubcircuit(Graphics2D g2, Rectangle2D rect) {
+        int y = (int) rect.getCenterY();
+        g2.drawRect((int) rect.getX() + 10, (int) rect.getY() + 5, (int) rect.getWidth() - 20, (int) rect.getHeight() - 10);
+        g2.drawLine((int) rect.getX(), y, (int) rect.getX() + 10, y);
+        g2.drawLine((int) rect.getMaxX() - 10, y, (int) rect.getMaxX(), y);
+    }
+
+    static String formatValue(double value) {
+        if (value >= 1000) { return String.format("%.0f", value); }
+        else if (value >= 1) { return String.format("%.2f", value); }
+        else if (value >= 0.01) { return String.format("%.4f", value); }
+        else if (value >= 0.0001) { return String.format("%.6f", value); }
+        else {
+            if (value >= 1e-6) { return String.format("%.2fμ", value * 1e6); }
+            else if (value >= 1e-9) { return String.format("%.2fn", value * 1e9); }
+            else if (value >= 1e-12) { return String.format("%.2fp", value * 1e12); }
+            else { return String.format("%.2e", value); }
+        }
+    }
+}
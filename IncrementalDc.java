@@ -0,0 +1,241 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 값 변경/소자 이동에 대한 점진적 DC 재해석.
+// 처음 한 번 분해한 LU를 유지하고, 저항 변경은 Woodbury 저랭크 갱신 A' = A + U·D·Uᵀ
+// (열 u = e_a - e_b, d = 컨덕턴스 변화)로 반영한다: x = x0 - W·S⁻¹·Uᵀx0, W = A⁻¹U, S = D⁻¹ + UᵀW.
+// W의 열은 노드 쌍별로 캐시하므로 같은 소자 값을 계속 바꾸는 동안에는 새 풀이 없이 O(n·k)로 끝난다.
+// 전원 값 변경은 우변만 바꿔 한 번 풀이한다. 갱신 열이 MAX_RANK개를 넘으면 값만 바뀐 경우에는
+// 피벗을 재사용해 재분해하고, 연결이 바뀌었거나 보정이 수치적으로 불안정하면 false를 돌려
+// 넷리스트 재구성과 새 분해를 요구한다. 포화 OP-AMP(비선형)가 있으면 만들 수 없다. 값을 주지 않은 OP-AMP도 기본 유한 이득이라
+// 여기에 들므로(이상적 OP-AMP는 이득 무한대뿐) 호출 측은 MnaSystem.isNonlinear로 먼저 거르고 일반 해석을 쓴다.
+class IncrementalDc {
+    static final int MAX_RANK = 32;
+
+    static class Stats {
+        int updates;            // 반영한 변경 수
+        int solves;             // A⁻¹ 풀이 (우변/갱신 열)
+        int refactorizations;
+        int rank;               // 현재 저랭크 보정 열 수
+        long lastNanos;         // 마지막 변경 처리 시간
+    }
+
+    final Netlist netlist;      // 현재 값 (원본과 토폴로지 공유, 값은 따로)
+    final MnaSystem system;
+    final Stats stats = new Stats();
+
+    private final SparseLU lu;
+    private final double[] baseValue;   // 분해 시점 값
+    private final int[] nodeA, nodeB;   // 현재 연결 (-1: 떠 있음)
+    private final double[] rhs, x0, x;
+    private final Map<Long, double[]> columns = new HashMap<>();   // 노드 쌍 -> A⁻¹u
+    private final List<Integer> changed = new ArrayList<>();       // 분해 시점과 달라진 저항
+    private final boolean[] isChanged;
+
+    IncrementalDc(Netlist source) {
+        this.netlist = source.withOwnValues();
+        this.system = new MnaSystem(netlist);
+        if (system.isNonlinear()) throw new IllegalStateException("포화 OP-AMP가 있는 회로는 점진적 DC 재해석을 하지 않습니다");
+        this.rhs = new double[system.size];
+        system.stampDc(rhs);
+        this.lu = SparseLU.factor(system.matrix);
+        this.baseValue = netlist.value.clone();
+        this.nodeA = Arrays.copyOf(netlist.nodeA, netlist.elementCount);
+        this.nodeB = Arrays.copyOf(netlist.nodeB, netlist.elementCount);
+        this.isChanged = new boolean[netlist.elementCount];
+        this.x0 = lu.solve(rhs);
+        this.x = x0.clone();
+    }
+
+    // 소자 값 변경. 저랭크 갱신으로 처리할 수 없으면 false이며, 이때는 세션을 새로 만들어야 한다
+    public boolean setValue(int e, double value) {
+        long t0 = System.nanoTime();
+        switch (netlist.type[e]) {
+            case RESISTOR:
+                netlist.value[e] = value;
+                markChanged(e);
+                break;
+            case VOLTAGE_SOURCE:
+            case CURRENT_SOURCE:
+                netlist.value[e] = value;
+                system.stampSources(rhs);
+                lu.solve(rhs, x0);
+                stats.solves++;
+                break;
+            case CAPACITOR:
+            case INDUCTOR:
+                // DC에서는 개방/단락이라 동작점이 바뀌지 않는다
+                netlist.value[e] = value;
+                break;
+            default:
+                return false;
+        }
+        return finish(t0);
+    }
+
+    // 소자를 다른 노드 사이로 옮김 (-1: 그 단자가 어느 노드에도 닿지 않음). 저항과 커패시터만 가능
+    public boolean reconnect(int e, int a, int b) {
+        long t0 = System.nanoTime();
+        ComponentType t = netlist.type[e];
+        if (t == ComponentType.CAPACITOR) {
+            nodeA[e] = a;
+            nodeB[e] = b;
+            return finish(t0);
+        }
+        if (t != ComponentType.RESISTOR) return false;
+        nodeA[e] = a;
+        nodeB[e] = b;
+        markChanged(e);
+        return finish(t0);
+    }
+
+    private void markChanged(int e) {
+        if (!isChanged[e]) {
+            isChanged[e] = true;
+            changed.add(e);
+        }
+    }
+
+    private boolean finish(long t0) {
+        if (!applyLowRank()) return false;
+        stats.updates++;
+        stats.lastNanos = System.nanoTime() - t0;
+        return true;
+    }
+
+    private static double conductance(double r) {
+        return 1.0 / Math.max(r, MnaSystem.RMIN);
+    }
+
+    // 달라진 저항들로 보정 열 (a, b, d)을 모아 x = x0 - W·S⁻¹·Uᵀx0 계산
+    private boolean applyLowRank() {
+        Map<Long, double[]> mods = new HashMap<>();
+        boolean moved = false;
+        for (int e : changed) {
+            double g0 = conductance(baseValue[e]), g = conductance(netlist.value[e]);
+            int a0 = netlist.nodeA[e], b0 = netlist.nodeB[e];
+            if (nodeA[e] == a0 && nodeB[e] == b0) {
+                addMod(mods, a0, b0, g - g0);
+            } else {
+                moved = true;
+                addMod(mods, a0, b0, -g0);
+                if (nodeA[e] >= 0 && nodeB[e] >= 0) addMod(mods, nodeA[e], nodeB[e], g);
+            }
+        }
+        List<double[]> cols = new ArrayList<>();
+        for (double[] m : mods.values()) if (m[2] != 0) cols.add(m);
+        if (cols.size() > MAX_RANK) {
+            if (moved) return false;
+            refactor();
+            return true;
+        }
+        stats.rank = cols.size();
+        int k = cols.size();
+        if (k == 0) {
+            System.arraycopy(x0, 0, x, 0, x.length);
+            return true;
+        }
+        double[][] w = new double[k][];
+        for (int i = 0; i < k; i++) w[i] = column((int) cols.get(i)[0], (int) cols.get(i)[1]);
+        // S = D⁻¹ + UᵀW, r = Uᵀx0
+        double[][] s = new double[k][k + 1];
+        for (int i = 0; i < k; i++) {
+            int a = (int) cols.get(i)[0], b = (int) cols.get(i)[1];
+            for (int j = 0; j < k; j++) s[i][j] = pick(w[j], a) - pick(w[j], b);
+            s[i][i] += 1.0 / cols.get(i)[2];
+            s[i][k] = pick(x0, a) - pick(x0, b);
+        }
+        double[] y = solveDense(s, k);
+        if (y == null) return false;
+        System.arraycopy(x0, 0, x, 0, x.length);
+        for (int j = 0; j < k; j++) {
+            double yj = y[j];
+            double[] wj = w[j];
+            for (int i = 0; i < x.length; i++) x[i] -= wj[i] * yj;
+        }
+        return true;
+    }
+
+    private static void addMod(Map<Long, double[]> mods, int a, int b, double d) {
+        if (a == b) return;
+        int lo = Math.min(a, b), hi = Math.max(a, b);
+        double[] m = mods.computeIfAbsent(((long) lo << 32) | hi, key -> new double[] { lo, hi, 0 });
+        m[2] += d;
+    }
+
+    // 노드 전압 미지수 (노드 0 = 접지)
+    private static double pick(double[] v, int node) {
+        return node == 0 ? 0.0 : v[node - 1];
+    }
+
+    // A⁻¹(e_a - e_b), 노드 쌍별 캐시
+    private double[] column(int a, int b) {
+        long key = ((long) a << 32) | b;
+        double[] w = columns.get(key);
+        if (w == null) {
+            double[] u = new double[system.size];
+            if (a > 0) u[a - 1] = 1;
+            if (b > 0) u[b - 1] = -1;
+            w = lu.solve(u);
+            stats.solves++;
+            columns.put(key, w);
+        }
+        return w;
+    }
+
+    // 보정 열이 너무 많아짐: 현재 값으로 다시 채우고 기존 피벗으로 재분해
+    private void refactor() {
+        system.stampDc(rhs);
+        lu.refactor(system.matrix);
+        lu.solve(rhs, x0);
+        System.arraycopy(x0, 0, x, 0, x.length);
+        System.arraycopy(netlist.value, 0, baseValue, 0, baseValue.length);
+        for (int e : changed) isChanged[e] = false;
+        changed.clear();
+        columns.clear();
+        stats.rank = 0;
+        stats.refactorizations++;
+    }
+
+    // 부분 피벗 가우스 소거 (s는 [k x (k+1)] 첨가 행렬, 덮어씀).
+    // 옮긴 저항이 어떤 노드의 유일한 도통 경로였으면 A'가 GMIN만으로 정칙이 되어 S가 거의 특이해진다.
+    // 이때는 보정 결과를 믿을 수 없으므로 null (호출 측이 전체 재분해)
+    private static double[] solveDense(double[][] s, int k) {
+        double scale = 0;
+        for (int r = 0; r < k; r++) for (int c = 0; c < k; c++) scale = Math.max(scale, Math.abs(s[r][c]));
+        for (int c = 0; c < k; c++) {
+            int p = c;
+            for (int r = c + 1; r < k; r++) if (Math.abs(s[r][c]) > Math.abs(s[p][c])) p = r;
+            if (Math.abs(s[p][c]) < 1e-8 * scale) return null;
+            double[] t = s[c]; s[c] = s[p]; s[p] = t;
+            for (int r = c + 1; r < k; r++) {
+                double f = s[r][c] / s[c][c];
+                if (f == 0) continue;
+                for (int j = c; j <= k; j++) s[r][j] -= f * s[c][j];
+            }
+        }
+        double[] y = new double[k];
+        for (int r = k - 1; r >= 0; r--) {
+            double v = s[r][k];
+            for (int j = r + 1; j < k; j++) v -= s[r][j] * y[j];
+            y[r] = v / s[r][r];
+        }
+        return y;
+    }
+
+    public double[] solution() { return x; }
+
+    // 현재 동작점. 옮겨진 저항의 전류는 새 연결 기준으로 계산한다
+    public CircuitAnalysisResult.OperatingPoint operatingPoint() {
+        double[] currents = system.elementCurrents(x);
+        for (int e : changed) {
+            if (nodeA[e] == netlist.nodeA[e] && nodeB[e] == netlist.nodeB[e]) continue;
+            currents[e] = nodeA[e] < 0 || nodeB[e] < 0 ? 0.0
+                : (pick(x, nodeA[e]) - pick(x, nodeB[e])) / Math.max(netlist.value[e], MnaSystem.RMIN);
+        }
+        return new CircuitAnalysisResult.OperatingPoint(netlist, system.nodeVoltages(x), currents);
+    }
+}
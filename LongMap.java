@@ -0,0 +1,133 @@
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+// long 키 개방 주소 해시 맵 (선형 탐사). 키를 박싱하지 않으므로 조회/갱신에 객체를 만들지 않는다.
+// 삭제는 묘비 없이 뒤쪽 항목을 당겨 채우는 방식(backward shift)이라 삭제가 잦아도 탐사 길이가 늘지 않는다.
+class LongMap<V> {
+    private static final long EMPTY = Long.MIN_VALUE;   // 격자 키 (x << 32 | y)로는 나오지 않는 값
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+
+    LongMap() {
+        this(16);
+    }
+
+    LongMap(int expected) {
+        int cap = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        keys = new long[cap];
+        Arrays.fill(keys, EMPTY);
+        values = new Object[cap];
+        mask = cap - 1;
+    }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) return (V) values[i];
+            if (k == EMPTY) return null;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == EMPTY) throw new IllegalArgumentException("예약된 키: " + key);
+        int i = slot(key);
+        for (; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) grow();
+        return null;
+    }
+
+    public V computeIfAbsent(long key, LongFunction<V> factory) {
+        V v = get(key);
+        if (v == null) {
+            v = factory.apply(key);
+            put(key, v);
+        }
+        return v;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int i = slot(key);
+        for (; keys[i] != key; i = (i + 1) & mask) {
+            if (keys[i] == EMPTY) return null;
+        }
+        V old = (V) values[i];
+        // 빈 칸이 생기면 뒤따르는 클러스터 항목 중 원래 자리가 빈 칸 이전인 것을 당겨온다
+        int gap = i;
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = EMPTY;
+        values[gap] = null;
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    // 항목 순회 (순서는 정해지지 않음). 순회 중 구조 변경은 허용하지 않는다.
+    public void forEach(Visitor<V> visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) visitor.visit(keys[i], valueAt(i));
+        }
+    }
+
+    interface Visitor<V> {
+        void visit(long key, V value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int i) { return (V) values[i]; }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        values = new Object[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            int j = slot(oldKeys[i]);
+            while (keys[j] != EMPTY) j = (j + 1) & mask;
+            keys[j] = oldKeys[i];
+            values[j] = oldValues[i];
+        }
+    }
+
+    // 격자 좌표는 20의 배수라 하위 비트가 치우치므로 곱셈 해시로 섞는다
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,352 @@
+import java.util.Arrays;
+
+// 수정 절점 해석(MNA) 시스템. 넷리스트로부터 희소 패턴을 한 번만 만들고
+// 해석 모드(DC 등)에 따라 값만 다시 채운다.
+// 미지수 배치: [노드 1..N-1 전압 | 분기 전류(전압원, 인덕터, OP-AMP 출력)]
+//
+// OP-AMP(+, -, 출력)는 출력 노드에 전류를 흘려 넣는 분기 하나로 모델링한다. 값이 무한대면 이상적 널레이터-노레이터
+// (분기 방정식 v+ - v- = 0), 유한하면 개루프 이득 A와 ±OPAMP_RAIL 포화를 갖는 v_out = Vr·tanh(A·vd/Vr).
+// stampMatrix는 포화 모델을 vd = 0에서 선형화한 유한 이득 A로 채우고(과도/AC/스윕은 이 선형 모델),
+// DC 동작점은 NewtonSolver가 stampOpAmps로 매 반복 선형화를 고쳐 넣는다.
+// 부회로 인스턴스는 정의의 단자 어드미턴스 Y(단자 k개 -> k x k 칸)와 노턴 전류(우변)로 쌓는다. 저항성 모델이라 a0와 무관하다.
+class MnaSystem {
+    static final double GMIN = 1e-12;
+    static final double RMIN = 1e-9;
+    static final double OPAMP_GAIN = 1e5;   // 값이 0 이하인 OP-AMP의 기본 개루프 이득
+    static final double OPAMP_RAIL = 15.0;  // 출력 포화 전압 (±)
+
+    final Netlist netlist;
+    final int nodeUnknowns;
+    final int size;
+    final int[] branchOf;       // 소자 -> 분기 미지수 번호(없으면 -1)
+    final SparseMatrix matrix;
+
+    private final int[] slotStart;  // 소자별 슬롯 범위
+    private final int[] slots;      // CSC 위치 (-1: 접지 항)
+    private final int[] diagSlot;   // 노드 대각 (GMIN용)
+
+    MnaSystem(Netlist nl) {
+        long t0 = AnalysisMetrics.start();
+        this.netlist = nl;
+        this.nodeUnknowns = nl.nodeCount - 1;
+        this.branchOf = new int[nl.elementCount];
+        int branches = 0;
+        for (int e = 0; e < nl.elementCount; e++) {
+            branchOf[e] = hasBranch(nl.type[e]) ? nodeUnknowns + branches++ : -1;
+        }
+        this.size = nodeUnknowns + branches;
+
+        int capacity = 5 * nl.elementCount;
+        for (int e = 0; e < nl.elementCount; e++) {
+            if (nl.block[e] != null) capacity += nl.block[e].ports() * nl.block[e].ports();
+        }
+        SparseMatrix.Builder b = new SparseMatrix.Builder(size, capacity + nodeUnknowns);
+        slotStart = new int[nl.elementCount + 1];
+        int[] stamps = new int[capacity];
+        int s = 0;
+        for (int e = 0; e < nl.elementCount; e++) {
+            slotStart[e] = s;
+            int a = nl.nodeA[e] - 1;
+            int c = nl.nodeB[e] - 1;
+            int br = branchOf[e];
+            switch (nl.type[e]) {
+                case RESISTOR:
+                case CAPACITOR:
+                    stamps[s++] = entry(b, a, a);
+                    stamps[s++] = entry(b, c, c);
+                    stamps[s++] = entry(b, a, c);
+                    stamps[s++] = entry(b, c, a);
+                    break;
+                case VOLTAGE_SOURCE:
+                case INDUCTOR:
+                    stamps[s++] = entry(b, a, br);
+                    stamps[s++] = entry(b, c, br);
+                    stamps[s++] = entry(b, br, a);
+                    stamps[s++] = entry(b, br, c);
+                    stamps[s++] = entry(b, br, br);
+                    break;
+                case OP_AMP: {
+                    int out = nl.nodeC[e] - 1;
+                    stamps[s++] = entry(b, out, br);
+                    stamps[s++] = entry(b, br, out);
+                    stamps[s++] = entry(b, br, a);
+                    stamps[s++] = entry(b, br, c);
+                    break;
+                }
+                case SUBCIRCUIT: {
+                    if (nl.block[e] == null) break;
+                    int[] port = ports(nl, e);
+                    for (int i = 0; i < port.length; i++) {
+                        for (int j = 0; j < port.length; j++) stamps[s++] = entry(b, port[i] - 1, port[j] - 1);
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+        slotStart[nl.elementCount] = s;
+        int[] diagStamp = new int[nodeUnknowns];
+        for (int i = 0; i < nodeUnknowns; i++) diagStamp[i] = b.add(i, i);
+
+        int[] slotOf = new int[b.size()];
+        this.matrix = b.compress(slotOf);
+        this.slots = new int[s];
+        for (int k = 0; k < s; k++) slots[k] = stamps[k] < 0 ? -1 : slotOf[stamps[k]];
+        this.diagSlot = new int[nodeUnknowns];
+        for (int i = 0; i < nodeUnknowns; i++) diagSlot[i] = slotOf[diagStamp[i]];
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.ASSEMBLY, t0);
+    }
+
+    // 같은 토폴로지의 다른 값 집합을 위한 복사본. 희소 패턴과 슬롯 배치는 공유하고 값 배열만 따로 갖는다.
+    MnaSystem(MnaSystem template, Netlist values) {
+        this.netlist = values;
+        this.nodeUnknowns = template.nodeUnknowns;
+        this.size = template.size;
+        this.branchOf = template.branchOf;
+        SparseMatrix m = template.matrix;
+        this.matrix = new SparseMatrix(m.n, m.colPtr, m.rowIdx, new double[m.values.length]);
+        this.slotStart = template.slotStart;
+        this.slots = template.slots;
+        this.diagSlot = template.diagSlot;
+    }
+
+    static boolean hasBranch(ComponentType t) {
+        return t == ComponentType.VOLTAGE_SOURCE || t == ComponentType.INDUCTOR || t == ComponentType.OP_AMP;
+    }
+
+    // OP-AMP 개루프 이득 (무한대 = 이상적)
+    static double opAmpGain(double value) {
+        return value > 0 ? value : OPAMP_GAIN;
+    }
+
+    // 포화 모델 OP-AMP가 있으면 DC 동작점이 비선형
+    public boolean isNonlinear() {
+        return isNonlinear(netlist);
+    }
+
+    // 값이 0 이하인 OP-AMP도 기본 유한 이득(OPAMP_GAIN)이라 비선형이다. 무한대만 이상적(선형) 모델
+    static boolean isNonlinear(Netlist nl) {
+        for (int e = 0; e < nl.elementCount; e++) {
+            if (nl.type[e] == ComponentType.OP_AMP && !Double.isInfinite(opAmpGain(nl.value[e]))) return true;
+        }
+        return false;
+    }
+
+    // 부회로 인스턴스의 단자 노드 (정의의 단자 순서)
+    static int[] ports(Netlist nl, int e) {
+        int k = nl.block[e].ports();
+        return k == 2 ? new int[] { nl.nodeA[e], nl.nodeB[e] } : new int[] { nl.nodeA[e], nl.nodeB[e], nl.nodeC[e] };
+    }
+
+    private static int entry(SparseMatrix.Builder b, int row, int col) {
+        return (row < 0 || col < 0) ? -1 : b.add(row, col);
+    }
+
+    private void put(int k, double v) {
+        int slot = slots[k];
+        if (slot >= 0) matrix.values[slot] += v;
+    }
+
+    // DC 동작점: 인덕터는 단락(0V 분기), 커패시터는 개방
+    public void stampDc(double[] rhs) {
+        stampMatrix(0.0);
+        stampSources(rhs);
+    }
+
+    // 행렬 값 채우기. a0는 미분 근사 x' ≈ a0·x_n + (이력)의 계수로,
+    // 커패시터는 컨덕턴스 C·a0, 인덕터는 분기 대각 -L·a0 동반 모델이 된다 (a0 = 0이면 DC).
+    public void stampMatrix(double a0) {
+        long t0 = AnalysisMetrics.start();
+        Netlist nl = netlist;
+        double[] vals = matrix.values;
+        Arrays.fill(vals, 0.0);
+        for (int i = 0; i < nodeUnknowns; i++) vals[diagSlot[i]] += GMIN;
+        for (int e = 0; e < nl.elementCount; e++) {
+            int k = slotStart[e];
+            switch (nl.type[e]) {
+                case RESISTOR: {
+                    double g = 1.0 / Math.max(nl.value[e], RMIN);
+                    put(k, g); put(k + 1, g); put(k + 2, -g); put(k + 3, -g);
+                    break;
+                }
+                case CAPACITOR: {
+                    double g = nl.value[e] * a0;
+                    put(k, g); put(k + 1, g); put(k + 2, -g); put(k + 3, -g);
+                    break;
+                }
+                case VOLTAGE_SOURCE:
+                    put(k, 1); put(k + 1, -1); put(k + 2, 1); put(k + 3, -1);
+                    break;
+                case INDUCTOR:
+                    put(k, 1); put(k + 1, -1); put(k + 2, 1); put(k + 3, -1);
+                    put(k + 4, -nl.value[e] * a0);
+                    break;
+                case OP_AMP: {
+                    // 출력 노드 KCL에 분기 전류, 분기 방정식 v_out - A·(v+ - v-) = 0 (이상적이면 v+ - v- = 0)
+                    double gain = opAmpGain(nl.value[e]);
+                    put(k, 1);
+                    if (Double.isInfinite(gain)) {
+                        put(k + 2, 1); put(k + 3, -1);
+                    } else {
+                        put(k + 1, 1); put(k + 2, -gain); put(k + 3, gain);
+                    }
+                    break;
+                }
+                case SUBCIRCUIT: {
+                    if (nl.block[e] == null) break;
+                    double[] y = nl.block[e].model().y;
+                    for (int i = 0; i < y.length; i++) put(k + i, y[i]);
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.ASSEMBLY, t0);
+    }
+
+    // 독립 전원의 우변 항
+    public void stampSources(double[] rhs) {
+        Arrays.fill(rhs, 0.0);
+        for (int e = 0; e < netlist.elementCount; e++) stampSource(e, rhs);
+    }
+
+    // 독립 전원인 소자인가 (전압원, 전류원, 내부 전원이 있는 부회로 인스턴스)
+    public boolean isSource(int e) {
+        Netlist nl = netlist;
+        switch (nl.type[e]) {
+            case VOLTAGE_SOURCE:
+            case CURRENT_SOURCE:
+                return true;
+            case SUBCIRCUIT: {
+                if (nl.block[e] == null) return false;
+                for (double c : nl.block[e].model().current) if (c != 0) return true;
+                return false;
+            }
+            default:
+                return false;
+        }
+    }
+
+    // 소자 e 하나의 전원 항을 rhs에 더한다 (중첩 해석은 전원마다 따로 쌓는다)
+    public void stampSource(int e, double[] rhs) {
+        Netlist nl = netlist;
+        switch (nl.type[e]) {
+            case VOLTAGE_SOURCE:
+                rhs[branchOf[e]] += nl.value[e];
+                break;
+            case CURRENT_SOURCE: {
+                // 전류는 A 단자에서 소자를 지나 B 단자로 흐른다
+                int a = nl.nodeA[e] - 1, c = nl.nodeB[e] - 1;
+                if (a >= 0) rhs[a] -= nl.value[e];
+                if (c >= 0) rhs[c] += nl.value[e];
+                break;
+            }
+            case SUBCIRCUIT: {
+                // 단자로 들어가는 내부 전원 몫 (단자를 모두 단락했을 때의 전류)
+                if (nl.block[e] == null) break;
+                double[] current = nl.block[e].model().current;
+                int[] port = ports(nl, e);
+                for (int i = 0; i < port.length; i++) if (port[i] > 0) rhs[port[i] - 1] -= current[i];
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    // 포화 OP-AMP를 현재 해 x에서 선형화해 stampMatrix 결과에 더한다:
+    // v_out - f'(vd0)·vd = f(vd0) - f'(vd0)·vd0. 돌려주는 값은 OP-AMP별 기울기 f'(vd0)
+    // (호출 측이 지난 분해 때와 비교해 LU 재사용 여부를 정한다)
+    public double[] stampOpAmps(double[] x, double[] rhs) {
+        Netlist nl = netlist;
+        double[] slope = new double[nl.count(ComponentType.OP_AMP)];
+        int j = 0;
+        for (int e = 0; e < nl.elementCount; e++) {
+            if (nl.type[e] != ComponentType.OP_AMP) continue;
+            double gain = opAmpGain(nl.value[e]);
+            if (Double.isInfinite(gain)) {
+                slope[j++] = gain;
+                continue;
+            }
+            double vd = nodeVoltage(x, nl.nodeA[e]) - nodeVoltage(x, nl.nodeB[e]);
+            double t = Math.tanh(gain * vd / OPAMP_RAIL);
+            double g = gain * (1 - t * t);
+            int k = slotStart[e];
+            put(k + 2, gain - g);
+            put(k + 3, g - gain);
+            rhs[branchOf[e]] += OPAMP_RAIL * t - g * vd;
+            slope[j++] = g;
+        }
+        return slope;
+    }
+
+    // 포화 모델 기준 잔차 F(x) = A(x)·x - b(x). stampMatrix/stampSources/stampOpAmps를 x에서 채운 뒤 호출
+    public void residual(double[] x, double[] rhs, double[] out) {
+        SparseMatrix m = matrix;
+        for (int i = 0; i < size; i++) out[i] = -rhs[i];
+        for (int col = 0; col < size; col++) {
+            double xc = x[col];
+            if (xc == 0) continue;
+            for (int p = m.colPtr[col]; p < m.colPtr[col + 1]; p++) out[m.rowIdx[p]] += m.values[p] * xc;
+        }
+    }
+
+    public double nodeVoltage(double[] x, int node) {
+        return node == 0 ? 0.0 : x[node - 1];
+    }
+
+    // 소자별 전류 (A -> B 방향)
+    public double[] elementCurrents(double[] x) {
+        return elementCurrents(x, -1);
+    }
+
+    // 전원 source 하나만 켠 해 x의 소자 전류 (중첩 해석의 몫). 다른 전류원과 부회로 내부 전원의 고정 전류는 0으로 본다.
+    // source < 0이면 모든 전원이 켜진 해
+    public double[] elementCurrents(double[] x, int source) {
+        Netlist nl = netlist;
+        double[] out = new double[nl.elementCount];
+        for (int e = 0; e < nl.elementCount; e++) {
+            switch (nl.type[e]) {
+                case RESISTOR:
+                    out[e] = (nodeVoltage(x, nl.nodeA[e]) - nodeVoltage(x, nl.nodeB[e])) / Math.max(nl.value[e], RMIN);
+                    break;
+                case CURRENT_SOURCE:
+                    out[e] = source < 0 || source == e ? nl.value[e] : 0.0;
+                    break;
+                case SUBCIRCUIT: {
+                    // 단자 0으로 들어가는 전류
+                    if (nl.block[e] == null) break;
+                    Subcircuit.Model m = nl.block[e].model();
+                    int[] port = ports(nl, e);
+                    double i0 = source < 0 || source == e ? m.current[0] : 0.0;
+                    for (int j = 0; j < port.length; j++) i0 += m.y[j] * nodeVoltage(x, port[j]);
+                    out[e] = i0;
+                    break;
+                }
+                default:
+                    out[e] = branchOf[e] >= 0 ? x[branchOf[e]] : 0.0;
+                    break;
+            }
+        }
+        return out;
+    }
+
+    public double[] nodeVoltages(double[] x) {
+        double[] v = new double[netlist.nodeCount];
+        System.arraycopy(x, 0, v, 1, nodeUnknowns);
+        return v;
+    }
+
+    // DC 동작점 해석. 포화 OP-AMP가 있으면 뉴턴-랩슨
+    public static CircuitAnalysisResult.OperatingPoint solveDc(Netlist nl) {
+        MnaSystem sys = new MnaSystem(nl);
+        if (sys.isNonlinear()) return new NewtonSolver(sys).solve();
+        double[] rhs = new double[sys.size];
+        sys.stampDc(rhs);
+        SparseLU lu = SparseLU.factor(sys.matrix);
+        double[] x = lu.solve(rhs);
+        return new CircuitAnalysisResult.OperatingPoint(nl, sys.nodeVoltages(x), sys.elementCurrents(x));
+    }
+}
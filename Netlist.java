@@ -0,0 +1,383 @@
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongUnaryOperator;
+import java.util.function.Predicate;
+
+// 해석용 평면 넷리스트. 노드 0은 접지이며, 소자는 기본형 배열로 보관한다.
+// 전선(WIRE)은 양 끝 노드를 하나의 넷으로 합치므로 소자 목록에 들어가지 않는다.
+// 부회로(SUBCIRCUIT) 인스턴스는 단자 노드(nodeA/B/C)와 정의(block)만 갖는 소자 하나다. 해석은 정의의 단자 축약 모델을 쓰고,
+// 축약할 수 없는 정의는 flatten으로 펼친다 (OP-AMP 정의는 compile이 바로 펼친다).
+class Netlist {
+    static final long INTERNAL = Long.MIN_VALUE;   // 펼친 부회로 안쪽 노드의 nodeKey (편집기 좌표 없음)
+
+    int nodeCount;          // 접지 포함
+    int elementCount;
+    ComponentType[] type;
+    double[] value;
+    int[] nodeA;            // 2단자: 시작(+) / OP-AMP: 비반전 입력
+    int[] nodeB;            // 2단자: 끝(-) / OP-AMP: 반전 입력
+    int[] nodeC;            // OP-AMP 출력, 그 외 -1
+    long[] nodeKey;         // 넷 대표 격자 좌표 (x << 32 | y)
+    int[] source;           // 편집기 소자 id (CircuitModel 키, 없으면 0)
+    Subcircuit[] block;     // SUBCIRCUIT 인스턴스의 정의 (펼쳤으면 null)
+
+    Netlist(int nodeCount, int capacity) {
+        this.nodeCount = nodeCount;
+        type = new ComponentType[capacity];
+        value = new double[capacity];
+        nodeA = new int[capacity];
+        nodeB = new int[capacity];
+        nodeC = new int[capacity];
+        source = new int[capacity];
+        block = new Subcircuit[capacity];
+        nodeKey = new long[nodeCount];
+    }
+
+    public int add(ComponentType t, double v, int a, int b, int c, int src) {
+        int e = elementCount++;
+        type[e] = t;
+        value[e] = v;
+        nodeA[e] = a;
+        nodeB[e] = b;
+        nodeC[e] = c;
+        source[e] = src;
+        block[e] = t == ComponentType.SUBCIRCUIT ? Subcircuit.get((int) v) : null;
+        return e;
+    }
+
+    // 토폴로지 배열은 공유하고 소자 값만 복사한 넷리스트 (값 변경 해석용)
+    public Netlist withOwnValues() {
+        Netlist copy = new Netlist(this);
+        copy.value = value.clone();
+        return copy;
+    }
+
+    private Netlist(Netlist other) {
+        nodeCount = other.nodeCount;
+        elementCount = other.elementCount;
+        type = other.type;
+        value = other.value;
+        nodeA = other.nodeA;
+        nodeB = other.nodeB;
+        nodeC = other.nodeC;
+        nodeKey = other.nodeKey;
+        source = other.source;
+        block = other.block;
+    }
+
+    public int indexOf(int id) {
+        for (int e = 0; e < elementCount; e++) if (source[e] == id) return e;
+        return -1;
+    }
+
+    // 종류별 소자 수/값 합. 펼치지 않은 부회로 인스턴스는 정의 안쪽 소자를 센다
+    public int count(ComponentType t) {
+        int c = 0;
+        for (int e = 0; e < elementCount; e++) {
+            if (type[e] == t) c++;
+            else if (block[e] != null) c += block[e].count(t);
+        }
+        return c;
+    }
+
+    public double sum(ComponentType t) {
+        double v = 0;
+        for (int e = 0; e < elementCount; e++) {
+            if (type[e] == t) v += value[e];
+            else if (block[e] != null) v += block[e].sum(t);
+        }
+        return v;
+    }
+
+    // 조건에 맞는 부회로 인스턴스를 (안쪽 인스턴스까지) 펼친 넷리스트. 맞는 것이 없으면 this.
+    // 기존 노드/소자 번호는 그대로이고 안쪽 노드와 소자를 뒤에 붙인다. 펼친 인스턴스는 block이 null이 되어 아무것도 쌓지 않는다
+    public Netlist flatten(Predicate<Subcircuit> expand) {
+        int e0 = 0;
+        while (e0 < elementCount && (block[e0] == null || !expand.test(block[e0]))) e0++;
+        if (e0 == elementCount) return this;
+        Netlist out = new Netlist(nodeCount, elementCount);
+        out.elementCount = elementCount;
+        System.arraycopy(type, 0, out.type, 0, elementCount);
+        System.arraycopy(value, 0, out.value, 0, elementCount);
+        System.arraycopy(nodeA, 0, out.nodeA, 0, elementCount);
+        System.arraycopy(nodeB, 0, out.nodeB, 0, elementCount);
+        System.arraycopy(nodeC, 0, out.nodeC, 0, elementCount);
+        System.arraycopy(source, 0, out.source, 0, elementCount);
+        System.arraycopy(block, 0, out.block, 0, elementCount);
+        System.arraycopy(nodeKey, 0, out.nodeKey, 0, nodeCount);
+        for (int e = e0; e < out.elementCount; e++) {
+            Subcircuit def = out.block[e];
+            if (def == null || !expand.test(def)) continue;
+            out.block[e] = null;
+            Netlist in = def.inner;
+            int[] map = new int[in.nodeCount];
+            Arrays.fill(map, -1);
+            for (int i = 0; i < def.ports(); i++) map[def.portNode[i]] = i == 0 ? out.nodeA[e] : i == 1 ? out.nodeB[e] : out.nodeC[e];
+            out.reserve(in.nodeCount - def.ports(), in.elementCount);
+            for (int n = 0; n < in.nodeCount; n++) {
+                if (map[n] >= 0) continue;
+                map[n] = out.nodeCount;
+                out.nodeKey[out.nodeCount++] = INTERNAL;
+            }
+            for (int f = 0; f < in.elementCount; f++) {
+                int g = out.add(in.type[f], in.value[f], map[in.nodeA[f]], map[in.nodeB[f]], in.nodeC[f] < 0 ? -1 : map[in.nodeC[f]], 0);
+                out.block[g] = in.block[f];
+            }
+        }
+        return out;
+    }
+
+    void reserve(int nodes, int elements) {
+        if (nodeCount + nodes > nodeKey.length) nodeKey = Arrays.copyOf(nodeKey, Math.max(nodeCount + nodes, 2 * nodeKey.length));
+        int need = elementCount + elements;
+        if (need <= type.length) return;
+        int cap = Math.max(need, 2 * type.length);
+        type = Arrays.copyOf(type, cap);
+        value = Arrays.copyOf(value, cap);
+        nodeA = Arrays.copyOf(nodeA, cap);
+        nodeB = Arrays.copyOf(nodeB, cap);
+        nodeC = Arrays.copyOf(nodeC, cap);
+        source = Arrays.copyOf(source, cap);
+        block = Arrays.copyOf(block, cap);
+    }
+
+    public Point2D nodePosition(int node) {
+        long k = nodeKey[node];
+        return new Point2D.Double((int) (k >> 32), (int) k);
+    }
+
+    static long gridKey(Point2D pos) {
+        return gridKey(pos.getX(), pos.getY());
+    }
+
+    static long gridKey(double px, double py) {
+        int x = ((int) px / 20) * 20;
+        int y = ((int) py / 20) * 20;
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    // 편집기 소자 목록을 넷리스트로 변환한다. 넷 번호와 접지 규칙은 Compiler를 따른다
+    public static Netlist compile(List<CircuitElement> elements) {
+        long t0 = AnalysisMetrics.start();
+        Compiler c = new Compiler(elements.size());
+        int[] pin = new int[3];
+        for (CircuitElement e : elements) {
+            Point2D[] pts = e.pins();
+            if (pts == null) continue;
+            for (int k = 0; k < pts.length; k++) {
+                long key = gridKey(pts[k]);
+                pin[k] = c.pin(key, key);
+            }
+            c.add(e.type, e.gunny, e.id, pin[0], pin[1], pts.length > 2 ? pin[2] : -1);
+        }
+        Netlist nl = c.build();
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.NETLIST, t0);
+        return nl;
+    }
+
+    // 회로 버전을 넷리스트로. 모델의 열 배열에서 단자 키를 바로 계산하므로 소자 객체를 만들지 않는다.
+    // 넷 번호와 접지 규칙은 compile(List)와 같다.
+    public static Netlist compile(CircuitModel model) {
+        return compile(model, null, null);
+    }
+
+    // probe[i] 격자 키가 속한 노드를 probeNode[i]에 (닿은 단자가 없으면 -1). 부회로 정의의 단자를 찾을 때 쓴다
+    static Netlist compile(CircuitModel model, long[] probe, int[] probeNode) {
+        long t0 = AnalysisMetrics.start();
+        Compiler c = new Compiler(model.size());
+        ComponentType[] types = ComponentType.values();
+        long[] pk = new long[3];
+        int[] pin = new int[3];
+        model.scan((base, type, value, geom) -> {
+            for (int k = 0; k < CircuitModel.WIDTH; k++) {
+                if (type[k] == 0) continue;
+                int np = pinKeys(type[k] - 1, value[k], geom, k, pk);
+                for (int q = 0; q < np; q++) pin[q] = c.pin(pk[q], pk[q]);
+                c.add(types[type[k] - 1], value[k], base | k, pin[0], pin[1], np > 2 ? pin[2] : -1);
+            }
+        });
+        Netlist nl = c.build();
+        for (int i = 0; probe != null && i < probe.length; i++) probeNode[i] = c.nodeOf(probe[i]);
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.NETLIST, t0);
+        return nl;
+    }
+
+    // 열 배열의 칸 k 소자의 단자 격자 키를 out에 (CircuitElement.pins와 같은 순서). 단자 수를 돌려준다
+    static int pinKeys(int typeOrdinal, double value, float[] geom, int k, long[] out) {
+        float x0 = geom[4 * k], y0 = geom[4 * k + 1];
+        if (typeOrdinal == ComponentType.OP_AMP.ordinal()) {
+            out[0] = gridKey(x0, y0 + 10);
+            out[1] = gridKey(x0, y0 + 30);
+            out[2] = gridKey(x0 + 60, y0 + 20);
+            return 3;
+        }
+        if (typeOrdinal == ComponentType.SUBCIRCUIT.ordinal()) {
+            out[0] = gridKey(x0, y0 + 20);
+            out[1] = gridKey(x0 + 80, y0 + 20);
+            if (CircuitElement.subcircuitPorts(value) < 3) return 2;
+            out[2] = gridKey(x0 + 40, y0 + 40);
+            return 3;
+        }
+        out[0] = gridKey(x0, y0);
+        out[1] = gridKey(geom[4 * k + 2], geom[4 * k + 3]);
+        return 2;
+    }
+
+    // 편집기가 유지하는 넷 id로 넷리스트를 만든다. 전선 병합을 다시 계산하지 않는다 (단자의 병합 기준 점이 넷 id라
+    // 전선 양 끝은 이미 같은 점이다). 단자 노드는 NodeTable의 id별 배열에서, 종류/값은 모델 열에서 읽는다.
+    // 넷 번호와 접지 규칙은 compile(List)와 같다.
+    public static Netlist compile(CircuitModel model, NodeTable nodes) {
+        long t0 = AnalysisMetrics.start();
+        Compiler c = new Compiler(model.size(), nodes.idBound(), node -> nodes.nodeKey((int) node));
+        ComponentType[] types = ComponentType.values();
+        int[] pin = new int[3];
+        model.scan((base, type, value, geom) -> {
+            for (int k = 0; k < CircuitModel.WIDTH; k++) {
+                int id = base | k, pins = type[k] == 0 ? 0 : nodes.pinCount(id);
+                if (pins == 0) continue;
+                for (int q = 0; q < pins; q++) {
+                    int node = nodes.pinNode(id, q);
+                    pin[q] = c.pin(nodes.netOfNode(node), node);
+                }
+                c.add(types[type[k] - 1], value[k], id, pin[0], pin[1], pins > 2 ? pin[2] : -1);
+            }
+        });
+        Netlist nl = c.build();
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.NETLIST, t0);
+        return nl;
+    }
+
+    // compile 세 가지의 공통 부분. 소자를 순서대로 받으면서 단자마다 병합 기준 점(격자 키 또는 편집기 넷 id)을
+    // 처음 나온 순서의 핀 번호로 바꾸고(넷 id처럼 상한이 있는 작은 정수면 해시 대신 배열로), 전선은 양 끝 핀을 union-find로 합친다.
+    // build()는 첫 전압원의 (-) 단자가 속한 넷(전압원이 없으면 처음 나온 넷)을 접지 0번으로 두고, 나머지 넷은 처음 나온
+    // 순서로 번호를 매긴다. 넷의 nodeKey는 그 넷에서 처음 나온 단자의 격자 키다 (단자마다 받은 tag를 넷마다 한 번만
+    // keyOf로 바꾼다. keyOf가 없으면 tag가 곧 격자 키). 끝으로 OP-AMP가 든 부회로를 펼친다.
+    private static final class Compiler {
+        private final LongMap<int[]> pointIds;
+        private final int[] densePin;   // 점이 [0, 상한) 정수일 때 점 -> 핀 (-1: 아직 없음)
+        private final LongUnaryOperator keyOf;
+        private int pins;
+        private int[] parent = new int[16];
+        private long[] keys = new long[16];
+        private int groundPin = -1;
+        private int count;
+        private ComponentType[] elemType;
+        private double[] elemValue;
+        private int[] elemId;
+        private int[] pinOf;        // 소자마다 3칸 (없는 단자 -1)
+        private int[] netOf;        // build() 뒤: 핀 -> 노드
+
+        Compiler(int capacity) {
+            this(capacity, 0, null);
+        }
+
+        // pointBound > 0이면 점은 [0, pointBound) 정수다
+        Compiler(int capacity, int pointBound, LongUnaryOperator keyOf) {
+            this.keyOf = keyOf;
+            pointIds = pointBound > 0 ? null : new LongMap<>();
+            densePin = pointBound > 0 ? new int[pointBound] : null;
+            if (densePin != null) Arrays.fill(densePin, -1);
+            capacity = Math.max(capacity, 4);
+            elemType = new ComponentType[capacity];
+            elemValue = new double[capacity];
+            elemId = new int[capacity];
+            pinOf = new int[3 * capacity];
+        }
+
+        // point가 처음 나오면 새 핀을 만들고 tag를 기억한다
+        int pin(long point, long tag) {
+            if (densePin != null) {
+                if (densePin[(int) point] >= 0) return densePin[(int) point];
+                densePin[(int) point] = pins;
+            } else {
+                int[] id = pointIds.get(point);
+                if (id != null) return id[0];
+                pointIds.put(point, new int[] { pins });
+            }
+            if (pins == parent.length) {
+                parent = Arrays.copyOf(parent, pins * 2);
+                keys = Arrays.copyOf(keys, pins * 2);
+            }
+            parent[pins] = pins;
+            keys[pins] = tag;
+            return pins++;
+        }
+
+        void add(ComponentType t, double v, int id, int a, int b, int c) {
+            if (t == ComponentType.WIRE) {
+                int ra = find(parent, a), rb = find(parent, b);
+                if (ra != rb) parent[rb] = ra;
+                return;
+            }
+            if (t == ComponentType.VOLTAGE_SOURCE && groundPin < 0) groundPin = b;
+            if (count == elemType.length) {
+                int cap = count * 2;
+                elemType = Arrays.copyOf(elemType, cap);
+                elemValue = Arrays.copyOf(elemValue, cap);
+                elemId = Arrays.copyOf(elemId, cap);
+                pinOf = Arrays.copyOf(pinOf, 3 * cap);
+            }
+            elemType[count] = t;
+            elemValue[count] = v;
+            elemId[count] = id;
+            pinOf[3 * count] = a;
+            pinOf[3 * count + 1] = b;
+            pinOf[3 * count + 2] = c;
+            count++;
+        }
+
+        Netlist build() {
+            int groundRoot = groundPin >= 0 ? find(parent, groundPin) : pins > 0 ? find(parent, 0) : -1;
+            netOf = new int[pins];
+            Arrays.fill(netOf, -1);
+            int nets = 1;
+            if (groundRoot >= 0) netOf[groundRoot] = 0;
+            for (int p = 0; p < pins; p++) {
+                int r = find(parent, p);
+                if (netOf[r] < 0) netOf[r] = nets++;
+            }
+            for (int p = 0; p < pins; p++) netOf[p] = netOf[find(parent, p)];
+            Netlist nl = new Netlist(nets, count);
+            for (int p = pins - 1; p >= 0; p--) nl.nodeKey[netOf[p]] = keys[p];
+            if (keyOf != null) for (int n = 0; n < nets && pins > 0; n++) nl.nodeKey[n] = keyOf.applyAsLong(nl.nodeKey[n]);
+            for (int e = 0; e < count; e++) {
+                int c = pinOf[3 * e + 2];
+                nl.add(elemType[e], elemValue[e], netOf[pinOf[3 * e]], netOf[pinOf[3 * e + 1]], c < 0 ? -1 : netOf[c], elemId[e]);
+            }
+            return nl.flatten(Subcircuit::hasOpAmp);
+        }
+
+        // build() 뒤 point가 속한 노드 (나온 적 없으면 -1)
+        int nodeOf(long point) {
+            if (densePin != null) return point >= 0 && point < densePin.length && densePin[(int) point] >= 0 ? netOf[densePin[(int) point]] : -1;
+            int[] id = pointIds.get(point);
+            return id == null ? -1 : netOf[id[0]];
+        }
+    }
+
+    // 소자 단자가 하나 이하로 걸린 노드 (한쪽이 떠 있는 소자나 끝이 열린 전선). 펼친 부회로 안쪽 노드는 빼고 센다
+    public int[] floatingNodes() {
+        if (elementCount == 0) return new int[0];
+        int[] degree = new int[nodeCount];
+        for (int e = 0; e < elementCount; e++) {
+            degree[nodeA[e]]++;
+            degree[nodeB[e]]++;
+            if (nodeC[e] >= 0) degree[nodeC[e]]++;
+        }
+        int count = 0;
+        for (int n = 0; n < nodeCount; n++) if (degree[n] <= 1 && nodeKey[n] != INTERNAL) count++;
+        int[] out = new int[count];
+        count = 0;
+        for (int n = 0; n < nodeCount; n++) if (degree[n] <= 1 && nodeKey[n] != INTERNAL) out[count++] = n;
+        return out;
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+}
@@ -0,0 +1,695 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 직렬/병렬/Y-Δ 축약으로 등가 임피던스와 2포트 파라미터를 구하는 엔진.
+// 넷리스트를 어드미턴스 그래프로 바꾼 뒤(독립 전원은 0으로: 전압원 단락, 전류원 개방),
+// 단자가 아닌 노드 중 차수 1(매달린 가지), 2(직렬), 3(Y-Δ)인 것을 별-망 변환으로 하나씩 소거한다.
+// 같은 두 노드 사이 가지는 추가될 때 바로 합쳐지므로(병렬) 소거가 끝나면 단자 사이 가지만 남는다.
+// 차수가 큰 노드가 남아 축약이 막히면 남은 그래프만 복소 절점 해석으로 푼다.
+//
+// 두 단자 질의는 경로 위의 이중 연결 블록으로 나눠 블록마다 따로 줄이고 결과를 더한다(블록끼리는 직렬).
+// 블록은 값과 구조에 대한 Weisfeiler-Lehman 해시로 Memo에 저장하므로, 같은 블록이 반복되거나
+// 값 하나만 바뀐 회로를 다시 질의하면 바뀌지 않은 블록은 다시 줄이지 않는다.
+// OP-AMP는 능동 소자라 축약 대상이 아니며 무시한다.
+// 부회로 인스턴스는 정의의 단자 모델(Subcircuit.Model)을 단자 사이 Δ 가지로 넣는다.
+class NetworkReduction {
+    static final int WL_ROUNDS = 3;
+
+    static class Stats {
+        int parallel, series, wyeDelta, dangling;
+        int blocks, cacheHits, fallbackNodes;
+
+        @Override
+        public String toString() {
+            return String.format("병렬 %d, 직렬 %d, Y-Δ %d, 매달린 가지 %d, 블록 %d (캐시 적중 %d), 절점 해석 노드 %d",
+                parallel, series, wyeDelta, dangling, blocks, cacheHits, fallbackNodes);
+        }
+    }
+
+    // 축약 결과 캐시. 키가 구조와 값의 해시이므로 무효화가 필요 없다. 가득 차면 비운다.
+    static final class Memo {
+        static final Memo SHARED = new Memo(1 << 16);
+
+        private final int limit;
+        private final LongMap<double[]> entries = new LongMap<>();
+
+        Memo(int limit) {
+            this.limit = limit;
+        }
+
+        synchronized double[] get(long h1, long h2) {
+            double[] v = entries.get(h1);
+            return v != null && Double.doubleToRawLongBits(v[0]) == h2 ? v : null;
+        }
+
+        synchronized void put(long h1, long h2, double[] value) {
+            if (entries.size() >= limit) entries.clear();
+            double[] stored = new double[value.length + 1];
+            stored[0] = Double.longBitsToDouble(h2);
+            System.arraycopy(value, 0, stored, 1, value.length);
+            entries.put(h1, stored);
+        }
+
+        synchronized int size() { return entries.size(); }
+    }
+
+    final Netlist netlist;
+    final Stats stats = new Stats();
+    private final Memo memo;
+    private Netlist dynamic;        // L/C가 든 부회로를 펼친 넷리스트 (omega != 0에서 처음 쓸 때 만든다)
+
+    NetworkReduction(Netlist netlist) {
+        this(netlist, Memo.SHARED);
+    }
+
+    NetworkReduction(Netlist netlist, Memo memo) {
+        this.netlist = netlist;
+        this.memo = memo;
+    }
+
+    // 두 노드 사이 등가 임피던스 {re, im}. omega = 0이면 DC(인덕터 단락, 커패시터 개방).
+    // 연결되지 않았으면 {+∞, 0}
+    public double[] impedance(int nodeA, int nodeB, double omega) {
+        return impedance(nodeA, nodeB, omega, -1);
+    }
+
+    // 전원 소자가 보는 등가 임피던스 (그 소자는 빼고, 나머지 독립 전원은 0으로)
+    public double[] sourceImpedance(int element, double omega) {
+        return impedance(netlist.nodeA[element], netlist.nodeB[element], omega, element);
+    }
+
+    private double[] impedance(int nodeA, int nodeB, double omega, int skip) {
+        Graph g = new Graph(at(omega), omega, skip);
+        int p = g.nodeOf[nodeA], q = g.nodeOf[nodeB];
+        if (p == q) return new double[] { 0, 0 };
+        int[] parentEdge = g.parentEdges(p);
+        if (parentEdge[q] < 0) return new double[] { Double.POSITIVE_INFINITY, 0 };
+
+        int[] blockOf = g.blocks(p);
+        // q에서 p로 트리 경로를 거슬러 가며 블록이 바뀌는 지점(절단점)에서 나눈다
+        double zr = 0, zi = 0;
+        int exit = q, v = q;
+        int block = blockOf[parentEdge[q]];
+        while (v != p) {
+            int e = parentEdge[v];
+            if (blockOf[e] != block) {
+                double[] z = blockImpedance(g, block, v, exit, omega);
+                zr += z[0];
+                zi += z[1];
+                exit = v;
+                block = blockOf[e];
+            }
+            v = g.other(e, v);
+        }
+        double[] z = blockImpedance(g, block, p, exit, omega);
+        return new double[] { zr + z[0], zi + z[1] };
+    }
+
+    private double[] blockImpedance(Graph whole, int block, int entry, int exit, double omega) {
+        stats.blocks++;
+        Local g = whole.extractBlock(block, entry, exit);
+        if (g.edgeCount == 1) return inverse(g.yr[0], g.yi[0]);
+        long h1 = g.hash(0x9E3779B97F4A7C15L, omega), h2 = g.hash(0xC2B2AE3D27D4EB4FL, omega);
+        double[] hit = memo.get(h1, h2);
+        if (hit != null) {
+            stats.cacheHits++;
+            return new double[] { hit[1], hit[2] };
+        }
+        double[] y = new Reducer(g, stats).reduceToPorts();
+        double[] z = inverse(y[0], y[1]);
+        memo.put(h1, h2, z);
+        return z;
+    }
+
+    // 공통 단자 기준 2포트 Y 파라미터 {y11, y12, y21, y22} (각각 re, im 순서로 8개)
+    public double[] twoPort(int in, int out, int common, double omega) {
+        Graph whole = new Graph(at(omega), omega, -1);
+        int a = whole.nodeOf[in], b = whole.nodeOf[out], c = whole.nodeOf[common];
+        if (a == b || a == c || b == c) throw new IllegalArgumentException("2포트 단자가 서로 단락되어 있습니다");
+        Local g = whole.extractConnected(new int[] { a, b, c });
+        long h1 = g.hash(0xD6E8FEB86659FD93L, omega), h2 = g.hash(0xA0761D6478BD642FL, omega);
+        double[] hit = memo.get(h1, h2);
+        if (hit != null) {
+            stats.cacheHits++;
+            return Arrays.copyOfRange(hit, 1, hit.length);
+        }
+        double[] y = new Reducer(g, stats).reduceToPorts();
+        memo.put(h1, h2, y);
+        return y;
+    }
+
+    // 주파수에 맞는 넷리스트. 부회로의 단자 모델은 DC(저항성)이므로 L/C가 든 정의는 omega != 0에서 펼친다.
+    // 노드/소자 번호는 펼쳐도 그대로다
+    private Netlist at(double omega) {
+        if (omega == 0) return netlist;
+        if (dynamic == null) dynamic = netlist.flatten(Subcircuit::isDynamic);
+        return dynamic;
+    }
+
+    static double[] inverse(double re, double im) {
+        double d = re * re + im * im;
+        if (d == 0) return new double[] { Double.POSITIVE_INFINITY, 0 };
+        return new double[] { re / d, -im / d };
+    }
+
+    // 1x1 또는 2x2 복소 행렬의 역행렬
+    static double[] invertSmall(double[] z, int k) {
+        if (k == 1) return inverse(z[0], z[1]);
+        if (k != 2) throw new IllegalArgumentException("포트 수는 1 또는 2여야 합니다");
+        // det = z11 z22 - z12 z21
+        double dr = z[0] * z[6] - z[1] * z[7] - (z[2] * z[4] - z[3] * z[5]);
+        double di = z[0] * z[7] + z[1] * z[6] - (z[2] * z[5] + z[3] * z[4]);
+        double[] inv = inverse(dr, di);
+        double[] y = new double[8];
+        int[][] src = { { 6, 1 }, { 2, -1 }, { 4, -1 }, { 0, 1 } };   // [z22, -z12, -z21, z11] / det
+        for (int t = 0; t < 4; t++) {
+            double ar = src[t][1] * z[src[t][0]], ai = src[t][1] * z[src[t][0] + 1];
+            y[2 * t] = ar * inv[0] - ai * inv[1];
+            y[2 * t + 1] = ar * inv[1] + ai * inv[0];
+        }
+        return y;
+    }
+
+    // 넷리스트에서 만든 고정 어드미턴스 그래프 (CSR). 단락 소자로 합친 노드 번호를 쓴다.
+    private static final class Graph {
+        final int[] nodeOf;         // 넷리스트 노드 -> 그래프 노드
+        final int n;
+        int edgeCount;
+        int[] eu, ev;
+        double[] yr, yi;
+        final int[] off, adj;       // 노드 v의 가지 번호: adj[off[v] .. off[v+1])
+        private int[] blockPtr, blockEdges;
+        private int[] localOf;
+
+        Graph(Netlist nl, double omega, int skip) {
+            // 단락 소자(전압원, DC 인덕터)로 노드를 먼저 합친다
+            int[] parent = new int[nl.nodeCount];
+            for (int i = 0; i < parent.length; i++) parent[i] = i;
+            for (int e = 0; e < nl.elementCount; e++) {
+                if (e == skip) continue;
+                boolean shorted = nl.type[e] == ComponentType.VOLTAGE_SOURCE
+                    || (nl.type[e] == ComponentType.INDUCTOR && omega == 0);
+                if (!shorted) continue;
+                int ra = find(parent, nl.nodeA[e]), rb = find(parent, nl.nodeB[e]);
+                if (ra != rb) parent[rb] = ra;
+            }
+            nodeOf = new int[nl.nodeCount];
+            int[] compact = new int[nl.nodeCount];
+            Arrays.fill(compact, -1);
+            int count = 0;
+            for (int i = 0; i < nl.nodeCount; i++) {
+                int r = find(parent, i);
+                if (compact[r] < 0) compact[r] = count++;
+                nodeOf[i] = compact[r];
+            }
+            n = count;
+            int capacity = nl.elementCount;
+            for (int e = 0; e < nl.elementCount; e++) if (nl.block[e] != null) capacity += 2;
+            eu = new int[capacity];
+            ev = new int[capacity];
+            yr = new double[capacity];
+            yi = new double[capacity];
+            for (int e = 0; e < nl.elementCount; e++) {
+                if (e == skip) continue;
+                if (nl.block[e] != null) {
+                    addBlock(nl, e);
+                    continue;
+                }
+                int a = nodeOf[nl.nodeA[e]], b = nodeOf[nl.nodeB[e]];
+                if (a == b) continue;
+                double v = nl.value[e];
+                switch (nl.type[e]) {
+                    case RESISTOR: addEdge(a, b, 1.0 / Math.max(v, MnaSystem.RMIN), 0); break;
+                    case CAPACITOR: if (omega != 0) addEdge(a, b, 0, omega * v); break;
+                    case INDUCTOR: if (omega != 0) addEdge(a, b, 0, -1.0 / (omega * v)); break;
+                    default: break;
+                }
+            }
+            off = new int[n + 1];
+            for (int e = 0; e < edgeCount; e++) { off[eu[e] + 1]++; off[ev[e] + 1]++; }
+            for (int v = 0; v < n; v++) off[v + 1] += off[v];
+            adj = new int[2 * edgeCount];
+            int[] next = Arrays.copyOf(off, n);
+            for (int e = 0; e < edgeCount; e++) {
+                adj[next[eu[e]]++] = e;
+                adj[next[ev[e]]++] = e;
+            }
+        }
+
+        // 부회로 단자 모델 (행/열 합 0인 Y)을 단자 사이 컨덕턴스 -Y_ij의 Δ로. 상호 저항망이면 정확하다
+        private void addBlock(Netlist nl, int e) {
+            Subcircuit.Model m = nl.block[e].model();
+            int[] port = MnaSystem.ports(nl, e);
+            for (int i = 0; i < port.length; i++) {
+                for (int j = i + 1; j < port.length; j++) {
+                    int a = nodeOf[port[i]], b = nodeOf[port[j]];
+                    double g = -m.y[i * m.ports + j];
+                    if (a != b && g != 0) addEdge(a, b, g, 0);
+                }
+            }
+        }
+
+        private void addEdge(int a, int b, double re, double im) {
+            eu[edgeCount] = a;
+            ev[edgeCount] = b;
+            yr[edgeCount] = re;
+            yi[edgeCount++] = im;
+        }
+
+        int other(int e, int v) { return eu[e] == v ? ev[e] : eu[e]; }
+
+        // p에서 너비 우선 탐색한 트리의 부모 가지 (도달 불가 -1, p 자신은 -2)
+        int[] parentEdges(int p) {
+            int[] pe = new int[n];
+            Arrays.fill(pe, -1);
+            pe[p] = -2;
+            int[] queue = new int[n];
+            int head = 0, tail = 0;
+            queue[tail++] = p;
+            while (head < tail) {
+                int u = queue[head++];
+                for (int k = off[u]; k < off[u + 1]; k++) {
+                    int e = adj[k], w = other(e, u);
+                    if (pe[w] != -1) continue;
+                    pe[w] = e;
+                    queue[tail++] = w;
+                }
+            }
+            return pe;
+        }
+
+        // 이중 연결 성분(블록): Tarjan 알고리즘(비재귀). 가지마다 블록 번호를 돌려주고 블록별 가지 목록을 만든다.
+        // 평행 가지가 있으므로 되돌아가기 검사는 부모 노드가 아니라 부모 가지로 한다.
+        int[] blocks(int root) {
+            int[] blockOf = new int[edgeCount];
+            Arrays.fill(blockOf, -1);
+            int[] disc = new int[n], low = new int[n], via = new int[n], cursor = new int[n];
+            int[] stack = new int[n];
+            int[] edgeStack = new int[edgeCount];
+            blockEdges = new int[edgeCount];
+            int[] ptr = new int[edgeCount + 1];
+            int esp = 0, sp = 0, time = 0, blocks = 0, filled = 0;
+            stack[sp++] = root;
+            via[root] = -1;
+            disc[root] = low[root] = ++time;
+            cursor[root] = off[root];
+            while (sp > 0) {
+                int u = stack[sp - 1];
+                if (cursor[u] < off[u + 1]) {
+                    int e = adj[cursor[u]++];
+                    if (e == via[u]) continue;
+                    int w = other(e, u);
+                    if (disc[w] == 0) {
+                        edgeStack[esp++] = e;
+                        via[w] = e;
+                        disc[w] = low[w] = ++time;
+                        cursor[w] = off[w];
+                        stack[sp++] = w;
+                    } else if (disc[w] < disc[u]) {
+                        edgeStack[esp++] = e;
+                        low[u] = Math.min(low[u], disc[w]);
+                    }
+                } else {
+                    sp--;
+                    int e = via[u];
+                    if (e < 0) continue;
+                    int w = other(e, u);
+                    low[w] = Math.min(low[w], low[u]);
+                    if (low[u] >= disc[w]) {
+                        // w-u 가지까지 꺼낸 가지들이 하나의 블록
+                        ptr[blocks] = filled;
+                        int top;
+                        do {
+                            top = edgeStack[--esp];
+                            blockOf[top] = blocks;
+                            blockEdges[filled++] = top;
+                        } while (top != e);
+                        blocks++;
+                    }
+                }
+            }
+            ptr[blocks] = filled;
+            blockPtr = Arrays.copyOf(ptr, blocks + 1);
+            return blockOf;
+        }
+
+        // 블록 하나를 지역 그래프로 복사. 입구/출구가 0, 1번 노드가 된다
+        Local extractBlock(int block, int entry, int exit) {
+            int from = blockPtr[block], to = blockPtr[block + 1];
+            int[] ids = new int[2 * (to - from) + 2];
+            int count = 0;
+            if (localOf == null) {
+                localOf = new int[n];
+                Arrays.fill(localOf, -1);
+            }
+            localOf[entry] = count;
+            ids[count++] = entry;
+            localOf[exit] = count;
+            ids[count++] = exit;
+            Local g = new Local(2, to - from);
+            for (int k = from; k < to; k++) {
+                int e = blockEdges[k];
+                if (localOf[eu[e]] < 0) { localOf[eu[e]] = count; ids[count++] = eu[e]; }
+                if (localOf[ev[e]] < 0) { localOf[ev[e]] = count; ids[count++] = ev[e]; }
+                g.add(localOf[eu[e]], localOf[ev[e]], yr[e], yi[e]);
+            }
+            g.n = count;
+            for (int i = 0; i < count; i++) localOf[ids[i]] = -1;
+            return g;
+        }
+
+        // 단자와 연결된 부분만 지역 그래프로 복사 (단자 -> 0, 1, ...)
+        Local extractConnected(int[] ends) {
+            int[] local = new int[n];
+            Arrays.fill(local, -1);
+            int[] queue = new int[n];
+            int head = 0, tail = 0;
+            for (int i = 0; i < ends.length; i++) {
+                local[ends[i]] = i;
+                queue[tail++] = ends[i];
+            }
+            Local g = new Local(ends.length, edgeCount);
+            while (head < tail) {
+                int u = queue[head++];
+                for (int k = off[u]; k < off[u + 1]; k++) {
+                    int e = adj[k], w = other(e, u);
+                    if (local[w] < 0) {
+                        local[w] = tail;
+                        queue[tail++] = w;
+                    }
+                    if (eu[e] == u) g.add(local[u], local[w], yr[e], yi[e]);
+                }
+            }
+            g.n = tail;
+            return g;
+        }
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    // 축약할 지역 그래프 (가지 목록). 0 .. terminals-1번 노드가 단자
+    private static final class Local {
+        final int terminals;
+        int n, edgeCount;
+        int[] eu, ev;
+        double[] yr, yi;
+
+        Local(int terminals, int capacity) {
+            this.terminals = terminals;
+            eu = new int[capacity];
+            ev = new int[capacity];
+            yr = new double[capacity];
+            yi = new double[capacity];
+        }
+
+        void add(int a, int b, double re, double im) {
+            eu[edgeCount] = a;
+            ev[edgeCount] = b;
+            yr[edgeCount] = re;
+            yi[edgeCount++] = im;
+        }
+
+        // 구조/값/단자 표시에 대한 Weisfeiler-Lehman 해시 (노드 번호 순서와 무관)
+        long hash(long seed, double omega) {
+            long[] edgeHash = new long[edgeCount];
+            for (int e = 0; e < edgeCount; e++) {
+                edgeHash[e] = mix(Double.doubleToLongBits(yr[e] + 0.0) * 31 + Double.doubleToLongBits(yi[e] + 0.0) + seed);
+            }
+            long[] label = new long[n];
+            long[] next = new long[n];
+            for (int v = 0; v < n; v++) label[v] = mix(seed + (v < terminals ? 1 + v : 0));
+            for (int round = 0; round < WL_ROUNDS; round++) {
+                System.arraycopy(label, 0, next, 0, n);
+                for (int v = 0; v < n; v++) next[v] *= 31;
+                for (int e = 0; e < edgeCount; e++) {
+                    next[eu[e]] += mix(edgeHash[e] ^ label[ev[e]]);
+                    next[ev[e]] += mix(edgeHash[e] ^ label[eu[e]]);
+                }
+                for (int v = 0; v < n; v++) label[v] = mix(next[v]);
+            }
+            long h = mix(seed ^ Double.doubleToLongBits(omega)) + n * 0x100000001B3L + edgeCount;
+            for (int v = 0; v < n; v++) h += mix(label[v] ^ seed);
+            return h;
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+
+    // 축약 작업 공간. 가지는 번호로 다루고, (작은 노드, 큰 노드) 쌍 색인으로 병렬 가지를 찾는다.
+    // 노드별 가지 목록에는 죽은 가지가 남을 수 있어 훑을 때 걸러내며 당겨 채운다.
+    private static final class Reducer {
+        final Local g;
+        final Stats stats;
+        int edges;
+        int[] eu, ev;
+        double[] yr, yi;
+        boolean[] dead;
+        final int[][] list;
+        final int[] listSize, degree;
+        final boolean[] removed;
+        private long[] pairKey;
+        private int[] pairEdge;
+        private int pairMask;
+
+        Reducer(Local g, Stats stats) {
+            this.g = g;
+            this.stats = stats;
+            int cap = Math.max(16, 2 * g.edgeCount);
+            eu = new int[cap];
+            ev = new int[cap];
+            yr = new double[cap];
+            yi = new double[cap];
+            dead = new boolean[cap];
+            int slots = Integer.highestOneBit(Math.max(16, 4 * g.edgeCount)) << 1;
+            pairKey = new long[slots];
+            Arrays.fill(pairKey, -1);
+            pairEdge = new int[slots];
+            pairMask = slots - 1;
+            list = new int[g.n][];
+            listSize = new int[g.n];
+            degree = new int[g.n];
+            removed = new boolean[g.n];
+            for (int e = 0; e < g.edgeCount; e++) {
+                degree[g.eu[e]]++;
+                degree[g.ev[e]]++;
+            }
+            for (int v = 0; v < g.n; v++) list[v] = new int[Math.max(2, degree[v])];
+            Arrays.fill(degree, 0);
+            for (int e = 0; e < g.edgeCount; e++) connect(g.eu[e], g.ev[e], g.yr[e], g.yi[e]);
+        }
+
+        // 가지 추가. 이미 있으면 병렬로 합친다
+        private void connect(int a, int b, double re, double im) {
+            if (a == b) return;
+            long key = a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+            int s = (int) (mix32(key) & pairMask);
+            while (pairKey[s] != -1 && pairKey[s] != key) s = (s + 1) & pairMask;
+            if (pairKey[s] == key && !dead[pairEdge[s]]) {
+                int e = pairEdge[s];
+                yr[e] += re;
+                yi[e] += im;
+                stats.parallel++;
+                return;
+            }
+            if (edges == eu.length) {
+                int size = 2 * edges;
+                eu = Arrays.copyOf(eu, size);
+                ev = Arrays.copyOf(ev, size);
+                yr = Arrays.copyOf(yr, size);
+                yi = Arrays.copyOf(yi, size);
+                dead = Arrays.copyOf(dead, size);
+            }
+            int e = edges++;
+            eu[e] = a;
+            ev[e] = b;
+            yr[e] = re;
+            yi[e] = im;
+            boolean fresh = pairKey[s] == -1;
+            pairKey[s] = key;
+            pairEdge[s] = e;
+            if (fresh && 2 * edges > pairMask) growPairs();
+            append(a, e);
+            append(b, e);
+        }
+
+        private void append(int v, int e) {
+            if (listSize[v] == list[v].length) list[v] = Arrays.copyOf(list[v], 2 * listSize[v]);
+            list[v][listSize[v]++] = e;
+            degree[v]++;
+        }
+
+        private void growPairs() {
+            long[] oldKey = pairKey;
+            int[] oldEdge = pairEdge;
+            pairKey = new long[oldKey.length * 2];
+            Arrays.fill(pairKey, -1);
+            pairEdge = new int[oldKey.length * 2];
+            pairMask = pairKey.length - 1;
+            for (int i = 0; i < oldKey.length; i++) {
+                if (oldKey[i] == -1) continue;
+                int s = (int) (mix32(oldKey[i]) & pairMask);
+                while (pairKey[s] != -1) s = (s + 1) & pairMask;
+                pairKey[s] = oldKey[i];
+                pairEdge[s] = oldEdge[i];
+            }
+        }
+
+        private static long mix32(long k) {
+            k *= 0x9E3779B97F4A7C15L;
+            return k ^ (k >>> 29);
+        }
+
+        // 살아 있는 가지만 남기도록 목록을 당겨 채운다
+        private int compact(int v) {
+            int[] l = list[v];
+            int k = 0;
+            for (int i = 0; i < listSize[v]; i++) if (!dead[l[i]]) l[k++] = l[i];
+            listSize[v] = k;
+            return k;
+        }
+
+        // 단자가 아닌 노드를 모두 없애고 마지막 단자를 기준으로 한 포트 Y 행렬을 구한다
+        // (k = 단자 수 - 1, k x k 복소, 행 우선 re/im)
+        double[] reduceToPorts() {
+            int n = g.n, t = g.terminals;
+            int[] work = new int[n];
+            boolean[] queued = new boolean[n];
+            int sp = 0;
+            for (int v = n - 1; v >= t; v--) {
+                if (degree[v] <= 3) { work[sp++] = v; queued[v] = true; }
+            }
+            int[] nb = new int[3];
+            while (sp > 0) {
+                int v = work[--sp];
+                queued[v] = false;
+                if (removed[v] || degree[v] > 3) continue;
+                int deg = compact(v);
+                for (int i = 0; i < deg; i++) nb[i] = eu[list[v][i]] == v ? ev[list[v][i]] : eu[list[v][i]];
+                if (!eliminate(v, deg)) continue;
+                for (int i = 0; i < deg; i++) {
+                    int u = nb[i];
+                    if (u >= t && !removed[u] && !queued[u] && degree[u] <= 3) {
+                        work[sp++] = u;
+                        queued[u] = true;
+                    }
+                }
+            }
+            int left = 0;
+            for (int v = t; v < n; v++) if (!removed[v]) left++;
+            if (left > 0) {
+                stats.fallbackNodes += left;
+                return nodalPorts();
+            }
+            int k = t - 1;
+            double[] y = new double[2 * k * k];
+            for (int i = 0; i < k; i++) {
+                int deg = compact(i);
+                for (int m = 0; m < deg; m++) {
+                    int e = list[i][m];
+                    int j = eu[e] == i ? ev[e] : eu[e];
+                    y[2 * (i * k + i)] += yr[e];
+                    y[2 * (i * k + i) + 1] += yi[e];
+                    if (j < k) {
+                        y[2 * (i * k + j)] -= yr[e];
+                        y[2 * (i * k + j) + 1] -= yi[e];
+                    }
+                }
+            }
+            return y;
+        }
+
+        // 별-망 변환으로 노드 v 소거: 이웃 i, j 사이에 y_i·y_j / Σy 가지를 추가
+        private boolean eliminate(int v, int deg) {
+            int[] l = list[v];
+            double sr = 0, si = 0;
+            for (int i = 0; i < deg; i++) { sr += yr[l[i]]; si += yi[l[i]]; }
+            double d = sr * sr + si * si;
+            if (deg >= 2 && d < 1e-300) return false;   // 공진 등으로 합이 0이면 절점 해석에 맡긴다
+            for (int i = 0; i < deg; i++) {
+                int ei = l[i], a = eu[ei] == v ? ev[ei] : eu[ei];
+                dead[ei] = true;
+                degree[a]--;
+            }
+            for (int i = 0; i < deg; i++) {
+                int ei = l[i], a = eu[ei] == v ? ev[ei] : eu[ei];
+                for (int j = i + 1; j < deg; j++) {
+                    int ej = l[j], b = eu[ej] == v ? ev[ej] : eu[ej];
+                    // (y_i * y_j) / s
+                    double pr = yr[ei] * yr[ej] - yi[ei] * yi[ej];
+                    double pi = yr[ei] * yi[ej] + yi[ei] * yr[ej];
+                    connect(a, b, (pr * sr + pi * si) / d, (pi * sr - pr * si) / d);
+                }
+            }
+            listSize[v] = 0;
+            degree[v] = 0;
+            removed[v] = true;
+            if (deg <= 1) stats.dangling++;
+            else if (deg == 2) stats.series++;
+            else stats.wyeDelta++;
+            return true;
+        }
+
+        // 축약이 막힌 그래프: 마지막 단자를 접지로 두고 각 포트에 1A를 넣어 Z를 구한 뒤 Y = Z^-1
+        private double[] nodalPorts() {
+            int n = g.n;
+            int ground = g.terminals - 1, k = ground;
+            int[] index = new int[n];
+            int m = 0;
+            for (int v = 0; v < n; v++) index[v] = (v == ground || removed[v]) ? -1 : m++;
+            SparseMatrix.Builder b = new SparseMatrix.Builder(m, 4 * edges + m);
+            double[] sre = new double[4 * edges + m], sim = new double[sre.length];
+            for (int v = 0; v < n; v++) {
+                if (index[v] < 0) continue;
+                int s = b.add(index[v], index[v]);
+                sre[s] = MnaSystem.GMIN;
+            }
+            for (int e = 0; e < edges; e++) {
+                if (dead[e]) continue;
+                int ia = index[eu[e]], ib = index[ev[e]];
+                if (ia >= 0) { int s = b.add(ia, ia); sre[s] = yr[e]; sim[s] = yi[e]; }
+                if (ib >= 0) { int s = b.add(ib, ib); sre[s] = yr[e]; sim[s] = yi[e]; }
+                if (ia >= 0 && ib >= 0) {
+                    int s = b.add(ia, ib); sre[s] = -yr[e]; sim[s] = -yi[e];
+                    s = b.add(ib, ia); sre[s] = -yr[e]; sim[s] = -yi[e];
+                }
+            }
+            int[] slot = new int[b.size()];
+            SparseMatrix pattern = b.compress(slot);
+            double[] re = pattern.values, im = new double[pattern.nnz()];
+            boolean real = true;
+            for (int s = 0; s < slot.length; s++) {
+                re[slot[s]] += sre[s];
+                im[slot[s]] += sim[s];
+                real &= sim[s] == 0;
+            }
+            int[] order = AmdOrdering.order(m, pattern.colPtr, pattern.rowIdx);
+            // 저항만 남았으면(DC) 실수 LU로 푼다
+            SparseLU rlu = real ? SparseLU.factor(pattern, order) : null;
+            ComplexSparseLU lu = real ? null : ComplexSparseLU.factor(pattern, re, im, order);
+            double[] z = new double[2 * k * k];
+            double[] br = new double[m], bi = new double[m], xr = new double[m], xi = new double[m];
+            for (int j = 0; j < k; j++) {
+                Arrays.fill(br, 0);
+                br[index[j]] = 1;
+                if (real) rlu.solve(br, xr);
+                else lu.solve(br, bi, xr, xi);
+                for (int i = 0; i < k; i++) {
+                    z[2 * (i * k + j)] = xr[index[i]];
+                    z[2 * (i * k + j) + 1] = xi[index[i]];
+                }
+            }
+            return invertSmall(z, k);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+import java.util.Arrays;
+
+// 포화 OP-AMP가 있는 회로의 DC 동작점 (뉴턴-랩슨).
+// 선형 소자 값은 한 번만 채워 두고(base) 반복마다 복사한 뒤 OP-AMP 선형화만 다시 더한다. 희소 패턴과 열 순서는
+// MnaSystem 것을 그대로 쓰고, 분해는 피벗 재사용 refactor가 기본이다. OP-AMP 기울기가 지난 분해 때와
+// 거의 같으면(REUSE_TOLERANCE) LU를 그대로 두고 풀이만 한다(현 잔차로 보정하므로 수렴점은 같다).
+// 잔차가 줄지 않으면 스텝을 반씩 줄이고(감쇠), MAX_ITERATIONS 안에 수렴하지 않으면 전원을 0에서 1까지
+// 키워 가며 앞 단계 해에서 다시 출발한다(원천 스텝).
+class NewtonSolver {
+    static final int MAX_ITERATIONS = 100;
+    static final double RELTOL = 1e-9;          // 행별 잔차 허용치: RELTOL·Σ|a_ij·x_j| + ABSTOL
+    static final double ABSTOL = 1e-12;
+    static final double REUSE_TOLERANCE = 1e-3; // 기울기 변화 / 이득
+    static final int MAX_HALVINGS = 8;
+
+    static class Stats {
+        int iterations;
+        int factorizations;     // 새 피벗으로 분해
+        int refactorizations;   // 피벗 재사용 분해
+        int luReuses;           // 분해 없이 지난 LU로 푼 반복
+        int dampedSteps;        // 스텝을 줄인 반복
+        int sourceSteps;        // 원천 스텝 단계 수 (0이면 바로 수렴)
+        double residual;        // 마지막 상대 잔차 (행별 |r_i| / Σ|a_ij·x_j|의 최댓값)
+        boolean converged;
+        long nanos;
+
+        @Override
+        public String toString() {
+            return String.format("뉴턴 반복 %d회 (분해 %d, 피벗 재사용 %d, LU 재사용 %d, 감쇠 %d, 원천 스텝 %d), 상대 잔차 %.1e, %.2f ms",
+                iterations, factorizations, refactorizations, luReuses, dampedSteps, sourceSteps, residual, nanos / 1e6);
+        }
+    }
+
+    final MnaSystem system;
+    final Stats stats = new Stats();
+
+    private final int n;
+    private final double[] base, sources, rhs, r, dx, trial, rowScale;
+    private final int[] columnOrder;    // 첫 분해의 열 순서 (null이면 AMD로 새로 구한다)
+    private SparseLU lu;
+    private double[] factoredSlope;
+    private boolean stale = true;
+
+    NewtonSolver(MnaSystem system) {
+        this(system, null);
+    }
+
+    // 같은 토폴로지를 여러 번 푸는 쪽(파라미터 스윕)이 미리 구한 열 순서를 넘긴다
+    NewtonSolver(MnaSystem system, int[] columnOrder) {
+        this.system = system;
+        this.columnOrder = columnOrder;
+        this.n = system.size;
+        system.stampMatrix(0.0);
+        this.base = system.matrix.values.clone();
+        this.sources = new double[n];
+        system.stampSources(sources);
+        this.rhs = new double[n];
+        this.r = new double[n];
+        this.dx = new double[n];
+        this.trial = new double[n];
+        this.rowScale = new double[n];
+    }
+
+    // 소자 값을 바꾼 뒤(토폴로지는 그대로) 선형 부분과 전원을 다시 채운다. 지난 분해는 다음 분해의 피벗 재사용 출발점으로 남는다
+    void restamp() {
+        system.stampMatrix(0.0);
+        System.arraycopy(system.matrix.values, 0, base, 0, base.length);
+        system.stampSources(sources);
+        stale = true;
+    }
+
+    public CircuitAnalysisResult.OperatingPoint solve() {
+        double[] x = solveVector();
+        return new CircuitAnalysisResult.OperatingPoint(system.netlist, system.nodeVoltages(x), system.elementCurrents(x));
+    }
+
+    // 해 벡터 (노드 전압 + 분기 전류) 그대로
+    public double[] solveVector() {
+        long t0 = System.nanoTime();
+        double[] x = new double[n];
+        boolean ok = iterate(x, 1.0);
+        if (!ok) {
+            Arrays.fill(x, 0.0);
+            double[] saved = new double[n];
+            double lambda = 0, step = 0.25;
+            while (lambda < 1) {
+                double next = Math.min(1.0, lambda + step);
+                System.arraycopy(x, 0, saved, 0, n);
+                if (iterate(x, next)) {
+                    lambda = next;
+                    stats.sourceSteps++;
+                    step = Math.min(2 * step, 1.0);
+                } else {
+                    System.arraycopy(saved, 0, x, 0, n);
+                    step /= 4;
+                    if (step < 1e-4) break;
+                }
+            }
+            ok = lambda >= 1;
+        }
+        stats.converged = ok;
+        stats.nanos = System.nanoTime() - t0;
+        if (!ok) throw new IllegalStateException(String.format("뉴턴-랩슨이 수렴하지 않습니다 (상대 잔차 %.1e)", stats.residual));
+        return x;
+    }
+
+    // x(보통 수렴한 해)에서의 야코비안 LU. OP-AMP 기울기가 마지막 분해 때와 같으면 (선형 회로는 항상) 그 분해를 그대로 돌려주고,
+    // 다르면 피벗을 재사용해 다시 분해한다. system.matrix에는 x에서의 야코비안이 남는다 (민감도 해석용)
+    public SparseLU jacobian(double[] x) {
+        double[] slope = evaluate(x, 1.0, r);
+        if (stale || lu == null || !Arrays.equals(slope, factoredSlope)) factor(slope);
+        return lu;
+    }
+
+    // 전원을 lambda배 한 회로를 x에서 출발해 풀고 x를 덮어쓴다
+    private boolean iterate(double[] x, double lambda) {
+        double[] slope = evaluate(x, lambda, r);
+        double norm = norm(r);
+        for (int it = 0; it < MAX_ITERATIONS; it++) {
+            if (converged(r)) {
+                stats.residual = norm;
+                return true;
+            }
+            stats.iterations++;
+            boolean fresh = stale || slopeChanged(slope);
+            if (fresh) factor(slope);
+            else stats.luReuses++;
+            lu.solve(r, dx);
+
+            // x - α·dx, 잔차가 줄 때까지 α를 반씩 (못 찾으면 전체 스텝: 포화 모델은 다음 반복에서 바로잡힌다)
+            double alpha = 1.0, trialNorm = 0;
+            double[] trialSlope = null;
+            for (int h = 0; h <= MAX_HALVINGS; h++) {
+                for (int i = 0; i < n; i++) trial[i] = x[i] - alpha * dx[i];
+                trialSlope = evaluate(trial, lambda, r);
+                trialNorm = norm(r);
+                if (trialNorm < norm || h == MAX_HALVINGS) break;
+                alpha *= 0.5;
+            }
+            if (trialNorm >= norm) {
+                // 줄일 수 없음: 지난 LU를 썼다면 새로 분해해 다시, 아니면 전체 스텝을 받아들인다
+                if (!fresh) {
+                    stale = true;
+                    evaluate(x, lambda, r);
+                    continue;
+                }
+                alpha = 1.0;
+                for (int i = 0; i < n; i++) trial[i] = x[i] - dx[i];
+                trialSlope = evaluate(trial, lambda, r);
+                trialNorm = norm(r);
+            } else if (alpha < 1.0) {
+                stats.dampedSteps++;
+            }
+            System.arraycopy(trial, 0, x, 0, n);
+            slope = trialSlope;
+            norm = trialNorm;
+        }
+        stats.residual = norm;
+        return false;
+    }
+
+    // x에서 행렬(선형 + OP-AMP 선형화)과 우변을 채우고 잔차를 out에. OP-AMP 기울기를 돌려준다
+    private double[] evaluate(double[] x, double lambda, double[] out) {
+        System.arraycopy(base, 0, system.matrix.values, 0, base.length);
+        for (int i = 0; i < n; i++) rhs[i] = lambda * sources[i];
+        double[] slope = system.stampOpAmps(x, rhs);
+        system.residual(x, rhs, out);
+        SparseMatrix m = system.matrix;
+        for (int i = 0; i < n; i++) rowScale[i] = Math.abs(rhs[i]);
+        for (int col = 0; col < n; col++) {
+            double xc = Math.abs(x[col]);
+            if (xc == 0) continue;
+            for (int p = m.colPtr[col]; p < m.colPtr[col + 1]; p++) rowScale[m.rowIdx[p]] += Math.abs(m.values[p]) * xc;
+        }
+        return slope;
+    }
+
+    private boolean converged(double[] res) {
+        for (int i = 0; i < n; i++) {
+            if (Math.abs(res[i]) > RELTOL * rowScale[i] + ABSTOL) return false;
+        }
+        return true;
+    }
+
+    // 행 크기로 나눈 잔차의 ∞-노름. 이득이 큰 OP-AMP 행(볼트)과 KCL 행(암페어)을 같은 잣대로 본다
+    private double norm(double[] res) {
+        double m = 0;
+        for (int i = 0; i < n; i++) m = Math.max(m, Math.abs(res[i]) / (rowScale[i] + ABSTOL / RELTOL));
+        return m;
+    }
+
+    private boolean slopeChanged(double[] slope) {
+        if (factoredSlope == null) return true;
+        Netlist nl = system.netlist;
+        int j = 0;
+        for (int e = 0; e < nl.elementCount; e++) {
+            if (nl.type[e] != ComponentType.OP_AMP) continue;
+            double gain = MnaSystem.opAmpGain(nl.value[e]);
+            if (!Double.isInfinite(gain) && Math.abs(slope[j] - factoredSlope[j]) > REUSE_TOLERANCE * gain) return true;
+            j++;
+        }
+        return false;
+    }
+
+    // 현재 matrix 값으로 분해. 피벗 재사용이 안 되면 같은 열 순서로 새로 분해한다
+    private void factor(double[] slope) {
+        if (lu == null) {
+            lu = columnOrder != null ? SparseLU.factor(system.matrix, columnOrder) : SparseLU.factor(system.matrix);
+            stats.factorizations++;
+        } else {
+            try {
+                lu.refactor(system.matrix);
+                stats.refactorizations++;
+            } catch (IllegalStateException pivotLost) {
+                lu = SparseLU.factor(system.matrix, lu.columnOrder());
+                stats.factorizations++;
+            }
+        }
+        factoredSlope = slope;
+        stale = false;
+    }
+}
@@ -0,0 +1,178 @@
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+
+// 편집기 격자 노드 표. 격자 좌표를 long 키(x << 32 | y)로 묶어 LongMap에 보관하고,
+// 소자 id마다 등록한 단자의 노드 번호를 묶음 배열(id당 3칸)로 기억해 삭제 시 해당 소자의 노드만 갱신한다 (O(연결 수)).
+// 노드는 걸린 단자 수만 세고, 0이 되면 지운다.
+//
+// 넷 연결성: 노드마다 정수 id를 주고 전선이 추가될 때 양 끝 노드를 union-find로 합친다.
+// 합치기는 점진적이지만 분리는 union-find로 되돌릴 수 없으므로, 전선이 삭제되면 표시만 해두고
+// 다음 넷 조회 때 남은 전선으로 한 번에 다시 만든다 (삭제 후 재구축).
+class NodeTable {
+    private static final int WIRE = 0x80;     // flags: 전선 표시, 하위 비트는 단자 수
+
+    private final LongMap<CircuitNode> nodes = new LongMap<>();
+    private int[] pinNode = new int[3 * 16];  // 소자 id -> 단자별 노드 번호
+    private byte[] flags = new byte[16];      // 소자 id -> 단자 수 | WIRE (0 = 등록 안 됨)
+    private CircuitNode[] byId = new CircuitNode[16];
+    private int[] parent = new int[16];
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    private int idBound;
+    private int elementBound;                 // 등록된 적 있는 소자 id 상한
+    private boolean netsDirty;
+    private long version;
+
+    public int size() { return nodes.size(); }
+
+    public CircuitNode get(long key) { return nodes.get(key); }
+
+    public CircuitNode at(Point2D pos) { return pos == null ? null : nodes.get(Netlist.gridKey(pos)); }
+
+    // 소자에 등록된 단자 수 (CircuitElement.pins 순서, 등록되지 않았으면 0)
+    public int pinCount(int id) { return id < flags.length ? flags[id] & 0x7f : 0; }
+
+    // 소자의 k번째 단자가 걸린 노드 번호
+    public int pinNode(int id, int k) { return pinNode[3 * id + k]; }
+
+    // 소자가 등록된 단자 키 (등록되지 않았으면 null)
+    public long[] keysOf(int id) {
+        int n = pinCount(id);
+        if (n == 0) return null;
+        long[] keys = new long[n];
+        for (int k = 0; k < n; k++) keys[k] = byId[pinNode[3 * id + k]].key;
+        return keys;
+    }
+
+    public long nodeKey(int node) { return byId[node].key; }
+
+    // 토폴로지가 바뀔 때마다 증가 (캐시 무효화용)
+    public long version() { return version; }
+
+    // 노드 id 상한 (id별 배열 크기)
+    public int idBound() { return idBound; }
+
+    public void add(CircuitElement e) {
+        if (pinCount(e.id) != 0) return;
+        Point2D[] pins = e.pins();
+        if (pins == null) return;
+        if (e.id >= flags.length) {
+            int cap = Math.max(flags.length * 2, e.id + 1);
+            flags = Arrays.copyOf(flags, cap);
+            pinNode = Arrays.copyOf(pinNode, 3 * cap);
+        }
+        for (int k = 0; k < pins.length; k++) pinNode[3 * e.id + k] = attach(pins[k]);
+        boolean wire = e.type == ComponentType.WIRE;
+        flags[e.id] = (byte) (pins.length | (wire ? WIRE : 0));
+        elementBound = Math.max(elementBound, e.id + 1);
+        if (wire && !netsDirty) union(pinNode[3 * e.id], pinNode[3 * e.id + 1]);
+        version++;
+    }
+
+    public void remove(int id) {
+        int n = pinCount(id);
+        if (n == 0) return;
+        for (int k = 0; k < n; k++) {
+            CircuitNode node = byId[pinNode[3 * id + k]];
+            if (--node.degree == 0) detach(node);
+        }
+        if ((flags[id] & WIRE) != 0) netsDirty = true;
+        flags[id] = 0;
+        version++;
+    }
+
+    // 도형/단자가 움직인 소자를 새 위치로 다시 등록
+    public void move(CircuitElement e) {
+        remove(e.id);
+        add(e);
+    }
+
+    public void clear() {
+        nodes.clear();
+        Arrays.fill(flags, (byte) 0);
+        Arrays.fill(byId, null);
+        freeCount = 0;
+        idBound = 0;
+        elementBound = 0;
+        netsDirty = false;
+        version++;
+    }
+
+    public void forEach(LongMap.Visitor<CircuitNode> visitor) {
+        nodes.forEach(visitor);
+    }
+
+    // 노드가 속한 넷 id (같은 넷이면 같은 값, 노드 id 범위 안). 없는 좌표는 -1
+    public int netOf(long key) {
+        CircuitNode node = nodes.get(key);
+        return node == null ? -1 : netOfNode(node.id);
+    }
+
+    public int netOfNode(int node) {
+        if (netsDirty) rebuildNets();
+        return find(node);
+    }
+
+    public boolean sameNet(Point2D a, Point2D b) {
+        int na = a == null ? -1 : netOf(Netlist.gridKey(a));
+        return na >= 0 && na == (b == null ? -1 : netOf(Netlist.gridKey(b)));
+    }
+
+    private void rebuildNets() {
+        for (int i = 0; i < idBound; i++) parent[i] = i;
+        for (int id = 0; id < elementBound; id++) {
+            if ((flags[id] & WIRE) != 0) union(pinNode[3 * id], pinNode[3 * id + 1]);
+        }
+        netsDirty = false;
+    }
+
+    private int find(int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    private void union(int a, int b) {
+        int ra = find(a), rb = find(b);
+        if (ra != rb) parent[rb] = ra;
+    }
+
+    private int attach(Point2D pos) {
+        long key = Netlist.gridKey(pos);
+        CircuitNode node = nodes.get(key);
+        if (node == null) {
+            node = new CircuitNode();
+            node.key = key;
+            node.position = new Point2D.Double(keyX(key), keyY(key));
+            node.id = freeCount > 0 ? freeIds[--freeCount] : newId();
+            byId[node.id] = node;
+            parent[node.id] = node.id;
+            nodes.put(key, node);
+        }
+        node.degree++;
+        return node.id;
+    }
+
+    // 연결이 모두 빠진 노드는 전선도 없으므로 단독 집합이다. id는 재사용한다.
+    private void detach(CircuitNode node) {
+        nodes.remove(node.key);
+        byId[node.id] = null;
+        parent[node.id] = node.id;
+        if (freeCount == freeIds.length) freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        freeIds[freeCount++] = node.id;
+    }
+
+    private int newId() {
+        if (idBound == byId.length) {
+            byId = Arrays.copyOf(byId, idBound * 2);
+            parent = Arrays.copyOf(parent, idBound * 2);
+        }
+        return idBound++;
+    }
+
+    static int keyX(long key) { return (int) (key >> 32); }
+
+    static int keyY(long key) { return (int) key; }
+}
@@ -1,9 +1,30 @@
-import java.util.ArrayList;
+import java.awt.geom.Point2D;
 
+// 같은 두 넷 사이에 병렬로 놓인 R/L/C. 소자 목록 대신 종류별 개수와 합만 쌓는다
 class ParallelGroup {
-    ArrayList<CircuitElement> resistors = new ArrayList<>();
-    ArrayList<CircuitElement> inductors = new ArrayList<>();
-    ArrayList<CircuitElement> capacitors = new ArrayList<>();
-}
+    final int netA, netB;       // 양단 넷 (netA <= netB), 그룹의 키
+    final Point2D at;           // 표시 위치 (그룹 첫 소자의 양단 중점)
+    int resistors, inductors, capacitors;
+    double conductance;         // Σ 1/R
+    double inverseInductance;   // Σ 1/L
+    double capacitance;         // Σ C
+
+    ParallelGroup(int netA, int netB, Point2D at) {
+        this.netA = netA;
+        this.netB = netB;
+        this.at = at;
+    }
+
+    void addResistor(double r) { resistors++; conductance += 1 / r; }
+
+    void addInductor(double l) { inductors++; inverseInductance += 1 / l; }
 
+    void addCapacitor(double c) { capacitors++; capacitance += c; }
+
+    public double equivalentResistance() { return 1.0 / conductance; }
+
+    public double equivalentInductance() { return 1.0 / inverseInductance; }
+
+    public double equivalentCapacitance() { return capacitance; }
+}
 
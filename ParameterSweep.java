@@ -0,0 +1,186 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// 소자 값(gunny) 파라미터 스윕 / 몬테카를로 해석.
+// 토폴로지가 바뀌지 않으므로 희소 패턴과 AMD 열 순서를 한 번만 구하고,
+// 작업자마다 값 배열만 가진 MnaSystem 복사본에서 피벗을 재사용해 재분해한다.
+// 결과는 작업자별 작은 버퍼에 모았다가 SweepStatistics로 흘려보내므로 전체 결과를 보관하지 않는다.
+// 유한 이득(포화) OP-AMP가 있으면 표본마다 뉴턴-랩슨으로 풀어 MnaSystem.solveDc와 같은 해를 낸다 (열 순서와 피벗은 그대로 재사용).
+class ParameterSweep {
+    static final int FLUSH_SIZE = 1024;
+
+    // 소자 하나의 값 분포. sample은 스윕 위치 u ∈ [0, 1]와 난수원을 받는다.
+    interface Variation {
+        int element();
+        double sample(double nominal, double u, SplittableRandom rnd);
+
+        // 균등 분포 [low, high]
+        static Variation uniform(int element, double low, double high) {
+            return of(element, (nom, u, rnd) -> low + (high - low) * rnd.nextDouble());
+        }
+
+        // 정규 분포 허용오차: ±tolerance(비율)를 3σ로 본다 (예: 0.05 = 5% 저항)
+        static Variation tolerance(int element, double tolerance) {
+            return of(element, (nom, u, rnd) -> nom * (1 + tolerance / 3 * gaussian(rnd)));
+        }
+
+        // 선형 스윕 from -> to (표본 번호 순서)
+        static Variation linear(int element, double from, double to) {
+            return of(element, (nom, u, rnd) -> from + (to - from) * u);
+        }
+
+        // 로그 스윕 from -> to
+        static Variation logarithmic(int element, double from, double to) {
+            return of(element, (nom, u, rnd) -> from * Math.pow(to / from, u));
+        }
+
+        static Variation of(int element, Sampler sampler) {
+            return new Variation() {
+                public int element() { return element; }
+                public double sample(double nominal, double u, SplittableRandom rnd) { return sampler.sample(nominal, u, rnd); }
+            };
+        }
+    }
+
+    interface Sampler {
+        double sample(double nominal, double u, SplittableRandom rnd);
+    }
+
+    // DC 해에서 관심 출력값을 뽑는 함수
+    interface Measure {
+        double of(MnaSystem sys, double[] x);
+
+        static Measure nodeVoltage(int node) {
+            return (sys, x) -> sys.nodeVoltage(x, node);
+        }
+
+        // 소자 전류 (A -> B)
+        static Measure elementCurrent(int element) {
+            return (sys, x) -> {
+                Netlist nl = sys.netlist;
+                if (sys.branchOf[element] >= 0) return x[sys.branchOf[element]];
+                if (nl.type[element] == ComponentType.RESISTOR) {
+                    return (sys.nodeVoltage(x, nl.nodeA[element]) - sys.nodeVoltage(x, nl.nodeB[element]))
+                        / Math.max(nl.value[element], MnaSystem.RMIN);
+                }
+                return nl.type[element] == ComponentType.CURRENT_SOURCE ? nl.value[element] : 0.0;
+            };
+        }
+    }
+
+    final Netlist netlist;
+    private final MnaSystem template;
+    private final int[] columnOrder;
+    private final boolean nonlinear;
+    private final List<Variation> variations = new ArrayList<>();
+    long seed = 42L;
+    int leafSize = 64;
+
+    ParameterSweep(Netlist netlist) {
+        this.netlist = netlist;
+        this.template = new MnaSystem(netlist);
+        this.template.stampMatrix(0.0);
+        this.columnOrder = AmdOrdering.order(template.size, template.matrix.colPtr, template.matrix.rowIdx);
+        this.nonlinear = template.isNonlinear();
+    }
+
+    public ParameterSweep vary(Variation v) {
+        variations.add(v);
+        return this;
+    }
+
+    public SweepStatistics run(int samples, Measure measure, double specLow, double specHigh) {
+        return run(samples, measure, specLow, specHigh, ForkJoinPool.commonPool());
+    }
+
+    public SweepStatistics run(int samples, Measure measure, double specLow, double specHigh, ForkJoinPool pool) {
+        SweepStatistics stats = new SweepStatistics(specLow, specHigh);
+        Variation[] vars = variations.toArray(new Variation[0]);
+        pool.invoke(new Chunk(0, samples, samples, vars, measure, stats));
+        return stats;
+    }
+
+    private class Chunk extends RecursiveAction {
+        private final int from, to, total;
+        private final Variation[] vars;
+        private final Measure measure;
+        private final SweepStatistics stats;
+
+        Chunk(int from, int to, int total, Variation[] vars, Measure measure, SweepStatistics stats) {
+            this.from = from;
+            this.to = to;
+            this.total = total;
+            this.vars = vars;
+            this.measure = measure;
+            this.stats = stats;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > leafSize) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Chunk(from, mid, total, vars, measure, stats), new Chunk(mid, to, total, vars, measure, stats));
+                return;
+            }
+            Netlist local = netlist.withOwnValues();
+            MnaSystem sys = new MnaSystem(template, local);
+            double[] rhs = new double[sys.size];
+            double[] x = new double[sys.size];
+            double[] buffer = new double[Math.min(FLUSH_SIZE, to - from)];
+            int buffered = 0;
+            SparseLU lu = null;
+            NewtonSolver newton = nonlinear ? new NewtonSolver(sys, columnOrder) : null;
+            for (int i = from; i < to; i++) {
+                // 표본마다 독립된 난수열 -> 스레드 배치와 무관하게 재현 가능
+                SplittableRandom rnd = new SplittableRandom(seed ^ (i * 0x9E3779B97F4A7C15L));
+                double u = total > 1 ? (double) i / (total - 1) : 0.0;
+                for (Variation v : vars) {
+                    int e = v.element();
+                    local.value[e] = v.sample(netlist.value[e], u, rnd);
+                }
+                double result;
+                if (newton != null) {
+                    newton.restamp();
+                    try {
+                        result = measure.of(sys, newton.solveVector());
+                    } catch (IllegalStateException notConverged) {
+                        result = Double.NaN;
+                    }
+                } else {
+                    sys.stampMatrix(0.0);
+                    sys.stampSources(rhs);
+                    try {
+                        if (lu == null) lu = SparseLU.factor(sys.matrix, columnOrder); else lu.refactor(sys.matrix);
+                        lu.solve(rhs, x);
+                        result = measure.of(sys, x);
+                    } catch (IllegalStateException singular) {
+                        lu = null;
+                        result = Double.NaN;
+                    }
+                }
+                buffer[buffered++] = result;
+                if (buffered == buffer.length) {
+                    flush(buffer, buffered);
+                    buffered = 0;
+                }
+            }
+            flush(buffer, buffered);
+        }
+
+        private void flush(double[] buffer, int length) {
+            synchronized (stats) {
+                stats.addAll(buffer, length);
+            }
+        }
+    }
+
+    static double gaussian(SplittableRandom rnd) {
+        // Box-Muller
+        double u1 = rnd.nextDouble();
+        double u2 = rnd.nextDouble();
+        return Math.sqrt(-2 * Math.log(1 - u1)) * Math.cos(2 * Math.PI * u2);
+    }
+}
@@ -0,0 +1,526 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+// 큰 선형 RC/RLC 망의 차수 축약 (PRIMA: 블록 아놀디 모멘트 정합).
+// MNA를 G·x + C·x' = B·u로 나눠(AcAnalysis와 같은 G/C 분리) 전개점 s0에서 A = G + s0·C를 한 번 분해하고,
+// 크릴로프 공간 span{A⁻¹B, (A⁻¹C)A⁻¹B, ...}의 정규 직교 기저 V(n x q)를 수정 그람-슈미트(두 번)로 만든다.
+// 축약 모델은 Gr = VᵀGV, Cr = VᵀCV, Br = VᵀB (q x q 밀집)이고 전달 함수의 첫 q/입력 수 개 모멘트가 원래 망과 같다.
+// 분기 행(전압원, 인덕터)의 부호를 뒤집은 형태(C ≥ 0, G + Gᵀ ≥ 0)에 합동 변환을 하므로 축약 모델도 수동성을 유지한다.
+// s0 = 0이면 DC 해가 기저의 첫 벡터라 최종값(DC)이 정확히 맞는다. 과도/AC 해석은 q x q 밀집 행렬로 풀고,
+// 오차는 DC(원래 망의 DC 해와 비교)와 AC(차수 q 대 q/2 모델의 차이 추정, 또는 acError로 원래 망과 직접 비교)로 보고한다.
+// 포화/유한 이득 OP-AMP는 능동 소자라 수동성 보장이 없으므로 축약하지 않는다.
+final class ReducedModel {
+    static final int THRESHOLD = 2000;      // 해석기가 축약 모델로 바꾸는 MNA 미지수 수
+    static final int ORDER = 40;            // 해석기가 쓰는 축약 차수
+    static final int STEPS = 4000;          // 축약 모델 과도 해석의 고정 스텝 수 (첫 스텝 후진 오일러, 이후 BDF2)
+    private static final double DEFLATION = 1e-10;  // 직교화 후 남은 크기가 이 비율 이하면 새 방향이 없다고 본다
+
+    static class Stats {
+        int unknowns;           // 원래 MNA 미지수
+        int order;              // 축약 상태 수
+        int inputs;             // 입력(독립 전원) 수
+        int solves;             // 아놀디에 쓴 희소 풀이
+        int deflated;           // 이미 기저에 있어 버린 크릴로프 벡터
+        double expansion;       // 전개점 s0 [rad/s]
+        long nanos;
+        double dcError = Double.NaN;            // 프로브 DC 값의 상대 오차 (s0 = 0일 때)
+        // 차수 q 대 q/2 응답 차이 / 최대 응답 (마지막 AC 스윕). 크릴로프 공간이 수렴했는지 보는 지표일 뿐 원래 망과의 오차가
+        // 아니다: 앞쪽 모멘트만 맞는 두 모델이 함께 틀릴 수 있다. 원래 망과의 비교는 acError
+        double acConvergence = Double.NaN;
+        double acError = Double.NaN;            // 원래 망과 직접 비교한 AC 상대 오차 (acError를 부른 경우)
+    }
+
+    final Netlist netlist;
+    final MnaSystem system;
+    final Stats stats;
+    private final double[][] basis;         // V: [상태][미지수]
+    private final double[][] gr, cr;        // [q][q]
+    private final double[][] br;            // [q][입력]
+    private final int[] inputs;             // 입력 소자 번호
+    private final double[] drive;           // 입력별 계단 크기 (전압원은 단위 열 x 전압, 그 밖은 값이 든 열 x 1)
+    private final int acInput;              // AC 1V 구동 입력 열 (첫 전압원, 없으면 -1)
+    private final double[] fullG, fullC;    // 원래 망의 G, C 값 (system.matrix 패턴)
+    private final double[] dc;              // 원래 망의 DC 해 (s0 = 0일 때만)
+
+    private String[] probeNames = new String[0];
+    private int[] probePlus = new int[0];   // 미지수 번호 (-1: 접지)
+    private int[] probeMinus = new int[0];
+
+    private ReducedModel(Netlist netlist, MnaSystem system, Stats stats, double[][] basis, double[][] gr, double[][] cr,
+                         double[][] br, int[] inputs, double[] drive, int acInput, double[] fullG, double[] fullC, double[] dc) {
+        this.netlist = netlist;
+        this.system = system;
+        this.stats = stats;
+        this.basis = basis;
+        this.gr = gr;
+        this.cr = cr;
+        this.br = br;
+        this.inputs = inputs;
+        this.drive = drive;
+        this.acInput = acInput;
+        this.fullG = fullG;
+        this.fullC = fullC;
+        this.dc = dc;
+    }
+
+    // 해석기가 축약 모델을 쓸 회로인가: 미지수가 THRESHOLD 이상이고 OP-AMP가 없다
+    static boolean applies(Netlist nl) {
+        if (nl.count(ComponentType.OP_AMP) > 0) return false;
+        long unknowns = nl.nodeCount - 1L + nl.count(ComponentType.VOLTAGE_SOURCE) + nl.count(ComponentType.INDUCTOR);
+        return unknowns >= THRESHOLD;
+    }
+
+    public static ReducedModel reduce(Netlist nl, int order, double expansion) {
+        return reduce(nl, order, expansion, CircuitAnalyzer.Monitor.NONE);
+    }
+
+    // 차수 order(원래 미지수 수 이하)의 축약 모델. 크릴로프 공간이 먼저 닫히면 그 차원에서 멈춘다(그때는 정확한 모델).
+    // 크릴로프 벡터마다 monitor 취소를 확인하고, 취소되면 CancellationException
+    public static ReducedModel reduce(Netlist nl, int order, double expansion, CircuitAnalyzer.Monitor monitor) {
+        long t0 = AnalysisMetrics.start();
+        long start = System.nanoTime();
+        try {
+            if (nl.count(ComponentType.OP_AMP) > 0) throw new IllegalArgumentException("OP-AMP가 있는 회로는 축약하지 않습니다");
+            if (order < 1) throw new IllegalArgumentException("축약 차수는 1 이상이어야 합니다: " + order);
+            MnaSystem sys = new MnaSystem(nl);
+            int n = sys.size;
+            sys.stampMatrix(0.0);
+            double[] g = sys.matrix.values.clone();
+            sys.stampMatrix(1.0);
+            double[] c = sys.matrix.values.clone();
+            for (int p = 0; p < c.length; p++) c[p] -= g[p];
+            sys.stampMatrix(expansion);
+            SparseLU lu = SparseLU.factor(sys.matrix);
+            SparseMatrix gm = new SparseMatrix(n, sys.matrix.colPtr, sys.matrix.rowIdx, g);
+            SparseMatrix cm = new SparseMatrix(n, sys.matrix.colPtr, sys.matrix.rowIdx, c);
+
+            // 입력 열: 값이 0인 전압원(전류계 용도)은 AC 입력이 아니면 뺀다
+            int acSource = -1;
+            for (int e = 0; e < nl.elementCount; e++) {
+                if (nl.type[e] == ComponentType.VOLTAGE_SOURCE) { acSource = e; break; }
+            }
+            List<Integer> list = new ArrayList<>();
+            for (int e = 0; e < nl.elementCount; e++) {
+                if (!sys.isSource(e)) continue;
+                if (nl.type[e] == ComponentType.VOLTAGE_SOURCE && nl.value[e] == 0 && e != acSource) continue;
+                list.add(e);
+            }
+            int m = list.size();
+            int[] inputs = new int[m];
+            double[] drive = new double[m];
+            double[][] columns = new double[m][];
+            int acInput = -1;
+            for (int s = 0; s < m; s++) {
+                int e = inputs[s] = list.get(s);
+                columns[s] = new double[n];
+                if (nl.type[e] == ComponentType.VOLTAGE_SOURCE) {
+                    columns[s][sys.branchOf[e]] = 1.0;
+                    drive[s] = nl.value[e];
+                    if (e == acSource) acInput = s;
+                } else {
+                    sys.stampSource(e, columns[s]);
+                    drive[s] = 1.0;
+                }
+            }
+
+            Stats stats = new Stats();
+            stats.unknowns = n;
+            stats.inputs = m;
+            stats.expansion = expansion;
+            int q = Math.min(order, n);
+            double[][] V = new double[q][];
+            int k = 0;
+            double[] tmp = new double[n];
+            double[] dc = expansion == 0 ? new double[n] : null;
+            // 첫 블록: A⁻¹B (s0 = 0이면 입력별 DC 해이므로 계단 크기로 더해 원래 망의 DC 해를 얻는다)
+            for (int s = 0; s < m; s++) {
+                double[] w = lu.solve(columns[s]);
+                stats.solves++;
+                if (dc != null) for (int i = 0; i < n; i++) dc[i] += drive[s] * w[i];
+                if (k < q && orthonormalize(V, k, w)) V[k++] = w;
+                else if (k < q) stats.deflated++;
+            }
+            // 이후: 앞에서부터 기저 벡터 하나마다 A⁻¹C·v_j (입력 m개면 블록 크릴로프와 같은 순서)
+            for (int j = 0; j < k && k < q; j++) {
+                if (monitor.isCancelled()) throw new CancellationException();
+                cm.multiply(V[j], tmp);
+                double[] w = new double[n];
+                lu.solve(tmp, w);
+                stats.solves++;
+                if (orthonormalize(V, k, w)) V[k++] = w;
+                else stats.deflated++;
+            }
+            if (k < q) V = Arrays.copyOf(V, k);
+            stats.order = k;
+
+            // 합동 변환. 분기 행(전압원, 인덕터)은 부호를 뒤집어 수동 형태로 만든 뒤 투영한다
+            int nodes = sys.nodeUnknowns;
+            double[][] gr = new double[k][k], cr = new double[k][k], br = new double[k][m];
+            for (int j = 0; j < k; j++) {
+                gm.multiply(V[j], tmp);
+                for (int i = nodes; i < n; i++) tmp[i] = -tmp[i];
+                for (int i = 0; i < k; i++) gr[i][j] = dot(V[i], tmp);
+                cm.multiply(V[j], tmp);
+                for (int i = nodes; i < n; i++) tmp[i] = -tmp[i];
+                for (int i = 0; i < k; i++) cr[i][j] = dot(V[i], tmp);
+            }
+            for (int s = 0; s < m; s++) {
+                for (int i = 0; i < k; i++) {
+                    double sum = 0;
+                    for (int r = 0; r < n; r++) if (columns[s][r] != 0) sum += V[i][r] * (r < nodes ? columns[s][r] : -columns[s][r]);
+                    br[i][s] = sum;
+                }
+            }
+            stats.nanos = System.nanoTime() - start;
+            return new ReducedModel(nl, sys, stats, V, gr, cr, br, inputs, drive, acInput, g, c, dc);
+        } finally {
+            AnalysisMetrics.stop(AnalysisMetrics.Phase.MODEL_REDUCTION, t0);
+        }
+    }
+
+    // w를 V[0..k)에 대해 직교화(수정 그람-슈미트 두 번)하고 정규화. 남은 크기가 너무 작으면 false
+    private static boolean orthonormalize(double[][] V, int k, double[] w) {
+        double before = Math.sqrt(dot(w, w));
+        if (before == 0) return false;
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < k; i++) {
+                double h = dot(V[i], w);
+                double[] v = V[i];
+                for (int r = 0; r < w.length; r++) w[r] -= h * v[r];
+            }
+        }
+        double after = Math.sqrt(dot(w, w));
+        if (after <= DEFLATION * before) return false;
+        for (int r = 0; r < w.length; r++) w[r] /= after;
+        return true;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+
+    public int order() { return stats.order; }
+
+    // 노드 전압 (접지 기준)
+    public void addNodeProbe(String name, int node) {
+        addProbe(name, node - 1, -1);
+    }
+
+    // 소자 양단 전압 (A - B)
+    public void addVoltageProbe(String name, int element) {
+        addProbe(name, netlist.nodeA[element] - 1, netlist.nodeB[element] - 1);
+    }
+
+    // 분기 전류 (전압원, 인덕터)
+    public void addBranchProbe(String name, int element) {
+        int br = system.branchOf[element];
+        if (br < 0) throw new IllegalArgumentException("분기 전류가 없는 소자: " + element);
+        addProbe(name, br, -1);
+    }
+
+    // 프로브를 더할 때마다 DC 오차(축약 모델의 DC 값 대 원래 망의 DC 해)를 갱신한다
+    private void addProbe(String name, int plus, int minus) {
+        int p = probeNames.length;
+        probeNames = Arrays.copyOf(probeNames, p + 1);
+        probePlus = Arrays.copyOf(probePlus, p + 1);
+        probeMinus = Arrays.copyOf(probeMinus, p + 1);
+        probeNames[p] = name;
+        probePlus[p] = plus;
+        probeMinus[p] = minus;
+        if (dc == null || stats.order == 0) return;
+        double[] z = stepInput();
+        Dense.factor(copy(gr)).solve(z);
+        double full = diff(dc, plus, minus), reduced = output(p, z);
+        double err = Math.abs(reduced - full) / Math.max(Math.abs(full), 1e-300);
+        stats.dcError = Double.isNaN(stats.dcError) ? err : Math.max(stats.dcError, err);
+    }
+
+    // 프로브 p의 출력 = (V z)[plus] - (V z)[minus]
+    private double output(int p, double[] z) {
+        double y = 0;
+        for (int i = 0; i < z.length; i++) y += z[i] * diff(basis[i], probePlus[p], probeMinus[p]);
+        return y;
+    }
+
+    private double[][] outputRows() {
+        double[][] rows = new double[probeNames.length][stats.order];
+        for (int p = 0; p < rows.length; p++) {
+            for (int i = 0; i < stats.order; i++) rows[p][i] = diff(basis[i], probePlus[p], probeMinus[p]);
+        }
+        return rows;
+    }
+
+    // 모든 전원을 t=0에 켠 계단 입력의 축약 우변 Br·u
+    private double[] stepInput() {
+        int q = stats.order;
+        double[] f = new double[q];
+        for (int i = 0; i < q; i++) for (int s = 0; s < inputs.length; s++) f[i] += br[i][s] * drive[s];
+        return f;
+    }
+
+    // 계단 응답 (TransientSimulator와 같은 조건: t=0에 전원 인가, 방전 상태에서 시작).
+    // 축약 상태가 수십 개라 간격 조절 없이 tEnd / STEPS 고정 간격으로 풀고, 분해는 후진 오일러/BDF2 두 번뿐이다
+    public TransientSimulator.Stats transientResponse(double tEnd, WaveformSink sink) {
+        int q = stats.order;
+        double h = tEnd / STEPS;
+        double[] f = stepInput();
+        double[][] rows = outputRows();
+        Dense be = Dense.factor(combine(1 / h)), bdf2 = Dense.factor(combine(1.5 / h));
+        double[] z1 = new double[q], z2 = new double[q], zn = new double[q], hist = new double[q];
+
+        TransientSimulator.Stats ts = new TransientSimulator.Stats();
+        ts.factorizations = 2;
+        int chunk = TransientSimulator.CHUNK;
+        double[] time = new double[chunk];
+        double[][] cols = new double[rows.length][chunk];
+        int filled = 0;
+        sink.begin(probeNames);
+        filled = record(0.0, z1, rows, time, cols, filled, sink);
+        for (int step = 1; step <= STEPS; step++) {
+            // Cr·x' ≈ Cr·(a0 z_n + a1 z_1 + a2 z_2): 첫 스텝 후진 오일러 (1, -1, 0)/h, 이후 BDF2 (3/2, -2, 1/2)/h
+            double a1 = step == 1 ? -1 / h : -2 / h, a2 = step == 1 ? 0 : 0.5 / h;
+            for (int i = 0; i < q; i++) hist[i] = a1 * z1[i] + a2 * z2[i];
+            for (int i = 0; i < q; i++) {
+                double sum = f[i];
+                for (int j = 0; j < q; j++) sum -= cr[i][j] * hist[j];
+                zn[i] = sum;
+            }
+            (step == 1 ? be : bdf2).solve(zn);
+            double[] spare = z2;
+            z2 = z1; z1 = zn; zn = spare;
+            ts.accepted++;
+            filled = record(step == STEPS ? tEnd : step * h, z1, rows, time, cols, filled, sink);
+        }
+        if (filled > 0) sink.accept(time, cols, filled);
+        sink.end();
+        ts.minStep = ts.maxStep = h;
+        ts.endTime = tEnd;
+        return ts;
+    }
+
+    private int record(double t, double[] z, double[][] rows, double[] time, double[][] cols, int filled, WaveformSink sink) {
+        time[filled] = t;
+        for (int p = 0; p < rows.length; p++) cols[p][filled] = dot(rows[p], z);
+        if (++filled == time.length) {
+            sink.accept(time, cols, filled);
+            return 0;
+        }
+        return filled;
+    }
+
+    // Gr + a0·Cr
+    private double[][] combine(double a0) {
+        int q = stats.order;
+        double[][] m = new double[q][q];
+        for (int i = 0; i < q; i++) for (int j = 0; j < q; j++) m[i][j] = gr[i][j] + a0 * cr[i][j];
+        return m;
+    }
+
+    // AC 스윕 (AcAnalysis와 같은 열 구성: 주파수, 프로브마다 dB/deg). 첫 전압원을 1V로 구동한다.
+    // 주파수마다 차수 q와 q/2 모델을 함께 풀어 두 응답의 차이를 stats.acConvergence(수렴 지표)에 남긴다
+    public AcAnalysis.Stats acResponse(double fStart, double fStop, int points, WaveformSink sink) {
+        if (acInput < 0) throw new IllegalStateException("AC 해석에는 전압원이 필요합니다");
+        if (!(fStart > 0) || !(fStop > fStart) || points < 2) {
+        throw new IllegalArgumentException("주파수 범위가 잘못되었습니다: " + fStart + " ~ " + fStop);
+        }
+        int probes = probeNames.length, q = stats.order, half = q / 2;
+        String[] names = new String[2 * probes];
+        for (int p = 0; p < probes; p++) {
+            names[2 * p] = probeNames[p] + " dB";
+            names[2 * p + 1] = probeNames[p] + " deg";
+        }
+        double[][] rows = outputRows();
+        AcAnalysis.Stats as = new AcAnalysis.Stats();
+        as.points = points;
+        as.startFrequency = fStart;
+        as.stopFrequency = fStop;
+        int chunk = TransientSimulator.CHUNK;
+        double[] freq = new double[Math.min(chunk, points)];
+        double[][] cols = new double[2 * probes][freq.length];
+        double[] peak = new double[probes], diff = new double[probes];
+        double[] yr = new double[probes], yi = new double[probes], hr = new double[probes], hi = new double[probes];
+        sink.begin(names);
+        int filled = 0;
+        for (int k = 0; k < points; k++) {
+            double f = fStart * Math.pow(fStop / fStart, (double) k / (points - 1));
+            double omega = 2 * Math.PI * f;
+            respond(q, omega, rows, yr, yi);
+            as.factorizations++;
+            if (half > 0) respond(half, omega, rows, hr, hi);
+            freq[filled] = f;
+            for (int p = 0; p < probes; p++) {
+                cols[2 * p][filled] = 10 * Math.log10(yr[p] * yr[p] + yi[p] * yi[p]);
+                cols[2 * p + 1][filled] = Math.toDegrees(Math.atan2(yi[p], yr[p]));
+                peak[p] = Math.max(peak[p], Math.hypot(yr[p], yi[p]));
+                if (half > 0) diff[p] = Math.max(diff[p], Math.hypot(yr[p] - hr[p], yi[p] - hi[p]));
+            }
+            if (++filled == freq.length) {
+                sink.accept(freq, cols, filled);
+                filled = 0;
+            }
+        }
+        if (filled > 0) sink.accept(freq, cols, filled);
+        sink.end();
+        if (half > 0 && probes > 0) {
+            double est = 0;
+            for (int p = 0; p < probes; p++) est = Math.max(est, diff[p] / Math.max(peak[p], 1e-300));
+            stats.acConvergence = est;
+        }
+        return as;
+    }
+
+    // 앞쪽 상태 order개만 쓴 모델의 (Gr + jωCr) z = Br[:, acInput] 를 풀어 프로브 출력을 re/im에
+    private void respond(int order, double omega, double[][] rows, double[] re, double[] im) {
+        double[][] ar = new double[order][order], ai = new double[order][order];
+        double[] zr = new double[order], zi = new double[order];
+        for (int i = 0; i < order; i++) {
+            for (int j = 0; j < order; j++) {
+                ar[i][j] = gr[i][j];
+                ai[i][j] = omega * cr[i][j];
+            }
+            zr[i] = br[i][acInput];
+        }
+        complexSolve(ar, ai, zr, zi);
+        for (int p = 0; p < rows.length; p++) {
+            double r = 0, m = 0;
+            for (int i = 0; i < order; i++) { r += rows[p][i] * zr[i]; m += rows[p][i] * zi[i]; }
+            re[p] = r;
+            im[p] = m;
+        }
+    }
+
+    // 원래 망을 주파수 points개(로그 간격)에서 복소 희소 LU로 직접 풀어 축약 모델과 비교한 AC 상대 오차
+    // (프로브별 최대 |H_축약 - H_원래| / 최대 |H_원래|). 원래 망 풀이가 들어가므로 확인/벤치마크 용도
+    public double acError(double fStart, double fStop, int points) {
+        if (acInput < 0) throw new IllegalStateException("AC 해석에는 전압원이 필요합니다");
+        int n = system.size, probes = probeNames.length;
+        double[][] rows = outputRows();
+        int[] order = AmdOrdering.order(n, system.matrix.colPtr, system.matrix.rowIdx);
+        double[] im = new double[fullC.length];
+        double[] rhsRe = new double[n], rhsIm = new double[n], xr = new double[n], xi = new double[n];
+        rhsRe[system.branchOf[inputs[acInput]]] = 1.0;
+        double[] yr = new double[probes], yi = new double[probes], peak = new double[probes], diff = new double[probes];
+        ComplexSparseLU lu = null;
+        for (int k = 0; k < points; k++) {
+            double f = points == 1 ? fStart : fStart * Math.pow(fStop / fStart, (double) k / (points - 1));
+            double omega = 2 * Math.PI * f;
+            for (int p = 0; p < im.length; p++) im[p] = omega * fullC[p];
+            if (lu == null) lu = ComplexSparseLU.factor(system.matrix, fullG, im, order);
+            else lu.refactor(fullG, im);
+            lu.solve(rhsRe, rhsIm, xr, xi);
+            respond(stats.order, omega, rows, yr, yi);
+            for (int p = 0; p < probes; p++) {
+                double fr = diff(xr, probePlus[p], probeMinus[p]), fi = diff(xi, probePlus[p], probeMinus[p]);
+                peak[p] = Math.max(peak[p], Math.hypot(fr, fi));
+                diff[p] = Math.max(diff[p], Math.hypot(yr[p] - fr, yi[p] - fi));
+            }
+        }
+        double err = 0;
+        for (int p = 0; p < probes; p++) err = Math.max(err, diff[p] / Math.max(peak[p], 1e-300));
+        stats.acError = err;
+        return err;
+    }
+
+    private static double diff(double[] x, int plus, int minus) {
+        return (plus >= 0 ? x[plus] : 0.0) - (minus >= 0 ? x[minus] : 0.0);
+    }
+
+    private static double[][] copy(double[][] a) {
+        double[][] c = new double[a.length][];
+        for (int i = 0; i < a.length; i++) c[i] = a[i].clone();
+        return c;
+    }
+
+    // 부분 피벗 복소 가우스 소거 (q가 작으므로 주파수마다 새로 소거). 해는 br/bi에 덮어쓴다
+    private static void complexSolve(double[][] ar, double[][] ai, double[] br, double[] bi) {
+        int q = br.length;
+        for (int k = 0; k < q; k++) {
+            int piv = k;
+            double best = -1;
+            for (int i = k; i < q; i++) {
+                double mag = ar[i][k] * ar[i][k] + ai[i][k] * ai[i][k];
+                if (mag > best) { best = mag; piv = i; }
+            }
+            if (best == 0) throw new IllegalStateException("축약 모델 행렬이 특이합니다");
+            if (piv != k) {
+                double[] t = ar[k]; ar[k] = ar[piv]; ar[piv] = t;
+                t = ai[k]; ai[k] = ai[piv]; ai[piv] = t;
+                double s = br[k]; br[k] = br[piv]; br[piv] = s;
+                s = bi[k]; bi[k] = bi[piv]; bi[piv] = s;
+            }
+            double pr = ar[k][k], pi = ai[k][k];
+            for (int i = k + 1; i < q; i++) {
+                // l = a[i][k] / a[k][k]
+                double lr = (ar[i][k] * pr + ai[i][k] * pi) / best, li = (ai[i][k] * pr - ar[i][k] * pi) / best;
+                if (lr == 0 && li == 0) continue;
+                for (int j = k + 1; j < q; j++) {
+                    ar[i][j] -= lr * ar[k][j] - li * ai[k][j];
+                    ai[i][j] -= lr * ai[k][j] + li * ar[k][j];
+                }
+                br[i] -= lr * br[k] - li * bi[k];
+                bi[i] -= lr * bi[k] + li * br[k];
+            }
+        }
+        for (int k = q - 1; k >= 0; k--) {
+            double sr = br[k], si = bi[k];
+            for (int j = k + 1; j < q; j++) {
+                sr -= ar[k][j] * br[j] - ai[k][j] * bi[j];
+                si -= ar[k][j] * bi[j] + ai[k][j] * br[j];
+            }
+            double pr = ar[k][k], pi = ai[k][k], mag = pr * pr + pi * pi;
+            br[k] = (sr * pr + si * pi) / mag;
+            bi[k] = (si * pr - sr * pi) / mag;
+        }
+    }
+
+    // 부분 피벗 실수 밀집 LU (과도 해석용, 제자리 분해)
+    private static final class Dense {
+        final double[][] a;
+        final int[] piv;
+
+        private Dense(double[][] a, int[] piv) {
+            this.a = a;
+            this.piv = piv;
+        }
+
+        static Dense factor(double[][] a) {
+            int q = a.length;
+            int[] piv = new int[q];
+            for (int k = 0; k < q; k++) {
+                int p = k;
+                for (int i = k + 1; i < q; i++) if (Math.abs(a[i][k]) > Math.abs(a[p][k])) p = i;
+                if (a[p][k] == 0) throw new IllegalStateException("축약 모델 행렬이 특이합니다");
+                piv[k] = p;
+                if (p != k) { double[] t = a[k]; a[k] = a[p]; a[p] = t; }
+                for (int i = k + 1; i < q; i++) {
+                    double l = a[i][k] /= a[k][k];
+                    if (l == 0) continue;
+                    for (int j = k + 1; j < q; j++) a[i][j] -= l * a[k][j];
+                }
+            }
+            return new Dense(a, piv);
+        }
+
+        // b를 해로 덮어쓴다
+        void solve(double[] b) {
+            int q = b.length;
+            // 행 교환은 L 부분까지 통째로 했으므로 순열을 먼저 모두 적용한 뒤 전진 대입
+            for (int k = 0; k < q; k++) {
+                int p = piv[k];
+                if (p != k) { double t = b[k]; b[k] = b[p]; b[p] = t; }
+            }
+            for (int k = 0; k < q; k++) {
+                for (int i = k + 1; i < q; i++) b[i] -= a[i][k] * b[k];
+            }
+            for (int k = q - 1; k >= 0; k--) {
+                double s = b[k];
+                for (int j = k + 1; j < q; j++) s -= a[k][j] * b[j];
+                b[k] = s / a[k][k];
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 수반(adjoint) 민감도: 출력 y마다 모든 소자 값 p에 대한 dy/dp를 한 번에 구한다.
+// DC 해 x는 F(x, p) = J·x - b = 0을 만족하므로 dy/dp = ∂y/∂p - λᵀ·∂F/∂p, Jᵀλ = ∂y/∂x 이다.
+// 야코비안 J의 LU는 뉴턴 풀이가 마지막으로 쓴 것을 다시 쓰므로(선형 회로는 DC 분해 그대로) 출력 하나에 전치 풀이 한 번이고,
+// 소자마다 섭동해 다시 푸는 N번의 해석이 필요 없다. ∂F/∂p는 소자 하나의 스탬프에만 걸리므로 소자당 O(1)이다.
+// 시정수 τ는 첫 전압원이 보는 등가 저항 R = 1/g (g = 그 전원 분기의 단위 전압 응답)을 거치므로 단위 전원 정방향/전치 풀이를
+// 한 번씩 더 한다. 등가 저항이 축약 결과와 다르면(OP-AMP 등) τ 민감도는 NaN이다.
+final class Sensitivity {
+    static final int NODE = 0, CURRENT = 1, TAU = 2;
+
+    // 민감도를 구할 출력
+    static final class Output {
+        final int kind;
+        final int index;        // NODE: 노드 번호, CURRENT: 소자 번호
+        final String name;
+
+        private Output(int kind, int index, String name) {
+            this.kind = kind;
+            this.index = index;
+            this.name = name;
+        }
+
+        static Output nodeVoltage(int node, String name) { return new Output(NODE, node, name); }
+
+        // 소자 전류 (A -> B, MnaSystem.elementCurrents와 같은 부호)
+        static Output elementCurrent(int element, String name) { return new Output(CURRENT, element, name); }
+
+        static Output timeConstant() { return new Output(TAU, -1, "τ"); }
+    }
+
+    final Netlist netlist;
+    final Output[] outputs;
+    final double[] values;          // 출력값
+    final double[][] derivatives;   // [출력][소자] dy/dp (값이 변수가 아닌 소자는 0, 구할 수 없으면 NaN)
+    int transposedSolves;           // 수반 풀이 횟수
+
+    private Sensitivity(Netlist netlist, Output[] outputs) {
+        this.netlist = netlist;
+        this.outputs = outputs;
+        this.values = new double[outputs.length];
+        this.derivatives = new double[outputs.length][netlist.elementCount];
+    }
+
+    // 값(gunny)이 민감도 변수인 소자. 부회로 값은 정의 id이고, 값이 0 이하인 OP-AMP는 기본 이득을 쓴다
+    static boolean isParameter(Netlist nl, int e) {
+        switch (nl.type[e]) {
+            case RESISTOR:
+            case CAPACITOR:
+            case INDUCTOR:
+            case VOLTAGE_SOURCE:
+            case CURRENT_SOURCE:
+                return true;
+            case OP_AMP:
+                return nl.value[e] > 0 && !Double.isInfinite(nl.value[e]);
+            default:
+                return false;
+        }
+    }
+
+    // 결과창/배치가 기본으로 보는 출력: τ (과도 해석이 있을 때), 대표 응답(첫 커패시터 전압 또는 RL의 첫 인덕터 전류),
+    // 첫 전압원 전류, 첫 OP-AMP 출력 전압
+    static List<Output> defaultOutputs(Netlist nl, CircuitAnalysisResult result) {
+        List<Output> list = new ArrayList<>();
+        if (result != null && result.circuitType != null) list.add(Output.timeConstant());
+        boolean rl = result != null && "RL".equals(result.circuitType);
+        int cap = first(nl, ComponentType.CAPACITOR), ind = first(nl, ComponentType.INDUCTOR);
+        if (rl && ind >= 0) list.add(Output.elementCurrent(ind, "I(L" + ind + ")"));
+        else if (cap >= 0) list.add(Output.nodeVoltage(nl.nodeA[cap], "V(C" + cap + ")"));
+        int src = first(nl, ComponentType.VOLTAGE_SOURCE);
+        if (src >= 0) list.add(Output.elementCurrent(src, "I(V" + src + ")"));
+        int amp = first(nl, ComponentType.OP_AMP);
+        if (amp >= 0) list.add(Output.nodeVoltage(nl.nodeC[amp], "V(OPAMP" + amp + " 출력)"));
+        return list;
+    }
+
+    private static int first(Netlist nl, ComponentType t) {
+        for (int e = 0; e < nl.elementCount; e++) if (nl.type[e] == t) return e;
+        return -1;
+    }
+
+    // result는 τ 출력이 있을 때만 필요하다 (R, L, C, 회로 유형을 CircuitAnalyzer와 같게 쓴다)
+    public static Sensitivity analyze(Netlist nl, CircuitAnalysisResult result, List<Output> outputs) {
+        long t0 = AnalysisMetrics.start();
+        Sensitivity s = new Sensitivity(nl, outputs.toArray(new Output[0]));
+        MnaSystem sys = new MnaSystem(nl);
+        NewtonSolver newton = new NewtonSolver(sys);
+        double[] x = newton.solveVector();
+        SparseLU lu = newton.jacobian(x);
+        double[] current = sys.elementCurrents(x);
+        double[] c = new double[sys.size], lambda = new double[sys.size];
+        for (int o = 0; o < s.outputs.length; o++) {
+            Output out = s.outputs[o];
+            if (out.kind == TAU) {
+                s.timeConstant(o, sys, lu, x, result);
+                continue;
+            }
+            Arrays.fill(c, 0.0);
+            double[] d = s.derivatives[o];
+            if (out.kind == NODE) {
+                if (out.index > 0) c[out.index - 1] = 1;
+                s.values[o] = sys.nodeVoltage(x, out.index);
+            } else {
+                s.values[o] = current[out.index];
+                currentFunctional(sys, out.index, x, c, d);
+            }
+            lu.solveTransposed(c, lambda);
+            s.transposedSolves++;
+            for (int e = 0; e < nl.elementCount; e++) d[e] -= residualDerivative(sys, e, x, lambda);
+        }
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.SENSITIVITY, t0);
+        return s;
+    }
+
+    // 소자 전류 i_e = cᵀx (+ 값에 대한 명시적 미분은 explicit[e]에)
+    private static void currentFunctional(MnaSystem sys, int e, double[] x, double[] c, double[] explicit) {
+        Netlist nl = sys.netlist;
+        int a = nl.nodeA[e], b = nl.nodeB[e];
+        switch (nl.type[e]) {
+            case RESISTOR: {
+                double r = Math.max(nl.value[e], MnaSystem.RMIN);
+                if (a > 0) c[a - 1] += 1 / r;
+                if (b > 0) c[b - 1] -= 1 / r;
+                if (nl.value[e] >= MnaSystem.RMIN) explicit[e] = -(sys.nodeVoltage(x, a) - sys.nodeVoltage(x, b)) / (r * r);
+                break;
+            }
+            case CURRENT_SOURCE:
+                explicit[e] = 1;
+                break;
+            case SUBCIRCUIT: {
+                if (nl.block[e] == null) break;
+                double[] y = nl.block[e].model().y;
+                int[] port = MnaSystem.ports(nl, e);
+                for (int j = 0; j < port.length; j++) if (port[j] > 0) c[port[j] - 1] += y[j];
+                break;
+            }
+            default:
+                if (sys.branchOf[e] >= 0) c[sys.branchOf[e]] = 1;
+                break;
+        }
+    }
+
+    // λᵀ·∂F/∂p_e. F = J·x - b에서 소자 e의 값이 들어가는 스탬프만 미분한다
+    private static double residualDerivative(MnaSystem sys, int e, double[] x, double[] lambda) {
+        Netlist nl = sys.netlist;
+        int a = nl.nodeA[e], b = nl.nodeB[e];
+        switch (nl.type[e]) {
+            case RESISTOR: {
+                // F_a += (va - vb)/R, F_b -= (va - vb)/R
+                double r = nl.value[e];
+                if (r < MnaSystem.RMIN) return 0;
+                return -(sys.nodeVoltage(x, a) - sys.nodeVoltage(x, b)) * (at(lambda, a) - at(lambda, b)) / (r * r);
+            }
+            case VOLTAGE_SOURCE:
+                // F_br = va - vb - V
+                return -lambda[sys.branchOf[e]];
+            case CURRENT_SOURCE:
+                // 우변 b_a = -I, b_b = +I
+                return at(lambda, a) - at(lambda, b);
+            case OP_AMP: {
+                // F_br = v_out - Vr·tanh(A·vd/Vr)
+                if (!isParameter(nl, e)) return 0;
+                double vd = sys.nodeVoltage(x, a) - sys.nodeVoltage(x, b);
+                double t = Math.tanh(nl.value[e] * vd / MnaSystem.OPAMP_RAIL);
+                return -lambda[sys.branchOf[e]] * vd * (1 - t * t);
+            }
+            default:
+                // 커패시터/인덕터는 DC에서 값이 스탬프에 들어가지 않는다
+                return 0;
+        }
+    }
+
+    private static double at(double[] v, int node) {
+        return node == 0 ? 0.0 : v[node - 1];
+    }
+
+    // τ = f(R, L, C) (CircuitAnalyzer.classify와 같은 식). R은 첫 전압원이 보는 등가 저항이고,
+    // 전압원이 없거나 직류 경로가 없으면 저항 합이다
+    private void timeConstant(int o, MnaSystem sys, SparseLU lu, double[] dc, CircuitAnalysisResult result) {
+        Netlist nl = netlist;
+        double[] d = derivatives[o];
+        if (result == null || result.circuitType == null) {
+            Arrays.fill(d, Double.NaN);
+            values[o] = Double.NaN;
+            return;
+        }
+        values[o] = result.tau;
+        double R = result.R, L = result.L, C = result.C;
+        double[] dR = equivalentResistance(sys, lu, dc, R);
+        switch (result.circuitType) {
+            case "RL":
+                if (!(R > 0)) return;   // τ = 0.001 고정
+                for (int e = 0; e < nl.elementCount; e++) {
+                    d[e] = -L / (R * R) * dR[e];
+                    if (nl.type[e] == ComponentType.INDUCTOR) d[e] += 1 / R;
+                }
+                break;
+            case "RC":
+                for (int e = 0; e < nl.elementCount; e++) {
+                    d[e] = C * dR[e];
+                    if (nl.type[e] == ComponentType.CAPACITOR) d[e] += R;
+                }
+                break;
+            default:    // RLC: τ = 2L/R
+                if (!(L > 0 && R > 0)) return;
+                for (int e = 0; e < nl.elementCount; e++) {
+                    d[e] = -2 * L / (R * R) * dR[e];
+                    if (nl.type[e] == ComponentType.INDUCTOR) d[e] += 2 / R;
+                }
+                break;
+        }
+    }
+
+    // dR/dp. 첫 전압원 분기에 단위 전압을 건 응답 g = x_br (x = J⁻¹e_br)이면 R = |1/g|이고 dR/dp = -(R/g)·dg/dp,
+    // dg/dp = -λᵀ(∂J/∂p)x, Jᵀλ = e_br
+    private double[] equivalentResistance(MnaSystem sys, SparseLU lu, double[] dc, double R) {
+        Netlist nl = netlist;
+        double[] dR = new double[nl.elementCount];
+        int src = first(nl, ComponentType.VOLTAGE_SOURCE);
+        if (src >= 0) {
+            int br = sys.branchOf[src];
+            double[] unit = new double[sys.size], x = new double[sys.size], lambda = new double[sys.size];
+            unit[br] = 1;
+            lu.solve(unit, x);
+            lu.solveTransposed(unit, lambda);
+            transposedSolves++;
+            double g = x[br];
+            if (g != 0 && Math.abs(1 / g) < 1e9) {
+                if (Math.abs(Math.abs(1 / g) - R) > 1e-6 * R) {
+                    Arrays.fill(dR, Double.NaN);    // 축약 결과와 MNA가 다른 회로 (OP-AMP 등)
+                    return dR;
+                }
+                for (int e = 0; e < nl.elementCount; e++) dR[e] = (R / g) * jacobianDerivative(sys, e, dc, x, lambda);
+                return dR;
+            }
+        }
+        // 저항 합으로 대체한 경우
+        if (Math.abs(R - nl.sum(ComponentType.RESISTOR)) > 1e-9 * Math.max(1, R)) {
+            Arrays.fill(dR, Double.NaN);
+            return dR;
+        }
+        for (int e = 0; e < nl.elementCount; e++) if (nl.type[e] == ComponentType.RESISTOR) dR[e] = 1;
+        return dR;
+    }
+
+    // λᵀ(∂J/∂p_e)x (우변 없이 행렬 값만 미분). 포화 OP-AMP의 기울기는 DC 해 dc에서 구한다
+    static double jacobianDerivative(MnaSystem sys, int e, double[] dc, double[] x, double[] lambda) {
+        Netlist nl = sys.netlist;
+        int a = nl.nodeA[e], b = nl.nodeB[e];
+        switch (nl.type[e]) {
+            case RESISTOR: {
+                double r = nl.value[e];
+                if (r < MnaSystem.RMIN) return 0;
+                return -(at(x, a) - at(x, b)) * (at(lambda, a) - at(lambda, b)) / (r * r);
+            }
+            case OP_AMP: {
+                // 분기 행의 vd 계수 -A·(1 - t²), t = tanh(A·vd/Vr)를 A로 미분하면 -dSlope (DC 잔차 미분과 같은 부호)
+                if (!isParameter(nl, e)) return 0;
+                double gain = nl.value[e], vd = at(dc, a) - at(dc, b);
+                double t = Math.tanh(gain * vd / MnaSystem.OPAMP_RAIL);
+                double dSlope = (1 - t * t) * (1 - 2 * t * gain * vd / MnaSystem.OPAMP_RAIL);
+                return -lambda[sys.branchOf[e]] * dSlope * (at(x, a) - at(x, b));
+            }
+            default:
+                return 0;
+        }
+    }
+
+    // 출력 o에 대해 영향이 큰 소자 순서 (|p·dy/dp|, 값이 100% 변할 때의 1차 변화량)
+    public int[] ranked(int o) {
+        double[] d = derivatives[o];
+        List<Integer> list = new ArrayList<>();
+        for (int e = 0; e < netlist.elementCount; e++) {
+            if (isParameter(netlist, e) && Double.isFinite(d[e]) && d[e] != 0) list.add(e);
+        }
+        list.sort((p, q) -> Double.compare(Math.abs(netlist.value[q] * d[q]), Math.abs(netlist.value[p] * d[p])));
+        int[] order = new int[list.size()];
+        for (int k = 0; k < order.length; k++) order[k] = list.get(k);
+        return order;
+    }
+
+    // 정규화 민감도 (p/y)·dy/dp: 값이 1% 변할 때 출력이 몇 % 변하는가 (y = 0이면 NaN)
+    public double normalized(int o, int e) {
+        return values[o] == 0 ? Double.NaN : netlist.value[e] / values[o] * derivatives[o][e];
+    }
+
+    // 출력 o의 민감도를 모든 소자에 대해 구했는가 (τ는 등가 저항을 축약과 맞출 수 없으면 NaN)
+    public boolean available(int o) {
+        for (double v : derivatives[o]) if (Double.isNaN(v)) return false;
+        return true;
+    }
+}
@@ -0,0 +1,318 @@
+import java.util.Arrays;
+
+// 희소 LU 분해 (Gilbert-Peierls 좌향 알고리즘, 임계 부분 피벗팅).
+// 열 순서는 AMD로 정하고, 같은 패턴의 새 값은 refactor()로 피벗 순서를 재사용해 다시 분해한다.
+class SparseLU {
+    static final double PIVOT_TOLERANCE = 0.001;
+
+    final int n;
+    final int[] q;        // 열 순열: k번째 피벗 열
+    int[] pinv;           // 행 역순열: 원래 행 i -> 피벗 순번
+    int[] Lp, Li, Up, Ui;
+    double[] Lx, Ux;
+    // 직전 세대 인수 배열. 재분해는 여기에 새 인수를 쓰고 성공해야 바꿔 끼우므로, 실패해도 현재 인수는 그대로다
+    private int[] spareLi, spareUi;
+    private double[] spareLx, spareUx;
+
+    private final double[] x;
+    private final int[] xi;
+    private final int[] pstack;
+    private final int[] marks;
+    private int markStamp;
+
+    private SparseLU(int n, int[] q) {
+        this.n = n;
+        this.q = q;
+        this.x = new double[n];
+        this.xi = new int[n];
+        this.pstack = new int[n];
+        this.marks = new int[n];
+    }
+
+    public static SparseLU factor(SparseMatrix A) {
+        long t0 = AnalysisMetrics.start();
+        int[] order = AmdOrdering.order(A.n, A.colPtr, A.rowIdx);
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.ORDERING, t0);
+        return factor(A, order);
+    }
+
+    // 이미 구한 열 순서(심볼릭 분석)를 재사용해 분해
+    public static SparseLU factor(SparseMatrix A, int[] columnOrder) {
+        long t0 = AnalysisMetrics.start();
+        SparseLU lu = new SparseLU(A.n, columnOrder);
+        lu.numeric(A, false);
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.FACTOR, t0);
+        AnalysisMetrics.factored(A.n, A.nnz(), lu.nnzL() + lu.nnzU());
+        return lu;
+    }
+
+    public int[] columnOrder() { return q; }
+
+    public int nnzL() { return Lp[n]; }
+    public int nnzU() { return Up[n]; }
+
+    // 같은 패턴의 새 값으로 재분해. 기존 피벗이 너무 작아지면 피벗을 다시 고른다.
+    // 피벗을 다시 골라도 특이하면 예외를 던지고, 그때 인수와 피벗 순서는 호출 전(직전 값의 분해) 그대로 남는다.
+    public void refactor(SparseMatrix A) {
+        long t0 = AnalysisMetrics.start();
+        try {
+            numeric(A, true);
+        } catch (IllegalStateException ex) {
+            numeric(A, false);
+        }
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.REFACTOR, t0);
+    }
+
+    // 실패(특이 행렬, 피벗 재사용 불가)하면 pinv를 되돌리고 예외를 그대로 던진다. 인수는 예비 배열에만 쓰므로 손대지 않는다
+    private void numeric(SparseMatrix A, boolean keepPivots) {
+        int[] oldPinv = pinv;
+        try {
+            numeric(A, keepPivots, oldPinv);
+        } catch (RuntimeException ex) {
+            pinv = oldPinv;
+            throw ex;
+        }
+    }
+
+    private void numeric(SparseMatrix A, boolean keepPivots, int[] oldPinv) {
+        int cap = Math.max(4 * A.nnz() + n, 16);
+        int[] li = spareLi != null ? spareLi : new int[cap];
+        int[] ui = spareUi != null ? spareUi : new int[cap];
+        double[] lx = spareLx != null && spareLx.length == li.length ? spareLx : new double[li.length];
+        double[] ux = spareUx != null && spareUx.length == ui.length ? spareUx : new double[ui.length];
+        int[] lp = new int[n + 1];
+        int[] up = new int[n + 1];
+        int[] rowOf = null;
+        if (keepPivots) {
+            // 피벗 순번 -> 원래 행
+            rowOf = new int[n];
+            for (int i = 0; i < n; i++) rowOf[oldPinv[i]] = i;
+        }
+        int[] pv = new int[n];
+        Arrays.fill(pv, -1);
+        this.pinv = pv;
+        int lnz = 0, unz = 0;
+        for (int k = 0; k < n; k++) {
+            lp[k] = lnz;
+            up[k] = unz;
+            if (lnz + n > li.length) {
+                int size = Math.max(2 * li.length, lnz + n);
+                li = Arrays.copyOf(li, size);
+                lx = Arrays.copyOf(lx, size);
+            }
+            if (unz + n > ui.length) {
+                int size = Math.max(2 * ui.length, unz + n);
+                ui = Arrays.copyOf(ui, size);
+                ux = Arrays.copyOf(ux, size);
+            }
+            int col = q[k];
+            int top = spsolve(lp, li, lx, A, col);
+            int ipiv = -1;
+            double a = -1;
+            for (int p = top; p < n; p++) {
+                int i = xi[p];
+                if (pv[i] < 0) {
+                    double t = Math.abs(x[i]);
+                    if (t > a) { a = t; ipiv = i; }
+                } else {
+                    ui[unz] = pv[i];
+                    ux[unz++] = x[i];
+                }
+            }
+            if (ipiv == -1 || a <= 0) {
+                clearWork(top);
+                throw new IllegalStateException("특이 행렬: 회로의 해가 유일하지 않습니다 (미지수 " + col + ")");
+            }
+            if (keepPivots) {
+                int fixed = rowOf[k];
+                if (pv[fixed] >= 0 || Math.abs(x[fixed]) < a * PIVOT_TOLERANCE * PIVOT_TOLERANCE) {
+                    clearWork(top);
+                    throw new IllegalStateException("피벗 재사용 불가");
+                }
+                ipiv = fixed;
+            } else if (pv[col] < 0 && Math.abs(x[col]) >= a * PIVOT_TOLERANCE) {
+                ipiv = col;
+            }
+            double pivot = x[ipiv];
+            ui[unz] = k;
+            ux[unz++] = pivot;
+            pv[ipiv] = k;
+            li[lnz] = ipiv;
+            lx[lnz++] = 1;
+            for (int p = top; p < n; p++) {
+                int i = xi[p];
+                if (pv[i] < 0) {
+                    li[lnz] = i;
+                    lx[lnz++] = x[i] / pivot;
+                }
+                x[i] = 0;
+            }
+        }
+        lp[n] = lnz;
+        up[n] = unz;
+        for (int p = 0; p < lnz; p++) li[p] = pv[li[p]];
+        spareLi = Li; spareLx = Lx;
+        spareUi = Ui; spareUx = Ux;
+        Lp = lp; Li = li; Lx = lx;
+        Up = up; Ui = ui; Ux = ux;
+    }
+
+    private void clearWork(int top) {
+        for (int p = top; p < n; p++) x[xi[p]] = 0;
+    }
+
+    // x = L \ A(:,col). 도달 집합은 xi[top..n-1]
+    private int spsolve(int[] lp, int[] li, double[] lx, SparseMatrix A, int col) {
+        int top = reach(lp, li, A, col);
+        for (int p = top; p < n; p++) x[xi[p]] = 0;
+        for (int p = A.colPtr[col]; p < A.colPtr[col + 1]; p++) x[A.rowIdx[p]] += A.values[p];
+        for (int px = top; px < n; px++) {
+            int j = xi[px];
+            int J = pinv[j];
+            if (J < 0) continue;
+            double xj = x[j];   // L 대각은 1
+            for (int p = lp[J] + 1; p < lp[J + 1]; p++) x[li[p]] -= lx[p] * xj;
+        }
+        return top;
+    }
+
+    private int reach(int[] lp, int[] li, SparseMatrix A, int col) {
+        if (++markStamp == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            markStamp = 1;
+        }
+        int top = n;
+        for (int p = A.colPtr[col]; p < A.colPtr[col + 1]; p++) {
+            int j = A.rowIdx[p];
+            if (marks[j] != markStamp) top = dfs(j, lp, li, top);
+        }
+        return top;
+    }
+
+    // 비재귀 DFS. 현재 분해 중인 열까지의 L 열(lp[J+1])만 따라간다.
+    private int dfs(int j, int[] lp, int[] li, int top) {
+        int head = 0;
+        int[] stack = pstack;
+        int[] nodeStack = this.nodeStack();
+        nodeStack[0] = j;
+        while (head >= 0) {
+            j = nodeStack[head];
+            int jnew = pinv[j];
+            if (marks[j] != markStamp) {
+                marks[j] = markStamp;
+                stack[head] = (jnew < 0) ? 0 : lp[jnew] + 1;
+            }
+            boolean done = true;
+            int p2 = (jnew < 0) ? 0 : lp[jnew + 1];
+            for (int p = stack[head]; p < p2; p++) {
+                int i = li[p];
+                if (marks[i] == markStamp) continue;
+                stack[head] = p + 1;
+                nodeStack[++head] = i;
+                done = false;
+                break;
+            }
+            if (done) {
+                head--;
+                xi[--top] = j;
+            }
+        }
+        return top;
+    }
+
+    private int[] dfsNodes;
+    private int[] nodeStack() {
+        if (dfsNodes == null) dfsNodes = new int[n];
+        return dfsNodes;
+    }
+
+    // A x = b 풀이. b는 보존되고 결과는 out에 기록된다.
+    public void solve(double[] b, double[] out) {
+        long t0 = AnalysisMetrics.start();
+        double[] w = new double[n];
+        for (int i = 0; i < n; i++) w[pinv[i]] = b[i];
+        lsolve(w);
+        usolve(w);
+        for (int k = 0; k < n; k++) out[q[k]] = w[k];
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.SOLVE, t0);
+    }
+
+    public double[] solve(double[] b) {
+        double[] out = new double[n];
+        solve(b, out);
+        return out;
+    }
+
+    // 우변 k개를 한 번에 푼다. B, X는 행마다 우변 k개를 이어 놓은 배열 (B[i * k + r] = r번째 우변의 i행).
+    // L/U 항목 하나를 읽을 때마다 k개 우변을 모두 갱신하므로 인수 배열은 우변 수와 상관없이 한 번씩만 훑는다
+    public void solve(double[] B, double[] X, int k) {
+        long t0 = AnalysisMetrics.start();
+        double[] w = new double[n * k];
+        for (int i = 0; i < n; i++) System.arraycopy(B, i * k, w, pinv[i] * k, k);
+        for (int j = 0; j < n; j++) {
+            int jk = j * k;
+            if (zero(w, jk, k)) continue;   // 전원 우변은 성글어서 L 단계 대부분을 건너뛴다
+            for (int p = Lp[j] + 1; p < Lp[j + 1]; p++) {
+                double l = Lx[p];
+                int row = Li[p] * k;
+                for (int r = 0; r < k; r++) w[row + r] -= l * w[jk + r];
+            }
+        }
+        for (int j = n - 1; j >= 0; j--) {
+            int jk = j * k, last = Up[j + 1] - 1;
+            double d = Ux[last];
+            for (int r = 0; r < k; r++) w[jk + r] /= d;
+            if (zero(w, jk, k)) continue;
+            for (int p = Up[j]; p < last; p++) {
+                double u = Ux[p];
+                int row = Ui[p] * k;
+                for (int r = 0; r < k; r++) w[row + r] -= u * w[jk + r];
+            }
+        }
+        for (int j = 0; j < n; j++) System.arraycopy(w, j * k, X, q[j] * k, k);
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.SOLVE, t0);
+    }
+
+    private static boolean zero(double[] w, int from, int k) {
+        for (int r = 0; r < k; r++) if (w[from + r] != 0) return false;
+        return true;
+    }
+
+    // A^T x = b 풀이 (수반/adjoint 해석용)
+    public void solveTransposed(double[] b, double[] out) {
+        long t0 = AnalysisMetrics.start();
+        double[] w = new double[n];
+        for (int k = 0; k < n; k++) w[k] = b[q[k]];
+        for (int j = 0; j < n; j++) {
+            double s = w[j];
+            int last = Up[j + 1] - 1;
+            for (int p = Up[j]; p < last; p++) s -= Ux[p] * w[Ui[p]];
+            w[j] = s / Ux[last];
+        }
+        for (int j = n - 1; j >= 0; j--) {
+            double s = w[j];
+            for (int p = Lp[j] + 1; p < Lp[j + 1]; p++) s -= Lx[p] * w[Li[p]];
+            w[j] = s;
+        }
+        for (int i = 0; i < n; i++) out[i] = w[pinv[i]];
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.SOLVE, t0);
+    }
+
+    private void lsolve(double[] w) {
+        for (int j = 0; j < n; j++) {
+            double wj = w[j];
+            if (wj == 0) continue;
+            for (int p = Lp[j] + 1; p < Lp[j + 1]; p++) w[Li[p]] -= Lx[p] * wj;
+        }
+    }
+
+    private void usolve(double[] w) {
+        for (int j = n - 1; j >= 0; j--) {
+            int last = Up[j + 1] - 1;
+            double wj = w[j] / Ux[last];
+            w[j] = wj;
+            if (wj == 0) continue;
+            for (int p = Up[j]; p < last; p++) w[Ui[p]] -= Ux[p] * wj;
+        }
+    }
+}
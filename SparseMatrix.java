@@ -0,0 +1,86 @@
+import java.util.Arrays;
+
+// 압축 열(CSC) 형식의 정방 희소 행렬
+class SparseMatrix {
+    final int n;
+    final int[] colPtr;
+    final int[] rowIdx;
+    final double[] values;
+
+    SparseMatrix(int n, int[] colPtr, int[] rowIdx, double[] values) {
+        this.n = n;
+        this.colPtr = colPtr;
+        this.rowIdx = rowIdx;
+        this.values = values;
+    }
+
+    public int nnz() { return colPtr[n]; }
+
+    // y = A x
+    public void multiply(double[] x, double[] y) {
+        Arrays.fill(y, 0, n, 0.0);
+        for (int j = 0; j < n; j++) {
+            double xj = x[j];
+            if (xj == 0) continue;
+            for (int p = colPtr[j]; p < colPtr[j + 1]; p++) y[rowIdx[p]] += values[p] * xj;
+        }
+    }
+
+    // 삼중항(row, col, value)을 모아 CSC로 압축하는 빌더.
+    // add()가 돌려준 스탬프 번호로 압축 후 위치(slot)를 알 수 있어 값만 다시 채울 수 있다.
+    static class Builder {
+        final int n;
+        private int size;
+        private int[] rows;
+        private int[] cols;
+
+        Builder(int n, int expected) {
+            this.n = n;
+            int cap = Math.max(16, expected);
+            rows = new int[cap];
+            cols = new int[cap];
+        }
+
+        public int add(int row, int col) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+                cols = Arrays.copyOf(cols, size * 2);
+            }
+            rows[size] = row;
+            cols[size] = col;
+            return size++;
+        }
+
+        public int size() { return size; }
+
+        // 열별 계수 정렬 후 중복 항목을 합친다. slotOut[stamp] = CSC 내 위치
+        public SparseMatrix compress(int[] slotOut) {
+            int[] count = new int[n + 1];
+            for (int k = 0; k < size; k++) count[cols[k] + 1]++;
+            for (int j = 0; j < n; j++) count[j + 1] += count[j];
+            int[] order = new int[size];
+            int[] next = Arrays.copyOf(count, n);
+            for (int k = 0; k < size; k++) order[next[cols[k]]++] = k;
+
+            int[] colPtr = new int[n + 1];
+            int[] rowIdx = new int[size];
+            int[] lastSlot = new int[n];
+            Arrays.fill(lastSlot, -1);
+            int nz = 0;
+            for (int j = 0; j < n; j++) {
+                colPtr[j] = nz;
+                for (int q = count[j]; q < count[j + 1]; q++) {
+                    int k = order[q];
+                    int r = rows[k];
+                    if (lastSlot[r] < colPtr[j]) {
+                        lastSlot[r] = nz;
+                        rowIdx[nz++] = r;
+                    }
+                    slotOut[k] = lastSlot[r];
+                }
+            }
+            colPtr[n] = nz;
+            return new SparseMatrix(n, colPtr, Arrays.copyOf(rowIdx, nz), new double[nz]);
+        }
+    }
+}
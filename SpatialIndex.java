@@ -0,0 +1,171 @@
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+// 스냅 격자(20px)에 정렬된 셀 해시 기반 공간 인덱스. 소자 id는 경계 사각형이 걸치는 모든 셀에 등록되며,
+// 추가/이동/삭제 시 해당 셀만 갱신한다. 점/사각형 질의는 질의 영역의 셀만 살펴본다.
+// 소자별 상태(경계, 방문 표시)는 id로 찾는 기본형 배열이고, 셀은 [개수, id...] 꼴 int 배열이다.
+class SpatialIndex {
+    static final int CELL = 60;     // 격자 3칸. 일반 소자(60x20)가 2~4개 셀에만 걸치도록
+    static final double WIRE_MARGIN = 8.0;
+
+    private final LongMap<int[]> cells = new LongMap<>();
+    private float[] bounds = new float[4 * 16];   // id -> minX, minY, maxX, maxY (minX가 NaN이면 없음)
+    private int[] visit = new int[16];
+    private int size;
+    private int visitStamp;
+
+    SpatialIndex() {
+        Arrays.fill(bounds, Float.NaN);
+    }
+
+    public int size() { return size; }
+
+    public void clear() {
+        cells.clear();
+        Arrays.fill(bounds, Float.NaN);
+        size = 0;
+    }
+
+    public boolean contains(int id) { return id < visit.length && !Float.isNaN(bounds[4 * id]); }
+
+    // 소자의 선택 영역: 도형이 있으면 도형, 전선이면 선분 경계 + 근접 허용 거리
+    static Rectangle2D boundsOf(CircuitElement e) {
+        if (e.hasShape()) return e.shape();
+        if (e.start == null || e.end == null) return null;
+        double x0 = Math.min(e.start.getX(), e.end.getX()) - WIRE_MARGIN;
+        double y0 = Math.min(e.start.getY(), e.end.getY()) - WIRE_MARGIN;
+        double x1 = Math.max(e.start.getX(), e.end.getX()) + WIRE_MARGIN;
+        double y1 = Math.max(e.start.getY(), e.end.getY()) + WIRE_MARGIN;
+        return new Rectangle2D.Double(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    public void insert(CircuitElement e) {
+        Rectangle2D r = boundsOf(e);
+        if (r == null || contains(e.id)) return;
+        if (e.id >= visit.length) {
+            int cap = Math.max(visit.length * 2, e.id + 1);
+            int old = bounds.length;
+            bounds = Arrays.copyOf(bounds, 4 * cap);
+            Arrays.fill(bounds, old, bounds.length, Float.NaN);
+            visit = Arrays.copyOf(visit, cap);
+        }
+        place(e.id, r);
+        size++;
+    }
+
+    public void remove(int id) {
+        if (!contains(id)) return;
+        unplace(id);
+        bounds[4 * id] = Float.NaN;
+        size--;
+    }
+
+    // 도형이 이동한 뒤 호출. 셀 범위가 그대로면 경계만 고친다.
+    public void update(CircuitElement e) {
+        Rectangle2D r = boundsOf(e);
+        if (!contains(e.id) || r == null) return;
+        int b = 4 * e.id;
+        if (cell(r.getMinX()) == cell(bounds[b]) && cell(r.getMinY()) == cell(bounds[b + 1])
+                && cell(r.getMaxX()) == cell(bounds[b + 2]) && cell(r.getMaxY()) == cell(bounds[b + 3])) {
+            setBounds(e.id, r);
+            return;
+        }
+        unplace(e.id);
+        place(e.id, r);
+    }
+
+    private void setBounds(int id, Rectangle2D r) {
+        int b = 4 * id;
+        bounds[b] = (float) r.getMinX();
+        bounds[b + 1] = (float) r.getMinY();
+        bounds[b + 2] = (float) r.getMaxX();
+        bounds[b + 3] = (float) r.getMaxY();
+    }
+
+    private void place(int id, Rectangle2D r) {
+        setBounds(id, r);
+        int b = 4 * id;
+        for (int cx = cell(bounds[b]); cx <= cell(bounds[b + 2]); cx++) {
+            for (int cy = cell(bounds[b + 1]); cy <= cell(bounds[b + 3]); cy++) {
+                long k = key(cx, cy);
+                int[] list = cells.get(k);
+                if (list == null || list[0] + 1 == list.length) {
+                    list = list == null ? new int[3] : Arrays.copyOf(list, list.length * 2);
+                    cells.put(k, list);
+                }
+                list[++list[0]] = id;
+            }
+        }
+    }
+
+    private void unplace(int id) {
+        int b = 4 * id;
+        for (int cx = cell(bounds[b]); cx <= cell(bounds[b + 2]); cx++) {
+            for (int cy = cell(bounds[b + 1]); cy <= cell(bounds[b + 3]); cy++) {
+                long k = key(cx, cy);
+                int[] list = cells.get(k);
+                if (list == null) continue;
+                for (int i = list[0]; i >= 1; i--) {
+                    if (list[i] == id) {
+                        list[i] = list[list[0]--];
+                        break;
+                    }
+                }
+                if (list[0] == 0) cells.remove(k);
+            }
+        }
+    }
+
+    // 사각형과 셀이 겹치는 후보 소자를 한 번씩 방문
+    public void query(Rectangle2D area, IntConsumer visitor) {
+        int stamp = ++visitStamp;
+        int x0 = cell(area.getMinX()), x1 = cell(area.getMaxX());
+        int y0 = cell(area.getMinY()), y1 = cell(area.getMaxY());
+        for (int cx = x0; cx <= x1; cx++) {
+            for (int cy = y0; cy <= y1; cy++) {
+                int[] list = cells.get(key(cx, cy));
+                if (list == null) continue;
+                for (int i = 1; i <= list[0]; i++) {
+                    int id = list[i];
+                    if (visit[id] == stamp) continue;
+                    visit[id] = stamp;
+                    visitor.accept(id);
+                }
+            }
+        }
+    }
+
+    // 사각형(마퀴) 선택: 경계가 영역과 실제로 겹치는 소자 id (추가 순서)
+    public int[] elementsIn(Rectangle2D area) {
+        int[][] out = { new int[16] };
+        int[] n = new int[1];
+        query(area, id -> {
+            int b = 4 * id;
+            if (!area.intersects(bounds[b], bounds[b + 1], bounds[b + 2] - bounds[b], bounds[b + 3] - bounds[b + 1])) return;
+            if (n[0] == out[0].length) out[0] = Arrays.copyOf(out[0], n[0] * 2);
+            out[0][n[0]++] = id;
+        });
+        int[] ids = Arrays.copyOf(out[0], n[0]);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    // 조건을 만족하는 후보 중 가장 먼저(topmost=false) 또는 가장 나중에(topmost=true) 추가된 소자 id (없으면 0)
+    public int find(Rectangle2D area, IntPredicate test, boolean topmost) {
+        int[] best = { 0 };
+        query(area, id -> {
+            if ((best[0] == 0 || (topmost ? id > best[0] : id < best[0])) && test.test(id)) best[0] = id;
+        });
+        return best[0];
+    }
+
+    private static int cell(double v) {
+        return Math.floorDiv((int) Math.floor(v), CELL);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+}
@@ -0,0 +1,549 @@
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+
+// SPICE 부분 집합 넷리스트 (.cir, .sp) 읽기/쓰기. 큰 넷리스트(수백만 줄, 수 GB)를 위해 FileChannel과 고정 크기 버퍼로
+// 스트리밍하며, 줄/토큰마다 String을 만들지 않는다: 카드(이어진 줄 포함)는 재사용 바이트 배열에 모으고,
+// 토큰은 그 안의 (시작, 끝) 위치, 노드 이름은 바이트 그대로 해시해 번호를 매기고, 숫자도 바이트에서 바로 읽는다.
+// 읽는 쪽 메모리는 버퍼 + 노드 이름 표 + 결과 넷리스트뿐이며, Handler로 받으면 넷리스트도 만들지 않는다.
+//
+// 형식 (SPICE 관례: 첫 줄은 제목, '*' 줄 주석, ';' 뒤 주석, '+'로 시작하는 줄은 앞 카드에 이어짐, 대소문자 무시):
+//   Rxxx n1 n2 값      Lxxx n1 n2 값      Cxxx n1 n2 값
+//   Vxxx n+ n- [DC] 값 Ixxx n+ n- [DC] 값 (전류는 n+에서 소자를 지나 n-로)
+//   Xxxx in+ in- out OPAMP [gain=]값     (개루프 이득, inf = 이상적. 생략하면 MnaSystem.OPAMP_GAIN)
+//   .subckt OPAMP ... .ends 블록은 건너뛰고, 그 밖의 점 카드(.op, .tran 등)는 무시, .end에서 끝난다.
+// 값에는 SPICE 배율 접미사(f p n u m k meg g t, mil)를 쓸 수 있고 그 뒤 단위 글자는 무시한다. 노드 0과 gnd는 접지.
+// 쓰기는 부회로를 모두 펼쳐 같은 형식으로 내보낸다 (노드 이름은 넷리스트 노드 번호).
+final class SpiceFile {
+    static final String[] EXTENSIONS = { ".cir", ".sp", ".spice", ".net" };
+    static final int PLACE_PITCH = 100;     // 자동 배치에서 노드 점 사이 간격 (격자 5칸)
+    private static final int BUFFER = 1 << 16;
+
+    private SpiceFile() {}
+
+    // 카드 하나(소자 하나)마다 호출. 노드 번호는 읽은 순서대로 1부터 매기고 접지는 0, OP-AMP가 아니면 c = -1
+    interface Handler {
+        void element(ComponentType type, double value, int a, int b, int c);
+    }
+
+    static final class Stats {
+        long bytes, lines, elements;
+        int nodes;                  // 접지 포함
+        long nanos;
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d줄, 소자 %d개, 노드 %d개, %.1f MB, %.0f ms (%.0f MB/s)", lines, elements, nodes,
+                bytes / 1e6, nanos / 1e6, nanos > 0 ? bytes / 1e6 / (nanos / 1e9) : 0.0);
+        }
+    }
+
+    static boolean isSpice(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (String ext : EXTENSIONS) if (name.endsWith(ext)) return true;
+        return false;
+    }
+
+    // 해석용 넷리스트로 읽는다 (좌표 없음: nodeKey는 모두 0)
+    public static Netlist read(Path path) throws IOException {
+        Netlist nl = new Netlist(1, 1024);
+        read(path, (type, value, a, b, c) -> {
+            int top = Math.max(a, Math.max(b, c));
+            nl.reserve(Math.max(0, top + 1 - nl.nodeCount), 1);
+            if (top >= nl.nodeCount) nl.nodeCount = top + 1;
+            nl.add(type, value, a, b, c, 0);
+        });
+        return nl;
+    }
+
+    public static Stats read(Path path, Handler handler) throws IOException {
+        long t0 = System.nanoTime();
+        Parser parser = new Parser(path, handler);
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(BUFFER);
+            while (!parser.done && ch.read(buf) >= 0) {
+                buf.flip();
+                parser.feed(buf.array(), buf.limit());
+                buf.clear();
+            }
+        }
+        parser.finish();
+        parser.stats.nanos = System.nanoTime() - t0;
+        return parser.stats;
+    }
+
+    // 노드 n을 한 변 ceil(√N)개인 격자의 점 (PLACE_PITCH 간격)에 두고, 2단자 소자는 두 노드 점을 바로 잇는다.
+    // OP-AMP는 출력 단자가 출력 노드 점에 오도록 놓고 입력 단자에서 노드 점까지 전선을 단다.
+    // 소자 id는 넷리스트 순서대로 1부터 (OP-AMP 전선은 그 뒤)
+    public static CircuitModel place(Netlist nl) {
+        int cols = Math.max(1, (int) Math.ceil(Math.sqrt(nl.nodeCount)));
+        CircuitModel.Builder b = new CircuitModel.Builder();
+        CircuitElement e = new CircuitElement();
+        for (int i = 0; i < nl.elementCount; i++) {
+            e.type = nl.type[i];
+            e.gunny = nl.value[i];
+            if (e.type == ComponentType.OP_AMP) {
+                Point2D out = point(nl.nodeC[i], cols);
+                e.start = new Point2D.Double(out.getX() - 60, out.getY() - 20);
+                e.end = out;
+            } else {
+                e.start = point(nl.nodeA[i], cols);
+                e.end = point(nl.nodeB[i], cols);
+            }
+            b.add(e);
+        }
+        e.type = ComponentType.WIRE;
+        e.gunny = 0;
+        for (int i = 0; i < nl.elementCount; i++) {
+            if (nl.type[i] != ComponentType.OP_AMP) continue;
+            Point2D out = point(nl.nodeC[i], cols);
+            // 입력 단자 (x, y + 10), (x, y + 30)의 격자 키 = (out.x - 60, out.y - 20), (out.x - 60, out.y)
+            e.start = new Point2D.Double(out.getX() - 60, out.getY() - 20);
+            e.end = point(nl.nodeA[i], cols);
+            b.add(e);
+            e.start = new Point2D.Double(out.getX() - 60, out.getY());
+            e.end = point(nl.nodeB[i], cols);
+            b.add(e);
+        }
+        return b.build();
+    }
+
+    // 노드 점. 왼쪽/위 여백을 두어 OP-AMP 입력 전선이 음수 좌표로 나가지 않게 한다
+    private static Point2D point(int node, int cols) {
+        return new Point2D.Double(PLACE_PITCH * (1 + node % cols), PLACE_PITCH * (1 + node / cols));
+    }
+
+    // 부회로는 펼쳐서 쓴다. 편집기 회로는 Netlist.compile(model)로 넘긴다
+    public static Stats write(Netlist netlist, Path path) throws IOException {
+        long t0 = System.nanoTime();
+        Netlist nl = netlist.flatten(s -> true);
+        Stats stats = new Stats();
+        stats.nodes = nl.nodeCount;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Out out = new Out(ch);
+            out.ascii("* circuit designer export: ").number(nl.elementCount).ascii(" elements, ").number(nl.nodeCount).ascii(" nodes").newline();
+            if (nl.count(ComponentType.OP_AMP) > 0) {
+                // 다른 시뮬레이터용 선형 모델 정의 (이 파일을 다시 읽을 때는 건너뛴다)
+                out.ascii(".subckt OPAMP inp inn out gain=1e5").newline();
+                out.ascii("E1 out 0 inp inn {gain}").newline();
+                out.ascii(".ends OPAMP").newline();
+            }
+            for (int e = 0; e < nl.elementCount; e++) {
+                char prefix;
+                switch (nl.type[e]) {
+                    case RESISTOR: prefix = 'R'; break;
+                    case INDUCTOR: prefix = 'L'; break;
+                    case CAPACITOR: prefix = 'C'; break;
+                    case VOLTAGE_SOURCE: prefix = 'V'; break;
+                    case CURRENT_SOURCE: prefix = 'I'; break;
+                    case OP_AMP: prefix = 'X'; break;
+                    default: continue;      // 펼친 부회로 인스턴스
+                }
+                out.ascii(prefix).number(e + 1).ascii(' ').number(nl.nodeA[e]).ascii(' ').number(nl.nodeB[e]).ascii(' ');
+                if (nl.type[e] == ComponentType.OP_AMP) {
+                    out.number(nl.nodeC[e]).ascii(" OPAMP gain=").value(MnaSystem.opAmpGain(nl.value[e]));
+                } else {
+                    if (prefix == 'V' || prefix == 'I') out.ascii("DC ");
+                    out.value(nl.value[e]);
+                }
+                out.newline();
+                stats.elements++;
+            }
+            out.ascii(".end").newline();
+            out.flush();
+            stats.bytes = out.written;
+            stats.lines = out.lines;
+        }
+        stats.nanos = System.nanoTime() - t0;
+        return stats;
+    }
+
+    // 고정 버퍼 출력. 정수는 자릿수를 직접 쓰고, 정수가 아닌 값만 Double.toString을 거친다
+    private static final class Out {
+        private final FileChannel ch;
+        private final byte[] buf = new byte[BUFFER];
+        private final byte[] digits = new byte[20];
+        private int pos;
+        long written, lines;
+
+        Out(FileChannel ch) { this.ch = ch; }
+
+        Out ascii(char c) throws IOException {
+            if (pos == buf.length) drain();
+            buf[pos++] = (byte) c;
+            return this;
+        }
+
+        Out ascii(String s) throws IOException {
+            for (int i = 0; i < s.length(); i++) ascii(s.charAt(i));
+            return this;
+        }
+
+        Out number(long v) throws IOException {
+            if (v < 0) {
+                ascii('-');
+                v = -v;
+            }
+            int n = 0;
+            do {
+                digits[n++] = (byte) ('0' + v % 10);
+                v /= 10;
+            } while (v > 0);
+            while (n > 0) ascii((char) digits[--n]);
+            return this;
+        }
+
+        Out value(double v) throws IOException {
+            if (Double.isInfinite(v)) return ascii(v > 0 ? "inf" : "-inf");
+            if (v == Math.rint(v) && Math.abs(v) < 1e15) return number((long) v);
+            return ascii(Double.toString(v));
+        }
+
+        Out newline() throws IOException {
+            lines++;
+            return ascii('\n');
+        }
+
+        private void drain() throws IOException {
+            ByteBuffer out = ByteBuffer.wrap(buf, 0, pos);
+            while (out.hasRemaining()) written += ch.write(out);
+            pos = 0;
+        }
+
+        void flush() throws IOException { drain(); }
+    }
+
+    // 바이트 단위 파서. feed로 받은 조각을 물리적 줄로 모으고, 줄이 끝날 때 카드(이어진 줄 포함)를 처리한다
+    private static final class Parser {
+        private final Path path;
+        private final Handler handler;
+        final Stats stats = new Stats();
+        boolean done;
+
+        private byte[] line = new byte[256];
+        private int lineLen;
+        private byte[] card = new byte[256];
+        private int cardLen;
+        private long cardLine;
+        private boolean title = true;
+        private boolean skipping;               // .subckt OPAMP ~ .ends
+        private int[] ts = new int[16], te = new int[16];
+        private int tokens;
+        private final Names names = new Names();
+
+        Parser(Path path, Handler handler) {
+            this.path = path;
+            this.handler = handler;
+        }
+
+        // 줄 끝('\n')을 찾아 그 사이를 소문자로 바꿔 줄 버퍼에 옮긴다. 조각 끝에 걸린 줄은 다음 조각에서 마저 채운다
+        void feed(byte[] b, int n) throws IOException {
+            stats.bytes += n;
+            int i = 0;
+            while (i < n && !done) {
+                int eol = i;
+                while (eol < n && b[eol] != '\n') eol++;
+                int k = lineLen;
+                if (k + eol - i > line.length) line = Arrays.copyOf(line, Math.max(2 * line.length, k + eol - i));
+                byte[] l = line;
+                for (int j = i; j < eol; j++) {
+                    byte c = b[j];
+                    l[k++] = c >= 'A' && c <= 'Z' ? (byte) (c + ('a' - 'A')) : c;
+                }
+                lineLen = k;
+                if (eol == n) break;
+                endLine();
+                i = eol + 1;
+            }
+        }
+
+        void finish() throws IOException {
+            if (lineLen > 0 && !done) endLine();
+            flushCard();
+            stats.nodes = names.count + 1;
+        }
+
+        private void endLine() throws IOException {
+            stats.lines++;
+            int len = lineLen;
+            lineLen = 0;
+            if (len > 0 && line[len - 1] == '\r') len--;
+            if (title) {
+                title = false;
+                return;
+            }
+            int i = 0;
+            while (i < len && (line[i] == ' ' || line[i] == '\t')) i++;
+            if (i == len || line[i] == '*') return;
+            if (line[i] == '+') {
+                if (cardLen == 0) throw error(stats.lines, "이어질 카드가 없는 '+' 줄");
+                int add = len - i;      // '+' 자리는 공백으로
+                if (cardLen + add > card.length) card = Arrays.copyOf(card, Math.max(2 * card.length, cardLen + add));
+                card[cardLen] = ' ';
+                System.arraycopy(line, i + 1, card, cardLen + 1, add - 1);
+                cardLen += add;
+                return;
+            }
+            flushCard();
+            // 새 카드: 줄 버퍼와 카드 버퍼를 맞바꾼다 (앞 공백은 토큰 나누기에서 건너뛴다)
+            byte[] swap = card;
+            card = line;
+            line = swap;
+            cardLen = len;
+            cardLine = stats.lines;
+        }
+
+        private void flushCard() throws IOException {
+            if (cardLen == 0 || done) return;
+            tokenize();
+            cardLen = 0;
+            if (tokens == 0) return;
+            try {
+                dispatch();
+            } catch (IllegalArgumentException ex) {
+                throw error(cardLine, ex.getMessage());
+            }
+        }
+
+        private void tokenize() {
+            tokens = 0;
+            int i = 0;
+            while (i < cardLen) {
+                byte c = card[i];
+                if (c == ';') break;
+                if (separator(c)) {
+                    i++;
+                    continue;
+                }
+                int start = i;
+                while (i < cardLen && !separator(card[i]) && card[i] != ';') i++;
+                if (tokens == ts.length) {
+                    ts = Arrays.copyOf(ts, 2 * tokens);
+                    te = Arrays.copyOf(te, 2 * tokens);
+                }
+                ts[tokens] = start;
+                te[tokens++] = i;
+            }
+        }
+
+        private static boolean separator(byte c) {
+            return c == ' ' || c == '\t' || c == ',' || c == '(' || c == ')' || c == '=';
+        }
+
+        private void dispatch() {
+            byte kind = card[ts[0]];
+            if (kind == '.') {
+                if (is(0, ".end")) done = true;
+                else if (is(0, ".ends")) skipping = false;
+                else if (is(0, ".subckt")) {
+                    if (tokens < 2 || !is(1, "opamp")) throw new IllegalArgumentException("OPAMP 외의 .subckt는 지원하지 않습니다");
+                    skipping = true;
+                } else if (is(0, ".include") || is(0, ".inc") || is(0, ".lib")) {
+                    throw new IllegalArgumentException("파일 포함(.include/.lib)은 지원하지 않습니다");
+                }
+                return;
+            }
+            if (skipping) return;
+            switch (kind) {
+                case 'r': two(ComponentType.RESISTOR, 3); break;
+                case 'l': two(ComponentType.INDUCTOR, 3); break;
+                case 'c': two(ComponentType.CAPACITOR, 3); break;
+                case 'v': two(ComponentType.VOLTAGE_SOURCE, tokens > 3 && is(3, "dc") ? 4 : 3); break;
+                case 'i': two(ComponentType.CURRENT_SOURCE, tokens > 3 && is(3, "dc") ? 4 : 3); break;
+                case 'x': {
+                    need(5);
+                    if (!is(4, "opamp")) throw new IllegalArgumentException("지원하지 않는 부회로 모델 (OPAMP만 가능)");
+                    int g = tokens > 5 && is(5, "gain") ? 6 : 5;
+                    double gain = g < tokens ? number(g) : MnaSystem.OPAMP_GAIN;
+                    emit(ComponentType.OP_AMP, gain, node(1), node(2), node(3));
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("지원하지 않는 소자 '" + (char) kind + "'");
+            }
+        }
+
+        // 2단자 소자. 값이 없거나 숫자가 아니면(AC/과도 전원 사양) 0
+        private void two(ComponentType type, int valueToken) {
+            need(3);
+            boolean source = type == ComponentType.VOLTAGE_SOURCE || type == ComponentType.CURRENT_SOURCE;
+            double v;
+            if (valueToken < tokens && (!source || numeric(valueToken))) v = number(valueToken);
+            else if (source) v = 0;
+            else throw new IllegalArgumentException("값이 없습니다");
+            emit(type, v, node(1), node(2), -1);
+        }
+
+        private void emit(ComponentType type, double value, int a, int b, int c) {
+            stats.elements++;
+            handler.element(type, value, a, b, c);
+        }
+
+        private void need(int n) {
+            if (tokens < n) throw new IllegalArgumentException("토큰이 모자랍니다 (" + tokens + "/" + n + ")");
+        }
+
+        private boolean is(int t, String word) {
+            int len = te[t] - ts[t];
+            if (len != word.length()) return false;
+            for (int k = 0; k < len; k++) if (card[ts[t] + k] != word.charAt(k)) return false;
+            return true;
+        }
+
+        private int node(int t) {
+            if (is(t, "0") || is(t, "gnd")) return 0;
+            return names.id(card, ts[t], te[t]);
+        }
+
+        private boolean numeric(int t) {
+            byte c = card[ts[t]];
+            return (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '+' || is(t, "inf");
+        }
+
+        // 바이트에서 바로 읽는 SPICE 숫자: [부호] 가수 [e 지수] [배율 접미사] [단위]
+        private double number(int t) {
+            int p = ts[t], end = te[t];
+            boolean negative = false;
+            if (card[p] == '-' || card[p] == '+') negative = card[p++] == '-';
+            if (end - p >= 3 && card[p] == 'i' && card[p + 1] == 'n' && card[p + 2] == 'f') {
+                return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            }
+            long mantissa = 0;
+            int significant = 0, exp = 0;
+            boolean any = false;
+            for (; p < end && card[p] >= '0' && card[p] <= '9'; p++) {
+                any = true;
+                if (significant < 18) {
+                    mantissa = mantissa * 10 + (card[p] - '0');
+                    if (mantissa != 0) significant++;
+                } else {
+                    exp++;
+                }
+            }
+            if (p < end && card[p] == '.') {
+                for (p++; p < end && card[p] >= '0' && card[p] <= '9'; p++) {
+                    any = true;
+                    if (significant < 18) {
+                        mantissa = mantissa * 10 + (card[p] - '0');
+                        if (mantissa != 0) significant++;
+                        exp--;
+                    }
+                }
+            }
+            if (!any) throw new IllegalArgumentException("숫자가 아닙니다: " + new String(card, ts[t], te[t] - ts[t], StandardCharsets.US_ASCII));
+            if (p + 1 < end && card[p] == 'e' && (digit(card[p + 1]) || (p + 2 < end && (card[p + 1] == '-' || card[p + 1] == '+') && digit(card[p + 2])))) {
+                p++;
+                boolean negExp = false;
+                if (card[p] == '-' || card[p] == '+') negExp = card[p++] == '-';
+                int e = 0;
+                for (; p < end && digit(card[p]); p++) e = Math.min(e * 10 + (card[p] - '0'), 10_000);
+                exp += negExp ? -e : e;
+            }
+            double scale = 1;
+            if (p < end) {
+                switch (card[p]) {
+                    case 'f': exp -= 15; break;
+                    case 'p': exp -= 12; break;
+                    case 'n': exp -= 9; break;
+                    case 'u': exp -= 6; break;
+                    case 'm':
+                        if (end - p >= 3 && card[p + 1] == 'e' && card[p + 2] == 'g') exp += 6;
+                        else if (end - p >= 3 && card[p + 1] == 'i' && card[p + 2] == 'l') scale = 25.4e-6;
+                        else exp -= 3;
+                        break;
+                    case 'k': exp += 3; break;
+                    case 'g': exp += 9; break;
+                    case 't': exp += 12; break;
+                    default: break;     // 단위 글자 (v, a, ohm 등)
+                }
+            }
+            double v = scale * scale10(mantissa, exp);
+            return negative ? -v : v;
+        }
+
+        private static boolean digit(byte c) { return c >= '0' && c <= '9'; }
+
+        private IOException error(long lineNo, String message) {
+            return new IOException(path + ":" + lineNo + ": " + message);
+        }
+    }
+
+    private static final double[] POW10 = new double[23];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10;
+    }
+
+    // m · 10^exp. 가수가 2^53 미만이고 |exp| <= 22면 곱/나누기 한 번으로 정확히 반올림된다. 나머지는 드물어 parseDouble로
+    static double scale10(long m, int exp) {
+        if (m == 0) return 0;
+        if (exp == 0) return m;
+        if (m < (1L << 53) && exp > 0 && exp < POW10.length) return m * POW10[exp];
+        if (m < (1L << 53) && exp < 0 && -exp < POW10.length) return m / POW10[-exp];
+        return Double.parseDouble(m + "e" + exp);
+    }
+
+    // 노드 이름 -> 번호. 이름 바이트를 한 배열(arena)에 이어 붙이고 개방 주소 해시로 찾는다 (이름마다 객체를 만들지 않는다).
+    // 칸마다 (해시, 노드 번호)를 붙여 두어 한 번의 캐시 적중으로 대부분의 불일치를 거른다
+    private static final class Names {
+        private int[] slots = new int[2048];    // [2i] 해시, [2i + 1] 노드 번호 (0 = 빈 칸)
+        private byte[] arena = new byte[4096];
+        private int[] start = new int[256];     // 노드 n의 이름 = arena[start[n] .. start[n + 1])
+        private int used;
+        int count;                              // 이름 붙은 노드 수 (접지 제외)
+
+        int id(byte[] b, int from, int to) {
+            int h = 0x811C9DC5;
+            for (int k = from; k < to; k++) h = (h ^ b[k]) * 0x01000193;
+            h ^= h >>> 15;
+            int mask = (slots.length >> 1) - 1;
+            for (int i = h & mask; ; i = (i + 1) & mask) {
+                int n = slots[2 * i + 1];
+                if (n == 0) return insert(i, h, b, from, to);
+                if (slots[2 * i] == h && same(n, b, from, to)) return n;
+            }
+        }
+
+        private boolean same(int n, byte[] b, int from, int to) {
+            int s = start[n], len = start[n + 1] - s;
+            if (len != to - from) return false;
+            for (int k = 0; k < len; k++) if (arena[s + k] != b[from + k]) return false;
+            return true;
+        }
+
+        private int insert(int slot, int h, byte[] b, int from, int to) {
+            int n = ++count;
+            if (n + 1 >= start.length) start = Arrays.copyOf(start, 2 * start.length);
+            while (used + (to - from) > arena.length) arena = Arrays.copyOf(arena, 2 * arena.length);
+            start[n] = used;
+            System.arraycopy(b, from, arena, used, to - from);
+            used += to - from;
+            start[n + 1] = used;
+            slots[2 * slot] = h;
+            slots[2 * slot + 1] = n;
+            if (4 * count > slots.length) rehash();
+            return n;
+        }
+
+        private void rehash() {
+            int[] old = slots;
+            slots = new int[2 * old.length];
+            int mask = (slots.length >> 1) - 1;
+            for (int i = 0; i < old.length; i += 2) {
+                if (old[i + 1] == 0) continue;
+                int j = old[i] & mask;
+                while (slots[2 * j + 1] != 0) j = (j + 1) & mask;
+                slots[2 * j] = old[i];
+                slots[2 * j + 1] = old[i + 1];
+            }
+        }
+    }
+}
@@ -0,0 +1,345 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 부회로 정의. 회로 버전(CircuitModel) 하나와 단자(포트) 2~3개로 이루어지며, 편집기에는 SUBCIRCUIT 소자(값 = 정의 id)로
+// 여러 번 놓인다. 단자는 정의 회로에서 아무 데도 닿지 않은 전선 끝이고, 좌표 순(x, 다음 y)으로 번호를 매긴다.
+//
+// 해석은 정의마다 한 번만 단자 축약 모델을 만든다: 단자 0을 기준으로 나머지 단자에 0V 전압원을 걸고 LU 분해 한 번에
+// 우변 k개를 풀어 DC 단자 어드미턴스 Y(k x k, 행/열 합 0)와 단락 전류(노턴 전원)를 구한다.
+// 인스턴스는 MNA에 Y 블록 하나(최대 9칸)와 우변 항으로 들어가므로, 해석 비용은 서로 다른 정의 수 + 상위 넷 수에 비례한다.
+// 모델은 정의 객체에 보관되어 모든 인스턴스가 공유하고, 정의를 바꾸면(redefine) 새 정의 객체가 되므로 자연히 버려진다
+// (그 정의를 쓰는 바깥 정의도 함께 새 객체가 된다).
+//
+// 축약할 수 없는 정의는 필요할 때만 평탄화(Netlist.flatten)한다:
+//  - OP-AMP가 든 정의는 포화 모델이 비선형이라 넷리스트를 만들 때 바로 펼친다.
+//  - L/C가 든 정의의 모델은 DC(인덕터 단락, 커패시터 개방) 전용이므로 과도/AC 해석 직전에만 펼친다.
+// 정의 안에 다른 정의의 인스턴스를 둘 수 있다(계층). 안쪽 정의의 모델이 바깥 정의 축약에 그대로 쓰인다.
+final class Subcircuit {
+    static final int MAX_PORTS = 3;
+    private static final ComponentType[] TYPES = ComponentType.values();
+    private static final Map<Integer, Subcircuit> LIBRARY = new ConcurrentHashMap<>();
+    private static final Map<LoadKey, Subcircuit> LOADED = new ConcurrentHashMap<>();     // 파일에서 읽은 정의
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+    private static final AtomicLong REDUCTIONS = new AtomicLong();
+
+    // 단자 축약 모델. 단자 i로 들어가는 전류 I_i = Σ_j y[i * ports + j] · V_j + current[i]
+    static final class Model {
+        final int ports;
+        final double[] y;
+        final double[] current;
+
+        Model(int ports, double[] y, double[] current) {
+            this.ports = ports;
+            this.y = y;
+            this.current = current;
+        }
+    }
+
+    final int id;
+    final String name;
+    final CircuitModel model;
+    final long[] portKeys;          // 정의 회로 안 단자 격자 키 (단자 순서)
+    final Netlist inner;            // 정의 회로 넷리스트 (OP-AMP 정의는 펼친 상태)
+    final int[] portNode;           // 단자 -> inner 노드
+    private final int[] count = new int[TYPES.length];     // 종류별 소자 수 (안쪽 정의 포함, 전선 제외)
+    private final double[] sum = new double[TYPES.length];
+    private final int[] uses;       // 안쪽에 (간접적으로라도) 놓인 정의 id
+    private volatile Model reduced;
+    private volatile long[] digest;
+    private LoadKey loadKey;        // 파일에서 읽은 정의만 (LOADED.compute 안에서만 읽고 쓴다)
+    private int loads;              // 이 정의를 load한 열린 범위 수
+    private boolean pinned;         // 범위 없이 load됨 (지우지 않는다)
+
+    private Subcircuit(int id, String name, CircuitModel model) {
+        this.id = id;
+        this.name = name;
+        this.model = model;
+        TreeSet<Integer> used = new TreeSet<>();
+        byte sub = (byte) (ComponentType.SUBCIRCUIT.ordinal() + 1);
+        model.scan((base, type, value, geom) -> {
+            for (int k = 0; k < CircuitModel.WIDTH; k++) {
+                if (type[k] == 0 || type[k] == ComponentType.WIRE.ordinal() + 1) continue;
+                if (type[k] != sub) {
+                    count[type[k] - 1]++;
+                    sum[type[k] - 1] += value[k];
+                    continue;
+                }
+                Subcircuit d = get((int) value[k]);
+                if (d == null) throw new IllegalArgumentException("없는 부회로 정의를 사용합니다: " + (int) value[k]);
+                used.add(d.id);
+                for (int u : d.uses) used.add(u);
+                for (int t = 0; t < TYPES.length; t++) {
+                    count[t] += d.count[t];
+                    sum[t] += d.sum[t];
+                }
+            }
+        });
+        if (used.contains(id)) throw new IllegalArgumentException("부회로 '" + name + "'가 자기 자신을 포함합니다");
+        uses = used.stream().mapToInt(Integer::intValue).toArray();
+        portKeys = findPorts(model);
+        if (portKeys.length < 2 || portKeys.length > MAX_PORTS) {
+            throw new IllegalArgumentException("부회로 단자(열린 전선 끝)는 2~3개여야 합니다: " + portKeys.length + "개");
+        }
+        portNode = new int[portKeys.length];
+        inner = Netlist.compile(model, portKeys, portNode);
+        for (int i = 0; i < portNode.length; i++) {
+            for (int j = 0; j < i; j++) {
+                if (portNode[i] == portNode[j]) throw new IllegalArgumentException("부회로 단자 " + j + "와 " + i + "가 서로 연결되어 있습니다");
+            }
+        }
+    }
+
+    public int ports() { return portKeys.length; }
+
+    public int count(ComponentType t) { return count[t.ordinal()]; }
+
+    public double sum(ComponentType t) { return sum[t.ordinal()]; }
+
+    // 과도/AC 해석에서는 펼쳐야 하는 정의 (L/C가 있음)
+    public boolean isDynamic() { return count(ComponentType.INDUCTOR) + count(ComponentType.CAPACITOR) > 0; }
+
+    // 축약하지 않고 항상 펼치는 정의 (OP-AMP가 있음)
+    public boolean hasOpAmp() { return count(ComponentType.OP_AMP) > 0; }
+
+    // 정의 내용의 128비트 해시 (해석 결과 캐시 키). 단자 순서와 안쪽 정의 내용은 들어가고 id, 이름, 좌표는 들어가지 않는다
+    public long[] digest() {
+        long[] d = digest;
+        if (d == null) {
+            AnalysisCache.Canonical c = AnalysisCache.Canonical.of(inner, portNode);
+            digest = d = new long[] { c.h1, c.h2 };
+        }
+        return d;
+    }
+
+    // DC 단자 축약 모델 (처음 쓸 때 한 번 만든다)
+    public Model model() {
+        Model m = reduced;
+        if (m == null) {
+            synchronized (this) {
+                if ((m = reduced) == null) reduced = m = reduce();
+            }
+        }
+        return m;
+    }
+
+    private Model reduce() {
+        long t0 = AnalysisMetrics.start();
+        int k = ports();
+        // 단자 0이 접지(노드 0)가 되도록 노드 번호를 맞바꾸고, 단자 1..k-1에 단자 0 기준 0V 전압원을 단다
+        int p0 = portNode[0];
+        int[] map = new int[inner.nodeCount];
+        for (int n = 0; n < map.length; n++) map[n] = n;
+        map[p0] = 0;
+        map[0] = p0;
+        Netlist aug = new Netlist(inner.nodeCount, inner.elementCount + k - 1);
+        for (int n = 0; n < inner.nodeCount; n++) aug.nodeKey[map[n]] = inner.nodeKey[n];
+        for (int e = 0; e < inner.elementCount; e++) {
+            int c = inner.nodeC[e];
+            aug.add(inner.type[e], inner.value[e], map[inner.nodeA[e]], map[inner.nodeB[e]], c < 0 ? -1 : map[c], 0);
+            aug.block[e] = inner.block[e];
+        }
+        int[] drive = new int[k];
+        for (int j = 1; j < k; j++) drive[j] = aug.add(ComponentType.VOLTAGE_SOURCE, 0, map[portNode[j]], 0, -1, 0);
+
+        MnaSystem sys = new MnaSystem(aug);
+        double[] rhs = new double[sys.size];
+        sys.stampDc(rhs);
+        SparseLU lu = SparseLU.factor(sys.matrix);
+        double[] x = new double[sys.size];
+        // 단자를 모두 단락했을 때 들어가는 전류 (내부 전원). 전압원 분기 전류는 단자에서 나가는 방향이다
+        lu.solve(rhs, x);
+        double[] current = new double[k];
+        for (int i = 1; i < k; i++) {
+            current[i] = -x[sys.branchOf[drive[i]]];
+            current[0] -= current[i];
+        }
+        double[] y = new double[k * k];
+        for (int j = 1; j < k; j++) {
+            Arrays.fill(rhs, 0.0);
+            rhs[sys.branchOf[drive[j]]] = 1.0;
+            lu.solve(rhs, x);
+            for (int i = 1; i < k; i++) {
+                double v = -x[sys.branchOf[drive[i]]];
+                y[i * k + j] = v;
+                y[j] -= v;                  // y[0][j]: 열 합 0
+            }
+        }
+        for (int i = 0; i < k; i++) {
+            double s = 0;
+            for (int j = 1; j < k; j++) s += y[i * k + j];
+            y[i * k] = -s;                  // y[i][0]: 행 합 0
+        }
+        REDUCTIONS.incrementAndGet();
+        AnalysisMetrics.stop(AnalysisMetrics.Phase.SUBCIRCUIT, t0);
+        return new Model(k, y, current);
+    }
+
+    // 정의 회로에서 아무 데도 닿지 않은 전선 끝 (좌표 순)
+    static long[] findPorts(CircuitModel model) {
+        LongMap<int[]> degree = new LongMap<>();
+        List<Long> ends = new ArrayList<>();
+        long[] pk = new long[MAX_PORTS];
+        int wire = ComponentType.WIRE.ordinal() + 1;
+        model.scan((base, type, value, geom) -> {
+            for (int k = 0; k < CircuitModel.WIDTH; k++) {
+                if (type[k] == 0) continue;
+                int np = Netlist.pinKeys(type[k] - 1, value[k], geom, k, pk);
+                for (int q = 0; q < np; q++) {
+                    degree.computeIfAbsent(pk[q], key -> new int[1])[0]++;
+                    if (type[k] == wire) ends.add(pk[q]);
+                }
+            }
+        });
+        return ends.stream().filter(key -> degree.get(key)[0] == 1).mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    // ---- 정의 목록 (프로세스 전체에서 공유) ----
+
+    public static Subcircuit get(int id) { return LIBRARY.get(id); }
+
+    // 이름이 같은 정의 중 가장 최근 것 (없으면 null)
+    public static Subcircuit named(String name) {
+        Subcircuit found = null;
+        for (Subcircuit s : LIBRARY.values()) {
+            if (s.name.equals(name) && (found == null || s.id > found.id)) found = s;
+        }
+        return found;
+    }
+
+    public static List<Subcircuit> all() {
+        List<Subcircuit> out = new ArrayList<>(LIBRARY.values());
+        out.sort((a, b) -> Integer.compare(a.id, b.id));
+        return out;
+    }
+
+    // 새 정의 (단자가 2~3개가 아니거나 서로 연결되어 있으면 IllegalArgumentException)
+    public static Subcircuit define(String name, CircuitModel model) {
+        Subcircuit s = new Subcircuit(NEXT_ID.incrementAndGet(), name, model);
+        LIBRARY.put(s.id, s);
+        return s;
+    }
+
+    // 기존 정의의 내용을 바꾼다. id는 그대로라 놓인 인스턴스가 모두 새 정의를 쓰고, 축약 모델은 새로 만든다.
+    // 편집기에 놓인 단자 배치가 바뀌지 않도록 단자 수는 같아야 한다.
+    // 이 정의를 (간접적으로라도) 쓰는 바깥 정의도 다시 만든다: 바깥 정의의 안쪽 넷리스트(block), 축약 모델, 소자 수/합, 해시가
+    // 모두 옛 정의로 만들어져 있기 때문이다. 바깥 정의의 uses는 그 안쪽 정의의 uses를 포함해 더 길므로 짧은 것부터 만들면
+    // 안쪽 정의가 늘 먼저 바뀌어 있다
+    public static synchronized Subcircuit redefine(Subcircuit old, CircuitModel model) {
+        Subcircuit s = new Subcircuit(old.id, old.name, model);
+        if (s.ports() != old.ports()) {
+            throw new IllegalArgumentException("단자 수가 달라 인스턴스를 그대로 둘 수 없습니다: " + old.ports() + " -> " + s.ports());
+        }
+        List<Subcircuit> outer = new ArrayList<>();
+        for (Subcircuit d : LIBRARY.values()) {
+            if (Arrays.binarySearch(d.uses, s.id) >= 0) outer.add(d);
+        }
+        outer.sort((a, b) -> Integer.compare(a.uses.length, b.uses.length));
+        LIBRARY.put(s.id, s);
+        for (Subcircuit d : outer) LIBRARY.put(d.id, new Subcircuit(d.id, d.name, d.model));
+        return s;
+    }
+
+    // 파일에서 읽은 정의. 이름과 내용이 같은 정의가 이미 있으면 그것을 쓴다.
+    // 읽은 정의는 (이름, 내용 해시)로 찾고, scope가 있으면 그 범위가 닫힐 때 참조를 놓는다. 어느 범위도 쓰지 않게 된 정의는
+    // 목록에서 지워지므로 배치처럼 파일을 계속 읽어도 목록이 자라지 않는다 (이미 만든 넷리스트는 정의 객체를 직접 들고 있다).
+    // scope가 null이면 편집기에서 만든 정의처럼 계속 남는다
+    public static Subcircuit load(String name, CircuitModel model, Scope scope) {
+        LoadKey key = LoadKey.of(name, model);
+        Subcircuit[] found = new Subcircuit[1];
+        LOADED.compute(key, (k, s) -> {
+            if (s == null || LIBRARY.get(s.id) != s || !sameContent(s.model, model)) {
+                s = new Subcircuit(NEXT_ID.incrementAndGet(), name, model);
+                s.loadKey = k;
+                LIBRARY.put(s.id, s);
+            }
+            if (scope == null) s.pinned = true;
+            else s.loads++;
+            return found[0] = s;
+        });
+        if (scope != null) scope.loaded.add(found[0]);
+        return found[0];
+    }
+
+    private static void release(Subcircuit s) {
+        LOADED.computeIfPresent(s.loadKey, (k, cur) -> {
+            if (--s.loads > 0 || s.pinned) return cur;
+            LIBRARY.remove(s.id, s);
+            return cur == s ? null : cur;
+        });
+    }
+
+    // 파일 하나(또는 실행 하나)에서 load한 정의. 닫으면 그 참조를 놓는다
+    static final class Scope implements AutoCloseable {
+        private final List<Subcircuit> loaded = new ArrayList<>();
+
+        @Override
+        public void close() {
+            for (Subcircuit s : loaded) release(s);
+            loaded.clear();
+        }
+    }
+
+    // 읽은 정의의 찾기 키: 이름 + 소자 순서대로의 종류/값/좌표 128비트 해시 (id는 보지 않는다)
+    private static final class LoadKey {
+        final String name;
+        final long h1, h2;
+
+        private LoadKey(String name, long h1, long h2) {
+            this.name = name;
+            this.h1 = h1;
+            this.h2 = h2;
+        }
+
+        static LoadKey of(String name, CircuitModel model) {
+            long[] h = { 0x243F6A8885A308D3L, 0x13198A2E03707344L };
+            model.scan((base, type, value, geom) -> {
+                for (int k = 0; k < CircuitModel.WIDTH; k++) {
+                    if (type[k] == 0) continue;
+                    long x = type[k] * 31L + Double.doubleToLongBits(value[k]);
+                    for (int g = 4 * k; g < 4 * k + 4; g++) x = x * 0x100000001B3L + Float.floatToIntBits(geom[g]);
+                    h[0] = AnalysisCache.mix(h[0] + x);
+                    h[1] = AnalysisCache.mix(h[1] ^ x * 0x9E3779B97F4A7C15L);
+                }
+            });
+            return new LoadKey(name, h[0], h[1]);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof LoadKey)) return false;
+            LoadKey k = (LoadKey) o;
+            return k.h1 == h1 && k.h2 == h2 && k.name.equals(name);
+        }
+
+        @Override
+        public int hashCode() { return (int) (h1 ^ h1 >>> 32) * 31 + name.hashCode(); }
+    }
+
+    // 소자 순서와 종류/값/좌표가 같은지 (id는 보지 않는다). 해시 충돌 확인용
+    private static boolean sameContent(CircuitModel a, CircuitModel b) {
+        if (a.size() != b.size()) return false;
+        List<CircuitElement> x = a.elements(), y = b.elements();
+        for (int i = 0; i < x.size(); i++) {
+            CircuitElement p = x.get(i), q = y.get(i);
+            if (p.type != q.type || Double.compare(p.gunny, q.gunny) != 0 || !p.start.equals(q.start) || !p.end.equals(q.end)) return false;
+        }
+        return true;
+    }
+
+    // 지금까지 만든 축약 모델 수 (벤치마크/진단용)
+    static long reductions() { return REDUCTIONS.get(); }
+
+    static Collection<Subcircuit> library() { return LIBRARY.values(); }
+
+    @Override
+    public String toString() {
+        return name + " (" + ports() + "단자, 소자 " + model.size() + "개)";
+    }
+}
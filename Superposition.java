@@ -0,0 +1,72 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 중첩 해석: 독립 전원마다 그 전원만 켜고 나머지는 끈(전압원 단락, 전류원 개방) 해를 구해 전원별 몫으로 나눈다.
+// 전원을 꺼도 행렬은 그대로이므로 DC 행렬을 한 번 분해하고, 전원 S개의 우변을 한 블록으로 묶어
+// SparseLU.solve(B, X, S) 한 번에 푼다 (L/U를 S번이 아니라 한 번만 훑는다). 몫을 모두 더하면 전체 DC 해와 같다.
+// 포화 OP-AMP는 비선형이라 중첩이 성립하지 않으므로 선형(개루프 이득) 모델로 풀고 linearized로 표시한다.
+final class Superposition {
+    final Netlist netlist;
+    final int[] sources;            // 전원 소자 번호
+    final double[][] voltages;      // [전원][노드] 그 전원 하나의 노드 전압 몫 (0: 접지)
+    final double[][] currents;      // [전원][소자] 그 전원 하나의 소자 전류 몫 (A -> B)
+    final boolean linearized;       // 포화 OP-AMP를 선형 모델로 풀었는가
+
+    private Superposition(Netlist netlist, int[] sources, double[][] voltages, double[][] currents, boolean linearized) {
+        this.netlist = netlist;
+        this.sources = sources;
+        this.voltages = voltages;
+        this.currents = currents;
+        this.linearized = linearized;
+    }
+
+    public static Superposition solve(Netlist nl) {
+        MnaSystem sys = new MnaSystem(nl);
+        List<Integer> list = new ArrayList<>();
+        for (int e = 0; e < nl.elementCount; e++) if (sys.isSource(e)) list.add(e);
+        int k = list.size(), n = sys.size;
+        int[] sources = new int[k];
+        for (int s = 0; s < k; s++) sources[s] = list.get(s);
+
+        double[][] voltages = new double[k][], currents = new double[k][];
+        if (k > 0) {
+            sys.stampMatrix(0.0);
+            SparseLU lu = SparseLU.factor(sys.matrix);
+            // 우변 블록: 행마다 전원 k개 (B[i * k + s])
+            double[] B = new double[n * k], X = new double[n * k], rhs = new double[n];
+            for (int s = 0; s < k; s++) {
+                Arrays.fill(rhs, 0.0);
+                sys.stampSource(sources[s], rhs);
+                for (int i = 0; i < n; i++) B[i * k + s] = rhs[i];
+            }
+            lu.solve(B, X, k);
+            double[] x = new double[n];
+            for (int s = 0; s < k; s++) {
+                for (int i = 0; i < n; i++) x[i] = X[i * k + s];
+                voltages[s] = sys.nodeVoltages(x);
+                currents[s] = sys.elementCurrents(x, sources[s]);
+            }
+        }
+        return new Superposition(nl, sources, voltages, currents, sys.isNonlinear());
+    }
+
+    public int size() { return sources.length; }
+
+    // 모든 전원 몫을 더한 노드 전압 (선형 회로면 DC 동작점과 같다)
+    public double[] totalVoltages() {
+        double[] v = new double[netlist.nodeCount];
+        for (double[] part : voltages) for (int i = 0; i < v.length; i++) v[i] += part[i];
+        return v;
+    }
+
+    // 전원 s의 표시 이름 (예: "전압원 #3 5V")
+    public String label(int s) {
+        int e = sources[s];
+        switch (netlist.type[e]) {
+            case VOLTAGE_SOURCE: return String.format("전압원 #%d %.4gV", e, netlist.value[e]);
+            case CURRENT_SOURCE: return String.format("전류원 #%d %.4gA", e, netlist.value[e]);
+            default: return String.format("부회로 #%d 내부 전원", e);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+import java.util.Arrays;
+
+// 스윕/몬테카를로 결과의 누적 통계. 값을 저장하지 않고 한 번에 하나씩 갱신한다.
+// 평균/분산은 Welford 방식, 백분위수는 P² 알고리즘(분위수마다 마커 5개)으로 추정한다.
+class SweepStatistics {
+    static final double[] DEFAULT_PERCENTILES = { 0.01, 0.05, 0.5, 0.95, 0.99 };
+
+    final double specLow;
+    final double specHigh;
+    long count;
+    long passCount;
+    double mean;
+    private double m2;
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    final double[] percentiles;
+    private final QuantileEstimator[] estimators;
+
+    SweepStatistics(double specLow, double specHigh) {
+        this(specLow, specHigh, DEFAULT_PERCENTILES);
+    }
+
+    SweepStatistics(double specLow, double specHigh, double[] percentiles) {
+        this.specLow = specLow;
+        this.specHigh = specHigh;
+        this.percentiles = percentiles.clone();
+        this.estimators = new QuantileEstimator[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++) estimators[i] = new QuantileEstimator(percentiles[i]);
+    }
+
+    public void add(double v) {
+        if (Double.isNaN(v)) return;
+        count++;
+        double delta = v - mean;
+        mean += delta / count;
+        m2 += delta * (v - mean);
+        if (v < min) min = v;
+        if (v > max) max = v;
+        if (v >= specLow && v <= specHigh) passCount++;
+        for (QuantileEstimator q : estimators) q.add(v);
+    }
+
+    public void addAll(double[] values, int length) {
+        for (int i = 0; i < length; i++) add(values[i]);
+    }
+
+    public double stdDev() {
+        return count > 1 ? Math.sqrt(m2 / (count - 1)) : 0.0;
+    }
+
+    // 규격 [specLow, specHigh]를 만족하는 비율
+    public double yield() {
+        return count == 0 ? 0.0 : (double) passCount / count;
+    }
+
+    public double percentile(double p) {
+        for (int i = 0; i < percentiles.length; i++) {
+            if (percentiles[i] == p) return estimators[i].value();
+        }
+        throw new IllegalArgumentException("추적하지 않는 백분위수: " + p);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("n=%d, 평균=%.6g, 표준편차=%.6g, 최소=%.6g, 최대=%.6g", count, mean, stdDev(), min, max));
+        for (int i = 0; i < percentiles.length; i++) {
+            sb.append(String.format(", P%.0f=%.6g", percentiles[i] * 100, estimators[i].value()));
+        }
+        if (specLow > Double.NEGATIVE_INFINITY || specHigh < Double.POSITIVE_INFINITY) {
+            sb.append(String.format(", 수율=%.2f%%", this.yield() * 100));
+        }
+        return sb.toString();
+    }
+
+    // P² 분위수 추정기 (Jain & Chlamtac)
+    static class QuantileEstimator {
+        private final double p;
+        private final double[] q = new double[5];
+        private final double[] n = new double[5];
+        private final double[] np = new double[5];
+        private final double[] dn;
+        private int count;
+
+        QuantileEstimator(double p) {
+            this.p = p;
+            this.dn = new double[] { 0, p / 2, p, (1 + p) / 2, 1 };
+        }
+
+        void add(double x) {
+            if (count < 5) {
+                q[count++] = x;
+                if (count == 5) {
+                    Arrays.sort(q);
+                    for (int i = 0; i < 5; i++) n[i] = i + 1;
+                    np[0] = 1; np[1] = 1 + 2 * p; np[2] = 1 + 4 * p; np[3] = 3 + 2 * p; np[4] = 5;
+                }
+                return;
+            }
+            count++;
+            int k;
+            if (x < q[0]) { q[0] = x; k = 0; }
+            else if (x < q[1]) k = 0;
+            else if (x < q[2]) k = 1;
+            else if (x < q[3]) k = 2;
+            else if (x <= q[4]) k = 3;
+            else { q[4] = x; k = 3; }
+            for (int i = k + 1; i < 5; i++) n[i]++;
+            for (int i = 0; i < 5; i++) np[i] += dn[i];
+            for (int i = 1; i <= 3; i++) {
+                double d = np[i] - n[i];
+                if ((d >= 1 && n[i + 1] - n[i] > 1) || (d <= -1 && n[i - 1] - n[i] < -1)) {
+                    int s = d > 0 ? 1 : -1;
+                    double qp = parabolic(i, s);
+                    q[i] = (q[i - 1] < qp && qp < q[i + 1]) ? qp : q[i] + s * (q[i + s] - q[i]) / (n[i + s] - n[i]);
+                    n[i] += s;
+                }
+            }
+        }
+
+        private double parabolic(int i, int d) {
+            return q[i] + d / (n[i + 1] - n[i - 1])
+                * ((n[i] - n[i - 1] + d) * (q[i + 1] - q[i]) / (n[i + 1] - n[i])
+                 + (n[i + 1] - n[i] - d) * (q[i] - q[i - 1]) / (n[i] - n[i - 1]));
+        }
+
+        double value() {
+            if (count == 0) return Double.NaN;
+            if (count < 5) {
+                double[] s = Arrays.copyOf(q, count);
+                Arrays.sort(s);
+                return s[(int) Math.min(count - 1, Math.round(p * (count - 1)))];
+            }
+            return q[2];
+        }
+    }
+}
@@ -0,0 +1,217 @@
+import java.util.Arrays;
+
+// 적응형 시간 간격 과도 해석. t=0에 전원이 인가되고 모든 커패시터/인덕터는 방전 상태에서 시작한다.
+// L, C는 선택한 적분법(후진 오일러, 사다리꼴, BDF2)의 동반 모델로 MNA에 스탬프되며,
+// 예측자-수정자 차이로 국소 절단 오차(LTE)를 추정해 간격을 조절한다.
+// 간격이 바뀌지 않는 동안에는 LU 분해를 그대로 재사용한다.
+class TransientSimulator {
+    enum Method {
+        BACKWARD_EULER(1, 0.5),
+        TRAPEZOIDAL(2, 1.0 / 13.0),
+        BDF2(2, 2.0 / 11.0);
+
+        final int order;
+        final double errorConstant;     // (수정자 - 예측자) 차이 -> LTE 환산 계수
+
+        Method(int order, double errorConstant) {
+            this.order = order;
+            this.errorConstant = errorConstant;
+        }
+    }
+
+    static final int CHUNK = 4096;
+
+    static class Stats {
+        int accepted;
+        int rejected;
+        int factorizations;
+        double minStep = Double.POSITIVE_INFINITY;
+        double maxStep;
+        double endTime;
+    }
+
+    final MnaSystem sys;
+    Method method = Method.BDF2;
+    double relTol = 1e-3;
+    double absTol = 1e-6;
+
+    private String[] probeNames = new String[0];
+    private int[] probePlus = new int[0];     // 미지수 번호 (-1: 접지)
+    private int[] probeMinus = new int[0];
+
+    TransientSimulator(MnaSystem sys) {
+        this.sys = sys;
+    }
+
+    public int addProbe(String name, int plusUnknown, int minusUnknown) {
+        int p = probeNames.length;
+        probeNames = Arrays.copyOf(probeNames, p + 1);
+        probePlus = Arrays.copyOf(probePlus, p + 1);
+        probeMinus = Arrays.copyOf(probeMinus, p + 1);
+        probeNames[p] = name;
+        probePlus[p] = plusUnknown;
+        probeMinus[p] = minusUnknown;
+        return p;
+    }
+
+    public int addNodeProbe(String name, int node) {
+        return addProbe(name, node - 1, -1);
+    }
+
+    // 소자 양단 전압 (A - B)
+    public int addVoltageProbe(String name, int element) {
+        return addProbe(name, sys.netlist.nodeA[element] - 1, sys.netlist.nodeB[element] - 1);
+    }
+
+    // 분기 전류 (전압원, 인덕터)
+    public int addBranchProbe(String name, int element) {
+        return addProbe(name, sys.branchOf[element], -1);
+    }
+
+    public Stats run(double tEnd, WaveformSink sink) {
+        Netlist nl = sys.netlist;
+        int n = sys.size;
+        Stats stats = new Stats();
+        double hMax = tEnd / 50;
+        double hMin = tEnd * 1e-12;
+        double h = tEnd * 1e-4;
+
+        // 이력: x1 = 직전 해, x2, x3 = 그 이전
+        double[] x1 = new double[n], x2 = new double[n], x3 = new double[n];
+        double[] xn = new double[n], xp = new double[n], rhs = new double[n], src = new double[n];
+        double h1 = 0, h2 = 0;
+        double[] derivPrev = new double[nl.elementCount];   // C: 전류, L: 전압 (사다리꼴 이력)
+        sys.stampSources(src);
+
+        double[] time = new double[CHUNK];
+        double[][] cols = new double[probeNames.length][CHUNK];
+        int filled = 0;
+        sink.begin(probeNames);
+        filled = record(0.0, x1, time, cols, filled, sink);
+
+        SparseLU lu = null;
+        double luA0 = Double.NaN;
+        double t = 0;
+        while (t < tEnd * (1 - 1e-12)) {
+            h = Math.min(h, tEnd - t);
+            // 첫 스텝은 후진 오일러로 시작 (L 전류와 C 전압만 t=0에서 연속)
+            Method m = stats.accepted == 0 ? Method.BACKWARD_EULER : method;
+            double a0, a1, a2 = 0, b1 = 0;
+            if (m == Method.BACKWARD_EULER) {
+                a0 = 1 / h;
+                a1 = -1 / h;
+            } else if (m == Method.TRAPEZOIDAL) {
+                a0 = 2 / h;
+                a1 = -2 / h;
+                b1 = -1;
+            } else {
+                double rho = h / h1;
+                a0 = (1 + 2 * rho) / ((1 + rho) * h);
+                a1 = -(1 + rho) / h;
+                a2 = rho * rho / ((1 + rho) * h);
+            }
+            if (lu == null || a0 != luA0) {
+                sys.stampMatrix(a0);
+                if (lu == null) lu = SparseLU.factor(sys.matrix); else lu.refactor(sys.matrix);
+                luA0 = a0;
+                stats.factorizations++;
+            }
+
+            System.arraycopy(src, 0, rhs, 0, n);
+            for (int e = 0; e < nl.elementCount; e++) {
+                if (nl.type[e] == ComponentType.CAPACITOR) {
+                    int a = nl.nodeA[e] - 1, c = nl.nodeB[e] - 1;
+                    double hist = nl.value[e] * (a1 * diff(x1, a, c) + a2 * diff(x2, a, c)) + b1 * derivPrev[e];
+                    if (a >= 0) rhs[a] -= hist;
+                    if (c >= 0) rhs[c] += hist;
+                } else if (nl.type[e] == ComponentType.INDUCTOR) {
+                    int br = sys.branchOf[e];
+                    rhs[br] += nl.value[e] * (a1 * x1[br] + a2 * x2[br]) + b1 * derivPrev[e];
+                }
+            }
+            lu.solve(rhs, xn);
+
+            // LTE 추정: 직전 점들로 외삽한 예측값과 비교
+            double err = -1;
+            int p = m.order;
+            if (stats.accepted > p) {
+                predict(p, h, h1, h2, x1, x2, x3, xp);
+                double worst = 0;
+                for (int i = 0; i < n; i++) {
+                    double scale = relTol * Math.max(Math.abs(xn[i]), Math.abs(x1[i])) + absTol;
+                    worst = Math.max(worst, Math.abs(xn[i] - xp[i]) / scale);
+                }
+                err = worst * m.errorConstant;
+                if (err > 1 && h > hMin) {
+                    h = Math.max(hMin, h * Math.max(0.2, 0.9 * Math.pow(err, -1.0 / (p + 1))));
+                    stats.rejected++;
+                    continue;
+                }
+            }
+
+            // 수락: 사다리꼴용 이력 갱신 후 해 벡터 순환
+            for (int e = 0; e < nl.elementCount; e++) {
+                if (nl.type[e] == ComponentType.CAPACITOR) {
+                    int a = nl.nodeA[e] - 1, c = nl.nodeB[e] - 1;
+                    derivPrev[e] = nl.value[e] * (a0 * diff(xn, a, c) + a1 * diff(x1, a, c) + a2 * diff(x2, a, c)) + b1 * derivPrev[e];
+                } else if (nl.type[e] == ComponentType.INDUCTOR) {
+                    derivPrev[e] = diff(xn, nl.nodeA[e] - 1, nl.nodeB[e] - 1);
+                }
+            }
+            double[] spare = x3;
+            x3 = x2; x2 = x1; x1 = xn; xn = spare;
+            h2 = h1; h1 = h;
+            t += h;
+            stats.accepted++;
+            stats.minStep = Math.min(stats.minStep, h);
+            stats.maxStep = Math.max(stats.maxStep, h);
+            filled = record(t, x1, time, cols, filled, sink);
+
+            // 다음 간격: 변화가 작으면 유지해 분해를 재사용
+            if (err >= 0) {
+                double factor = 0.9 * Math.pow(Math.max(err, 1e-10), -1.0 / (p + 1));
+                if (factor >= 1.5) h *= Math.min(2.0, factor);
+                else if (factor < 0.9) h *= Math.max(0.2, factor);
+            } else if (stats.accepted > 1) {
+                h *= 2;
+            }
+            h = Math.min(Math.max(h, hMin), hMax);
+        }
+        if (filled > 0) sink.accept(time, cols, filled);
+        sink.end();
+        stats.endTime = t;
+        return stats;
+    }
+
+    private int record(double t, double[] x, double[] time, double[][] cols, int filled, WaveformSink sink) {
+        time[filled] = t;
+        for (int p = 0; p < cols.length; p++) cols[p][filled] = diff(x, probePlus[p], probeMinus[p]);
+        if (++filled == CHUNK) {
+            sink.accept(time, cols, CHUNK);
+            return 0;
+        }
+        return filled;
+    }
+
+    private static double diff(double[] x, int plus, int minus) {
+        return (plus >= 0 ? x[plus] : 0.0) - (minus >= 0 ? x[minus] : 0.0);
+    }
+
+    // 1차: 두 점 선형 외삽, 2차: 세 점 2차 외삽 (뉴턴 차분)
+    private static void predict(int order, double h, double h1, double h2,
+                                double[] x1, double[] x2, double[] x3, double[] out) {
+        int n = out.length;
+        if (order == 1) {
+            double r = h / h1;
+            for (int i = 0; i < n; i++) out[i] = x1[i] + r * (x1[i] - x2[i]);
+        } else {
+            // t1 = 0, t2 = -h1, t3 = -h1-h2, 평가 지점 t = h
+            for (int i = 0; i < n; i++) {
+                double d1 = (x1[i] - x2[i]) / h1;
+                double d2 = (x2[i] - x3[i]) / h2;
+                double dd = (d1 - d2) / (h1 + h2);
+                out[i] = x1[i] + d1 * h + dd * h * (h + h1);
+            }
+        }
+    }
+}
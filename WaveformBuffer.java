@@ -0,0 +1,33 @@
+import java.util.Arrays;
+
+// 파형을 기본형 배열에 모으는 메모리 내 소비자
+class WaveformBuffer implements WaveformSink {
+    String[] names = new String[0];
+    double[] time = new double[0];
+    double[][] columns = new double[0][];
+    int length;
+
+    @Override
+    public void begin(String[] names) {
+        this.names = names.clone();
+        this.time = new double[256];
+        this.columns = new double[names.length][256];
+        this.length = 0;
+    }
+
+    @Override
+    public void accept(double[] t, double[][] cols, int count) {
+        if (length + count > time.length) {
+            int cap = Math.max(time.length * 2, length + count);
+            time = Arrays.copyOf(time, cap);
+            for (int p = 0; p < columns.length; p++) columns[p] = Arrays.copyOf(columns[p], cap);
+        }
+        System.arraycopy(t, 0, time, length, count);
+        for (int p = 0; p < columns.length; p++) System.arraycopy(cols[p], 0, columns[p], length, count);
+        length += count;
+    }
+
+    public double[] time() { return Arrays.copyOf(time, length); }
+
+    public double[] column(int probe) { return Arrays.copyOf(columns[probe], length); }
+}
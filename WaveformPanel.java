@@ -0,0 +1,236 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 과도/AC 파형 보기. WaveformStore(맵핑 파일)를 그대로 읽고, 화면 열마다 M4(첫 값, 끝 값, 최솟값, 최댓값)만 그린다.
+// 피라미드는 프로브마다 작업 스레드에서 만들고, 다 만들어지면 EDT에서 바꿔 끼운다 (그동안은 "준비 중"만 표시).
+// 휠: 커서 위치 기준 확대/축소, 드래그: 이동, 더블클릭: 전체 보기. logX면 가로축(AC 주파수)을 로그 눈금으로 다룬다.
+// 보여 주는 저장소와 피라미드 작업은 각자 참조를 잡으므로 결과가 먼저 닫혀도 맵핑이 읽는 도중 해제되지 않는다
+class WaveformPanel extends JPanel {
+    private static final double ZOOM = 1.25;
+
+    private final boolean logX;
+    private final JComboBox<String> probeBox = new JComboBox<>();
+    private final JLabel status = new JLabel(" ");
+    private final Plot plot = new Plot();
+    private final AtomicInteger generation = new AtomicInteger();   // 파형/프로브가 바뀌면 진행 중인 피라미드 작업을 버린다
+
+    private WaveformStore store;
+    private WaveformPyramid[] pyramids = new WaveformPyramid[0];
+    private double viewStart, viewEnd;      // 보이는 시간(주파수) 범위
+
+    WaveformPanel(boolean logX) {
+        super(new BorderLayout());
+        this.logX = logX;
+        JButton fitBtn = new JButton("전체 보기");
+        fitBtn.addActionListener(e -> fit());
+        probeBox.addActionListener(e -> {
+            if (store != null && probeBox.getSelectedIndex() >= 0) prepare(probeBox.getSelectedIndex());
+        });
+        JPanel bar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        bar.add(probeBox);
+        bar.add(fitBtn);
+        bar.add(status);
+        add(bar, BorderLayout.NORTH);
+        add(plot, BorderLayout.CENTER);
+    }
+
+    // EDT에서 부른다. null이면 비운다. 새 저장소의 참조를 잡고 이전 것은 놓는다
+    public void setWaveform(WaveformStore waveform) {
+        if (waveform == store) return;
+        generation.incrementAndGet();
+        if (store != null) store.close();
+        store = waveform == null ? null : waveform.retain();
+        pyramids = new WaveformPyramid[waveform == null ? 0 : waveform.probeCount()];
+        probeBox.removeAllItems();
+        if (waveform == null || waveform.sampleCount == 0 || waveform.probeCount() == 0) {
+            if (store != null) store.close();
+            store = null;
+            status.setText("파형 없음");
+            plot.repaint();
+            return;
+        }
+        for (String name : waveform.names) probeBox.addItem(name);   // 첫 항목 선택 시 prepare(0)
+        fit();
+    }
+
+    private void fit() {
+        if (store == null) return;
+        viewStart = store.time(0);
+        viewEnd = store.time(store.sampleCount - 1);
+        plot.repaint();
+    }
+
+    private WaveformPyramid current() {
+        int p = probeBox.getSelectedIndex();
+        return p >= 0 && p < pyramids.length ? pyramids[p] : null;
+    }
+
+    private void prepare(int probe) {
+        if (pyramids[probe] != null) {
+            showStatus(pyramids[probe], 0);
+            plot.repaint();
+            return;
+        }
+        int gen = generation.incrementAndGet();
+        WaveformStore source = store.retain();
+        status.setText(String.format("표본 %,d개 피라미드 만드는 중...", source.sampleCount));
+        plot.repaint();
+        Thread worker = new Thread(() -> {
+            long t0 = System.nanoTime();
+            WaveformPyramid built;
+            try {
+                built = WaveformPyramid.build(source, probe, new CircuitAnalyzer.Monitor() {
+                    @Override
+                    public boolean isCancelled() { return generation.get() != gen; }
+                });
+            } finally {
+                source.close();
+            }
+            long nanos = System.nanoTime() - t0;
+            if (built == null) return;
+            SwingUtilities.invokeLater(() -> {
+                if (source != store) return;
+                pyramids[probe] = built;
+                if (probeBox.getSelectedIndex() == probe) {
+                    showStatus(built, nanos);
+                    plot.repaint();
+                }
+            });
+        }, "waveform-pyramid");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void showStatus(WaveformPyramid p, long buildNanos) {
+        status.setText(String.format("표본 %,d개, 레벨 %d개 (%.1f MB)%s", store.sampleCount, p.levels(), p.bytes() / 1e6,
+            buildNanos > 0 ? String.format(", %.0f ms", buildNanos / 1e6) : ""));
+    }
+
+    // 가로축 좌표 (logX면 로그) 와 그 역
+    private double axis(double t) { return logX ? Math.log(t) : t; }
+
+    private double unaxis(double u) { return logX ? Math.exp(u) : u; }
+
+    // 보이는 범위를 [u0, u1](축 좌표)로 바꾸되 전체 범위 밖으로 나가지 않게 한다
+    private void setView(double u0, double u1) {
+        double lo = axis(store.time(0)), hi = axis(store.time(store.sampleCount - 1));
+        double span = Math.min(u1 - u0, hi - lo);
+        span = Math.max(span, (hi - lo) * 1e-12);
+        if (u0 < lo) u0 = lo;
+        if (u0 + span > hi) u0 = hi - span;
+        viewStart = unaxis(u0);
+        viewEnd = unaxis(u0 + span);
+        plot.repaint();
+    }
+
+    private class Plot extends JComponent {
+        private final WaveformPyramid.Columns columns = new WaveformPyramid.Columns();
+        private final double[] range = new double[2];
+        private int[] xs = new int[0], ys = new int[0];
+        private int dragX;
+
+        Plot() {
+            setPreferredSize(new Dimension(800, 220));
+            setBackground(Color.WHITE);
+            setOpaque(true);
+            MouseAdapter mouse = new MouseAdapter() {
+                @Override
+                public void mousePressed(MouseEvent e) { dragX = e.getX(); }
+
+                @Override
+                public void mouseDragged(MouseEvent e) {
+                    if (store == null || getWidth() == 0) return;
+                    double u0 = axis(viewStart), u1 = axis(viewEnd);
+                    double du = (dragX - e.getX()) / (double) getWidth() * (u1 - u0);
+                    dragX = e.getX();
+                    setView(u0 + du, u1 + du);
+                }
+
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (e.getClickCount() == 2) fit();
+                }
+
+                @Override
+                public void mouseWheelMoved(MouseWheelEvent e) {
+                    if (store == null || getWidth() == 0) return;
+                    double u0 = axis(viewStart), u1 = axis(viewEnd);
+                    double anchor = u0 + (u1 - u0) * e.getX() / (double) getWidth();
+                    double s = Math.pow(ZOOM, e.getPreciseWheelRotation());
+                    setView(anchor - (anchor - u0) * s, anchor + (u1 - anchor) * s);
+                }
+            };
+            addMouseListener(mouse);
+            addMouseMotionListener(mouse);
+            addMouseWheelListener(mouse);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g;
+            int w = getWidth(), h = getHeight();
+            g2.setColor(getBackground());
+            g2.fillRect(0, 0, w, h);
+            g2.setColor(Color.GRAY);
+            WaveformPyramid p = current();
+            if (store == null || p == null || w < 2 || h < 20) {
+                g2.drawString(store == null ? "파형 없음" : "준비 중...", 10, 20);
+                return;
+            }
+            long[] visible = store.range(viewStart, viewEnd);
+            if (!p.range(visible[0], visible[1], range)) {
+                g2.drawString("보이는 범위에 표본이 없습니다", 10, 20);
+                return;
+            }
+            long t0 = AnalysisMetrics.start();
+            double lo = range[0], hi = range[1];
+            if (hi - lo < 1e-12 * Math.max(1, Math.abs(hi))) { lo -= 0.5; hi += 0.5; }
+            double pad = (hi - lo) * 0.05;
+            lo -= pad;
+            hi += pad;
+            int top = 4, bottom = h - 16, height = bottom - top;
+
+            g2.setColor(new Color(235, 235, 235));
+            for (int k = 1; k < 4; k++) g2.drawLine(0, top + height * k / 4, w, top + height * k / 4);
+            g2.setColor(new Color(0, 90, 200));
+            long count = visible[1] - visible[0];
+            if (count <= 2L * w) {
+                // 표본이 열보다 적으면 표본끼리 바로 잇는다 (양옆 바깥 표본까지 넣어 가장자리가 끊기지 않게)
+                long from = Math.max(0, visible[0] - 1), to = Math.min(store.sampleCount, visible[1] + 1);
+                int n = (int) (to - from);
+                if (xs.length < n) { xs = new int[n]; ys = new int[n]; }
+                for (int k = 0; k < n; k++) {
+                    xs[k] = (int) Math.round(WaveformPyramid.fraction(viewStart, viewEnd, store.time(from + k), logX) * (w - 1));
+                    ys[k] = y(store.value(p.probe, from + k), lo, hi, top, height);
+                }
+                g2.drawPolyline(xs, ys, n);
+            } else {
+                p.columns(viewStart, viewEnd, w, logX, columns);
+                int prevY = -1;
+                for (int x = 0; x < w; x++) {
+                    if (columns.count[x] == 0) continue;
+                    int first = y(columns.first[x], lo, hi, top, height);
+                    if (prevY >= 0) g2.drawLine(x - 1, prevY, x, first);
+                    g2.drawLine(x, y(columns.max[x], lo, hi, top, height), x, y(columns.min[x], lo, hi, top, height));
+                    prevY = y(columns.last[x], lo, hi, top, height);
+                }
+            }
+
+            g2.setColor(Color.DARK_GRAY);
+            g2.drawString(String.format("%.4g", hi), 2, top + 12);
+            g2.drawString(String.format("%.4g", lo), 2, bottom - 2);
+            String left = String.format("%.4g", viewStart), right = String.format("%.4g%s", viewEnd, logX ? " Hz" : " s");
+            g2.drawString(left, 2, h - 3);
+            g2.drawString(right, w - g2.getFontMetrics().stringWidth(right) - 2, h - 3);
+            AnalysisMetrics.stop(AnalysisMetrics.Phase.WAVEFORM, t0);
+        }
+
+        private int y(double v, double lo, double hi, int top, int height) {
+            return top + (int) Math.round((hi - v) / (hi - lo) * height);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+// 파형 한 열의 다중 해상도 min/max 피라미드와 M4 솎아내기.
+// 레벨 l(1..)의 칸 하나는 표본 FANOUT^l개의 최솟값/최댓값을 float로 담는다 (아래/위로 반올림해 실제 범위를 항상 덮는다).
+// 레벨 0은 따로 만들지 않고 WaveformStore의 맵핑 파일을 그대로 읽는다. 표본 1000만 개면 레벨 1이 125만 칸, 전체 약 11 MB.
+// 임의 구간 [from, to)의 min/max는 양 끝은 낮은 레벨에서, 가운데는 높은 레벨에서 읽으므로 레벨마다 칸 2·FANOUT개 이하만 본다.
+// 화면 한 열(픽셀)마다 그 시간 구간의 첫 값, 끝 값, 최솟값, 최댓값(M4)을 구하면 선을 이어 그린 모양이 원래 파형과 같다.
+final class WaveformPyramid {
+    static final int FANOUT = 8;
+    private static final int CHUNK = 1 << 16;   // 레벨 1을 만들 때 한 번에 읽는 표본 수 (FANOUT의 배수)
+
+    // 화면 열별 M4 값. 표본이 없는 열은 count = 0
+    static final class Columns {
+        double[] first = new double[0], last = new double[0], min = new double[0], max = new double[0];
+        long[] count = new long[0];
+
+        void ensure(int width) {
+            if (first.length >= width) return;
+            first = new double[width];
+            last = new double[width];
+            min = new double[width];
+            max = new double[width];
+            count = new long[width];
+        }
+    }
+
+    final WaveformStore store;
+    final int probe;
+    private final float[][] min, max;   // [레벨 - 1][칸]
+
+    private WaveformPyramid(WaveformStore store, int probe, float[][] min, float[][] max) {
+        this.store = store;
+        this.probe = probe;
+        this.min = min;
+        this.max = max;
+    }
+
+    // 맵핑 파일을 블록 단위로 훑어 레벨 1을 만들고, 그 위는 아래 레벨에서 FANOUT칸씩 묶는다.
+    // 오래 걸릴 수 있으므로 EDT가 아닌 스레드에서 부르고, monitor가 취소되면 null을 돌려준다
+    static WaveformPyramid build(WaveformStore store, int probe, CircuitAnalyzer.Monitor monitor) {
+        long t0 = AnalysisMetrics.start();
+        try {
+            return levels(store, probe, monitor);
+        } finally {
+            AnalysisMetrics.stop(AnalysisMetrics.Phase.WAVEFORM, t0);
+        }
+    }
+
+    private static WaveformPyramid levels(WaveformStore store, int probe, CircuitAnalyzer.Monitor monitor) {
+        long n = store.sampleCount;
+        int levels = 0;
+        for (long size = n; size > 1; size = (size + FANOUT - 1) / FANOUT) levels++;
+        float[][] min = new float[levels][], max = new float[levels][];
+        if (levels == 0) return new WaveformPyramid(store, probe, min, max);
+
+        int cells = (int) ((n + FANOUT - 1) / FANOUT);
+        float[] lo = new float[cells], hi = new float[cells];
+        double[] chunk = new double[CHUNK];
+        for (long from = 0; from < n; from += CHUNK) {
+            if (monitor.isCancelled()) return null;
+            int len = (int) Math.min(CHUNK, n - from);
+            store.copy(probe, from, chunk, 0, len);
+            int cell = (int) (from / FANOUT);
+            for (int k = 0; k < len; k += FANOUT, cell++) {
+                double a = chunk[k], b = a;
+                for (int j = k + 1, end = Math.min(len, k + FANOUT); j < end; j++) {
+                    double v = chunk[j];
+                    if (v < a) a = v;
+                    if (v > b) b = v;
+                }
+                lo[cell] = down(a);
+                hi[cell] = up(b);
+            }
+        }
+        min[0] = lo;
+        max[0] = hi;
+        for (int l = 1; l < levels; l++) {
+            if (monitor.isCancelled()) return null;
+            float[] plo = min[l - 1], phi = max[l - 1];
+            int count = (plo.length + FANOUT - 1) / FANOUT;
+            lo = new float[count];
+            hi = new float[count];
+            for (int c = 0; c < count; c++) {
+                float a = plo[c * FANOUT], b = phi[c * FANOUT];
+                for (int j = c * FANOUT + 1, end = Math.min(plo.length, (c + 1) * FANOUT); j < end; j++) {
+                    if (plo[j] < a) a = plo[j];
+                    if (phi[j] > b) b = phi[j];
+                }
+                lo[c] = a;
+                hi[c] = b;
+            }
+            min[l] = lo;
+            max[l] = hi;
+        }
+        return new WaveformPyramid(store, probe, min, max);
+    }
+
+    private static float down(double v) {
+        float f = (float) v;
+        return f > v ? Math.nextDown(f) : f;
+    }
+
+    private static float up(double v) {
+        float f = (float) v;
+        return f < v ? Math.nextUp(f) : f;
+    }
+
+    public int levels() { return min.length; }
+
+    public long bytes() {
+        long b = 0;
+        for (float[] a : min) b += 2L * a.length * Float.BYTES;
+        return b;
+    }
+
+    // [from, to) 구간의 최솟값/최댓값을 out[0], out[1]에. 구간이 비면 false
+    public boolean range(long from, long to, double[] out) {
+        if (from >= to) return false;
+        double a = Double.POSITIVE_INFINITY, b = Double.NEGATIVE_INFINITY;
+        long i = from, j = to, size = 1;
+        int level = 0;
+        // 한 단계 위 레벨로 올라갈 수 있는 동안 양 끝의 자투리만 현재 레벨에서 읽는다
+        while (level < min.length) {
+            long up = size * FANOUT;
+            long ni = (i + up - 1) / up * up, nj = j / up * up;
+            if (ni >= nj) break;
+            for (long k = i; k < ni; k += size) { a = Math.min(a, lower(level, k / size)); b = Math.max(b, upper(level, k / size)); }
+            for (long k = nj; k < j; k += size) { a = Math.min(a, lower(level, k / size)); b = Math.max(b, upper(level, k / size)); }
+            i = ni;
+            j = nj;
+            size = up;
+            level++;
+        }
+        for (long k = i; k < j; k += size) { a = Math.min(a, lower(level, k / size)); b = Math.max(b, upper(level, k / size)); }
+        out[0] = a;
+        out[1] = b;
+        return true;
+    }
+
+    // 레벨 0이면 맵핑 파일의 표본 그대로 (칸 끝이 sampleCount를 넘지 않도록 호출 쪽이 [0, n) 안에서만 묻는다)
+    private double lower(int level, long cell) {
+        return level == 0 ? store.value(probe, cell) : min[level - 1][(int) cell];
+    }
+
+    private double upper(int level, long cell) {
+        return level == 0 ? store.value(probe, cell) : max[level - 1][(int) cell];
+    }
+
+    // 시간 [t0, t1]을 width개 열로 나눠 열마다 M4 값을 채운다. logX면 열 경계를 로그 간격으로 잡는다 (AC 주파수축).
+    // 열 경계의 표본 번호는 이분 탐색으로 찾으므로 한 번 그리는 비용은 O(width·(log n + 레벨 수·FANOUT))
+    public void columns(double t0, double t1, int width, boolean logX, Columns out) {
+        out.ensure(width);
+        double[] mm = new double[2];
+        long from = store.indexAtOrAfter(t0);
+        for (int x = 0; x < width; x++) {
+            double edge = x + 1 == width ? Math.nextUp(t1) : at(t0, t1, (x + 1) / (double) width, logX);
+            long to = Math.max(from, store.indexAtOrAfter(edge));
+            out.count[x] = to - from;
+            if (to > from) {
+                out.first[x] = store.value(probe, from);
+                out.last[x] = store.value(probe, to - 1);
+                range(from, to, mm);
+                out.min[x] = mm[0];
+                out.max[x] = mm[1];
+            }
+            from = to;
+        }
+    }
+
+    // 화면 비율 f(0..1)에 해당하는 시간
+    static double at(double t0, double t1, double f, boolean logX) {
+        return logX ? t0 * Math.pow(t1 / t0, f) : t0 + (t1 - t0) * f;
+    }
+
+    // 시간 t의 화면 비율 (at의 역)
+    static double fraction(double t0, double t1, double t, boolean logX) {
+        return logX ? Math.log(t / t0) / Math.log(t1 / t0) : (t - t0) / (t1 - t0);
+    }
+}
@@ -0,0 +1,10 @@
+// 과도/주파수 해석 결과를 청크 단위로 받는 소비자.
+// accept()에 넘어온 배열은 호출이 끝나면 다시 사용되므로 필요한 값은 복사해야 한다.
+interface WaveformSink {
+    void begin(String[] names);
+
+    // time[0..count), columns[probe][0..count)
+    void accept(double[] time, double[][] columns, int count);
+
+    default void end() {}
+}
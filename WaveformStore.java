@@ -0,0 +1,318 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// 메모리 맵 이진 파형 저장소 (.wave).
+// 헤더 뒤에 고정 크기 블록이 이어지고, 각 블록은 [시간 열 | 프로브0 열 | 프로브1 열 ...] 순서의
+// float64 열로 구성된다. 블록 크기가 고정이므로 임의 표본의 위치를 바로 계산할 수 있고,
+// 시간 열은 단조 증가하므로 시간 범위 질의는 이분 탐색으로 처리한다.
+//
+// 저장소는 참조 수로 관리한다. 만든 쪽이 참조 하나를 갖고, 함께 쓰는 쪽(캐시 항목, 파형 패널, 피라미드 작업)은
+// retain()으로 하나씩 더 잡고 다 쓰면 close()로 놓는다. 마지막 참조가 놓이면 맵핑을 바로 해제하고,
+// 해석이 만든 임시 파일(openTemporary)이면 파일도 지운다. 해제된 맵핑을 읽으면 JVM이 죽으므로 읽는 동안에는 참조를 잡고 있어야 한다.
+class WaveformStore implements Closeable {
+    static final int MAGIC = 0x57415645;    // "WAVE"
+    static final int VERSION = 1;
+    static final int BLOCK_SAMPLES = 16384;
+
+    final Path path;
+    final String[] names;
+    final long sampleCount;
+    private final int blockSamples;
+    private final long dataStart;
+    private final long blockBytes;
+    private final int blocksPerSegment;
+    private final boolean temporary;
+    private DoubleBuffer[] segments;
+    private MappedByteBuffer[] maps;     // 해제용 원본 (invokeCleaner는 뷰를 받지 않는다)
+    private int refs = 1;
+
+    // 맵핑은 채널과 독립적이므로 맵핑 후 바로 채널을 닫는다 (파일 디스크립터를 잡아두지 않음)
+    private WaveformStore(Path path, boolean temporary) throws IOException {
+        this.path = path;
+        this.temporary = temporary;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(head, 0);
+            head.flip();
+            if (head.getInt() != MAGIC || head.getInt() != VERSION) {
+                throw new IOException(path + ": 파형 파일이 아닙니다");
+            }
+            int probes = head.getInt();
+            this.blockSamples = head.getInt();
+            this.sampleCount = head.getLong();
+            MappedByteBuffer nameBuf = channel.map(FileChannel.MapMode.READ_ONLY, 24, Math.min(channel.size() - 24, 1 << 20));
+            nameBuf.order(ByteOrder.LITTLE_ENDIAN);
+            this.names = new String[probes];
+            for (int p = 0; p < probes; p++) {
+                byte[] b = new byte[nameBuf.getShort()];
+                nameBuf.get(b);
+                names[p] = new String(b, StandardCharsets.UTF_8);
+            }
+            this.dataStart = align(24 + nameBuf.position());
+            unmap(nameBuf);
+            this.blockBytes = (long) blockSamples * (probes + 1) * Double.BYTES;
+            this.blocksPerSegment = (int) Math.max(1, (Integer.MAX_VALUE / 2) / blockBytes);
+            long blocks = (sampleCount + blockSamples - 1) / blockSamples;
+            int segCount = (int) ((blocks + blocksPerSegment - 1) / blocksPerSegment);
+            this.segments = new DoubleBuffer[segCount];
+            this.maps = new MappedByteBuffer[segCount];
+            for (int s = 0; s < segCount; s++) {
+                long first = (long) s * blocksPerSegment;
+                long count = Math.min(blocksPerSegment, blocks - first);
+                maps[s] = channel.map(FileChannel.MapMode.READ_ONLY, dataStart + first * blockBytes, count * blockBytes);
+                segments[s] = maps[s].order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            }
+        }
+    }
+
+    // 남겨 둘 파일 (디스크 캐시). 닫아도 파일은 그대로다
+    public static WaveformStore open(Path path) throws IOException {
+        return new WaveformStore(path, false);
+    }
+
+    // 해석이 만든 임시 파일. 마지막 참조가 닫히면 파일을 지운다 (열지 못해도 지운다)
+    public static WaveformStore openTemporary(Path path) throws IOException {
+        try {
+            return new WaveformStore(path, true);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(path);
+            throw ex;
+        }
+    }
+
+    private static long align(long pos) {
+        return (pos + 7) & ~7L;
+    }
+
+    public int probeCount() { return names.length; }
+
+    public double time(long i) { return get(0, i); }
+
+    public double value(int probe, long i) { return get(probe + 1, i); }
+
+    private double get(int column, long i) {
+        long block = i / blockSamples;
+        int s = (int) (block / blocksPerSegment);
+        long local = (block - (long) s * blocksPerSegment) * blockBytes / Double.BYTES;
+        return segments[s].get((int) (local + (long) column * blockSamples + (i % blockSamples)));
+    }
+
+    // 복사 없이 한 블록의 열을 읽기 전용 뷰로 반환 (column: -1 = 시간, 0.. = 프로브)
+    public DoubleBuffer blockView(int column, long block) {
+        int s = (int) (block / blocksPerSegment);
+        long local = (block - (long) s * blocksPerSegment) * blockBytes / Double.BYTES;
+        int from = (int) (local + (long) (column + 1) * blockSamples);
+        int len = (int) Math.min(blockSamples, sampleCount - block * blockSamples);
+        DoubleBuffer view = segments[s].duplicate();
+        view.position(from).limit(from + len);
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    public int blockSamples() { return blockSamples; }
+
+    // t 이상인 첫 표본 번호 (없으면 sampleCount)
+    public long indexAtOrAfter(double t) {
+        long lo = 0, hi = sampleCount;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (time(mid) < t) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    // [t0, t1] 범위에 드는 표본 구간 {시작, 끝(제외)}
+    public long[] range(double t0, double t1) {
+        long from = indexAtOrAfter(t0);
+        long to = indexAtOrAfter(Math.nextUp(t1));
+        return new long[] { from, Math.max(from, to) };
+    }
+
+    // 구간 값을 기본형 배열로 복사 (column: -1 = 시간)
+    public void copy(int column, long from, double[] dst, int offset, int length) {
+        for (int k = 0; k < length; ) {
+            long i = from + k;
+            long block = i / blockSamples;
+            int inBlock = (int) (i % blockSamples);
+            int n = Math.min(length - k, blockSamples - inBlock);
+            DoubleBuffer view = blockView(column, block);
+            view.position(inBlock);
+            view.get(dst, offset + k, n);
+            k += n;
+        }
+    }
+
+    // 참조를 하나 더 잡는다. 이미 닫힌 저장소는 다시 살릴 수 없다
+    public synchronized WaveformStore retain() {
+        if (refs == 0) throw new IllegalStateException(path + ": 닫힌 파형 저장소");
+        refs++;
+        return this;
+    }
+
+    // 참조를 하나 놓는다. 마지막이면 맵핑을 해제하고 임시 파일을 지운다 (이미 닫혔으면 아무것도 안 한다)
+    @Override
+    public void close() {
+        MappedByteBuffer[] released;
+        synchronized (this) {
+            if (refs == 0 || --refs > 0) return;
+            released = maps;
+            segments = new DoubleBuffer[0];
+            maps = new MappedByteBuffer[0];
+        }
+        for (MappedByteBuffer m : released) unmap(m);
+        if (temporary) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+                // 임시 디렉토리 정리에 맡긴다
+            }
+        }
+    }
+
+    public synchronized boolean isOpen() { return refs > 0; }
+
+    // 맵핑을 GC를 기다리지 않고 바로 해제한다. Java 9+는 Unsafe.invokeCleaner, Java 8은 DirectBuffer.cleaner()를
+    // 리플렉션으로 부르고, 둘 다 없으면 참조만 놓아 GC에 맡긴다 (파일 삭제는 리눅스/맥에서는 맵핑과 무관하게 된다)
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invoke = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            invoke = type.getMethod("invokeCleaner", ByteBuffer.class);
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            invoke = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invoke;
+    }
+
+    static void unmap(MappedByteBuffer buffer) {
+        if (buffer == null) return;
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } else {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            // GC가 해제한다
+        }
+    }
+
+    // 과도/AC 해석 결과를 파일로 스트리밍하는 기록기. 블록 단위로 맵핑해 쓰므로 힙 사용량이 일정하다.
+    static class Writer implements WaveformSink, Closeable {
+        private final Path path;
+        private final int blockSamples;
+        private FileChannel channel;
+        private long dataStart;
+        private long blockBytes;
+        private int probes;
+        private MappedByteBuffer block;
+        private long blockIndex = -1;
+        private long samples;
+
+        Writer(Path path) {
+            this(path, BLOCK_SAMPLES);
+        }
+
+        Writer(Path path, int blockSamples) {
+            this.path = path;
+            this.blockSamples = blockSamples;
+        }
+
+        @Override
+        public void begin(String[] names) {
+            try {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+                probes = names.length;
+                int nameBytes = 0;
+                byte[][] encoded = new byte[probes][];
+                for (int p = 0; p < probes; p++) {
+                    encoded[p] = names[p].getBytes(StandardCharsets.UTF_8);
+                    nameBytes += 2 + encoded[p].length;
+                }
+                ByteBuffer head = ByteBuffer.allocate(24 + nameBytes).order(ByteOrder.LITTLE_ENDIAN);
+                head.putInt(MAGIC).putInt(VERSION).putInt(probes).putInt(blockSamples).putLong(0);
+                for (byte[] b : encoded) head.putShort((short) b.length).put(b);
+                head.flip();
+                channel.write(head, 0);
+                dataStart = align(24 + nameBytes);
+                blockBytes = (long) blockSamples * (probes + 1) * Double.BYTES;
+                samples = 0;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public void accept(double[] time, double[][] columns, int count) {
+            try {
+                for (int k = 0; k < count; ) {
+                    long b = samples / blockSamples;
+                    if (b != blockIndex) {
+                        unmap(block);
+                        block = channel.map(FileChannel.MapMode.READ_WRITE, dataStart + b * blockBytes, blockBytes);
+                        block.order(ByteOrder.LITTLE_ENDIAN);
+                        blockIndex = b;
+                    }
+                    int inBlock = (int) (samples % blockSamples);
+                    int n = Math.min(count - k, blockSamples - inBlock);
+                    DoubleBuffer view = block.asDoubleBuffer();
+                    // position()이 Buffer를 돌려주는 Java 8에서도 돌도록 연쇄 호출하지 않는다
+                    view.position(inBlock);
+                    view.put(time, k, n);
+                    for (int p = 0; p < probes; p++) {
+                        view.position((p + 1) * blockSamples + inBlock);
+                        view.put(columns[p], k, n);
+                    }
+                    samples += n;
+                    k += n;
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public void end() {
+            try {
+                ByteBuffer count = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                count.putLong(samples).flip();
+                channel.write(count, 16);
+                close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        public long samples() { return samples; }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null && channel.isOpen()) channel.close();
+            unmap(block);
+            block = null;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+// AC 소신호 스윕: 1차 RC 저역 통과의 -3 dB 점은 1/(2πRC)
+class AcAnalysisTest {
+    // V: 1-0, R: 1-2, C: 2-0
+    private static Netlist rc(double v, double r, double c) {
+        Netlist nl = new Netlist(3, 3);
+        nl.add(ComponentType.VOLTAGE_SOURCE, v, 1, 0, -1, 1);
+        nl.add(ComponentType.RESISTOR, r, 1, 2, -1, 2);
+        nl.add(ComponentType.CAPACITOR, c, 2, 0, -1, 3);
+        return nl;
+    }
+
+    @Test
+    void rcLowPassCornerFrequency() {
+        double r = 1e3, c = 1e-9, fc = 1 / (2 * Math.PI * r * c);
+        AcAnalysis ac = new AcAnalysis(rc(1, r, c));
+        ac.addVoltageProbe("V(C)", 2);
+        WaveformBuffer buf = new WaveformBuffer();
+        // 로그 5점이면 가운데 점이 fc
+        ac.run(fc / 100, fc * 100, 5, buf);
+        double[] f = buf.time(), db = buf.column(0), deg = buf.column(1);
+        assertEquals(fc, f[2], 1e-9 * fc);
+        assertEquals(-10 * Math.log10(2), db[2], 1e-6);
+        assertEquals(-45, deg[2], 1e-6);
+        assertEquals(0, db[0], 1e-3);
+    }
+
+    // 전체 해석은 AC 파형을 파일로 남기고, 파형을 끄면(배치) 만들지 않는다
+    @Test
+    void analyzerSweepFollowsWaveformFlag() {
+        Netlist nl = rc(5, 1e3, 1e-6);
+        try (CircuitAnalysisResult full = CircuitAnalyzer.analyze(nl)) {
+            assertNotNull(full.waveform);
+            assertNotNull(full.acResponse);
+            double fc = 1 / (2 * Math.PI * 1e-3);
+            assertEquals(fc, AcAnalysis.cornerFrequency(full.acResponse, 0), 0.01 * fc);
+        }
+        try (CircuitAnalysisResult dc = CircuitAnalyzer.analyze(nl, CircuitAnalyzer.Monitor.NONE, false)) {
+            assertEquals("RC", dc.circuitType);
+            assertEquals(1e-3, dc.tau, 1e-12);
+            assertNull(dc.waveform);
+            assertNull(dc.acResponse);
+        }
+    }
+}
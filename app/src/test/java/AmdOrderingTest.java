@@ -0,0 +1,42 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+// AMD 순서는 순열이어야 하고, 격자 회로에서 자연 순서보다 fill-in이 훨씬 적어야 한다
+class AmdOrderingTest {
+    // N x N 저항 격자 + 모서리 전압원
+    private static SparseMatrix gridMatrix(int side) {
+        int n = side * side;
+        Netlist nl = new Netlist(n + 1, 2 * n + 1);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 1, 1, 0, -1, 0);
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                int k = 1 + i * side + j;
+                if (j + 1 < side) nl.add(ComponentType.RESISTOR, 100, k, k + 1, -1, 0);
+                if (i + 1 < side) nl.add(ComponentType.RESISTOR, 100, k, k + side, -1, 0);
+            }
+        }
+        nl.add(ComponentType.RESISTOR, 1e3, n, 0, -1, 0);
+        MnaSystem sys = new MnaSystem(nl);
+        sys.stampMatrix(0.0);
+        return sys.matrix;
+    }
+
+    @Test
+    void orderIsPermutationWithLessFill() {
+        SparseMatrix a = gridMatrix(60);
+        int[] perm = AmdOrdering.order(a.n, a.colPtr, a.rowIdx);
+        int[] sorted = perm.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < a.n; i++) assertEquals(i, sorted[i]);
+
+        int[] natural = new int[a.n];
+        for (int i = 0; i < a.n; i++) natural[i] = i;
+        SparseLU amd = SparseLU.factor(a, perm), plain = SparseLU.factor(a, natural);
+        long amdFill = amd.nnzL() + amd.nnzU(), plainFill = plain.nnzL() + plain.nnzU();
+        assertTrue(amdFill * 2 < plainFill, "AMD " + amdFill + ", 자연 순서 " + plainFill);
+    }
+}
@@ -0,0 +1,95 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.Point2D;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.jupiter.api.Test;
+
+// 해석 서비스에 맡긴 작업(Task): 넷리스트 구성과 실행은 해석 스레드, 결과 알림은 EDT, 새 요청이 오면 취소
+class AnalysisServiceTest {
+    private static final AnalysisService.Listener QUIET = new AnalysisService.Listener() {
+        @Override
+        public void progress(AnalysisService.Run run, String phase) {}
+
+        @Override
+        public void finished(AnalysisService.Run run) {}
+    };
+
+    // 전압원과 저항 하나
+    private static CircuitModel circuit() {
+        CircuitElement v = new CircuitElement(ComponentType.VOLTAGE_SOURCE, new Point2D.Double(0, 0));
+        v.id = 1;
+        v.end = new Point2D.Double(0, 60);
+        CircuitElement r = new CircuitElement(ComponentType.RESISTOR, new Point2D.Double(0, 0));
+        r.id = 2;
+        r.end = new Point2D.Double(0, 60);
+        r.gunny = 1e3;
+        return CircuitModel.EMPTY.with(v).with(r);
+    }
+
+    // 끝나면 done이 불린 스레드와 결과를 남기는 작업
+    private static final class Probe implements AnalysisService.Task {
+        final CountDownLatch started = new CountDownLatch(1), finished = new CountDownLatch(1);
+        final boolean waitForCancel;
+        volatile String runThread;
+        volatile boolean doneOnEdt, cancelled;
+        volatile Object output;
+
+        Probe(boolean waitForCancel) { this.waitForCancel = waitForCancel; }
+
+        @Override
+        public Object run(Netlist netlist, CircuitAnalyzer.Monitor monitor) {
+            runThread = Thread.currentThread().getName();
+            started.countDown();
+            while (waitForCancel) {
+                if (monitor.isCancelled()) throw new CancellationException();
+                Thread.yield();
+            }
+            return netlist.elementCount;
+        }
+
+        @Override
+        public void done(AnalysisService.Run run) {
+            doneOnEdt = SwingUtilities.isEventDispatchThread();
+            cancelled = run.cancelled;
+            output = run.output;
+            finished.countDown();
+        }
+    }
+
+    @Test
+    void taskRunsOnAnalysisThreadAndReportsOnEdt() throws InterruptedException {
+        AnalysisService service = new AnalysisService(QUIET);
+        Probe probe = new Probe(false);
+        service.submit(circuit(), probe);
+        assertTrue(probe.finished.await(10, TimeUnit.SECONDS));
+        assertEquals("circuit-analysis", probe.runThread);
+        assertTrue(probe.doneOnEdt);
+        assertFalse(probe.cancelled);
+        assertEquals(2, probe.output);
+        service.shutdown();
+    }
+
+    @Test
+    void newerRequestCancelsRunningTask() throws InterruptedException {
+        AnalysisService service = new AnalysisService(QUIET);
+        Probe slow = new Probe(true), next = new Probe(false);
+        service.submit(circuit(), slow);
+        assertTrue(slow.started.await(10, TimeUnit.SECONDS));
+        service.submit(circuit(), next);
+        assertTrue(slow.finished.await(10, TimeUnit.SECONDS));
+        assertTrue(next.finished.await(10, TimeUnit.SECONDS));
+        assertTrue(slow.cancelled);
+        assertFalse(next.cancelled);
+        assertEquals(2, next.output);
+        assertNotEquals(slow.output, next.output);
+        service.shutdown();
+    }
+}
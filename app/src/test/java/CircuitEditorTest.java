@@ -0,0 +1,41 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.geom.Point2D;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+// 병렬 그룹은 양단 넷 쌍으로 묶는다. 표시 위치(중점)가 겹쳐도 넷 쌍이 다르면 다른 그룹이다
+class CircuitEditorTest {
+    private static void add(CircuitEditor editor, ComponentType type, double value, double x0, double y0, double x1, double y1) {
+        CircuitElement e = new CircuitElement(type, new Point2D.Double(x0, y0));
+        e.end = new Point2D.Double(x1, y1);
+        e.gunny = value;
+        editor.addElement(e);
+    }
+
+    @Test
+    void parallelGroupsAreKeyedByNetPair() {
+        CircuitEditor editor = new CircuitEditor();
+        // (0, 0)-(60, 0) 사이 저항 두 개, 전선으로 이은 (0, 40)-(60, 40) 사이 커패시터 하나
+        add(editor, ComponentType.RESISTOR, 1e3, 0, 0, 60, 0);
+        add(editor, ComponentType.RESISTOR, 1e3, 60, 0, 0, 0);
+        add(editor, ComponentType.WIRE, 0, 0, 0, 0, 40);
+        add(editor, ComponentType.WIRE, 0, 60, 0, 60, 40);
+        add(editor, ComponentType.CAPACITOR, 1e-6, 0, 40, 60, 40);
+        // 중점이 첫 그룹과 같은 (30, 0)이지만 양단이 다른 넷인 저항
+        add(editor, ComponentType.RESISTOR, 2e3, 30, -40, 30, 40);
+
+        List<ParallelGroup> groups = editor.computeParallelGroups();
+        assertEquals(2, groups.size());
+        ParallelGroup first = groups.get(0), second = groups.get(1);
+        assertEquals(2, first.resistors);
+        assertEquals(1, first.capacitors);
+        assertEquals(500, first.equivalentResistance(), 1e-9);
+        assertEquals(1e-6, first.equivalentCapacitance(), 0);
+        assertEquals(1, second.resistors);
+        assertEquals(2e3, second.equivalentResistance(), 1e-9);
+        assertEquals(first.at, second.at);
+        assertEquals(new Point2D.Double(30, 0), first.at);
+    }
+}
@@ -0,0 +1,73 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// 회로 파일(.circuit) 쓰기 후 읽기: 종류, 좌표, 값(OP-AMP 이득 포함), 부회로 인스턴스가 그대로 돌아와야 한다
+class CircuitFileTest {
+    @TempDir
+    Path dir;
+
+    private static CircuitElement element(ComponentType type, double x, double y, double value) {
+        CircuitElement e = new CircuitElement(type, new Point2D.Double(x, y));
+        e.gunny = value;
+        return e;
+    }
+
+    @Test
+    void roundTripKeepsValuesAndOpAmpGain() throws IOException {
+        CircuitModel leaf = CircuitFile.toModel(Arrays.asList(
+            element(ComponentType.RESISTOR, 0, 0, 2e3),
+            wire(-20, 0, 0, 0),
+            wire(60, 10, 80, 10)));
+        Subcircuit def = Subcircuit.define("file-leaf", leaf);
+
+        List<CircuitElement> elements = new ArrayList<>();
+        elements.add(element(ComponentType.VOLTAGE_SOURCE, 0, 0, 5));
+        elements.add(element(ComponentType.RESISTOR, 100, 0, 4.7e3));
+        elements.add(element(ComponentType.OP_AMP, 200, 0, 2.5e4));
+        elements.add(element(ComponentType.OP_AMP, 300, 0, Double.POSITIVE_INFINITY));
+        elements.add(wire(0, 100, 60, 100));
+        elements.add(element(ComponentType.SUBCIRCUIT, 400, 0, def.id));
+        Path file = dir.resolve("round" + CircuitFile.EXTENSION);
+        CircuitFile.write(elements, file);
+
+        List<CircuitElement> back = CircuitFile.read(file);
+        assertEquals(elements.size(), back.size(), String.join("\n", Files.readAllLines(file)));
+        for (int i = 0; i < elements.size(); i++) {
+            CircuitElement want = elements.get(i), got = back.get(i);
+            assertEquals(want.type, got.type);
+            assertEquals(want.start, got.start);
+            assertEquals(want.end, got.end);
+            if (want.type == ComponentType.SUBCIRCUIT) {
+                // 같은 내용의 정의를 새로 읽은 것 (편집기 정의와는 id가 다르다)
+                assertEquals(def.model.size(), Subcircuit.get((int) got.gunny).model.size());
+            } else {
+                assertEquals(want.gunny, got.gunny, 0);
+            }
+        }
+    }
+
+    // 이득이 없는 예전 OP-AMP 줄은 기본 이득으로 읽는다
+    @Test
+    void opAmpWithoutGainUsesDefault() throws IOException {
+        Path file = dir.resolve("old" + CircuitFile.EXTENSION);
+        Files.write(file, Arrays.asList("OP_AMP 20 40"));
+        List<CircuitElement> back = CircuitFile.read(file);
+        assertEquals(MnaSystem.OPAMP_GAIN, back.get(0).gunny, 0);
+    }
+
+    private static CircuitElement wire(double x0, double y0, double x1, double y1) {
+        CircuitElement e = new CircuitElement(ComponentType.WIRE, new Point2D.Double(x0, y0));
+        e.end = new Point2D.Double(x1, y1);
+        return e;
+    }
+}
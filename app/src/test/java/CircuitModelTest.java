@@ -0,0 +1,78 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+// 영속 회로 모델의 버전 차이와 실행 취소/다시 실행
+class CircuitModelTest {
+    private static CircuitElement element(int id, ComponentType type, double x, double y) {
+        CircuitElement e = new CircuitElement(type, new Point2D.Double(x, y));
+        e.id = id;
+        return e;
+    }
+
+    private static List<String> diff(CircuitModel from, CircuitModel to) {
+        List<String> out = new ArrayList<>();
+        CircuitModel.diff(from, to, new CircuitModel.Diff() {
+            @Override
+            public void added(CircuitElement e) { out.add("+" + e.id); }
+
+            @Override
+            public void removed(CircuitElement e) { out.add("-" + e.id); }
+
+            @Override
+            public void changed(CircuitElement before, CircuitElement after) {
+                out.add("~" + after.id + ":" + before.gunny + "->" + after.gunny);
+            }
+        });
+        return out;
+    }
+
+    @Test
+    void diffReportsAddedRemovedAndChanged() {
+        CircuitModel base = CircuitModel.EMPTY;
+        for (int id = 1; id <= 100; id++) base = base.with(element(id, ComponentType.RESISTOR, 20 * id, 0));
+        CircuitElement edited = base.get(50);
+        edited.gunny = 2200;
+        CircuitModel next = base.without(7).with(edited).with(element(300, ComponentType.CAPACITOR, 0, 100));
+
+        List<String> d = diff(base, next);
+        assertEquals(3, d.size());
+        assertEquals(true, d.contains("-7"));
+        assertEquals(true, d.contains("+300"));
+        assertEquals(true, d.contains("~50:1000.0->2200.0"));
+        assertEquals(0, diff(next, next).size());
+        assertEquals(100, base.size());
+        assertEquals(100, next.size());
+        assertEquals(1000.0, base.get(50).gunny, 0);
+    }
+
+    @Test
+    void undoRedoRestoresVersions() {
+        CircuitHistory history = new CircuitHistory();
+        CircuitModel v0 = CircuitModel.EMPTY;
+        CircuitModel v1 = v0.with(element(1, ComponentType.RESISTOR, 0, 0));
+        history.record(v0);
+        CircuitModel v2 = v1.with(element(2, ComponentType.VOLTAGE_SOURCE, 100, 0));
+        history.record(v1);
+
+        assertSame(v1, history.undo(v2));
+        assertSame(v0, history.undo(v1));
+        assertNull(history.undo(v0));
+        assertSame(v1, history.redo(v0));
+        assertSame(v2, history.redo(v1));
+        assertFalse(history.canRedo());
+
+        // 되돌린 뒤 새로 편집하면 다시 실행 목록은 버린다
+        history.undo(v2);
+        history.record(v1);
+        assertFalse(history.canRedo());
+        assertEquals(2, history.undoDepth());
+    }
+}
@@ -0,0 +1,45 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+// 희소 MNA DC 동작점을 손으로 푼 값과 비교한다
+class MnaSystemTest {
+    @Test
+    void dividerOperatingPoint() {
+        // V: 1-0 (10V), R1: 1-2 (1k), R2: 2-0 (3k)
+        Netlist nl = new Netlist(3, 3);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 10, 1, 0, -1, 1);
+        nl.add(ComponentType.RESISTOR, 1e3, 1, 2, -1, 2);
+        nl.add(ComponentType.RESISTOR, 3e3, 2, 0, -1, 3);
+        CircuitAnalysisResult.OperatingPoint op = MnaSystem.solveDc(nl);
+        // 노드마다 GMIN(1e-12 S)이 접지로 붙어 있어 정확히 7.5는 아니다
+        assertEquals(10.0, op.nodeVoltages[1], 1e-6);
+        assertEquals(7.5, op.nodeVoltages[2], 1e-6);
+        // 전원 전류는 A -> B 방향 (+에서 소자를 지나 -로): 전원이 공급하면 음수
+        assertEquals(-10.0 / 4e3, op.elementCurrents[0], 1e-9);
+        assertEquals(10.0 / 4e3, op.elementCurrents[1], 1e-9);
+    }
+
+    // 긴 저항 사다리 (직렬 R, 접지로 R): 끝에서부터 등가 저항을 접어 올라간 값과 노드마다 맞는지
+    @Test
+    void ladderMatchesRecursiveSolution() {
+        int n = 2000;
+        double rs = 10, rp = 1e3;
+        Netlist nl = new Netlist(n + 2, 2 * n + 1);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 1, 1, 0, -1, 0);
+        for (int k = 1; k <= n; k++) {
+            nl.add(ComponentType.RESISTOR, rs, k, k + 1, -1, 0);
+            nl.add(ComponentType.RESISTOR, rp, k + 1, 0, -1, 0);
+        }
+        // z[k]: 노드 k에서 오른쪽을 본 저항
+        double[] z = new double[n + 2];
+        z[n + 1] = rp;
+        for (int k = n; k >= 2; k--) z[k] = rp * (rs + z[k + 1]) / (rp + rs + z[k + 1]);
+        double[] v = MnaSystem.solveDc(nl).nodeVoltages;
+        double expected = 1;
+        for (int k = 1; k <= n; k++) {
+            assertEquals(expected, v[k], 1e-9, "node " + k);
+            expected *= z[k + 1] / (rs + z[k + 1]);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+// 스윕 표본은 같은 값으로 MnaSystem.solveDc를 푼 것과 같아야 한다 (선형 회로와 포화 OP-AMP 회로)
+class ParameterSweepTest {
+    // 비반전 증폭기 1 + Rf/R1. V: 1-0, OP-AMP (+ = 1, - = 2, 출력 3), R1: 2-0, Rf: 3-2, RL: 3-0
+    private static Netlist amplifier(double vin, double r1) {
+        Netlist nl = new Netlist(4, 5);
+        nl.add(ComponentType.VOLTAGE_SOURCE, vin, 1, 0, -1, 0);
+        nl.add(ComponentType.OP_AMP, 0, 1, 2, 3, 1);
+        nl.add(ComponentType.RESISTOR, r1, 2, 0, -1, 2);
+        nl.add(ComponentType.RESISTOR, 1e4, 3, 2, -1, 3);
+        nl.add(ComponentType.RESISTOR, 2e3, 3, 0, -1, 4);
+        return nl;
+    }
+
+    private static double sweepOne(Netlist nl, int element, double value, ParameterSweep.Measure measure) {
+        ParameterSweep sweep = new ParameterSweep(nl).vary(ParameterSweep.Variation.linear(element, value, value));
+        return sweep.run(1, measure, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, ForkJoinPool.commonPool()).mean;
+    }
+
+    @Test
+    void saturatedOpAmpMatchesSolveDc() {
+        Netlist nl = amplifier(2, 1e4);
+        // 이득 11이면 22V가 되어야 하지만 레일(±15V)에서 포화한다
+        for (double r1 : new double[] { 1e4, 5e3, 1e3 }) {
+            double expected = MnaSystem.solveDc(amplifier(2, r1)).nodeVoltages[3];
+            double swept = sweepOne(nl, 2, r1, ParameterSweep.Measure.nodeVoltage(3));
+            assertEquals(expected, swept, 1e-6, "R1 = " + r1);
+        }
+        assertEquals(MnaSystem.OPAMP_RAIL, sweepOne(nl, 2, 1e3, ParameterSweep.Measure.nodeVoltage(3)), 1e-3);
+    }
+
+    @Test
+    void linearSamplesMatchSolveDc() {
+        // V: 1-0, R1: 1-2, R2: 2-0
+        Netlist nl = new Netlist(3, 3);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 10, 1, 0, -1, 0);
+        nl.add(ComponentType.RESISTOR, 1e3, 1, 2, -1, 1);
+        nl.add(ComponentType.RESISTOR, 1e3, 2, 0, -1, 2);
+        assertEquals(10.0 * 3e3 / 4e3, sweepOne(nl, 2, 3e3, ParameterSweep.Measure.nodeVoltage(2)), 1e-6);
+
+        // 몬테카를로 1000표본: 대칭 분압기의 평균은 5V 근처
+        ParameterSweep mc = new ParameterSweep(nl)
+            .vary(ParameterSweep.Variation.tolerance(1, 0.05))
+            .vary(ParameterSweep.Variation.tolerance(2, 0.05));
+        SweepStatistics s = mc.run(1000, ParameterSweep.Measure.nodeVoltage(2), 4.9, 5.1);
+        assertEquals(1000, s.count);
+        assertEquals(5.0, s.mean, 0.01);
+    }
+}
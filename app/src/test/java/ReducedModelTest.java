@@ -0,0 +1,51 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+// PRIMA 축약 모델을 원래 망과 비교한다 (작은 RC 격자라 원래 망도 직접 풀 수 있다)
+class ReducedModelTest {
+    private static Netlist mesh(int side) {
+        int n = side * side;
+        Netlist nl = new Netlist(n + 2, 3 * n + 3);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 1, n + 1, 0, -1, 0);
+        nl.add(ComponentType.RESISTOR, 50, n + 1, 1, -1, 0);
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                int k = 1 + i * side + j;
+                if (j + 1 < side) nl.add(ComponentType.RESISTOR, 10 + (i + j) % 3, k, k + 1, -1, 0);
+                if (i + 1 < side) nl.add(ComponentType.RESISTOR, 12 + (i * 7 + j) % 5, k, k + side, -1, 0);
+                nl.add(ComponentType.CAPACITOR, 1e-15 * (1 + (i * j) % 4), k, 0, -1, 0);
+            }
+        }
+        nl.add(ComponentType.RESISTOR, 1e3, n, 0, -1, 0);
+        return nl;
+    }
+
+    @Test
+    void matchesFullNetworkAtDcAndAc() {
+        int side = 30;
+        Netlist nl = mesh(side);
+        ReducedModel rom = ReducedModel.reduce(nl, 20, 0.0);
+        rom.addNodeProbe("V(끝)", side * side);
+        assertEquals(20, rom.stats.order);
+        assertTrue(rom.stats.dcError < 1e-9, "DC 오차 " + rom.stats.dcError);
+        double err = rom.acError(1e3, 1e11, 5);
+        assertTrue(err < 1e-6, "AC 오차 " + err);
+    }
+
+    // 축약 모델의 계단 응답 최종값은 원래 망의 DC 값으로 간다
+    @Test
+    void transientSettlesToDcValue() {
+        int side = 12;
+        Netlist nl = mesh(side);
+        ReducedModel rom = ReducedModel.reduce(nl, 12, 0.0);
+        rom.addNodeProbe("V(끝)", side * side);
+        WaveformBuffer buf = new WaveformBuffer();
+        rom.transientResponse(1e-9, buf);
+        double[] v = buf.column(0);
+        MnaSystem sys = new MnaSystem(nl);
+        double dc = sys.nodeVoltage(new NewtonSolver(sys).solveVector(), side * side);
+        assertEquals(dc, v[v.length - 1], 1e-6 * Math.abs(dc));
+    }
+}
@@ -0,0 +1,72 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Collections;
+import java.util.function.DoubleUnaryOperator;
+
+import org.junit.jupiter.api.Test;
+
+// 수반 민감도를 유한 차분과 비교한다. 회로는 유한 이득 OP-AMP 반전 증폭기 (선형 구간에 머물도록 입력을 작게)
+class SensitivityTest {
+    private static final double VIN = 1e-3, GAIN = 200, R1 = 1e3, RF = 1e4, RL = 2e3;
+    private static final int AMP = 3;
+
+    // V1: 1-0, R1: 1-2, Rf: 2-3, OP-AMP (+ = 0, - = 2, 출력 3), RL: 3-0
+    private static Netlist inverting(double gain, double r1) {
+        Netlist nl = new Netlist(4, 5);
+        nl.add(ComponentType.VOLTAGE_SOURCE, VIN, 1, 0, -1, 0);
+        nl.add(ComponentType.RESISTOR, r1, 1, 2, -1, 1);
+        nl.add(ComponentType.RESISTOR, RF, 2, 3, -1, 2);
+        nl.add(ComponentType.OP_AMP, gain, 0, 2, 3, 3);
+        nl.add(ComponentType.RESISTOR, RL, 3, 0, -1, 4);
+        return nl;
+    }
+
+    private static double output(Netlist nl) {
+        MnaSystem sys = new MnaSystem(nl);
+        return sys.nodeVoltage(new NewtonSolver(sys).solveVector(), 3);
+    }
+
+    // 첫 전압원 분기의 단위 전압 응답 g (등가 저항 1/g)
+    private static double unitResponse(Netlist nl) {
+        MnaSystem sys = new MnaSystem(nl);
+        NewtonSolver newton = new NewtonSolver(sys);
+        SparseLU lu = newton.jacobian(newton.solveVector());
+        double[] unit = new double[sys.size], x = new double[sys.size];
+        unit[sys.branchOf[0]] = 1;
+        lu.solve(unit, x);
+        return x[sys.branchOf[0]];
+    }
+
+    private static double centralDifference(DoubleUnaryOperator f, double p) {
+        double h = 1e-4 * p;
+        return (f.applyAsDouble(p + h) - f.applyAsDouble(p - h)) / (2 * h);
+    }
+
+    @Test
+    void outputVoltageMatchesFiniteDifference() {
+        Netlist nl = inverting(GAIN, R1);
+        Sensitivity s = Sensitivity.analyze(nl, null, Collections.singletonList(Sensitivity.Output.nodeVoltage(3, "V(3)")));
+        double dGain = centralDifference(a -> output(inverting(a, R1)), GAIN);
+        double dR1 = centralDifference(r -> output(inverting(GAIN, r)), R1);
+        assertEquals(dGain, s.derivatives[0][AMP], 1e-5 * Math.abs(dGain));
+        assertEquals(dR1, s.derivatives[0][1], 1e-5 * Math.abs(dR1));
+    }
+
+    // dg/dA = -λᵀ(∂J/∂A)x, Jx = e_br, Jᵀλ = e_br. 등가 저항(τ) 민감도가 쓰는 OP-AMP 항
+    @Test
+    void opAmpJacobianTermMatchesFiniteDifference() {
+        Netlist nl = inverting(GAIN, R1);
+        MnaSystem sys = new MnaSystem(nl);
+        NewtonSolver newton = new NewtonSolver(sys);
+        double[] dc = newton.solveVector();
+        SparseLU lu = newton.jacobian(dc);
+        double[] unit = new double[sys.size], x = new double[sys.size], lambda = new double[sys.size];
+        unit[sys.branchOf[0]] = 1;
+        lu.solve(unit, x);
+        lu.solveTransposed(unit, lambda);
+
+        double adjoint = -Sensitivity.jacobianDerivative(sys, AMP, dc, x, lambda);
+        double fd = centralDifference(a -> unitResponse(inverting(a, R1)), GAIN);
+        assertEquals(fd, adjoint, 1e-5 * Math.abs(fd));
+    }
+}
@@ -0,0 +1,39 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+// SPICE 쓰기 -> 읽기 왕복
+class SpiceFileTest {
+    @Test
+    void roundTripKeepsElementsAndNodes() throws Exception {
+        // 노드는 처음 나오는 순서로 번호를 매겨 두어 다시 읽어도 같은 번호가 된다
+        Netlist nl = new Netlist(5, 7);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 12, 1, 0, -1, 1);
+        nl.add(ComponentType.RESISTOR, 4.7e3, 1, 2, -1, 2);
+        nl.add(ComponentType.CAPACITOR, 2.2e-9, 2, 0, -1, 3);
+        nl.add(ComponentType.INDUCTOR, 1e-3, 2, 3, -1, 4);
+        nl.add(ComponentType.OP_AMP, 2e5, 3, 4, 4, 5);
+        nl.add(ComponentType.CURRENT_SOURCE, 1.5e-3, 0, 3, -1, 6);
+        nl.add(ComponentType.RESISTOR, 1e3, 4, 0, -1, 7);
+        Path file = Files.createTempFile("spice-test", ".cir");
+        try {
+            SpiceFile.write(nl, file);
+            Netlist back = SpiceFile.read(file);
+            assertEquals(nl.nodeCount, back.nodeCount);
+            assertEquals(nl.elementCount, back.elementCount);
+            for (int e = 0; e < nl.elementCount; e++) {
+                assertEquals(nl.type[e], back.type[e]);
+                assertEquals(nl.value[e], back.value[e], 1e-12 * Math.abs(nl.value[e]));
+            }
+            assertArrayEquals(java.util.Arrays.copyOf(nl.nodeA, nl.elementCount), java.util.Arrays.copyOf(back.nodeA, back.elementCount));
+            assertArrayEquals(java.util.Arrays.copyOf(nl.nodeB, nl.elementCount), java.util.Arrays.copyOf(back.nodeB, back.elementCount));
+            assertArrayEquals(java.util.Arrays.copyOf(nl.nodeC, nl.elementCount), java.util.Arrays.copyOf(back.nodeC, back.elementCount));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+// 부회로 단자 축약 모델과 정의 바꾸기. 정의 목록은 프로세스 전체에서 공유하므로 테스트마다 이름을 따로 쓴다
+class SubcircuitTest {
+    private static CircuitModel add(CircuitModel model, ComponentType type, double value, double x0, double y0, double x1, double y1) {
+        CircuitElement e = new CircuitElement();
+        e.id = model.size() + 1;
+        e.type = type;
+        e.gunny = value;
+        e.start = new Point2D.Double(x0, y0);
+        e.end = new Point2D.Double(x1, y1);
+        return model.with(e);
+    }
+
+    // 저항 하나와 양쪽으로 뺀 전선 (단자 2개)
+    private static CircuitModel resistor(double r) {
+        CircuitModel m = add(CircuitModel.EMPTY, ComponentType.RESISTOR, r, 0, 0, 60, 0);
+        m = add(m, ComponentType.WIRE, 0, -20, 0, 0, 0);
+        return add(m, ComponentType.WIRE, 0, 60, 0, 80, 0);
+    }
+
+    // 안쪽 정의의 인스턴스(단자 (0, 20), (80, 20))와 직렬 저항 1k
+    private static CircuitModel seriesWith(Subcircuit inner) {
+        CircuitModel m = add(CircuitModel.EMPTY, ComponentType.SUBCIRCUIT, inner.id, 0, 0, 80, 40);
+        m = add(m, ComponentType.RESISTOR, 1e3, 80, 20, 140, 20);
+        m = add(m, ComponentType.WIRE, 0, -20, 20, 0, 20);
+        return add(m, ComponentType.WIRE, 0, 140, 20, 160, 20);
+    }
+
+    // V: 1-0 (10V), 인스턴스: 1-2, R: 2-0 (1k). 노드 2 전압
+    private static double loaded(Subcircuit def) {
+        Netlist nl = new Netlist(3, 3);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 10, 1, 0, -1, 1);
+        nl.add(ComponentType.SUBCIRCUIT, def.id, 1, 2, -1, 2);
+        nl.add(ComponentType.RESISTOR, 1e3, 2, 0, -1, 3);
+        return MnaSystem.solveDc(nl).nodeVoltages[2];
+    }
+
+    @Test
+    void reducedModelMatchesFlattened() {
+        Subcircuit leaf = Subcircuit.define("test-leaf", resistor(2e3));
+        Subcircuit mid = Subcircuit.define("test-mid", seriesWith(leaf));
+        assertEquals(2, mid.ports());
+        assertEquals(3e3, mid.sum(ComponentType.RESISTOR), 0);
+        // 안쪽 노드의 GMIN 때문에 어드미턴스는 상대 1e-8 정도 어긋난다
+        Subcircuit.Model m = mid.model();
+        assertEquals(1 / 3e3, m.y[0], 1e-6 / 3e3);
+        assertEquals(-1 / 3e3, m.y[1], 1e-6 / 3e3);
+
+        Netlist nl = new Netlist(3, 3);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 10, 1, 0, -1, 1);
+        nl.add(ComponentType.SUBCIRCUIT, mid.id, 1, 2, -1, 2);
+        nl.add(ComponentType.RESISTOR, 1e3, 2, 0, -1, 3);
+        double[] flat = MnaSystem.solveDc(nl.flatten(s -> true)).nodeVoltages;
+        assertEquals(flat[2], loaded(mid), 1e-6);
+        assertEquals(2.5, loaded(mid), 1e-6);
+    }
+
+    // 안쪽 정의를 바꾸면 그것을 쓰는 바깥 정의의 축약 모델, 소자 합, 해시도 새 내용을 따른다
+    @Test
+    void redefineRebuildsOuterDefinitions() {
+        Subcircuit leaf = Subcircuit.define("test-leaf2", resistor(2e3));
+        Subcircuit mid = Subcircuit.define("test-mid2", seriesWith(leaf));
+        Subcircuit top = Subcircuit.define("test-top2", seriesWith(mid));
+        assertEquals(2.5, loaded(mid), 1e-6);
+        long[] before = top.digest();
+        double topBefore = loaded(top);
+
+        Subcircuit.redefine(leaf, resistor(8e3));
+        Subcircuit mid2 = Subcircuit.get(mid.id), top2 = Subcircuit.get(top.id);
+        assertNotSame(mid, mid2);
+        assertNotSame(top, top2);
+        assertEquals(9e3, mid2.sum(ComponentType.RESISTOR), 0);
+        assertEquals(10e3, top2.sum(ComponentType.RESISTOR), 0);
+        assertEquals(1 / 9e3, mid2.model().y[0], 1e-6 / 9e3);
+        assertEquals(1 / 10e3, top2.model().y[0], 1e-6 / 10e3);
+        assertEquals(1.0, loaded(mid2), 1e-6);
+        assertEquals(10.0 / 11, loaded(top2), 1e-6);
+        assertFalse(Arrays.equals(before, top2.digest()));
+        assertEquals(10.0 / 5, topBefore, 1e-6);
+    }
+
+    // 파일에서 읽은 정의는 (이름, 내용)이 같으면 하나를 나눠 쓰고, 쓰던 범위가 모두 닫히면 목록에서 빠진다
+    @Test
+    void loadedDefinitionsAreSharedAndReleased() {
+        Subcircuit.Scope first = new Subcircuit.Scope(), second = new Subcircuit.Scope();
+        Subcircuit a = Subcircuit.load("test-load", resistor(4e3), first);
+        Subcircuit b = Subcircuit.load("test-load", resistor(4e3), second);
+        assertSame(a, b);
+        assertNotSame(a, Subcircuit.load("test-load", resistor(5e3), second));
+        assertNotSame(a, Subcircuit.load("test-load-other", resistor(4e3), second));
+
+        first.close();
+        assertSame(a, Subcircuit.get(a.id));
+        Netlist nl = new Netlist(3, 3);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 10, 1, 0, -1, 1);
+        nl.add(ComponentType.SUBCIRCUIT, a.id, 1, 2, -1, 2);
+        nl.add(ComponentType.RESISTOR, 1e3, 2, 0, -1, 3);
+        second.close();
+        assertNull(Subcircuit.get(a.id));
+        // 이미 만든 넷리스트는 정의 객체를 들고 있어 그대로 풀린다
+        assertEquals(2.0, MnaSystem.solveDc(nl).nodeVoltages[2], 1e-6);
+
+        Subcircuit c = Subcircuit.load("test-load", resistor(4e3), null);
+        assertNotSame(a, c);
+        try (Subcircuit.Scope third = new Subcircuit.Scope()) {
+            assertSame(c, Subcircuit.load("test-load", resistor(4e3), third));
+        }
+        assertSame(c, Subcircuit.get(c.id));
+    }
+}
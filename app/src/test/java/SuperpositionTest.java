@@ -0,0 +1,28 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+// 전원마다의 몫을 더하면 전체 DC 해와 같다
+class SuperpositionTest {
+    @Test
+    void partsSumToOperatingPoint() {
+        // V1: 1-0 (10V), R1: 1-2, R2: 2-0, I1: 0 -> 2 (2mA), V2: 3-0 (3V), R3: 3-2
+        Netlist nl = new Netlist(4, 6);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 10, 1, 0, -1, 1);
+        nl.add(ComponentType.RESISTOR, 1e3, 1, 2, -1, 2);
+        nl.add(ComponentType.RESISTOR, 2e3, 2, 0, -1, 3);
+        nl.add(ComponentType.CURRENT_SOURCE, 2e-3, 0, 2, -1, 4);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 3, 3, 0, -1, 5);
+        nl.add(ComponentType.RESISTOR, 4e3, 3, 2, -1, 6);
+        Superposition s = Superposition.solve(nl);
+        assertEquals(3, s.size());
+        CircuitAnalysisResult.OperatingPoint op = MnaSystem.solveDc(nl);
+        double[] total = s.totalVoltages();
+        for (int n = 0; n < nl.nodeCount; n++) assertEquals(op.nodeVoltages[n], total[n], 1e-9, "node " + n);
+        for (int e = 0; e < nl.elementCount; e++) {
+            double sum = 0;
+            for (double[] part : s.currents) sum += part[e];
+            assertEquals(op.elementCurrents[e], sum, 1e-12, "element " + e);
+        }
+    }
+}
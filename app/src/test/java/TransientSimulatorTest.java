@@ -0,0 +1,41 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+// 적응 시간 간격 과도 해석을 RC/RL 계단 응답의 해석해와 비교한다
+class TransientSimulatorTest {
+    @Test
+    void rcStepMatchesExponential() {
+        double r = 1e3, c = 1e-6, tau = r * c;
+        // V: 1-0, R: 1-2, C: 2-0
+        Netlist nl = new Netlist(3, 3);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 1, 1, 0, -1, 1);
+        nl.add(ComponentType.RESISTOR, r, 1, 2, -1, 2);
+        nl.add(ComponentType.CAPACITOR, c, 2, 0, -1, 3);
+        TransientSimulator sim = new TransientSimulator(new MnaSystem(nl));
+        sim.addVoltageProbe("V(C)", 2);
+        WaveformBuffer buf = new WaveformBuffer();
+        sim.run(5 * tau, buf);
+        double[] t = buf.time(), v = buf.column(0);
+        assertTrue(t.length > 10);
+        assertEquals(5 * tau, t[t.length - 1], 1e-9 * tau);
+        for (int i = 0; i < t.length; i++) assertEquals(1 - Math.exp(-t[i] / tau), v[i], 2e-3, "t = " + t[i]);
+    }
+
+    @Test
+    void rlStepMatchesExponential() {
+        double r = 100, l = 1e-2, tau = l / r;
+        // V: 1-0, R: 1-2, L: 2-0
+        Netlist nl = new Netlist(3, 3);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 5, 1, 0, -1, 1);
+        nl.add(ComponentType.RESISTOR, r, 1, 2, -1, 2);
+        nl.add(ComponentType.INDUCTOR, l, 2, 0, -1, 3);
+        TransientSimulator sim = new TransientSimulator(new MnaSystem(nl));
+        sim.addBranchProbe("I(L)", 2);
+        WaveformBuffer buf = new WaveformBuffer();
+        sim.run(5 * tau, buf);
+        double[] t = buf.time(), i = buf.column(0);
+        for (int k = 0; k < t.length; k++) assertEquals(5 / r * (1 - Math.exp(-t[k] / tau)), i[k], 2e-3 * 5 / r, "t = " + t[k]);
+    }
+}
@@ -0,0 +1,87 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+// 파형 파일 기록/읽기와 참조 수에 따른 정리
+class WaveformStoreTest {
+    private static Path write(int samples, int blockSamples) throws Exception {
+        Path file = Files.createTempFile("wave-test", ".wave");
+        WaveformStore.Writer w = new WaveformStore.Writer(file, blockSamples);
+        w.begin(new String[] { "a", "b" });
+        double[] t = new double[samples];
+        double[][] cols = new double[2][samples];
+        for (int i = 0; i < samples; i++) {
+            t[i] = i * 0.5;
+            cols[0][i] = i;
+            cols[1][i] = -i;
+        }
+        w.accept(t, cols, samples);
+        w.end();
+        return file;
+    }
+
+    @Test
+    void readsBackAcrossBlocks() throws Exception {
+        Path file = write(1000, 64);
+        try (WaveformStore s = WaveformStore.openTemporary(file)) {
+            assertEquals(1000, s.sampleCount);
+            assertEquals(2, s.probeCount());
+            assertEquals(499.5, s.time(999), 0);
+            assertEquals(-777, s.value(1, 777), 0);
+            long[] r = s.range(10, 20);
+            assertEquals(20, r[0]);
+            assertEquals(41, r[1]);
+        }
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void lastCloseDeletesTemporaryFile() throws Exception {
+        Path file = write(100, 64);
+        WaveformStore s = WaveformStore.openTemporary(file);
+        s.retain();
+        s.close();
+        assertTrue(Files.exists(file));
+        assertEquals(42, s.value(0, 42), 0);
+        s.close();
+        assertFalse(s.isOpen());
+        assertFalse(Files.exists(file));
+        assertThrows(IllegalStateException.class, s::retain);
+        s.close();  // 이미 닫혔으면 아무것도 안 한다
+    }
+
+    @Test
+    void persistentStoreKeepsFile() throws Exception {
+        Path file = write(100, 64);
+        try {
+            WaveformStore.open(file).close();
+            assertTrue(Files.exists(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // 캐시 항목과 결과가 참조를 나눠 가지므로 둘 다 놓아야 임시 파일이 지워진다
+    @Test
+    void cacheReleasesWaveformsOnClear() {
+        Netlist nl = new Netlist(3, 3);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 5, 1, 0, -1, 1);
+        nl.add(ComponentType.RESISTOR, 1e3, 1, 2, -1, 2);
+        nl.add(ComponentType.CAPACITOR, 1e-6, 2, 0, -1, 3);
+        AnalysisCache cache = new AnalysisCache(1 << 20, null);
+        CircuitAnalysisResult first = cache.analyze(nl);
+        CircuitAnalysisResult hit = cache.analyze(nl);
+        Path file = first.waveform.path;
+        first.close();
+        hit.close();
+        assertTrue(Files.exists(file));
+        cache.clear();
+        assertFalse(Files.exists(file));
+    }
+}
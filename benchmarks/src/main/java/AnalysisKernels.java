@@ -0,0 +1,444 @@
+import circuitbench.Kernel;
+
+import java.awt.geom.Point2D;
+import java.util.Collections;
+import java.util.Random;
+
+// JMH 해석 벤치마크가 쓰는 연산 (circuitbench.Kernel, 기본 패키지라 앱 클래스를 직접 쓴다).
+// 메서드마다 회로를 한 번 만들고 측정할 연산 하나를 돌려준다.
+public final class AnalysisKernels {
+    private AnalysisKernels() {}
+
+    // ---- AC 스윕: 단 수 stages의 RC 사다리 필터
+
+    // 로그 간격 points점 스윕. 파일 쓰기 대신 결과를 버리는 소비자로 받는다
+    public static Kernel acSweep(int stages, int points) {
+        AcAnalysis ac = new AcAnalysis(rcLadder(stages));
+        ac.addNodeProbe("V(out)", stages + 1);
+        ac.addNodeProbe("V(2)", 2);
+        WaveformSink discard = new WaveformSink() {
+            @Override
+            public void begin(String[] names) {}
+
+            @Override
+            public void accept(double[] time, double[][] columns, int count) {}
+        };
+        return () -> ac.run(1e3, 1e9, points, discard).factorizations;
+    }
+
+    private static Netlist rcLadder(int stages) {
+        Netlist nl = new Netlist(stages + 2, 2 * stages + 1);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 1.0, 1, 0, -1, 0);
+        for (int i = 1; i <= stages; i++) {
+            nl.add(ComponentType.RESISTOR, 10.0, i, i + 1, -1, 0);
+            nl.add(ComponentType.CAPACITOR, 1e-9, i + 1, 0, -1, 0);
+        }
+        return nl;
+    }
+
+    // ---- 결과 캐시: side x side 저항 격자에 RC. 적중은 소자 순서를 뒤집은 같은 회로로 조회한다
+
+    // 실패 (해석 + 저장)
+    public static Kernel cacheMiss(int side) {
+        Netlist grid = cacheGrid(side, false);
+        AnalysisCache cache = new AnalysisCache(AnalysisCache.DEFAULT_BYTES, null);
+        return new Kernel() {
+            @Override
+            public double run() {
+                cache.clear();
+                return resistance(cache.analyze(grid));
+            }
+
+            @Override
+            public void close() { cache.clear(); }
+        };
+    }
+
+    public static Kernel cacheHit(int side) {
+        AnalysisCache cache = new AnalysisCache(AnalysisCache.DEFAULT_BYTES, null);
+        resistance(cache.analyze(cacheGrid(side, false)));
+        Netlist reversed = cacheGrid(side, true);
+        return new Kernel() {
+            @Override
+            public double run() { return resistance(cache.analyze(reversed)); }
+
+            @Override
+            public void close() { cache.clear(); }
+        };
+    }
+
+    // 정규형 해시 (적중 조회 비용의 대부분)
+    public static Kernel canonical(int side) {
+        Netlist grid = cacheGrid(side, false);
+        return () -> AnalysisCache.Canonical.of(grid).h1;
+    }
+
+    private static double resistance(CircuitAnalysisResult result) {
+        double r = result.R;
+        result.close();
+        return r;
+    }
+
+    private static Netlist cacheGrid(int side, boolean reverse) {
+        int nodes = side * side + 1;
+        Netlist nl = new Netlist(nodes, 2 * side * side + 2);
+        int[][] el = new int[2 * side * side + 2][];
+        double[] value = new double[el.length];
+        int count = 0;
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                int n = 1 + i * side + j;
+                if (j + 1 < side) { el[count] = new int[] { n, n + 1 }; value[count++] = 100 + (i * 7 + j) % 13; }
+                if (i + 1 < side) { el[count] = new int[] { n, n + side }; value[count++] = 220 + (i * 3 + j) % 5; }
+            }
+        }
+        // 전압원은 항상 맨 앞 (접지와 등가 저항 기준이 같도록)
+        nl.add(ComponentType.VOLTAGE_SOURCE, 5, 1, 0, -1, 0);
+        nl.add(ComponentType.CAPACITOR, 1e-6, nodes - 1, 0, -1, 0);
+        for (int k = 0; k < count; k++) {
+            int c = reverse ? count - 1 - k : k;
+            nl.add(ComponentType.RESISTOR, value[c], el[c][0], el[c][1], -1, 0);
+        }
+        return nl;
+    }
+
+    // ---- 점진적 DC: 노드 약 nodes개의 임의 저항 격자에서 값 하나 변경
+
+    // 같은 저항을 연속으로 바꾸는 편집 (첫 변경 뒤로는 A⁻¹u를 다시 풀지 않는다)
+    public static Kernel incrementalSame(int nodes) {
+        Netlist nl = incrementalGrid(nodes);
+        IncrementalDc dc = new IncrementalDc(nl);
+        int edited = nl.elementCount / 2;
+        Random rnd = new Random(9);
+        return () -> dc.setValue(edited, 1 + rnd.nextInt(1000)) ? 1 : 0;
+    }
+
+    // 여러 저항을 번갈아 바꾸기 (보정 열이 MAX_RANK를 넘으면 재분해)
+    public static Kernel incrementalMixed(int nodes) {
+        Netlist nl = incrementalGrid(nodes);
+        IncrementalDc dc = new IncrementalDc(nl);
+        Random rnd = new Random(9);
+        return () -> dc.setValue(rnd.nextInt(nl.elementCount - 1), 1 + rnd.nextInt(1000)) ? 1 : 0;
+    }
+
+    // 비교 기준: 패턴 + 분해 + 풀이 전체
+    public static Kernel incrementalFull(int nodes) {
+        Netlist nl = incrementalGrid(nodes);
+        return () -> MnaSystem.solveDc(nl).nodeVoltages[1];
+    }
+
+    private static Netlist incrementalGrid(int nodes) {
+        int side = (int) Math.sqrt(nodes);
+        Random rnd = new Random(9);
+        Netlist nl = new Netlist(side * side + 1, 2 * side * side + 2);
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                int n = 1 + y * side + x;
+                if (x + 1 < side) nl.add(ComponentType.RESISTOR, 1 + rnd.nextInt(100), n, n + 1, -1, 0);
+                if (y + 1 < side) nl.add(ComponentType.RESISTOR, 1 + rnd.nextInt(100), n, n + side, -1, 0);
+            }
+        }
+        nl.add(ComponentType.RESISTOR, 10, side * side, 0, -1, 0);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 5, 1, 0, -1, 0);
+        return nl;
+    }
+
+    // ---- PRIMA 모델 축소: side x side RC 격자 (기생 추출식)를 차수 order로
+
+    public static Kernel reduce(int side, int order) {
+        Netlist nl = rcMesh(side);
+        return () -> ReducedModel.reduce(nl, order, 0.0).stats.order;
+    }
+
+    // 축약 모델의 AC 스윕 301점
+    public static Kernel reducedAc(int side, int order) {
+        ReducedModel rom = reducedMesh(side, order);
+        return () -> {
+            WaveformBuffer out = new WaveformBuffer();
+            rom.acResponse(1e3, 1e11, 301, out);
+            return out.length;
+        };
+    }
+
+    public static Kernel reducedTransient(int side, int order) {
+        ReducedModel rom = reducedMesh(side, order);
+        return () -> {
+            WaveformBuffer out = new WaveformBuffer();
+            rom.transientResponse(1e-8, out);
+            return out.length;
+        };
+    }
+
+    // 비교 기준: 원래 망을 복소 LU로 직접 푼 AC 한 점 (acError의 점 하나)
+    public static Kernel fullAcPoint(int side, int order) {
+        ReducedModel rom = reducedMesh(side, order);
+        return () -> rom.acError(1e6, 1e6, 1);
+    }
+
+    private static ReducedModel reducedMesh(int side, int order) {
+        ReducedModel rom = ReducedModel.reduce(rcMesh(side), order, 0.0);
+        rom.addNodeProbe("V(끝)", side * side);
+        return rom;
+    }
+
+    private static Netlist rcMesh(int side) {
+        int n = side * side;
+        Netlist nl = new Netlist(n + 2, 3 * n + 3);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 1, n + 1, 0, -1, 0);
+        nl.add(ComponentType.RESISTOR, 50, n + 1, 1, -1, 0);
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                int k = 1 + i * side + j;
+                if (j + 1 < side) nl.add(ComponentType.RESISTOR, 10 + (i + j) % 3, k, k + 1, -1, 0);
+                if (i + 1 < side) nl.add(ComponentType.RESISTOR, 12 + (i * 7 + j) % 5, k, k + side, -1, 0);
+                nl.add(ComponentType.CAPACITOR, 1e-15 * (1 + (i * j) % 4), k, 0, -1, 0);
+            }
+        }
+        nl.add(ComponentType.RESISTOR, 1e3, n, 0, -1, 0);
+        return nl;
+    }
+
+    // ---- 직/병렬·Y-Δ 축약 대 MNA: 등가 저항 질의. 회로는 "ladder", "bridges", "grid"이고 크기는 구간 수
+
+    // 빈 캐시로 축약
+    public static Kernel networkReduce(String circuit, int sections) {
+        Netlist nl = reductionCircuit(circuit, sections);
+        int src = nl.elementCount - 1;
+        return () -> new NetworkReduction(nl, new NetworkReduction.Memo(1 << 16)).sourceImpedance(src, 0)[0];
+    }
+
+    // 같은 회로를 한 번 축약한 캐시로 재질의
+    public static Kernel networkCached(String circuit, int sections) {
+        Netlist nl = reductionCircuit(circuit, sections);
+        int src = nl.elementCount - 1;
+        NetworkReduction.Memo memo = new NetworkReduction.Memo(1 << 16);
+        new NetworkReduction(nl, memo).sourceImpedance(src, 0);
+        return () -> new NetworkReduction(nl, memo).sourceImpedance(src, 0)[0];
+    }
+
+    public static Kernel networkMna(String circuit, int sections) {
+        Netlist nl = reductionCircuit(circuit, sections);
+        int src = nl.elementCount - 1;
+        return () -> 1 / Math.abs(MnaSystem.solveDc(nl).elementCurrents[src]);
+    }
+
+    // 전압원은 항상 마지막 소자
+    private static Netlist reductionCircuit(String circuit, int sections) {
+        Random rnd = new Random(11);
+        switch (circuit) {
+            case "ladder": {
+                // 직렬 저항 + 접지로 가는 병렬 저항: 전부 축약 가능
+                Netlist nl = new Netlist(sections + 2, 2 * sections + 1);
+                for (int i = 1; i <= sections; i++) {
+                    nl.add(ComponentType.RESISTOR, 1 + rnd.nextInt(100), i, i + 1, -1, 0);
+                    nl.add(ComponentType.RESISTOR, 1000 + rnd.nextInt(1000), i + 1, 0, -1, 0);
+                }
+                nl.add(ComponentType.VOLTAGE_SOURCE, 1, 1, 0, -1, 0);
+                return nl;
+            }
+            case "bridges": {
+                // 휘트스톤 브리지 블록 사슬: 블록마다 Y-Δ, 같은 블록은 캐시 적중
+                int bridges = sections / 5;
+                Netlist nl = new Netlist(3 * bridges + 2, 5 * bridges + 2);
+                for (int i = 0; i < bridges; i++) {
+                    int a = 1 + 3 * i, b = a + 1, c = a + 2, d = a + 3;
+                    double r = 10 * (1 + i % 4);
+                    nl.add(ComponentType.RESISTOR, r, a, b, -1, 0);
+                    nl.add(ComponentType.RESISTOR, 2 * r, a, c, -1, 0);
+                    nl.add(ComponentType.RESISTOR, 3 * r, b, c, -1, 0);
+                    nl.add(ComponentType.RESISTOR, 4 * r, b, d, -1, 0);
+                    nl.add(ComponentType.RESISTOR, 5 * r, c, d, -1, 0);
+                }
+                nl.add(ComponentType.RESISTOR, 1, 3 * bridges + 1, 0, -1, 0);
+                nl.add(ComponentType.VOLTAGE_SOURCE, 1, 1, 0, -1, 0);
+                return nl;
+            }
+            case "grid": {
+                // 축약이 막혀 남은 노드는 절점 해석으로
+                int side = Math.max(2, (int) Math.sqrt(sections / 10.0));
+                Netlist nl = new Netlist(side * side + 1, 2 * side * side + 1);
+                for (int y = 0; y < side; y++) {
+                    for (int x = 0; x < side; x++) {
+                        int n = 1 + y * side + x;
+                        if (x + 1 < side) nl.add(ComponentType.RESISTOR, 1 + rnd.nextInt(10), n, n + 1, -1, 0);
+                        if (y + 1 < side) nl.add(ComponentType.RESISTOR, 1 + rnd.nextInt(10), n, n + side, -1, 0);
+                    }
+                }
+                nl.add(ComponentType.RESISTOR, 1, side * side, 0, -1, 0);
+                nl.add(ComponentType.VOLTAGE_SOURCE, 1, 1, 0, -1, 0);
+                return nl;
+            }
+            default:
+                throw new IllegalArgumentException("알 수 없는 회로: " + circuit);
+        }
+    }
+
+    // ---- 수반 민감도: side x side 저항 격자 끝 노드 전압의 모든 소자 값 민감도
+
+    public static Kernel sensitivityAdjoint(int side) {
+        Netlist nl = sensitivityGrid(side);
+        Sensitivity.Output out = Sensitivity.Output.nodeVoltage(side * side, "V(끝)");
+        return () -> Sensitivity.analyze(nl, null, Collections.singletonList(out)).values[0];
+    }
+
+    // 비교 기준: 소자 하나의 중앙 차분 (DC 두 번). 전체 소자에 대한 비용은 이 값에 소자 수를 곱한 것
+    public static Kernel sensitivityPerturbed(int side) {
+        Netlist nl = sensitivityGrid(side);
+        int node = side * side;
+        int[] k = { 0 };
+        return () -> {
+            int e = 1 + (int) ((long) k[0]++ * 7919 % (nl.elementCount - 1));
+            double h = nl.value[e] * 1e-6;
+            return (perturbed(nl, e, h, node) - perturbed(nl, e, -h, node)) / (2 * h);
+        };
+    }
+
+    private static double perturbed(Netlist base, int e, double h, int node) {
+        Netlist nl = base.withOwnValues();
+        nl.value[e] += h;
+        return MnaSystem.solveDc(nl).nodeVoltages[node];
+    }
+
+    private static Netlist sensitivityGrid(int side) {
+        Netlist nl = new Netlist(side * side + 1, 2 * side * side + 2);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 5, 1, 0, -1, 0);
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                int n = 1 + i * side + j;
+                if (j + 1 < side) nl.add(ComponentType.RESISTOR, 100 + (i * 7 + j) % 13, n, n + 1, -1, 0);
+                if (i + 1 < side) nl.add(ComponentType.RESISTOR, 220 + (i * 3 + j) % 5, n, n + side, -1, 0);
+            }
+        }
+        nl.add(ComponentType.RESISTOR, 1e3, side * side, 0, -1, 0);
+        nl.add(ComponentType.CAPACITOR, 1e-6, side * side, 0, -1, 0);
+        return nl;
+    }
+
+    // ---- 부회로: side x side 저항 격자(3단자) 인스턴스 instances개를 사슬로 이은 회로의 DC
+
+    // 단자 축약 모델 (정의당 한 번 축약)
+    public static Kernel subcircuitReduced(int instances, int side) {
+        Netlist top = subcircuitChain(instances, side);
+        return () -> MnaSystem.solveDc(top).nodeVoltages[instances + 1];
+    }
+
+    // 비교 기준: 전부 펼친 넷리스트
+    public static Kernel subcircuitFlattened(int instances, int side) {
+        Netlist flat = subcircuitChain(instances, side).flatten(s -> true);
+        return () -> MnaSystem.solveDc(flat).nodeVoltages[instances + 1];
+    }
+
+    private static Netlist subcircuitChain(int instances, int side) {
+        Subcircuit mesh = Subcircuit.define("mesh", subcircuitMesh(side));
+        Netlist top = new Netlist(instances + 2, 2 * instances + 1);
+        top.add(ComponentType.VOLTAGE_SOURCE, 5, 1, 0, -1, 0);
+        for (int i = 1; i <= instances; i++) {
+            top.add(ComponentType.SUBCIRCUIT, mesh.id, i, i + 1, 0, 0);
+            top.add(ComponentType.RESISTOR, 1000 + i % 7, i + 1, 0, -1, 0);
+        }
+        return top;
+    }
+
+    // 단자는 세 모서리에서 밖으로 뺀 전선 끝
+    private static CircuitModel subcircuitMesh(int side) {
+        CircuitModel model = CircuitModel.EMPTY;
+        int[] id = { 0 };
+        int last = 20 * (side - 1);
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                double x = 20 * i, y = 20 * j;
+                if (i + 1 < side) model = add(model, id, ComponentType.RESISTOR, 100 + (i * 7 + j) % 13, x, y, x + 20, y);
+                if (j + 1 < side) model = add(model, id, ComponentType.RESISTOR, 100 + (i * 5 + j) % 11, x, y, x, y + 20);
+            }
+        }
+        model = add(model, id, ComponentType.WIRE, 0, 0, 0, -20, 0);
+        model = add(model, id, ComponentType.WIRE, 0, last, last, last + 20, last);
+        model = add(model, id, ComponentType.WIRE, 0, 0, last, -20, last);
+        return model;
+    }
+
+    private static CircuitModel add(CircuitModel model, int[] id, ComponentType type, double value, double x0, double y0, double x1, double y1) {
+        CircuitElement e = new CircuitElement();
+        e.id = ++id[0];
+        e.type = type;
+        e.gunny = value;
+        e.start = new Point2D.Double(x0, y0);
+        e.end = new Point2D.Double(x1, y1);
+        return model.with(e);
+    }
+
+    // ---- 중첩 해석: side x side 저항 격자에 전원 count개(전압원 1, 나머지 전류원)의 몫
+
+    // 전원마다 분해 + 풀이
+    public static Kernel superpositionPerSource(int side, int count) {
+        Superposed s = new Superposed(side, count);
+        return () -> {
+            for (int k = 0; k < count; k++) SparseLU.factor(s.sys.matrix).solve(s.rhs[k], s.x);
+            return s.x[0];
+        };
+    }
+
+    // 분해 한 번 + 우변마다 풀이
+    public static Kernel superpositionSeparate(int side, int count) {
+        Superposed s = new Superposed(side, count);
+        return () -> {
+            SparseLU lu = SparseLU.factor(s.sys.matrix);
+            for (int k = 0; k < count; k++) lu.solve(s.rhs[k], s.x);
+            return s.x[0];
+        };
+    }
+
+    // 분해 한 번 + 블록 풀이 한 번 (SparseLU.solve(B, X, S))
+    public static Kernel superpositionBlock(int side, int count) {
+        Superposed s = new Superposed(side, count);
+        int n = s.sys.size;
+        double[] B = new double[n * count], X = new double[n * count];
+        return () -> {
+            SparseLU lu = SparseLU.factor(s.sys.matrix);
+            for (int k = 0; k < count; k++) for (int i = 0; i < n; i++) B[i * count + k] = s.rhs[k][i];
+            lu.solve(B, X, count);
+            return X[0];
+        };
+    }
+
+    // Superposition.solve 전체 (MNA 채우기 포함)
+    public static Kernel superpositionSolve(int side, int count) {
+        Netlist nl = superpositionGrid(side, count);
+        return () -> Superposition.solve(nl).totalVoltages()[1];
+    }
+
+    // 채워 둔 MNA 행렬과 전원별 우변
+    private static final class Superposed {
+        final MnaSystem sys;
+        final double[][] rhs;
+        final double[] x;
+
+        Superposed(int side, int count) {
+            Netlist nl = superpositionGrid(side, count);
+            sys = new MnaSystem(nl);
+            rhs = new double[count][sys.size];
+            for (int e = 0, s = 0; e < nl.elementCount; e++) if (sys.isSource(e)) sys.stampSource(e, rhs[s++]);
+            sys.stampMatrix(0.0);
+            x = new double[sys.size];
+        }
+    }
+
+    private static Netlist superpositionGrid(int side, int sources) {
+        Netlist nl = new Netlist(side * side + 1, 2 * side * side + sources + 1);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 5, 1, 0, -1, 0);
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                int n = 1 + i * side + j;
+                if (j + 1 < side) nl.add(ComponentType.RESISTOR, 100 + (i * 7 + j) % 13, n, n + 1, -1, 0);
+                if (i + 1 < side) nl.add(ComponentType.RESISTOR, 220 + (i * 3 + j) % 5, n, n + side, -1, 0);
+            }
+        }
+        nl.add(ComponentType.RESISTOR, 1e3, side * side, 0, -1, 0);
+        // 전류원은 격자 여기저기에서 접지로 뽑는다
+        for (int s = 1; s < sources; s++) {
+            int node = 1 + (int) ((long) s * 7919 % (side * side));
+            nl.add(ComponentType.CURRENT_SOURCE, 1e-3 * (1 + s % 5), node, 0, -1, 0);
+        }
+        return nl;
+    }
+}
@@ -0,0 +1,284 @@
+import circuitbench.Kernel;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// JMH 편집기 자료구조 벤치마크가 쓰는 연산 (circuitbench.Kernel). 기존 표현(객체 그래프, 문자열 키, 선형 탐색)과
+// 지금 표현을 같은 데이터로 비교한다.
+public final class EditorKernels {
+    private EditorKernels() {}
+
+    private static final int PROBES = 1 << 16;
+
+    // ---- 소자 저장: 종류별 합계(저항 값 합). 남는 힙 크기는 -prof gc나 힙 덤프로 본다
+
+    // 기존 소자 표현 (도형과 OP-AMP 단자를 객체로 들고 있었다)
+    private static final class LegacyElement {
+        ComponentType type;
+        double gunny;
+        Point2D start, end;
+        Rectangle2D shape;
+        Object nonInvertingInputNode, invertingInputNode, outputNode;
+    }
+
+    private static final ComponentType[] STORE_TYPES = { ComponentType.RESISTOR, ComponentType.CAPACITOR, ComponentType.INDUCTOR, ComponentType.WIRE };
+
+    // 기존 객체 그래프 스트림
+    public static Kernel legacySum(int count) {
+        Random rnd = new Random(3);
+        List<LegacyElement> legacy = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LegacyElement e = new LegacyElement();
+            e.type = STORE_TYPES[i % STORE_TYPES.length];
+            e.gunny = 1 + rnd.nextInt(1000);
+            e.start = new Point2D.Double(rnd.nextInt(5000) * 20, rnd.nextInt(5000) * 20);
+            e.end = new Point2D.Double(e.start.getX() + 60, e.start.getY() + 10);
+            if (e.type != ComponentType.WIRE) e.shape = new Rectangle2D.Double(e.start.getX(), e.start.getY(), 60, 20);
+            legacy.add(e);
+        }
+        return () -> legacy.stream().filter(x -> x.type == ComponentType.RESISTOR).mapToDouble(x -> x.gunny).sum();
+    }
+
+    // CircuitModel 열 배열
+    public static Kernel modelSum(int count) {
+        Random rnd = new Random(3);
+        CircuitModel model = CircuitModel.EMPTY;
+        CircuitElement e = new CircuitElement();
+        for (int i = 0; i < count; i++) {
+            e.id = i + 1;
+            e.type = STORE_TYPES[i % STORE_TYPES.length];
+            e.gunny = 1 + rnd.nextInt(1000);
+            e.start = new Point2D.Double(rnd.nextInt(5000) * 20, rnd.nextInt(5000) * 20);
+            e.end = new Point2D.Double(e.start.getX() + 60, e.start.getY() + 10);
+            model = model.with(e);
+        }
+        CircuitModel built = model;
+        return () -> built.sum(ComponentType.RESISTOR);
+    }
+
+    // ---- 노드 표: 기존 "x,y" 문자열 키 HashMap 대 long 키 NodeTable. 소자 count개(단자 2count개)의 전선
+
+    // 기존 노드: 걸린 소자 목록을 들고 있었다
+    private static final class LegacyNode {
+        final List<CircuitElement> connectedElements = new ArrayList<>();
+    }
+
+    private static final class Wires {
+        final List<CircuitElement> elements;
+        final Point2D[] probes = new Point2D[PROBES];
+        int next;
+
+        Wires(int count) {
+            int side = (int) Math.ceil(Math.sqrt(count)) * 40;
+            Random rnd = new Random(11);
+            elements = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Point2D p = new Point2D.Double(rnd.nextInt(side / 20) * 20, rnd.nextInt(side / 20) * 20);
+                CircuitElement e = new CircuitElement(ComponentType.WIRE, p);
+                e.end = new Point2D.Double(p.getX() + 20 * (1 + rnd.nextInt(3)), p.getY());
+                e.id = i + 1;
+                elements.add(e);
+            }
+            for (int i = 0; i < probes.length; i++) probes[i] = new Point2D.Double(rnd.nextInt(side), rnd.nextInt(side));
+        }
+
+        Point2D probe() { return probes[next++ & (PROBES - 1)]; }
+
+        CircuitElement element() { return elements.get(next++ % elements.size()); }
+
+        Map<String, LegacyNode> legacy() {
+            Map<String, LegacyNode> nodes = new HashMap<>();
+            for (CircuitElement e : elements) {
+                legacyAdd(nodes, e.start, e);
+                legacyAdd(nodes, e.end, e);
+            }
+            return nodes;
+        }
+
+        NodeTable table() {
+            NodeTable table = new NodeTable();
+            for (CircuitElement e : elements) table.add(e);
+            return table;
+        }
+    }
+
+    private static String legacyKey(Point2D pos) {
+        int x = ((int) pos.getX() / 20) * 20;
+        int y = ((int) pos.getY() / 20) * 20;
+        return x + "," + y;
+    }
+
+    private static void legacyAdd(Map<String, LegacyNode> nodes, Point2D pos, CircuitElement e) {
+        nodes.computeIfAbsent(legacyKey(pos), k -> new LegacyNode()).connectedElements.add(e);
+    }
+
+    public static Kernel legacyLookup(int count) {
+        Wires wires = new Wires(count);
+        Map<String, LegacyNode> legacy = wires.legacy();
+        return () -> legacy.get(legacyKey(wires.probe())) != null ? 1 : 0;
+    }
+
+    public static Kernel tableLookup(int count) {
+        Wires wires = new Wires(count);
+        NodeTable table = wires.table();
+        return () -> table.get(Netlist.gridKey(wires.probe())) != null ? 1 : 0;
+    }
+
+    // 소자 하나 삭제 후 다시 추가. 기존 방식은 삭제마다 전체 노드를 훑는다
+    public static Kernel legacyRemove(int count) {
+        Wires wires = new Wires(count);
+        Map<String, LegacyNode> legacy = wires.legacy();
+        return () -> {
+            CircuitElement e = wires.element();
+            legacy.values().removeIf(node -> { node.connectedElements.removeIf(c -> c == e); return node.connectedElements.isEmpty(); });
+            legacyAdd(legacy, e.start, e);
+            legacyAdd(legacy, e.end, e);
+            return legacy.size();
+        };
+    }
+
+    public static Kernel tableRemove(int count) {
+        Wires wires = new Wires(count);
+        NodeTable table = wires.table();
+        return () -> {
+            CircuitElement e = wires.element();
+            table.remove(e.id);
+            table.add(e);
+            return table.size();
+        };
+    }
+
+    // ---- 그리기: 소자 count개를 흩어 놓은 편집기의 1200x700 영역
+
+    private static final class Scene {
+        final CircuitEditor editor = new CircuitEditor();
+        final List<CircuitElement> parts = new ArrayList<>();
+        final Rectangle viewport;
+        final BufferedImage frame;
+
+        Scene(int count) {
+            int side = (int) Math.ceil(Math.sqrt(count)) * 100;
+            Random rnd = new Random(5);
+            ComponentType[] types = { ComponentType.RESISTOR, ComponentType.CAPACITOR, ComponentType.INDUCTOR,
+                ComponentType.WIRE, ComponentType.VOLTAGE_SOURCE };
+            for (int i = 0; i < count; i++) {
+                Point2D p = new Point2D.Double(rnd.nextInt(side / 20) * 20, rnd.nextInt(side / 20) * 20);
+                CircuitElement e = new CircuitElement(types[i % types.length], p);
+                if (e.type == ComponentType.WIRE) e.end = new Point2D.Double(p.getX() + 20 * (1 + rnd.nextInt(5)), p.getY());
+                else parts.add(e);
+                editor.addElement(e);
+            }
+            editor.setSize(editor.getPreferredSize());
+            viewport = new Rectangle(side / 2, side / 2, 1200, 700);
+            frame = new BufferedImage(viewport.width, viewport.height, BufferedImage.TYPE_INT_RGB);
+        }
+
+        int paint(Rectangle clip) {
+            Graphics2D g = frame.createGraphics();
+            g.translate(-viewport.x, -viewport.y);
+            g.clip(clip.intersection(viewport));
+            editor.paintComponent(g);
+            g.dispose();
+            return frame.getRGB(0, 0);
+        }
+
+        MouseEvent event(int id, double x, double y) {
+            return new MouseEvent(editor, id, 0, 0, (int) x, (int) y, 1, false);
+        }
+    }
+
+    // 보이는 영역 전체 프레임
+    public static Kernel fullFrame(int count) {
+        Scene scene = new Scene(count);
+        return () -> scene.paint(scene.viewport);
+    }
+
+    // 보이는 영역 안의 소자 하나를 드래그: 이동 전/후 영역만 다시 그린다
+    public static Kernel dragFrame(int count) {
+        Scene scene = new Scene(count);
+        CircuitEditor editor = scene.editor;
+        CircuitElement target = editor.getModel().get(scene.parts.get(0).id);
+        editor.mousePressed(scene.event(MouseEvent.MOUSE_PRESSED, target.start.getX() + 1, target.start.getY() + 1));
+        int[] i = { 0 };
+        return () -> {
+            int k = i[0]++ % 400;
+            double x = scene.viewport.x + 100 + (k % 40) * 20, y = scene.viewport.y + 100 + (k / 40) * 20;
+            Rectangle dirty = EditorRenderer.dirtyBounds(editor.getSelectedElement());
+            editor.mouseDragged(scene.event(MouseEvent.MOUSE_DRAGGED, x, y));
+            dirty = dirty.union(EditorRenderer.dirtyBounds(editor.getSelectedElement()));
+            return scene.paint(dirty);
+        };
+    }
+
+    // ---- 적중 검사: 공간 인덱스 대 선형 탐색
+
+    private static final class Placed {
+        final List<CircuitElement> elements;
+        final SpatialIndex index = new SpatialIndex();
+        final Point2D[] probes = new Point2D[PROBES];
+        final int side;
+        final Random rnd = new Random(7);
+        int next;
+
+        Placed(int count) {
+            side = (int) Math.ceil(Math.sqrt(count)) * 80;
+            elements = new ArrayList<>(count);
+            ComponentType[] types = { ComponentType.RESISTOR, ComponentType.CAPACITOR, ComponentType.INDUCTOR, ComponentType.WIRE };
+            for (int i = 0; i < count; i++) {
+                Point2D p = new Point2D.Double(rnd.nextInt(side / 20) * 20, rnd.nextInt(side / 20) * 20);
+                CircuitElement e = new CircuitElement(types[i % types.length], p);
+                if (e.type == ComponentType.WIRE) e.end = new Point2D.Double(p.getX() + 20 * (1 + rnd.nextInt(5)), p.getY());
+                e.id = i + 1;
+                elements.add(e);
+                index.insert(e);
+            }
+            for (int i = 0; i < probes.length; i++) probes[i] = new Point2D.Double(rnd.nextInt(side), rnd.nextInt(side));
+        }
+
+        Point2D probe() { return probes[next++ & (PROBES - 1)]; }
+    }
+
+    public static Kernel indexQuery(int count) {
+        Placed placed = new Placed(count);
+        return () -> {
+            Point2D p = placed.probe();
+            Rectangle2D area = new Rectangle2D.Double(p.getX() - 8, p.getY() - 8, 16, 16);
+            return placed.index.find(area, id -> {
+                CircuitElement e = placed.elements.get(id - 1);
+                return e.contains(p) || e.isNearWire(p);
+            }, false);
+        };
+    }
+
+    public static Kernel linearQuery(int count) {
+        Placed placed = new Placed(count);
+        return () -> {
+            Point2D p = placed.probe();
+            for (CircuitElement e : placed.elements) {
+                if (e.contains(p) || e.isNearWire(p)) return e.id;
+            }
+            return 0;
+        };
+    }
+
+    // 도형 있는 소자 하나를 임의 위치로 옮기고 인덱스 갱신
+    public static Kernel indexUpdate(int count) {
+        Placed placed = new Placed(count);
+        return () -> {
+            CircuitElement e = placed.elements.get(placed.rnd.nextInt(count));
+            if (!e.hasShape()) return 0;
+            e.translate(placed.rnd.nextInt(placed.side / 20) * 20 - e.start.getX(), placed.rnd.nextInt(placed.side / 20) * 20 - e.start.getY());
+            placed.index.update(e);
+            return e.id;
+        };
+    }
+}
@@ -0,0 +1,103 @@
+import circuitbench.Workload;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+// JMH 벤치마크가 쓰는 편집기 작업 (circuitbench.Workload 구현, 기본 패키지라 앱 클래스를 직접 쓴다).
+// 생성 회로: 전압원 + RC 사다리. 한 구간은 직렬 저항, 접지 레일로 가는 커패시터, 접지 레일 전선의 3소자이고
+// 100구간마다 다음 줄로 꺾는다 (줄 바꿈 전선 2개).
+public class EditorWorkload implements Workload {
+    private static final int PER_ROW = 100;
+    private static final int PROBES = 1024;
+
+    private CircuitEditor editor;
+    private int sections;
+    private Rectangle viewport;
+    private BufferedImage frame;
+    private MouseEvent[] probes;
+
+    @Override
+    public void build(int elements) {
+        editor = new CircuitEditor();
+        sections = Math.max(1, (elements - 1) / 3);
+        CircuitElement source = new CircuitElement(ComponentType.VOLTAGE_SOURCE, new Point2D.Double(0, 0));
+        source.end = new Point2D.Double(0, 40);
+        editor.addElement(source);
+        for (int k = 0; k < sections; k++) {
+            double x = x(k), y = y(k);
+            add(ComponentType.RESISTOR, x, y, x + 60, y, 1000 + (k % 7) * 100);
+            add(ComponentType.CAPACITOR, x + 60, y, x + 60, y + 40, 1e-6);
+            add(ComponentType.WIRE, x, y + 40, x + 60, y + 40, 0);
+            if (k % PER_ROW == PER_ROW - 1 && k + 1 < sections) {
+                add(ComponentType.WIRE, x + 60, y, 0, y + 80, 0);
+                add(ComponentType.WIRE, 0, y + 40, 0, y + 120, 0);
+            }
+        }
+        Dimension size = editor.getPreferredSize();
+        editor.setSize(size);
+        viewport = new Rectangle(Math.max(0, size.width / 2 - 600), Math.max(0, size.height / 2 - 350), 1200, 700);
+        frame = new BufferedImage(viewport.width, viewport.height, BufferedImage.TYPE_INT_RGB);
+
+        Random rnd = new Random(15);
+        probes = new MouseEvent[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            int k = rnd.nextInt(sections);
+            double py = i % 2 == 0 ? y(k) + 10 : y(k) + 60;   // 짝수: 저항 위, 홀수: 레일 아래 빈 곳
+            probes[i] = new MouseEvent(editor, MouseEvent.MOUSE_PRESSED, 0, 0, (int) x(k) + 30, (int) py, 1, false);
+        }
+    }
+
+    private static double x(int k) { return (k % PER_ROW) * 60; }
+
+    private static double y(int k) { return (k / PER_ROW) * 80; }
+
+    private void add(ComponentType type, double x1, double y1, double x2, double y2, double value) {
+        CircuitElement e = new CircuitElement(type, new Point2D.Double(x1, y1));
+        e.end = new Point2D.Double(x2, y2);
+        if (type != ComponentType.WIRE) e.gunny = value;
+        editor.addElement(e);
+    }
+
+    @Override
+    public long addAndRemove() {
+        int k = sections / 2;
+        CircuitElement e = new CircuitElement(ComponentType.RESISTOR, new Point2D.Double(x(k), y(k)));
+        e.end = new Point2D.Double(x(k) + 60, y(k));
+        editor.addElement(e);
+        editor.removeElement(e.id);
+        return editor.getNodes().version();
+    }
+
+    @Override
+    public int parallelGroups() {
+        return editor.computeParallelGroups().size();
+    }
+
+    @Override
+    public boolean hitTest(int probe) {
+        editor.mousePressed(probes[probe & (PROBES - 1)]);
+        return editor.getSelectedElement() != null;
+    }
+
+    @Override
+    public int paint() {
+        Graphics2D g = frame.createGraphics();
+        g.translate(-viewport.x, -viewport.y);
+        g.clip(viewport);
+        editor.paintComponent(g);
+        g.dispose();
+        return frame.getRGB(viewport.width / 2, viewport.height / 2);
+    }
+
+    @Override
+    public double analyze() {
+        try (CircuitAnalysisResult result = editor.analyzeCircuit()) {
+            return result.R;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+import circuitbench.Kernel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// JMH 파일 벤치마크가 쓰는 연산 (circuitbench.Kernel): SPICE 넷리스트 읽기/쓰기와 .wave 파형 보기의 LOD.
+// 연산마다 임시 파일을 만들고 close()에서 지운다.
+public final class FileKernels {
+    private FileKernels() {}
+
+    // ---- SPICE: side x side 저항 격자(전압원 1개, 커패시터/OP-AMP 섞음). 줄 수는 약 2 side²
+
+    public static Kernel spiceWrite(int side) {
+        Netlist grid = spiceGrid(side);
+        Path file = temporary("spice-bench", ".cir");
+        return new TempKernel(file) {
+            @Override
+            public double run() { return io(() -> SpiceFile.write(grid, file).lines); }
+        };
+    }
+
+    // Handler만 거치는 스트리밍 읽기
+    public static Kernel spiceStream(int side) {
+        Path file = spiceFile(side);
+        long[] sink = new long[1];
+        return new TempKernel(file) {
+            @Override
+            public double run() { return io(() -> SpiceFile.read(file, (type, value, a, b, c) -> sink[0] += a + b).lines); }
+        };
+    }
+
+    public static Kernel spiceRead(int side) {
+        Path file = spiceFile(side);
+        return new TempKernel(file) {
+            @Override
+            public double run() { return io(() -> SpiceFile.read(file).elementCount); }
+        };
+    }
+
+    // 읽은 넷리스트의 자동 배치
+    public static Kernel spicePlace(int side) {
+        Path file = spiceFile(side);
+        Netlist read = io(() -> SpiceFile.read(file));
+        return new TempKernel(file) {
+            @Override
+            public double run() { return SpiceFile.place(read).size(); }
+        };
+    }
+
+    private static Path spiceFile(int side) {
+        Path file = temporary("spice-bench", ".cir");
+        io(() -> SpiceFile.write(spiceGrid(side), file));
+        return file;
+    }
+
+    private static Netlist spiceGrid(int side) {
+        Netlist nl = new Netlist(side * side + 1, 2 * side * side + 2);
+        nl.add(ComponentType.VOLTAGE_SOURCE, 5, 1, 0, -1, 0);
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                int n = 1 + i * side + j;
+                if (j + 1 < side) nl.add(ComponentType.RESISTOR, 100 + (i * 7 + j) % 13 * 10.5, n, n + 1, -1, 0);
+                if (i + 1 < side) {
+                    ComponentType t = (i + j) % 50 == 0 ? ComponentType.CAPACITOR : ComponentType.RESISTOR;
+                    nl.add(t, t == ComponentType.CAPACITOR ? 4.7e-9 : 220, n, n + side, -1, 0);
+                }
+            }
+        }
+        nl.add(ComponentType.OP_AMP, Double.POSITIVE_INFINITY, 1, side * side, side * side, 0);
+        nl.add(ComponentType.RESISTOR, 1e3, side * side, 0, -1, 0);
+        return nl;
+    }
+
+    // ---- 파형 보기: 표본 samples개의 처프 + 단발 스파이크 파형
+
+    static final int SPIKES = 40;
+
+    // min/max 피라미드 만들기
+    public static Kernel pyramidBuild(int samples) {
+        Path file = waveFile(samples);
+        WaveformStore store = io(() -> WaveformStore.open(file));
+        return new TempKernel(file) {
+            @Override
+            public double run() { return WaveformPyramid.build(store, 0, CircuitAnalyzer.Monitor.NONE).levels(); }
+
+            @Override
+            public void close() {
+                store.close();
+                super.close();
+            }
+        };
+    }
+
+    // 확대 zoom배 구간의 폭 width 화면 한 장 (열별 M4)
+    public static Kernel pyramidColumns(int samples, int zoom, int width) {
+        Path file = waveFile(samples);
+        WaveformStore store = io(() -> WaveformStore.open(file));
+        WaveformPyramid p = WaveformPyramid.build(store, 0, CircuitAnalyzer.Monitor.NONE);
+        WaveformPyramid.Columns cols = new WaveformPyramid.Columns();
+        double end = store.time(samples - 1), span = end / zoom, start = (end - span) * 0.37;
+        return new TempKernel(file) {
+            @Override
+            public double run() {
+                p.columns(start, start + span, width, false, cols);
+                return cols.max[0];
+            }
+
+            @Override
+            public void close() {
+                store.close();
+                super.close();
+            }
+        };
+    }
+
+    // 시간 간격이 조금씩 달라지는 처프. 전체 구간에 고르게 SPIKES개의 단발 표본(+10)을 심는다
+    private static Path waveFile(long n) {
+        Path file = temporary("wave-bench", ".wave");
+        WaveformStore.Writer writer = new WaveformStore.Writer(file);
+        writer.begin(new String[] { "V(bench)" });
+        int chunk = 1 << 16;
+        double[] time = new double[chunk];
+        double[][] cols = { new double[chunk] };
+        double t = 0;
+        long spacing = Math.max(1, n / SPIKES);
+        for (long i = 0; i < n; ) {
+            int len = (int) Math.min(chunk, n - i);
+            for (int k = 0; k < len; k++, i++) {
+                t += 1e-9 * (1 + 0.5 * Math.sin(i * 1e-5));
+                time[k] = t;
+                cols[0][k] = Math.sin(t * t * 1e12) + (i % spacing == spacing / 2 ? 10 : 0);
+            }
+            writer.accept(time, cols, len);
+        }
+        writer.end();
+        return file;
+    }
+
+    // ---- 임시 파일
+
+    private interface IoCall<T> {
+        T call() throws IOException;
+    }
+
+    private static <T> T io(IoCall<T> call) {
+        try {
+            return call.call();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static Path temporary(String prefix, String suffix) {
+        return io(() -> Files.createTempFile(prefix, suffix));
+    }
+
+    // 측정이 끝나면 임시 파일을 지우는 연산
+    private abstract static class TempKernel implements Kernel {
+        private final Path file;
+
+        TempKernel(Path file) { this.file = file; }
+
+        @Override
+        public void close() {
+            io(() -> Files.deleteIfExists(file));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package circuitbench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// AC 스윕: RC 사다리 필터(단 수 stages)를 로그 간격 주파수 points점으로 풀기. 파형은 버린다 (파일 쓰기는 WaveformViewBenchmark 쪽)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Djava.awt.headless=true", "-Xmx4g" })
+public class AcSweepBenchmark {
+    @Param({ "100", "20000" })
+    int stages;
+
+    @Param({ "1000" })
+    int points;
+
+    private Kernel kernel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        kernel = Kernel.create("AnalysisKernels", "acSweep", stages, points);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        kernel.close();
+    }
+
+    @Benchmark
+    public double sweep() {
+        return kernel.run();
+    }
+}
@@ -0,0 +1,41 @@
+package circuitbench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// 편집기의 '회로 해석' 전체 (CircuitEditor.analyzeCircuit). 큰 회로는 한 번에 수 초가 걸려 반복 수를 줄였다
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Djava.awt.headless=true", "-Xmx4g" })
+public class AnalysisBenchmark {
+    @Param({ "10", "1000", "100000", "1000000" })
+    int elements;
+
+    private Workload workload;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        workload = Workload.create();
+        workload.build(elements);
+    }
+
+    @Benchmark
+    public double analyzeCircuit() {
+        return workload.analyze();
+    }
+}
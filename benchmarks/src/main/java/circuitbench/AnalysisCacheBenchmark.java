@@ -0,0 +1,49 @@
+package circuitbench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// 결과 캐시: 실패(해석 + 저장), 적중(소자 순서를 뒤집은 같은 회로), 정규형 해시. 회로는 side x side 저항 격자에 RC
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Djava.awt.headless=true", "-Xmx4g" })
+public class AnalysisCacheBenchmark {
+    @Param({ "cacheMiss", "cacheHit", "canonical" })
+    String lookup;
+
+    @Param({ "10", "40" })
+    int side;
+
+    private Kernel kernel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        kernel = Kernel.create("AnalysisKernels", lookup, side);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        kernel.close();
+    }
+
+    @Benchmark
+    public double lookup() {
+        return kernel.run();
+    }
+}
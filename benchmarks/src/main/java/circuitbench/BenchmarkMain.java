@@ -0,0 +1,25 @@
+package circuitbench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// JMH 실행 진입점. 결과 형식/파일을 지정하지 않으면 jmh-result.json (JSON)으로 남겨 버전 간 비교에 쓴다.
+//   java -jar benchmarks/target/benchmarks.jar [JMH 옵션...]
+//   java -jar benchmarks/target/benchmarks.jar EditorBenchmark -p elements=10,1000 -rff before.json
+public final class BenchmarkMain {
+    private BenchmarkMain() {}
+
+    public static void main(String[] args) throws Exception {
+        List<String> argv = new ArrayList<>(Arrays.asList(args));
+        if (!argv.contains("-rf")) {
+            argv.add("-rf");
+            argv.add("json");
+        }
+        if (!argv.contains("-rff")) {
+            argv.add("-rff");
+            argv.add("jmh-result.json");
+        }
+        org.openjdk.jmh.Main.main(argv.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,57 @@
+package circuitbench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// 편집기 핫 패스: 소자 추가/삭제, 병렬 검출, 적중 검사, 오프스크린 그리기
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Djava.awt.headless=true", "-Xmx4g" })
+public class EditorBenchmark {
+    @Param({ "10", "1000", "100000", "1000000" })
+    int elements;
+
+    private Workload workload;
+    private int probe;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        workload = Workload.create();
+        workload.build(elements);
+    }
+
+    @Benchmark
+    public long addAndRemove() {
+        return workload.addAndRemove();
+    }
+
+    @Benchmark
+    public int parallelGroups() {
+        return workload.parallelGroups();
+    }
+
+    @Benchmark
+    public boolean hitTest() {
+        return workload.hitTest(probe++);
+    }
+
+    @Benchmark
+    public int paint() {
+        return workload.paint();
+    }
+}
@@ -0,0 +1,49 @@
+package circuitbench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// 소자 저장: 기존 객체 그래프 대 CircuitModel 열 배열의 종류별 합계. 메모리 차이는 -prof gc로 본다
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Djava.awt.headless=true", "-Xmx4g" })
+public class ElementStoreBenchmark {
+    @Param({ "legacySum", "modelSum" })
+    String store;
+
+    @Param({ "10000", "1000000" })
+    int elements;
+
+    private Kernel kernel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        kernel = Kernel.create("EditorKernels", store, elements);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        kernel.close();
+    }
+
+    @Benchmark
+    public double resistorSum() {
+        return kernel.run();
+    }
+}
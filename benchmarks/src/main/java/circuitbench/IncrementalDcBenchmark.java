@@ -0,0 +1,49 @@
+package circuitbench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// 값 하나 변경 시 점진적 DC 재해석(Woodbury 저랭크 갱신) 대 전체 재분해. 회로는 노드 약 nodes개의 저항 격자
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Djava.awt.headless=true", "-Xmx4g" })
+public class IncrementalDcBenchmark {
+    @Param({ "incrementalSame", "incrementalMixed", "incrementalFull" })
+    String edit;
+
+    @Param({ "10000", "100000" })
+    int nodes;
+
+    private Kernel kernel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        kernel = Kernel.create("AnalysisKernels", edit, nodes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        kernel.close();
+    }
+
+    @Benchmark
+    public double setValue() {
+        return kernel.run();
+    }
+}
@@ -0,0 +1,28 @@
+package circuitbench;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+// 측정할 연산 하나. Workload와 같은 이유로(앱 클래스는 기본 패키지) 기본 패키지의 *Kernels 클래스가 정적 메서드로 회로를 만들고
+// 이 인터페이스를 돌려준다. 준비 단계에서 한 번만 리플렉션으로 찾으므로 측정 구간은 run() 호출뿐이다.
+public interface Kernel {
+    // 연산 한 번. 돌려준 값은 JMH가 소비해 연산이 지워지지 않게 한다
+    double run();
+
+    // 측정이 끝난 뒤 임시 파일 등을 정리한다
+    default void close() {}
+
+    // owner(기본 패키지 클래스)의 정적 메서드 name(args...)을 불러 연산을 만든다. 이름과 인자 수로 찾는다
+    static Kernel create(String owner, String name, Object... args) {
+        try {
+            for (Method m : Class.forName(owner).getMethods()) {
+                if (m.getName().equals(name) && m.getParameterCount() == args.length) return (Kernel) m.invoke(null, args);
+            }
+            throw new IllegalStateException(owner + "." + name + "(" + args.length + "개 인자)를 찾을 수 없습니다");
+        } catch (InvocationTargetException ex) {
+            throw new IllegalStateException(owner + "." + name + " 준비 실패", ex.getCause());
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(owner + "." + name + "를 찾을 수 없습니다", ex);
+        }
+    }
+}
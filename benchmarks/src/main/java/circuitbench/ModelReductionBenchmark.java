@@ -0,0 +1,52 @@
+package circuitbench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// PRIMA 모델 축소: side x side RC 격자를 차수 order로 줄이기, 축약 모델의 AC 301점/과도, 원래 망의 AC 한 점
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Djava.awt.headless=true", "-Xmx4g" })
+public class ModelReductionBenchmark {
+    @Param({ "reduce", "reducedAc", "reducedTransient", "fullAcPoint" })
+    String step;
+
+    @Param({ "60", "317" })
+    int side;
+
+    @Param({ "40" })
+    int order;
+
+    private Kernel kernel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        kernel = Kernel.create("AnalysisKernels", step, side, order);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        kernel.close();
+    }
+
+    @Benchmark
+    public double run() {
+        return kernel.run();
+    }
+}
@@ -0,0 +1,78 @@
+package circuitbench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// 파형 보기의 LOD: 표본 samples개의 처프 + 단발 스파이크 .wave 파형으로 min/max 피라미드 만들기와,
+// 확대 배율 zoom에서 폭 width 화면 한 장의 열별 M4 계산
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Djava.awt.headless=true", "-Xmx4g" })
+public class WaveformViewBenchmark {
+    @State(Scope.Benchmark)
+    public static class Build {
+        @Param({ "1000000", "10000000" })
+        int samples;
+
+        Kernel kernel;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            kernel = Kernel.create("FileKernels", "pyramidBuild", samples);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            kernel.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class View {
+        @Param({ "1000000", "10000000" })
+        int samples;
+
+        @Param({ "1", "100", "10000" })
+        int zoom;
+
+        @Param({ "1600" })
+        int width;
+
+        Kernel kernel;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            kernel = Kernel.create("FileKernels", "pyramidColumns", samples, zoom, width);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            kernel.close();
+        }
+    }
+
+    @Benchmark
+    public double build(Build state) {
+        return state.kernel.run();
+    }
+
+    @Benchmark
+    public double columns(View state) {
+        return state.kernel.run();
+    }
+}
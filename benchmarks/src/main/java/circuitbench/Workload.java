@@ -0,0 +1,32 @@
+package circuitbench;
+
+// 벤치마크 대상 연산. 앱 클래스는 기본 패키지라 이름 있는 패키지(JMH가 요구)에서 직접 참조할 수 없으므로,
+// 기본 패키지의 EditorWorkload가 이 인터페이스를 구현하고 준비 단계에서 한 번만 리플렉션으로 만든다.
+// 측정 구간은 인터페이스 호출뿐이다.
+public interface Workload {
+    // 소자 약 elements개짜리 RC 사다리 회로로 편집기를 채운다
+    void build(int elements);
+
+    // 기존 노드에 걸치는 저항 하나를 추가했다가 삭제 (모델 새 버전, 노드 표, 공간 인덱스)
+    long addAndRemove();
+
+    // 병렬 그룹 검출 (CircuitEditor.computeParallelGroups)
+    int parallelGroups();
+
+    // probe번째 클릭 위치에서 선택 적중 검사 (mousePressed). 절반은 소자 위, 절반은 빈 곳
+    boolean hitTest(int probe);
+
+    // 화면 크기(1200x700) 영역을 오프스크린 이미지에 그리기 (paintComponent)
+    int paint();
+
+    // 전체 해석 (DC 동작점, 등가 저항 축약, 과도, AC)
+    double analyze();
+
+    static Workload create() {
+        try {
+            return (Workload) Class.forName("EditorWorkload").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("EditorWorkload를 찾을 수 없습니다", ex);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// AnalysisMetrics 기록을 JFR 이벤트로 낸다. jdk.jfr는 --release 8에 없으므로 이 폴더만 JDK 11 대상으로 따로 빌드하고
+// (app 모듈의 compile-jfr 실행, 또는 javac -d out *.java jfr/*.java), AnalysisMetrics가 있으면 리플렉션으로 올린다.
+//   java -XX:StartFlightRecording=filename=circuit.jfr -Dcircuit.metrics=true -jar app/target/circuitsolver-1.0-SNAPSHOT.jar
+final class AnalysisJfr implements AnalysisMetrics.Sink {
+    @Name("circuit.AnalysisPhase")
+    @Label("Circuit Analysis Phase")
+    @Category("Circuit Solver")
+    @Description("해석 단계 하나 (넷리스트 구성, 행렬 조립, LU 분해, 풀이 등)")
+    @StackTrace(false)
+    static final class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Name("circuit.Analysis")
+    @Label("Circuit Analysis")
+    @Category("Circuit Solver")
+    @Description("해석 한 번의 규모와 비용")
+    @StackTrace(false)
+    static final class AnalysisEvent extends Event {
+        @Label("Elements")
+        int elements;
+
+        @Label("Nodes")
+        int nodes;
+
+        @Label("Unknowns")
+        int unknowns;
+
+        @Label("Matrix Nonzeros")
+        long nnz;
+
+        @Label("LU Nonzeros")
+        long luNnz;
+
+        @Label("Fill-in Ratio")
+        double fillIn;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Override
+    public void phase(AnalysisMetrics.Phase phase, long nanos) {
+        PhaseEvent e = new PhaseEvent();
+        if (!e.isEnabled()) return;
+        e.phase = phase.label;
+        e.elapsed = nanos;
+        e.commit();
+    }
+
+    @Override
+    public void analysis(AnalysisMetrics.Report r) {
+        AnalysisEvent e = new AnalysisEvent();
+        if (!e.isEnabled()) return;
+        e.elements = r.elements;
+        e.nodes = r.nodes;
+        e.unknowns = r.unknowns;
+        e.nnz = r.nnz;
+        e.luNnz = r.luNnz;
+        e.fillIn = r.fillIn();
+        e.allocated = r.allocatedBytes;
+        e.elapsed = r.totalNanos;
+        e.commit();
+    }
+}